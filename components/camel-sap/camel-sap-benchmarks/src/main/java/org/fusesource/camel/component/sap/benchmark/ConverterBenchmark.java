@@ -0,0 +1,171 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.io.UnsupportedEncodingException;
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.camel.component.sap.converter.DocumentConverter;
+import org.fusesource.camel.component.sap.converter.DocumentListConverter;
+import org.fusesource.camel.component.sap.converter.StructureConverter;
+import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.model.idoc.impl.DocumentImpl;
+import org.fusesource.camel.component.sap.model.idoc.impl.DocumentListImpl;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.model.rfc.impl.StructureImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the structure, document and document list type converters.
+ * <p>
+ * The structure holds a table of <code>size</code> rows and the document
+ * list <code>size / 100</code> documents (at least one) of one hundred items
+ * each.
+ * <p>
+ * The setup prints the sizes of the XML and binary encodings of each object
+ * to the output of the benchmark's fork, since they are not timings and JMH
+ * auxiliary counters would report them as rates.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ConverterBenchmark {
+
+	private static final int ITEMS = 100;
+
+	@Param({ "10", "1000", "10000" })
+	public int size;
+
+	private StructureImpl structure;
+
+	private String structureString;
+
+	private byte[] structureBytes;
+
+	private DocumentImpl document;
+
+	private String documentString;
+
+	private byte[] documentBytes;
+
+	private DocumentListImpl documentList;
+
+	private String documentListString;
+
+	private byte[] documentListBytes;
+
+	@Setup
+	public void setUp() throws UnsupportedEncodingException {
+		structure = (StructureImpl) new RfcFixture().createRequest(size);
+		structureString = StructureConverter.toString(structure);
+		structureBytes = StructureConverter.toByteArray(structure);
+
+		documentList = (DocumentListImpl) new IDocFixture().createDocumentList(Math.max(1, size / ITEMS), ITEMS, 2);
+		documentListString = DocumentListConverter.toString(documentList);
+		documentListBytes = DocumentListConverter.toByteArray(documentList);
+
+		document = (DocumentImpl) documentList.get(0);
+		documentString = DocumentConverter.toString(document);
+		documentBytes = DocumentConverter.toByteArray(document);
+
+		System.out.println("Encoded sizes (size = " + size + "): " + describeSizes("structure", structureString, structureBytes) + ", "
+				+ describeSizes("document", documentString, documentBytes) + ", " + describeSizes("document list", documentListString, documentListBytes));
+	}
+
+	private static String describeSizes(String name, String xml, byte[] binary) throws UnsupportedEncodingException {
+		int xmlSize = xml.getBytes("UTF-8").length;
+		return name + " " + xmlSize + " bytes as XML, " + binary.length + " bytes binary (" + (100L * binary.length / xmlSize) + "%)";
+	}
+
+	@Benchmark
+	public String structureToString() {
+		return StructureConverter.toString(structure);
+	}
+
+	@Benchmark
+	public Structure stringToStructure() {
+		return StructureConverter.toStructure(structureString);
+	}
+
+	@Benchmark
+	public byte[] structureToByteArray() {
+		return StructureConverter.toByteArray(structure);
+	}
+
+	@Benchmark
+	public Structure byteArrayToStructure() {
+		return StructureConverter.toStructure(structureBytes);
+	}
+
+	@Benchmark
+	public String documentToString() {
+		return DocumentConverter.toString(document);
+	}
+
+	@Benchmark
+	public Document stringToDocument() {
+		return DocumentConverter.toDocument(documentString);
+	}
+
+	@Benchmark
+	public byte[] documentToByteArray() {
+		return DocumentConverter.toByteArray(document);
+	}
+
+	@Benchmark
+	public Document byteArrayToDocument() {
+		return DocumentConverter.toDocument(documentBytes);
+	}
+
+	@Benchmark
+	public String documentListToString() {
+		return DocumentListConverter.toString(documentList);
+	}
+
+	@Benchmark
+	public DocumentList stringToDocumentList() {
+		return DocumentListConverter.toDocumentList(documentListString);
+	}
+
+	@Benchmark
+	public byte[] documentListToByteArray() {
+		return DocumentListConverter.toByteArray(documentList);
+	}
+
+	@Benchmark
+	public DocumentList byteArrayToDocumentList() {
+		return DocumentListConverter.toDocumentList(documentListBytes);
+	}
+
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.conn.idoc.IDocDocumentList;
+
+/**
+ * Benchmarks the conversion between IDoc document lists and document lists.
+ * <p>
+ * The lists converted into are created afresh for each invocation.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IDocConversionBenchmark {
+
+	@Param({ "1", "100" })
+	public int documents;
+
+	@Param({ "10", "500" })
+	public int items;
+
+	@Param({ "2" })
+	public int texts;
+
+	private IDocFixture fixture;
+
+	private IDocDocumentList idocDocumentList;
+
+	private DocumentList documentList;
+
+	private IDocDocumentList emptyIDocDocumentList;
+
+	private DocumentList emptyDocumentList;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		fixture = new IDocFixture();
+		idocDocumentList = fixture.createIDocDocumentList(documents, items, texts);
+		documentList = fixture.createDocumentList(documents, items, texts);
+	}
+
+	@Setup(Level.Invocation)
+	public void setUpTargets() {
+		emptyIDocDocumentList = fixture.createEmptyIDocDocumentList();
+		emptyDocumentList = fixture.createEmptyDocumentList();
+	}
+
+	@Benchmark
+	public DocumentList extractIDocDocumentListIntoDocumentList() {
+		IDocUtil.extractIDocDocumentListIntoDocumentList(idocDocumentList, emptyDocumentList);
+		return emptyDocumentList;
+	}
+
+	@Benchmark
+	public IDocDocumentList fillIDocDocumentListFromDocumentList() throws Exception {
+		IDocUtil.fillIDocDocumentListFromDocumentList(documentList, emptyIDocDocumentList);
+		return emptyIDocDocumentList;
+	}
+
+}
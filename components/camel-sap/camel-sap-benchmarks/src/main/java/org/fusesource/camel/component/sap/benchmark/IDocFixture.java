@@ -0,0 +1,448 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.model.idoc.IdocPackage;
+import org.fusesource.camel.component.sap.model.idoc.Segment;
+import org.fusesource.camel.component.sap.simulator.StandIn;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+
+import com.sap.conn.idoc.IDocDatatype;
+import com.sap.conn.idoc.IDocDocument;
+import com.sap.conn.idoc.IDocDocumentIterator;
+import com.sap.conn.idoc.IDocDocumentList;
+import com.sap.conn.idoc.IDocRecordMetaData;
+import com.sap.conn.idoc.IDocRepository;
+import com.sap.conn.idoc.IDocSegment;
+import com.sap.conn.idoc.IDocSegmentMetaData;
+
+/**
+ * IDoc type used by the IDoc benchmarks.
+ * <p>
+ * Each document of the IDoc type holds a header segment and a configurable
+ * number of item segments, each holding a configurable number of item text
+ * segments. Every segment other than the root holds twenty character fields.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class IDocFixture {
+
+	public static final String REPOSITORY_NAME = "BENCHMARK_REPOSITORY";
+	public static final String IDOC_TYPE = "ZBENCHMARK01";
+	public static final String IDOC_TYPE_EXTENSION = "";
+	public static final String SYSTEM_RELEASE = "700";
+	public static final String APPLICATION_RELEASE = "";
+
+	public static final String ROOT = "ROOT";
+	public static final String HEADER = "E1HEADER";
+	public static final String ITEM = "E1ITEM";
+	public static final String ITEM_TEXT = "E1ITEMTEXT";
+
+	private static final int NUM_FIELDS = 20;
+	private static final int FIELD_LENGTH = 20;
+
+	private static final String[] FIELD_NAMES = new String[NUM_FIELDS];
+	private static final String[] FIELD_VALUES = new String[NUM_FIELDS];
+	static {
+		for (int i = 0; i < NUM_FIELDS; i++) {
+			FIELD_NAMES[i] = "FIELD" + i;
+			FIELD_VALUES[i] = "FIELD" + i + "_VALUE";
+		}
+	}
+
+	private final IDocRepository repository;
+
+	public IDocFixture() {
+		IDocSegmentMetaData itemText = createSegmentMetaData(ITEM_TEXT, 3, NUM_FIELDS, 0, 99);
+		IDocSegmentMetaData item = createSegmentMetaData(ITEM, 2, NUM_FIELDS, 0, 9999, itemText);
+		IDocSegmentMetaData header = createSegmentMetaData(HEADER, 2, NUM_FIELDS, 1, 1);
+		final IDocSegmentMetaData root = createSegmentMetaData(ROOT, 1, 0, 1, 1, header, item);
+
+		repository = StandIn.create(IDocRepository.class, new StandIn(REPOSITORY_NAME) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getName":
+					return REPOSITORY_NAME;
+				case "getRootSegmentMetaData":
+					return IDOC_TYPE.equals(args[0]) ? root : null;
+				case "getIDocCompoundType":
+					return IDOC_TYPE;
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	public IDocRepository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * Returns the namespace URI of the package of the IDoc type.
+	 */
+	public String getNsURI() {
+		return IdocPackage.eNS_URI + "/" + REPOSITORY_NAME + "/" + IDOC_TYPE + "/" + IDOC_TYPE_EXTENSION + "/" + SYSTEM_RELEASE + "/"
+				+ APPLICATION_RELEASE;
+	}
+
+	/**
+	 * Creates an empty document list of the IDoc type.
+	 */
+	public DocumentList createEmptyDocumentList() {
+		return IDocUtil.createDocumentList(repository, IDOC_TYPE, IDOC_TYPE_EXTENSION, SYSTEM_RELEASE, APPLICATION_RELEASE);
+	}
+
+	/**
+	 * Creates a document list of <code>numDocuments</code> documents, each
+	 * holding <code>numItems</code> items of <code>numTexts</code> texts.
+	 */
+	public DocumentList createDocumentList(int numDocuments, int numItems, int numTexts) {
+		DocumentList documentList = createEmptyDocumentList();
+		for (int d = 0; d < numDocuments; d++) {
+			Document document = documentList.add();
+			document.setClient("800");
+			document.setIDocNumber(Integer.toString(d));
+			document.setIDocType(IDOC_TYPE);
+			document.setMessageType("ZBENCHMARK");
+			document.setSenderPort("SAPBEN");
+			document.setRecipientPort("CAMEL");
+
+			Segment rootSegment = document.getRootSegment();
+			populate(rootSegment.getChildren(HEADER).add());
+			for (int i = 0; i < numItems; i++) {
+				Segment item = rootSegment.getChildren(ITEM).add();
+				populate(item);
+				for (int t = 0; t < numTexts; t++) {
+					populate(item.getChildren(ITEM_TEXT).add());
+				}
+			}
+		}
+		return documentList;
+	}
+
+	/**
+	 * Creates an empty IDoc document list.
+	 */
+	public IDocDocumentList createEmptyIDocDocumentList() {
+		return StandIn.create(IDocDocumentList.class, new DocumentListStandIn());
+	}
+
+	/**
+	 * Creates an IDoc document list of <code>numDocuments</code> documents,
+	 * each holding <code>numItems</code> items of <code>numTexts</code>
+	 * texts.
+	 */
+	public IDocDocumentList createIDocDocumentList(int numDocuments, int numItems, int numTexts) {
+		DocumentListStandIn standIn = new DocumentListStandIn();
+		for (int d = 0; d < numDocuments; d++) {
+			DocumentStandIn document = standIn.addNew();
+			document.properties.put("Client", "800");
+			document.properties.put("IDocNumber", Integer.toString(d));
+			document.properties.put("IDocType", IDOC_TYPE);
+			document.properties.put("MessageType", "ZBENCHMARK");
+			document.properties.put("SenderPort", "SAPBEN");
+			document.properties.put("RecipientPort", "CAMEL");
+
+			SegmentStandIn rootSegment = document.rootSegment;
+			rootSegment.addChild(HEADER).populate();
+			for (int i = 0; i < numItems; i++) {
+				SegmentStandIn item = rootSegment.addChild(ITEM);
+				item.populate();
+				for (int t = 0; t < numTexts; t++) {
+					item.addChild(ITEM_TEXT).populate();
+				}
+			}
+		}
+		return StandIn.create(IDocDocumentList.class, standIn);
+	}
+
+	private static void populate(Segment segment) {
+		for (int i = 0; i < NUM_FIELDS; i++) {
+			segment.put(FIELD_NAMES[i], FIELD_VALUES[i]);
+		}
+	}
+
+	private static IDocSegmentMetaData createSegmentMetaData(final String type, final int hierarchyLevel, int numFields, final long minOccurrence,
+			final long maxOccurrence, final IDocSegmentMetaData... children) {
+		final IDocRecordMetaData recordMetaData = StandIn.create(IDocRecordMetaData.class, new RecordMetaDataStandIn(type, numFields));
+		return StandIn.create(IDocSegmentMetaData.class, new StandIn(type) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getRecordMetaData":
+					return recordMetaData;
+				case "getType":
+				case "getName":
+				case "getDefinition":
+				case "getDescription":
+					return type;
+				case "getKey":
+					return type + "_KEY";
+				case "getHierarchyLevel":
+					return hierarchyLevel;
+				case "getIDocType":
+					return IDOC_TYPE;
+				case "getIDocTypeExtension":
+					return IDOC_TYPE_EXTENSION;
+				case "getSystemRelease":
+					return SYSTEM_RELEASE;
+				case "getApplicationRelease":
+					return APPLICATION_RELEASE;
+				case "getMinOccurrence":
+					return minOccurrence;
+				case "getMaxOccurrence":
+					return maxOccurrence;
+				case "isMandatory":
+					return minOccurrence > 0;
+				case "getChildren":
+					return children;
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stand-in for {@link IDocRecordMetaData}: <code>numFields</code>
+	 * character fields of equal length.
+	 */
+	private static class RecordMetaDataStandIn extends StandIn {
+
+		private final String name;
+
+		private final int numFields;
+
+		RecordMetaDataStandIn(String name, int numFields) {
+			super(name);
+			this.name = name;
+			this.numFields = numFields;
+		}
+
+		@Override
+		protected Object invoke(String methodName, Object[] args) {
+			if (args.length == 0) {
+				switch (methodName) {
+				case "getName":
+					return name;
+				case "getNumFields":
+					return numFields;
+				case "getRecordLength":
+					return numFields * FIELD_LENGTH;
+				default:
+					return UNHANDLED;
+				}
+			}
+
+			int index = (Integer) args[0];
+			switch (methodName) {
+			case "getName":
+			case "getDescription":
+			case "getDataElementName":
+				return FIELD_NAMES[index];
+			case "getType":
+				return IDocRecordMetaData.TYPE_CHAR;
+			case "getTypeAsString":
+				return "CHAR";
+			case "getDatatype":
+				return IDocDatatype.STRING;
+			case "getDataTypeName":
+				return "CHAR";
+			case "getLength":
+			case "getInternalLength":
+			case "getOutputLength":
+				return FIELD_LENGTH;
+			case "getOffset":
+				return index * FIELD_LENGTH;
+			default:
+				return UNHANDLED;
+			}
+		}
+	}
+
+	/**
+	 * Stand-in for {@link IDocDocumentList}.
+	 */
+	private static class DocumentListStandIn extends StandIn {
+
+		private final List<IDocDocument> documents = new ArrayList<IDocDocument>();
+
+		DocumentListStandIn() {
+			super(IDOC_TYPE);
+		}
+
+		DocumentStandIn addNew() {
+			DocumentStandIn document = new DocumentStandIn();
+			documents.add(StandIn.create(IDocDocument.class, document));
+			return document;
+		}
+
+		@Override
+		protected Object invoke(String methodName, Object[] args) {
+			switch (methodName) {
+			case "addNew":
+				addNew();
+				return documents.get(documents.size() - 1);
+			case "get":
+				return documents.get((Integer) args[0]);
+			case "size":
+			case "getNumDocuments":
+				return documents.size();
+			case "getIDocType":
+				return IDOC_TYPE;
+			case "getIDocTypeExtension":
+				return IDOC_TYPE_EXTENSION;
+			case "iterator":
+				return StandIn.create(IDocDocumentIterator.class, new StandIn(IDOC_TYPE) {
+					private int next;
+
+					@Override
+					protected Object invoke(String methodName, Object[] args) {
+						switch (methodName) {
+						case "hasNext":
+							return next < documents.size();
+						case "next":
+							return documents.get(next++);
+						default:
+							return UNHANDLED;
+						}
+					}
+				});
+			default:
+				return UNHANDLED;
+			}
+		}
+	}
+
+	/**
+	 * Stand-in for {@link IDocDocument}. Control record fields are held in a
+	 * map keyed by property name.
+	 */
+	private static class DocumentStandIn extends StandIn {
+
+		final Map<String, Object> properties = new HashMap<String, Object>();
+
+		final SegmentStandIn rootSegment = new SegmentStandIn(ROOT);
+
+		private final IDocSegment rootSegmentProxy = StandIn.create(IDocSegment.class, rootSegment);
+
+		DocumentStandIn() {
+			super(IDOC_TYPE);
+		}
+
+		@Override
+		protected Object invoke(String methodName, Object[] args) {
+			if ("getRootSegment".equals(methodName)) {
+				return rootSegmentProxy;
+			} else if (methodName.startsWith("get") && args.length == 0) {
+				return properties.get(methodName.substring(3));
+			} else if (methodName.startsWith("set") && args.length == 1) {
+				properties.put(methodName.substring(3), args[0]);
+				return null;
+			}
+			return UNHANDLED;
+		}
+	}
+
+	/**
+	 * Stand-in for {@link IDocSegment}.
+	 */
+	private static class SegmentStandIn extends StandIn {
+
+		private static final IDocSegment[] NO_SEGMENTS = new IDocSegment[0];
+
+		private final String type;
+
+		private final Map<String, Object> values = new HashMap<String, Object>();
+
+		private final Map<String, List<IDocSegment>> children = new LinkedHashMap<String, List<IDocSegment>>();
+
+		SegmentStandIn(String type) {
+			super(type);
+			this.type = type;
+		}
+
+		void populate() {
+			for (int i = 0; i < NUM_FIELDS; i++) {
+				values.put(FIELD_NAMES[i], FIELD_VALUES[i]);
+			}
+		}
+
+		SegmentStandIn addChild(String childType) {
+			SegmentStandIn child = new SegmentStandIn(childType);
+			List<IDocSegment> segments = children.get(childType);
+			if (segments == null) {
+				segments = new ArrayList<IDocSegment>();
+				children.put(childType, segments);
+			}
+			segments.add(StandIn.create(IDocSegment.class, child));
+			return child;
+		}
+
+		@Override
+		protected Object invoke(String methodName, Object[] args) {
+			switch (methodName) {
+			case "getType":
+			case "getDefinition":
+				return type;
+			case "getValue":
+			case "getString":
+				if (args.length == 1) {
+					return values.get(fieldName(args[0]));
+				}
+				return UNHANDLED;
+			case "setValue":
+				if (args.length == 2) {
+					values.put(fieldName(args[0]), args[1]);
+					return null;
+				}
+				return UNHANDLED;
+			case "addChild":
+				addChild((String) args[0]);
+				List<IDocSegment> segments = children.get(args[0]);
+				return segments.get(segments.size() - 1);
+			case "getChildren":
+				if (args.length == 1) {
+					List<IDocSegment> typeSegments = children.get(args[0]);
+					return typeSegments == null ? NO_SEGMENTS : typeSegments.toArray(NO_SEGMENTS);
+				}
+				return UNHANDLED;
+			default:
+				return UNHANDLED;
+			}
+		}
+
+		private static String fieldName(Object field) {
+			if (field instanceof Integer) {
+				return FIELD_NAMES[(Integer) field];
+			}
+			return (String) field;
+		}
+	}
+
+}
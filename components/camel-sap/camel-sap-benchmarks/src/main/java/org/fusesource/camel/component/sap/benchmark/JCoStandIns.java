@@ -0,0 +1,368 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.fusesource.camel.component.sap.simulator.StandIn;
+
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.JCoFunctionTemplate;
+import com.sap.conn.jco.JCoListMetaData;
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoParameterList;
+import com.sap.conn.jco.JCoRecordMetaData;
+import com.sap.conn.jco.JCoRepository;
+import com.sap.conn.jco.JCoStructure;
+import com.sap.conn.jco.JCoTable;
+
+/**
+ * Factory of in-memory stand-ins for JCo meta-data, records, tables,
+ * functions and repositories.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public final class JCoStandIns {
+
+	private JCoStandIns() {
+	}
+
+	/**
+	 * Describes a field of a record or parameter list.
+	 */
+	public static class Field {
+
+		final String name;
+		final int type;
+		final String typeAsString;
+		final String className;
+		final int length;
+		final int decimals;
+		final JCoRecordMetaData recordMetaData;
+
+		public Field(String name, int type, String typeAsString, Class<?> fieldClass, int length, int decimals) {
+			this(name, type, typeAsString, fieldClass.getName(), length, decimals, null);
+		}
+
+		public Field(String name, int type, JCoRecordMetaData recordMetaData) {
+			this(name, type, type == JCoMetaData.TYPE_TABLE ? "TABLE" : "STRUCTURE", null, 0, 0, recordMetaData);
+		}
+
+		private Field(String name, int type, String typeAsString, String className, int length, int decimals, JCoRecordMetaData recordMetaData) {
+			this.name = name;
+			this.type = type;
+			this.typeAsString = typeAsString;
+			this.className = className;
+			this.length = length;
+			this.decimals = decimals;
+			this.recordMetaData = recordMetaData;
+		}
+	}
+
+	public static JCoRecordMetaData createRecordMetaData(String name, Field... fields) {
+		return StandIn.create(JCoRecordMetaData.class, new MetaDataStandIn(name, fields));
+	}
+
+	public static JCoListMetaData createListMetaData(String name, Field... fields) {
+		return StandIn.create(JCoListMetaData.class, new MetaDataStandIn(name, fields));
+	}
+
+	/**
+	 * Creates a structure with the field values <code>values</code>.
+	 */
+	public static JCoStructure createStructure(JCoRecordMetaData metaData, Object... values) {
+		RecordStandIn standIn = new RecordStandIn(metaData);
+		standIn.rows.add(values.clone());
+		return StandIn.create(JCoStructure.class, standIn);
+	}
+
+	/**
+	 * Creates a table with <code>numRows</code> rows, each with the field
+	 * values <code>values</code>.
+	 */
+	public static JCoTable createTable(JCoRecordMetaData metaData, int numRows, Object... values) {
+		RecordStandIn standIn = new RecordStandIn(metaData);
+		for (int i = 0; i < numRows; i++) {
+			standIn.rows.add(values.clone());
+		}
+		return StandIn.create(JCoTable.class, standIn);
+	}
+
+	/**
+	 * Creates a parameter list with the field values <code>values</code>.
+	 */
+	public static JCoParameterList createParameterList(JCoListMetaData metaData, Object... values) {
+		RecordStandIn standIn = new RecordStandIn(metaData);
+		standIn.rows.add(values.clone());
+		return StandIn.create(JCoParameterList.class, standIn);
+	}
+
+	public static JCoFunctionTemplate createFunctionTemplate(final String name, final JCoListMetaData importList, final JCoListMetaData changingList, final JCoListMetaData tableList, final JCoListMetaData exportList) {
+		return StandIn.create(JCoFunctionTemplate.class, new StandIn(name) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getName":
+					return name;
+				case "getImportParameterList":
+					return importList;
+				case "getChangingParameterList":
+					return changingList;
+				case "getTableParameterList":
+					return tableList;
+				case "getExportParameterList":
+					return exportList;
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	public static JCoFunction createFunction(final String name, final JCoParameterList importList, final JCoParameterList changingList, final JCoParameterList tableList, final JCoParameterList exportList) {
+		return StandIn.create(JCoFunction.class, new StandIn(name) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getName":
+					return name;
+				case "getImportParameterList":
+					return importList;
+				case "getChangingParameterList":
+					return changingList;
+				case "getTableParameterList":
+					return tableList;
+				case "getExportParameterList":
+					return exportList;
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	public static JCoRepository createRepository(final String name, final Map<String, JCoFunctionTemplate> functionTemplates) {
+		return StandIn.create(JCoRepository.class, new StandIn(name) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getName":
+					return name;
+				case "getFunctionTemplate":
+					return functionTemplates.get(args[0]);
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stand-in for {@link JCoRecordMetaData} and {@link JCoListMetaData}.
+	 */
+	private static class MetaDataStandIn extends StandIn {
+
+		private final String name;
+
+		private final Field[] fields;
+
+		private final int[] offsets;
+
+		private final int recordLength;
+
+		MetaDataStandIn(String name, Field[] fields) {
+			super(name);
+			this.name = name;
+			this.fields = fields;
+			this.offsets = new int[fields.length];
+			int offset = 0;
+			for (int i = 0; i < fields.length; i++) {
+				offsets[i] = offset;
+				offset += fields[i].length;
+			}
+			this.recordLength = offset;
+		}
+
+		@Override
+		protected Object invoke(String methodName, Object[] args) {
+			if (args.length == 0) {
+				switch (methodName) {
+				case "getName":
+				case "getRecordTypeName":
+					return name;
+				case "getFieldCount":
+					return fields.length;
+				case "getRecordLength":
+					return recordLength;
+				case "getUnicodeRecordLength":
+					return 2 * recordLength;
+				default:
+					return UNHANDLED;
+				}
+			}
+			if (args.length == 1 && args[0] instanceof String) {
+				if ("indexOf".equals(methodName)) {
+					for (int i = 0; i < fields.length; i++) {
+						if (fields[i].name.equals(args[0])) {
+							return i;
+						}
+					}
+					return -1;
+				}
+				return UNHANDLED;
+			}
+			if (args.length != 1 || !(args[0] instanceof Integer)) {
+				return UNHANDLED;
+			}
+
+			int index = (Integer) args[0];
+			Field field = fields[index];
+			switch (methodName) {
+			case "getName":
+			case "getDescription":
+				return field.name;
+			case "getType":
+				return field.type;
+			case "getTypeAsString":
+				return field.typeAsString;
+			case "getClassNameOfField":
+				return field.className;
+			case "getRecordTypeName":
+				return field.recordMetaData != null ? field.recordMetaData.getName() : field.typeAsString;
+			case "getRecordMetaData":
+				return field.recordMetaData;
+			case "getLength":
+			case "getByteLength":
+				return field.length;
+			case "getUnicodeByteLength":
+				return 2 * field.length;
+			case "getByteOffset":
+				return offsets[index];
+			case "getUnicodeByteOffset":
+				return 2 * offsets[index];
+			case "getDecimals":
+				return field.decimals;
+			case "isStructure":
+				return field.type == JCoMetaData.TYPE_STRUCTURE;
+			case "isTable":
+				return field.type == JCoMetaData.TYPE_TABLE;
+			case "isImport":
+			case "isExport":
+			case "isChanging":
+				return true;
+			default:
+				return UNHANDLED;
+			}
+		}
+	}
+
+	/**
+	 * Stand-in for {@link JCoStructure}, {@link JCoTable} and
+	 * {@link JCoParameterList}. Holds the field values of each row in an
+	 * array.
+	 */
+	private static class RecordStandIn extends StandIn {
+
+		private final JCoMetaData metaData;
+
+		private final int fieldCount;
+
+		final List<Object[]> rows = new ArrayList<Object[]>();
+
+		private int row;
+
+		RecordStandIn(JCoMetaData metaData) {
+			super(metaData.getName());
+			this.metaData = metaData;
+			this.fieldCount = metaData.getFieldCount();
+		}
+
+		@Override
+		protected Object invoke(String methodName, Object[] args) {
+			switch (methodName) {
+			case "getMetaData":
+			case "getRecordMetaData":
+			case "getListMetaData":
+				return metaData;
+			case "getFieldCount":
+			case "getNumColumns":
+				return fieldCount;
+			case "getNumRows":
+				return rows.size();
+			case "isEmpty":
+				return rows.isEmpty();
+			case "getRow":
+				return row;
+			case "setRow":
+				row = (Integer) args[0];
+				return null;
+			case "firstRow":
+				row = 0;
+				return null;
+			case "nextRow":
+				return ++row < rows.size();
+			case "appendRow":
+				rows.add(new Object[fieldCount]);
+				row = rows.size() - 1;
+				return null;
+			case "appendRows":
+				for (int i = 0; i < (Integer) args[0]; i++) {
+					rows.add(new Object[fieldCount]);
+				}
+				row = rows.size() - 1;
+				return null;
+			case "clear":
+			case "deleteAllRows":
+				rows.clear();
+				row = 0;
+				return null;
+			case "setValue":
+				if (args.length == 2) {
+					rows.get(row)[index(args[0])] = args[1];
+					return null;
+				}
+				return UNHANDLED;
+			case "getValue":
+			case "getString":
+			case "getInt":
+			case "getDouble":
+			case "getBigDecimal":
+			case "getDate":
+			case "getByteArray":
+			case "getStructure":
+			case "getTable":
+				if (args.length == 1) {
+					return rows.get(row)[index(args[0])];
+				}
+				return UNHANDLED;
+			default:
+				return UNHANDLED;
+			}
+		}
+
+		private int index(Object field) {
+			if (field instanceof Integer) {
+				return (Integer) field;
+			}
+			return metaData.indexOf((String) field);
+		}
+	}
+
+}
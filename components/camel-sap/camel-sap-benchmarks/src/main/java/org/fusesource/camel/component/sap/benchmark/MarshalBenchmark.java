@@ -0,0 +1,103 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.BinaryUtil;
+import org.fusesource.camel.component.sap.util.JsonUtil;
+import org.fusesource.camel.component.sap.util.Util;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks marshalling and unmarshalling a request in the XML, binary and
+ * JSON encodings.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MarshalBenchmark {
+
+	@Param({ "10", "1000", "10000" })
+	public int rows;
+
+	private Structure request;
+
+	private String xml;
+
+	private byte[] binary;
+
+	private String json;
+
+	@Setup
+	public void setUp() throws IOException {
+		request = new RfcFixture().createRequest(rows);
+		xml = Util.marshal(request);
+		binary = BinaryUtil.marshal(request);
+		json = JsonUtil.marshal(request);
+	}
+
+	@Benchmark
+	public String marshalXml() throws IOException {
+		return Util.marshal(request);
+	}
+
+	@Benchmark
+	public EObject unmarshalXml() throws IOException {
+		return Util.unmarshal(xml);
+	}
+
+	@Benchmark
+	public byte[] marshalBinary() throws IOException {
+		return BinaryUtil.marshal(request);
+	}
+
+	@Benchmark
+	public EObject unmarshalBinary() throws IOException {
+		return BinaryUtil.unmarshal(binary);
+	}
+
+	@Benchmark
+	public String marshalJson() throws IOException {
+		return JsonUtil.marshal(request);
+	}
+
+	@Benchmark
+	public EObject unmarshalJson() throws IOException {
+		return JsonUtil.unmarshal(json);
+	}
+
+}
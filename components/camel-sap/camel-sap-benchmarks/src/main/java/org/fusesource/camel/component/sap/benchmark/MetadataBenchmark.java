@@ -0,0 +1,86 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building and looking up the packages describing function
+ * modules and IDoc types.
+ * <p>
+ * The build benchmarks remove the package from the meta-data cache before
+ * getting it, so they measure the walk of the repository meta-data and the
+ * construction of the package.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MetadataBenchmark {
+
+	private RfcFixture rfcFixture;
+
+	private IDocFixture idocFixture;
+
+	@Setup
+	public void setUp() {
+		rfcFixture = new RfcFixture();
+		idocFixture = new IDocFixture();
+	}
+
+	@Benchmark
+	public EPackage buildRfcEPackage() {
+		RfcUtil.getMetadataCache().remove(rfcFixture.getNsURI());
+		return RfcUtil.getEPackage(rfcFixture.getRepository(), rfcFixture.getNsURI());
+	}
+
+	@Benchmark
+	public EPackage lookupRfcEPackage() {
+		return RfcUtil.getEPackage(rfcFixture.getRepository(), rfcFixture.getNsURI());
+	}
+
+	@Benchmark
+	public EPackage buildIDocEPackage() {
+		IDocUtil.getMetadataCache().remove(idocFixture.getNsURI());
+		return IDocUtil.getEPackage(idocFixture.getRepository(), idocFixture.getNsURI());
+	}
+
+	@Benchmark
+	public EPackage lookupIDocEPackage() {
+		return IDocUtil.getEPackage(idocFixture.getRepository(), idocFixture.getNsURI());
+	}
+
+}
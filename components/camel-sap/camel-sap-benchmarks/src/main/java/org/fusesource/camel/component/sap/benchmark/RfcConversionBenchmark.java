@@ -0,0 +1,128 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.model.rfc.Table;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.JCoTable;
+
+/**
+ * Benchmarks the conversion between JCo functions and tables and request,
+ * response and table objects.
+ * <p>
+ * The objects converted into are created afresh for each invocation so that
+ * tables do not grow between invocations.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RfcConversionBenchmark {
+
+	@Param({ "10", "1000", "10000" })
+	public int rows;
+
+	private RfcFixture fixture;
+
+	private JCoFunction function;
+
+	private JCoTable jcoTable;
+
+	private Structure request;
+
+	private Table<Structure> table;
+
+	private JCoFunction emptyFunction;
+
+	private JCoTable emptyJCoTable;
+
+	private Structure emptyResponse;
+
+	private Table<Structure> emptyTable;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		fixture = new RfcFixture();
+		function = fixture.createFunction(rows);
+		jcoTable = fixture.createTable(rows);
+		request = fixture.createRequest(rows);
+		table = request.get(RfcFixture.PARAM_LIST_TABLE_PARAM, Table.class);
+	}
+
+	@Setup(Level.Invocation)
+	@SuppressWarnings("unchecked")
+	public void setUpTargets() {
+		emptyFunction = fixture.createEmptyFunction();
+		emptyJCoTable = fixture.createTable(0);
+		emptyResponse = fixture.createResponse();
+		emptyTable = fixture.createResponse().get(RfcFixture.PARAM_LIST_TABLE_PARAM, Table.class);
+	}
+
+	@Benchmark
+	public Structure extractJCoParameterListsIntoResponse() {
+		RfcUtil.extractJCoParameterListsIntoResponse(function, emptyResponse);
+		return emptyResponse;
+	}
+
+	@Benchmark
+	public Structure extractJCoParameterListsIntoResponseLazily() {
+		RfcUtil.extractJCoParameterListsIntoResponse(function, emptyResponse, true);
+		return emptyResponse;
+	}
+
+	@Benchmark
+	public JCoFunction fillJCoParameterListsFromRequest() {
+		RfcUtil.fillJCoParameterListsFromRequest(request, emptyFunction);
+		return emptyFunction;
+	}
+
+	@Benchmark
+	public Table<Structure> extractJCoTableIntoTable() {
+		RfcUtil.extractJCoTableIntoTable(jcoTable, emptyTable);
+		return emptyTable;
+	}
+
+	@Benchmark
+	public JCoTable fillJCoTableFromTable() {
+		RfcUtil.fillJCoTableFromTable(table, emptyJCoTable);
+		return emptyJCoTable;
+	}
+
+}
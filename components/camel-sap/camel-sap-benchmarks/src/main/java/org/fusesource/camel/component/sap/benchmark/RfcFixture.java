@@ -0,0 +1,172 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Date;
+import java.util.GregorianCalendar;
+
+import org.fusesource.camel.component.sap.benchmark.JCoStandIns.Field;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.model.rfc.Table;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.JCoFunctionTemplate;
+import com.sap.conn.jco.JCoListMetaData;
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoRecordMetaData;
+import com.sap.conn.jco.JCoRepository;
+import com.sap.conn.jco.JCoTable;
+
+/**
+ * Function module used by the RFC benchmarks.
+ * <p>
+ * The function module has the same shape as the one used by the component's
+ * unit tests: an import and an export parameter list of ten scalar
+ * parameters, one of each JCo type, a changing parameter list holding a
+ * structure of the same ten fields and a table parameter list holding a table
+ * of that structure.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class RfcFixture {
+
+	public static final String REPOSITORY_NAME = "BENCHMARK_REPOSITORY";
+	public static final String FUNCTION_MODULE_NAME = "BENCHMARK_FUNCTION_MODULE";
+	public static final String STRUCTURE_TYPE_NAME = "ZSTRUCTURE";
+
+	public static final String PARAM_LIST_STRUCTURE_PARAM = "PARAM_LIST_STRUCTURE_PARAM";
+	public static final String PARAM_LIST_TABLE_PARAM = "PARAM_LIST_TABLE_PARAM";
+
+	private static final String[] PARAM_NAMES = { "CHAR_PARAM", "NUM_PARAM", "INT_PARAM", "FLOAT_PARAM", "BCD_PARAM", "BINARY_PARAM",
+			"BINARY_ARRAY_PARAM", "DATE_PARAM", "TIME_PARAM", "STRING_PARAM" };
+
+	private static final Object[] PARAM_VALUES = { "ABCDEFGHIJ", "0123456789", 0x75555555, Math.pow(10, 38),
+			new BigDecimal("100.00000000000001"), new byte[] { (byte) 0x55 },
+			new byte[] { (byte) 0xFF, (byte) 0x0F, (byte) 0x1E, (byte) 0x2D, (byte) 0x3C, (byte) 0x4B, (byte) 0x5A, (byte) 0x60, (byte) 0x79, (byte) 0x88 },
+			new GregorianCalendar(1861, 03, 12).getTime(), new GregorianCalendar(1970, 0, 1, 12, 15, 30).getTime(), "Four score and seven years ago ..." };
+
+	private final JCoRecordMetaData structureMetaData;
+	private final JCoListMetaData importListMetaData;
+	private final JCoListMetaData changingListMetaData;
+	private final JCoListMetaData tableListMetaData;
+	private final JCoListMetaData exportListMetaData;
+	private final JCoRepository repository;
+
+	public RfcFixture() {
+		structureMetaData = JCoStandIns.createRecordMetaData(STRUCTURE_TYPE_NAME, createScalarFields(""));
+		importListMetaData = JCoStandIns.createListMetaData("IMPORT", createScalarFields("PARAM_LIST_"));
+		changingListMetaData = JCoStandIns.createListMetaData("CHANGING", new Field(PARAM_LIST_STRUCTURE_PARAM, JCoMetaData.TYPE_STRUCTURE, structureMetaData));
+		tableListMetaData = JCoStandIns.createListMetaData("TABLES", new Field(PARAM_LIST_TABLE_PARAM, JCoMetaData.TYPE_TABLE, structureMetaData));
+		exportListMetaData = JCoStandIns.createListMetaData("EXPORT", createScalarFields("PARAM_LIST_"));
+
+		JCoFunctionTemplate functionTemplate = JCoStandIns.createFunctionTemplate(FUNCTION_MODULE_NAME, importListMetaData, changingListMetaData,
+				tableListMetaData, exportListMetaData);
+		repository = JCoStandIns.createRepository(REPOSITORY_NAME, Collections.singletonMap(FUNCTION_MODULE_NAME, functionTemplate));
+	}
+
+	public JCoRepository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * Returns the namespace URI of the package of the function module.
+	 */
+	public String getNsURI() {
+		return RfcPackage.eNS_URI + "/" + REPOSITORY_NAME + "/" + FUNCTION_MODULE_NAME;
+	}
+
+	/**
+	 * Creates a function whose parameter lists hold values and whose table
+	 * holds <code>numRows</code> rows.
+	 */
+	public JCoFunction createFunction(int numRows) {
+		return JCoStandIns.createFunction(FUNCTION_MODULE_NAME,
+				JCoStandIns.createParameterList(importListMetaData, PARAM_VALUES),
+				JCoStandIns.createParameterList(changingListMetaData, JCoStandIns.createStructure(structureMetaData, PARAM_VALUES)),
+				JCoStandIns.createParameterList(tableListMetaData, createTable(numRows)),
+				JCoStandIns.createParameterList(exportListMetaData, PARAM_VALUES));
+	}
+
+	/**
+	 * Creates a function whose parameter lists hold no values and whose table
+	 * is empty.
+	 */
+	public JCoFunction createEmptyFunction() {
+		return JCoStandIns.createFunction(FUNCTION_MODULE_NAME,
+				JCoStandIns.createParameterList(importListMetaData, new Object[PARAM_VALUES.length]),
+				JCoStandIns.createParameterList(changingListMetaData, JCoStandIns.createStructure(structureMetaData, new Object[PARAM_VALUES.length])),
+				JCoStandIns.createParameterList(tableListMetaData, createTable(0)),
+				JCoStandIns.createParameterList(exportListMetaData, new Object[PARAM_VALUES.length]));
+	}
+
+	/**
+	 * Creates a JCo table of <code>numRows</code> rows.
+	 */
+	public JCoTable createTable(int numRows) {
+		return JCoStandIns.createTable(structureMetaData, numRows, PARAM_VALUES);
+	}
+
+	/**
+	 * Creates a request whose parameters hold values and whose table holds
+	 * <code>numRows</code> rows.
+	 */
+	public Structure createRequest(int numRows) {
+		Structure request = RfcUtil.getRequest(repository, FUNCTION_MODULE_NAME);
+		populate(request, "PARAM_LIST_");
+		populate(request.get(PARAM_LIST_STRUCTURE_PARAM, Structure.class), "");
+
+		@SuppressWarnings("unchecked")
+		Table<Structure> table = request.get(PARAM_LIST_TABLE_PARAM, Table.class);
+		for (int i = 0; i < numRows; i++) {
+			populate(table.add(), "");
+		}
+		return request;
+	}
+
+	/**
+	 * Creates an empty response.
+	 */
+	public Structure createResponse() {
+		return RfcUtil.getResponse(repository, FUNCTION_MODULE_NAME);
+	}
+
+	private static void populate(Structure structure, String prefix) {
+		for (int i = 0; i < PARAM_NAMES.length; i++) {
+			structure.put(prefix + PARAM_NAMES[i], PARAM_VALUES[i]);
+		}
+	}
+
+	private static Field[] createScalarFields(String prefix) {
+		return new Field[] {
+				new Field(prefix + PARAM_NAMES[0], JCoMetaData.TYPE_CHAR, "CHAR", String.class, 10, 0),
+				new Field(prefix + PARAM_NAMES[1], JCoMetaData.TYPE_NUM, "NUM", String.class, 10, 0),
+				new Field(prefix + PARAM_NAMES[2], JCoMetaData.TYPE_INT, "INT", Integer.class, 4, 0),
+				new Field(prefix + PARAM_NAMES[3], JCoMetaData.TYPE_FLOAT, "FLOAT", Double.class, 8, 0),
+				new Field(prefix + PARAM_NAMES[4], JCoMetaData.TYPE_BCD, "BCD", BigDecimal.class, 9, 14),
+				new Field(prefix + PARAM_NAMES[5], JCoMetaData.TYPE_BYTE, "BYTE", byte[].class, 1, 0),
+				new Field(prefix + PARAM_NAMES[6], JCoMetaData.TYPE_BYTE, "BYTE", byte[].class, 10, 0),
+				new Field(prefix + PARAM_NAMES[7], JCoMetaData.TYPE_DATE, "DATE", Date.class, 8, 0),
+				new Field(prefix + PARAM_NAMES[8], JCoMetaData.TYPE_TIME, "TIME", Date.class, 6, 0),
+				new Field(prefix + PARAM_NAMES[9], JCoMetaData.TYPE_STRING, "STRING", String.class, 0, 0) };
+	}
+
+}
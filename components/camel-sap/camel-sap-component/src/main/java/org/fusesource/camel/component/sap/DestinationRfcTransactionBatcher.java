@@ -0,0 +1,297 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sap.conn.jco.JCoDestination;
+
+/**
+ * Collects the items (requests or documents) of exchanges sent to a
+ * destination and sends them to the destination in a single RFC transaction
+ * (LUW).
+ * <p>
+ * A batch of items is sent when it contains <code>batchSize</code> items,
+ * when the estimated size of its items reaches <code>batchBytes</code>, or
+ * when <code>batchTimeout</code> milliseconds have elapsed since its first
+ * item was added, whichever comes first. The items of a batch are sent under
+ * one TID, the TID is confirmed once, and then every exchange of the batch is
+ * completed; if the transaction fails, every exchange of the batch fails with
+ * the cause.
+ * <p>
+ * Batches are sent in the order they are filled: each batch is numbered when
+ * it is taken for sending, and a batch is only sent once every batch taken
+ * before it has been sent, whether it was taken by a route thread or by the
+ * timeout of the scheduler. This keeps the order of qRFC queues.
+ *
+ * @param <T>
+ *            - the type of batched items.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public abstract class DestinationRfcTransactionBatcher<T> {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DestinationRfcTransactionBatcher.class);
+
+	private final JCoDestination destination;
+
+	private final int batchSize;
+
+	private final long batchBytes;
+
+	private final long batchTimeout;
+
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * Serializes the sending of batches in the order they are taken.
+	 */
+	private final Object sendLock = new Object();
+
+	private Batch<T> pending;
+
+	/**
+	 * The number of batches taken for sending; guarded by <code>this</code>.
+	 */
+	private long takenBatches;
+
+	/**
+	 * The number of batches sent; guarded by <code>sendLock</code>.
+	 */
+	private long sentBatches;
+
+	private boolean stopped;
+
+	/**
+	 * Create an RFC transaction batcher for <code>destination</code>.
+	 *
+	 * @param destination
+	 *            - the destination the batched transactions are sent to.
+	 * @param batchSize
+	 *            - the maximum number of items in a transaction.
+	 * @param batchBytes
+	 *            - the estimated size of items in bytes which triggers sending
+	 *            a transaction or <code>0</code> if unlimited.
+	 * @param batchTimeout
+	 *            - the maximum number of milliseconds an item waits for its
+	 *            batch to fill.
+	 * @param scheduler
+	 *            - the scheduler sending batches which time out.
+	 */
+	public DestinationRfcTransactionBatcher(JCoDestination destination, int batchSize, long batchBytes, long batchTimeout, ScheduledExecutorService scheduler) {
+		if (destination == null) {
+			throw new IllegalArgumentException("destination argument can not be null");
+		}
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("batchSize argument must be positive");
+		}
+		this.destination = destination;
+		this.batchSize = batchSize;
+		this.batchBytes = batchBytes;
+		this.batchTimeout = batchTimeout;
+		this.scheduler = scheduler;
+	}
+
+	/**
+	 * Adds the item of <code>exchange</code> to the current batch, sending
+	 * the batch in the calling thread if it is full. <code>callback</code> is
+	 * called asynchronously once the transaction of the batch has completed.
+	 *
+	 * @param exchange
+	 *            - the exchange containing the item.
+	 * @param item
+	 *            - the item.
+	 * @param bytes
+	 *            - the estimated size of the item in bytes.
+	 * @param callback
+	 *            - the callback completing <code>exchange</code>.
+	 */
+	public void add(Exchange exchange, T item, long bytes, AsyncCallback callback) {
+		Batch<T> full = null;
+		synchronized (this) {
+			if (stopped) {
+				exchange.setException(new IllegalStateException("RFC transaction batcher for destination '" + destination.getDestinationName() + "' is stopped"));
+				callback.done(false);
+				return;
+			}
+			if (pending == null) {
+				final Batch<T> batch = new Batch<T>();
+				if (batchTimeout > 0) {
+					batch.timeout = scheduler.schedule(new Runnable() {
+						@Override
+						public void run() {
+							flush(batch);
+						}
+					}, batchTimeout, TimeUnit.MILLISECONDS);
+				}
+				pending = batch;
+			}
+			pending.add(exchange, item, bytes, callback);
+			if (pending.size() >= batchSize || (batchBytes > 0 && pending.bytes >= batchBytes)) {
+				full = takePending();
+			}
+		}
+		if (full != null) {
+			send(full);
+		}
+	}
+
+	/**
+	 * Sends the current batch if it is not empty.
+	 */
+	public void flush() {
+		Batch<T> batch;
+		synchronized (this) {
+			batch = takePending();
+		}
+		if (batch != null) {
+			send(batch);
+		}
+	}
+
+	/**
+	 * Sends the current batch and rejects items added thereafter.
+	 */
+	public void stop() {
+		synchronized (this) {
+			stopped = true;
+		}
+		flush();
+	}
+
+	/**
+	 * Sends <code>items</code> to <code>destination</code> in the transaction
+	 * <code>tid</code>. The exchanges of the batch are completed once this
+	 * method returns.
+	 *
+	 * @param destination
+	 *            - the destination the transaction is sent to.
+	 * @param exchanges
+	 *            - the exchanges of the transaction, one per item.
+	 * @param items
+	 *            - the items of the transaction.
+	 * @param tid
+	 *            - the transaction ID.
+	 * @throws Exception
+	 *             Thrown if sending the items fails.
+	 */
+	protected abstract void send(JCoDestination destination, List<Exchange> exchanges, List<T> items, String tid) throws Exception;
+
+	private void flush(Batch<T> batch) {
+		synchronized (this) {
+			if (pending != batch) {
+				// Batch already sent.
+				return;
+			}
+			takePending();
+		}
+		send(batch);
+	}
+
+	private Batch<T> takePending() {
+		Batch<T> batch = pending;
+		pending = null;
+		if (batch != null) {
+			batch.sequence = takenBatches++;
+			if (batch.timeout != null) {
+				batch.timeout.cancel(false);
+			}
+		}
+		return batch;
+	}
+
+	private void send(Batch<T> batch) {
+		Exception failure = null;
+		boolean interrupted = false;
+		synchronized (sendLock) {
+			// Wait for the batches taken before this one to be sent.
+			while (batch.sequence != sentBatches) {
+				try {
+					sendLock.wait();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			String tid = null;
+			try {
+				tid = destination.createTID();
+				LOG.debug("Sending {} items in transaction '{}'", batch.size(), tid);
+				send(destination, batch.exchanges, batch.items, tid);
+			} catch (Exception e) {
+				failure = e;
+			} finally {
+				if (tid != null) {
+					try {
+						destination.confirmTID(tid);
+					} catch (Exception e) {
+						LOG.warn("Failed to confirm transaction id '" + tid + "': This exception will be ignored", e);
+					}
+				}
+				sentBatches++;
+				sendLock.notifyAll();
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		for (int i = 0; i < batch.size(); i++) {
+			Exchange exchange = batch.exchanges.get(i);
+			if (failure != null) {
+				exchange.setException(failure);
+			}
+			batch.callbacks.get(i).done(false);
+		}
+	}
+
+	private static class Batch<T> {
+
+		final List<Exchange> exchanges = new ArrayList<Exchange>();
+
+		final List<T> items = new ArrayList<T>();
+
+		final List<AsyncCallback> callbacks = new ArrayList<AsyncCallback>();
+
+		long bytes;
+
+		long sequence;
+
+		ScheduledFuture<?> timeout;
+
+		void add(Exchange exchange, T item, long size, AsyncCallback callback) {
+			exchanges.add(exchange);
+			items.add(item);
+			callbacks.add(callback);
+			bytes += size;
+		}
+
+		int size() {
+			return exchanges.size();
+		}
+	}
+
+}
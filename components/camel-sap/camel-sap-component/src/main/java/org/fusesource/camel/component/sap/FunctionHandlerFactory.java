@@ -16,12 +16,18 @@
  */
 package org.fusesource.camel.component.sap;
 
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sap.conn.jco.AbapClassException;
+import com.sap.conn.jco.AbapException;
+import com.sap.conn.jco.JCoFunction;
 import com.sap.conn.jco.server.JCoServerContext;
 import com.sap.conn.jco.server.JCoServerFunctionHandler;
 import com.sap.conn.jco.server.JCoServerFunctionHandlerFactory;
@@ -30,6 +36,13 @@ import com.sap.conn.jco.server.JCoServerFunctionHandlerFactory;
  * Function Handler Factory which enables function handlers to be registered and
  * unregistered.
  * 
+ * <p>
+ * Calls to stateful handlers are dispatched with the session context of the
+ * session the call was made in, so calls of different sessions may be handled
+ * concurrently. Session contexts are discarded when their session is closed
+ * or, should the close of a session never be delivered, after the session has
+ * been idle for longer than the session idle timeout.
+ * 
  * @author William Collins <punkhornsw@gmail.com>
  * 
  */
@@ -37,8 +50,21 @@ public class FunctionHandlerFactory implements JCoServerFunctionHandlerFactory {
 
 	private static final Logger LOG = LoggerFactory.getLogger(FunctionHandlerFactory.class);
 
-	private Map<String, JCoServerFunctionHandler> callHandlers = new HashMap<String, JCoServerFunctionHandler>();
-	private Map<String, SapServerSessionContext> statefulSessionContexts = new HashMap<String, SapServerSessionContext>();
+	/**
+	 * The default session idle timeout in milliseconds: 30 minutes.
+	 */
+	public static final long DEFAULT_SESSION_IDLE_TIMEOUT = 30 * 60 * 1000L;
+
+	private static class Session {
+		final SapServerSessionContext sessionContext = new SapServerSessionContext();
+		volatile long lastAccess = System.currentTimeMillis();
+	}
+
+	private ConcurrentMap<String, JCoServerFunctionHandler> callHandlers = new ConcurrentHashMap<String, JCoServerFunctionHandler>();
+	private ConcurrentMap<String, Session> statefulSessions = new ConcurrentHashMap<String, Session>();
+
+	private volatile long sessionIdleTimeout = DEFAULT_SESSION_IDLE_TIMEOUT;
+	private final AtomicLong nextEviction = new AtomicLong();
 
 	public void registerHandler(String functionName, JCoServerFunctionHandler handler) {
 		callHandlers.put(functionName, handler);
@@ -48,36 +74,113 @@ public class FunctionHandlerFactory implements JCoServerFunctionHandlerFactory {
 		return callHandlers.remove(functionName);
 	}
 
+	/**
+	 * Returns the time in milliseconds after which an idle stateful session is
+	 * discarded.
+	 * 
+	 * @return The session idle timeout in milliseconds.
+	 */
+	public long getSessionIdleTimeout() {
+		return sessionIdleTimeout;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which an idle stateful session is
+	 * discarded. A value less than or equal to zero disables the eviction of
+	 * idle sessions.
+	 * 
+	 * @param sessionIdleTimeout
+	 *            - the session idle timeout in milliseconds.
+	 */
+	public void setSessionIdleTimeout(long sessionIdleTimeout) {
+		this.sessionIdleTimeout = sessionIdleTimeout;
+	}
+
+	/**
+	 * Returns the number of open stateful sessions.
+	 * 
+	 * @return The number of open stateful sessions.
+	 */
+	public int getSessionCount() {
+		return statefulSessions.size();
+	}
+
 	@Override
 	public void sessionClosed(JCoServerContext serverContext, String message, boolean error) {
-		statefulSessionContexts.remove(serverContext.getSessionID());
+		statefulSessions.remove(serverContext.getSessionID());
 		LOG.debug("Session " + serverContext.getSessionID() + " was closed " + (error ? message : "by SAP system"));
 	}
 
 	@Override
 	public JCoServerFunctionHandler getCallHandler(JCoServerContext serverContext, String functionName) {
 		JCoServerFunctionHandler handler = callHandlers.get(functionName);
-		if (handler instanceof SapConsumer) {
+		if (handler instanceof SapConsumer && handler instanceof SapSessionFunctionHandler) {
 			SapConsumer consumer = (SapConsumer) handler;
 			if (consumer.isStateful()) {
+				evictIdleSessions();
+
 				// Manage stateful session.
-				SapServerSessionContext sessionContext;
+				Session session;
 				if (!serverContext.isStatefulSession()) {
 					// start new session with new session context
 					serverContext.setStateful(true);
-					sessionContext = new SapServerSessionContext();
-					statefulSessionContexts.put(serverContext.getSessionID(), sessionContext);
+					session = new Session();
+					statefulSessions.put(serverContext.getSessionID(), session);
 				} else {
 					// retrieve session context of current session.
-					sessionContext = statefulSessionContexts.get(serverContext.getSessionID());
-					if (sessionContext == null) {
-						throw new RuntimeException("Failed to find session context for session '" + serverContext.getSessionID() + "'");
+					session = statefulSessions.get(serverContext.getSessionID());
+					if (session == null) {
+						throw new RuntimeException("Failed to find session context for session '" + serverContext.getSessionID() + "': session closed or expired");
 					}
+					session.lastAccess = System.currentTimeMillis();
 				}
-				consumer.setSessionContext(sessionContext);
+				return new SessionCallHandler((SapSessionFunctionHandler) handler, session.sessionContext);
 			}
 		}
 		return handler;
 	}
 
+	/**
+	 * Discards the sessions idle for longer than the session idle timeout. The
+	 * sessions are scanned at most once per quarter of the timeout.
+	 */
+	private void evictIdleSessions() {
+		long timeout = sessionIdleTimeout;
+		if (timeout <= 0) {
+			return;
+		}
+		long now = System.currentTimeMillis();
+		long next = nextEviction.get();
+		if (now < next || !nextEviction.compareAndSet(next, now + Math.max(timeout / 4, 1))) {
+			return;
+		}
+		for (Iterator<Map.Entry<String, Session>> it = statefulSessions.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Session> entry = it.next();
+			if (now - entry.getValue().lastAccess > timeout) {
+				it.remove();
+				LOG.debug("Session " + entry.getKey() + " was discarded after being idle for more than " + timeout + " ms");
+			}
+		}
+	}
+
+	/**
+	 * Dispatches a call to a stateful handler with the context of the session
+	 * the call was made in.
+	 */
+	private static class SessionCallHandler implements JCoServerFunctionHandler {
+
+		private final SapSessionFunctionHandler handler;
+		private final SapServerSessionContext sessionContext;
+
+		SessionCallHandler(SapSessionFunctionHandler handler, SapServerSessionContext sessionContext) {
+			this.handler = handler;
+			this.sessionContext = sessionContext;
+		}
+
+		@Override
+		public void handleRequest(JCoServerContext serverContext, JCoFunction jcoFunction) throws AbapException, AbapClassException {
+			handler.handleRequest(serverContext, jcoFunction, sessionContext);
+		}
+	}
+
 }
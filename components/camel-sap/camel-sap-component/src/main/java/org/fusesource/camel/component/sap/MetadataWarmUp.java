@@ -0,0 +1,228 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.ThreadPoolRejectedPolicy;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
+import org.apache.camel.spi.ThreadPoolProfile;
+import org.apache.camel.support.ServiceSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sap.conn.jco.JCoDestination;
+
+/**
+ * Resolves the meta-data of SAP endpoints in the background while a
+ * CamelContext starts.
+ * <p>
+ * Destination components submit the meta-data lookup of each endpoint they
+ * create instead of performing it while the endpoint's route is created.
+ * Lookups of the same function module or IDoc type are only submitted once,
+ * and the lookups for a destination run in parallel on an executor whose
+ * size is bounded by the peak limit of the destination, so that the warm-up
+ * never needs more connections than the destination allows. Route startup
+ * does not wait for the lookups: an endpoint whose meta-data is not yet
+ * resolved when it is first used resolves it itself, waiting for a lookup of
+ * the same meta-data already in progress.
+ * <p>
+ * A CamelContext has a single warm-up service, shared by the SAP components
+ * of the context and stopped with the context.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class MetadataWarmUp extends ServiceSupport {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetadataWarmUp.class);
+
+	/**
+	 * The number of concurrent lookups for a destination whose peak limit is
+	 * unlimited.
+	 */
+	public static final int DEFAULT_POOL_SIZE = 4;
+
+	private static final Map<CamelContext, MetadataWarmUp> INSTANCES = new WeakHashMap<CamelContext, MetadataWarmUp>();
+
+	private final CamelContext camelContext;
+
+	private final Map<String, ExecutorService> destinationExecutors = new HashMap<String, ExecutorService>();
+
+	private final ConcurrentMap<String, Future<?>> lookups = new ConcurrentHashMap<String, Future<?>>();
+
+	protected MetadataWarmUp(CamelContext camelContext) {
+		this.camelContext = camelContext;
+	}
+
+	/**
+	 * Returns the warm-up service of <code>camelContext</code>, creating and
+	 * adding it to the context when first requested.
+	 */
+	public static MetadataWarmUp getInstance(CamelContext camelContext) throws Exception {
+		synchronized (INSTANCES) {
+			MetadataWarmUp warmUp = INSTANCES.get(camelContext);
+			if (warmUp == null) {
+				warmUp = new MetadataWarmUp(camelContext);
+				camelContext.addService(warmUp);
+				INSTANCES.put(camelContext, warmUp);
+			}
+			return warmUp;
+		}
+	}
+
+	/**
+	 * Submits the lookup of the meta-data designated by <code>key</code>
+	 * from <code>destination</code>, unless it was already submitted.
+	 * 
+	 * @param destinationName
+	 *            - the name of the destination the meta-data is looked up
+	 *            from.
+	 * @param destination
+	 *            - the destination; may be <code>null</code> when not
+	 *            available, in which case the lookup is bounded by
+	 *            {@link #DEFAULT_POOL_SIZE}.
+	 * @param key
+	 *            - the key of the meta-data, e.g. the name of a function
+	 *            module or IDoc type qualified by the destination name.
+	 * @param lookup
+	 *            - the lookup.
+	 * @return The future of the lookup.
+	 */
+	public Future<?> submit(String destinationName, JCoDestination destination, String key, Callable<?> lookup) {
+		Future<?> future = lookups.get(key);
+		if (future != null) {
+			return future;
+		}
+		FutureTask<Object> task = new FutureTask<Object>(new Lookup(key, lookup));
+		future = lookups.putIfAbsent(key, task);
+		if (future != null) {
+			return future;
+		}
+		try {
+			getDestinationExecutor(destinationName, destination).execute(task);
+		} catch (RuntimeException e) {
+			// Warm-up stopped: leave the lookup to the endpoint.
+			lookups.remove(key, task);
+			task.cancel(false);
+			LOG.debug("Meta-data warm-up of '" + key + "' not started", e);
+		}
+		return task;
+	}
+
+	/**
+	 * Waits for the lookups submitted so far to complete.
+	 * 
+	 * @return <code>true</code> when all lookups completed,
+	 *         <code>false</code> when <code>timeout</code> elapsed first.
+	 */
+	public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (Future<?> future : new ArrayList<Future<?>>(lookups.values())) {
+			try {
+				future.get(Math.max(deadline - System.nanoTime(), 0), TimeUnit.NANOSECONDS);
+			} catch (ExecutionException e) {
+				// Logged by lookup.
+			} catch (TimeoutException e) {
+				return false;
+			} catch (CancellationException e) {
+				// Not started.
+			}
+		}
+		return true;
+	}
+
+	protected synchronized ExecutorService getDestinationExecutor(String destinationName, JCoDestination destination) {
+		ExecutorService executor = destinationExecutors.get(destinationName);
+		if (executor == null) {
+			int poolSize = destination != null && destination.getPeakLimit() > 0 ? destination.getPeakLimit() : DEFAULT_POOL_SIZE;
+			String name = "SapMetadataWarmUp[" + destinationName + "]";
+			ThreadPoolProfile profile = new ThreadPoolProfileBuilder(name).poolSize(poolSize).maxPoolSize(poolSize)
+					.maxQueueSize(-1).rejectedPolicy(ThreadPoolRejectedPolicy.Abort).build();
+			executor = camelContext.getExecutorServiceManager().newThreadPool(this, name, profile);
+			destinationExecutors.put(destinationName, executor);
+			LOG.debug("Created meta-data warm-up executor for destination '" + destinationName + "' with pool size " + poolSize);
+		}
+		return executor;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		List<ExecutorService> executors;
+		synchronized (this) {
+			executors = new ArrayList<ExecutorService>(destinationExecutors.values());
+			destinationExecutors.clear();
+		}
+		for (ExecutorService executor : executors) {
+			camelContext.getExecutorServiceManager().shutdownNow(executor);
+		}
+		lookups.clear();
+		synchronized (INSTANCES) {
+			INSTANCES.remove(camelContext);
+		}
+	}
+
+	/**
+	 * A lookup logging its duration and failure.
+	 */
+	private static class Lookup implements Callable<Object> {
+
+		private final String key;
+
+		private final Callable<?> lookup;
+
+		Lookup(String key, Callable<?> lookup) {
+			this.key = key;
+			this.lookup = lookup;
+		}
+
+		@Override
+		public Object call() throws Exception {
+			long start = System.nanoTime();
+			try {
+				Object result = lookup.call();
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Resolved meta-data of '" + key + "' in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+				}
+				return result;
+			} catch (Exception e) {
+				LOG.warn("Failed to resolve meta-data of '" + key + "' during warm-up; it will be resolved when the endpoint is first used", e);
+				throw e;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,387 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.camel.Exchange;
+import org.eclipse.emf.ecore.EObject;
+import org.fusesource.camel.component.sap.util.BinaryUtil;
+import org.fusesource.camel.component.sap.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Records sampled snapshots of the payloads (requests, responses and
+ * documents) handled by an endpoint to a set of rolling trace files.
+ * <p>
+ * An exchange is sampled with probability <code>samplingRate</code>; the
+ * decision is derived from the exchange ID so that every payload of a sampled
+ * exchange is traced. The payload of a sampled exchange is snapshot in its
+ * compact binary encoding in the calling thread, while its conversion to XML
+ * and writing to the trace file are done by a bounded writer. Encoding stops
+ * as soon as a snapshot grows beyond <code>maxPayloadSize</code> bytes, and
+ * the payload is then recorded by its size limit only; records which do not
+ * fit the writer's queue are dropped. Payloads which can not be snapshot
+ * without reading further data from SAP, such as responses with lazily read
+ * tables, are recorded by a summary only.
+ * <p>
+ * Records are appended to <code>&lt;file&gt;</code>; when it would grow
+ * beyond <code>maxFileSize</code> bytes it is renamed to
+ * <code>&lt;file&gt;.1</code>, the previous <code>&lt;file&gt;.1</code> to
+ * <code>&lt;file&gt;.2</code> and so on, keeping at most
+ * <code>maxFiles</code> files.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class PayloadTracer {
+
+	private static final Logger LOG = LoggerFactory.getLogger(PayloadTracer.class);
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+	private final String name;
+
+	private final File file;
+
+	private final double samplingRate;
+
+	private final int maxPayloadSize;
+
+	private final long maxFileSize;
+
+	private final int maxFiles;
+
+	private final ExecutorService writer;
+
+	private final AtomicLong dropped = new AtomicLong();
+
+	private OutputStream out;
+
+	private long fileSize;
+
+	/**
+	 * Create a payload tracer.
+	 *
+	 * @param name
+	 *            - the name recorded with each payload, typically the URI of
+	 *            the endpoint.
+	 * @param file
+	 *            - the trace file.
+	 * @param samplingRate
+	 *            - the fraction, between <code>0.0</code> and
+	 *            <code>1.0</code>, of exchanges traced.
+	 * @param maxPayloadSize
+	 *            - the maximum size in bytes of a recorded snapshot or
+	 *            <code>0</code> if unlimited.
+	 * @param maxFileSize
+	 *            - the size in bytes at which the trace file is rolled over or
+	 *            <code>0</code> if unlimited.
+	 * @param maxFiles
+	 *            - the maximum number of trace files kept.
+	 * @param writer
+	 *            - the bounded executor writing records to the trace file.
+	 */
+	public PayloadTracer(String name, File file, double samplingRate, int maxPayloadSize, long maxFileSize, int maxFiles, ExecutorService writer) {
+		if (file == null) {
+			throw new IllegalArgumentException("file argument can not be null");
+		}
+		if (writer == null) {
+			throw new IllegalArgumentException("writer argument can not be null");
+		}
+		this.name = name;
+		this.file = file;
+		this.samplingRate = samplingRate;
+		this.maxPayloadSize = maxPayloadSize;
+		this.maxFileSize = maxFileSize;
+		this.maxFiles = Math.max(1, maxFiles);
+		this.writer = writer;
+	}
+
+	/**
+	 * Returns <code>true</code> if the payloads of <code>exchange</code> are
+	 * traced.
+	 *
+	 * @param exchange
+	 *            - the exchange.
+	 * @return <code>true</code> if the payloads of <code>exchange</code> are
+	 *         traced.
+	 */
+	public boolean isSampled(Exchange exchange) {
+		if (samplingRate >= 1.0) {
+			return true;
+		}
+		if (samplingRate <= 0.0) {
+			return false;
+		}
+		int hash = exchange.getExchangeId().hashCode() * 0x9E3779B9;
+		return (hash >>> 1) < samplingRate * Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Records a snapshot of <code>payload</code> if <code>exchange</code> is
+	 * sampled.
+	 *
+	 * @param exchange
+	 *            - the exchange handling the payload.
+	 * @param label
+	 *            - the role of the payload in the exchange, e.g.
+	 *            <code>Request</code> or <code>Response</code>.
+	 * @param payload
+	 *            - the payload.
+	 */
+	public void trace(Exchange exchange, String label, EObject payload) {
+		if (!isSampled(exchange)) {
+			return;
+		}
+
+		byte[] snapshot = null;
+		String note = null;
+		if (payload == null) {
+			note = "null";
+		} else {
+			try {
+				snapshot = snapshot(payload);
+				if (snapshot == null) {
+					note = "payload exceeds maximum size of " + maxPayloadSize + " bytes";
+				}
+			} catch (Exception e) {
+				note = "failed to snapshot payload: " + e;
+			}
+		}
+		record(exchange, label, snapshot, note);
+	}
+
+	/**
+	 * Records <code>summary</code> instead of a snapshot of a payload if
+	 * <code>exchange</code> is sampled. Used for payloads whose snapshot
+	 * would read data not yet retrieved from SAP.
+	 *
+	 * @param exchange
+	 *            - the exchange handling the payload.
+	 * @param label
+	 *            - the role of the payload in the exchange.
+	 * @param summary
+	 *            - the summary of the payload.
+	 */
+	public void traceSummary(Exchange exchange, String label, String summary) {
+		if (!isSampled(exchange)) {
+			return;
+		}
+		record(exchange, label, null, summary);
+	}
+
+	/**
+	 * Encodes <code>payload</code>, giving up as soon as the encoding grows
+	 * beyond <code>maxPayloadSize</code> bytes.
+	 *
+	 * @return The encoded payload or <code>null</code> if it is too large.
+	 */
+	private byte[] snapshot(EObject payload) throws IOException {
+		if (maxPayloadSize <= 0) {
+			return BinaryUtil.marshal(payload);
+		}
+		BoundedOutputStream out = new BoundedOutputStream(maxPayloadSize);
+		try {
+			BinaryUtil.marshal(payload, out);
+		} catch (PayloadTooLargeException e) {
+			return null;
+		}
+		return out.toByteArray();
+	}
+
+	private void record(Exchange exchange, String label, byte[] snapshot, String note) {
+		final Record record = new Record(System.currentTimeMillis(), exchange.getExchangeId(), label, snapshot, note);
+		try {
+			writer.execute(new Runnable() {
+				@Override
+				public void run() {
+					write(record);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the number of records dropped since the writer's queue was full.
+	 *
+	 * @return The number of records dropped.
+	 */
+	public long getDroppedCount() {
+		return dropped.get();
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Closes the trace file. Should be called once the writer has been shut
+	 * down.
+	 */
+	public synchronized void close() {
+		if (out != null) {
+			try {
+				out.close();
+			} catch (IOException e) {
+				LOG.warn("Failed to close payload trace file '" + file + "': This exception will be ignored", e);
+			}
+			out = null;
+		}
+		long count = dropped.get();
+		if (count > 0) {
+			LOG.info("Dropped {} payload trace records of ''{}''", count, name);
+		}
+	}
+
+	private synchronized void write(Record record) {
+		try {
+			StringBuilder buffer = new StringBuilder();
+			buffer.append("=== ").append(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ").format(new Date(record.timestamp)));
+			buffer.append(' ').append(name).append(' ').append(record.exchangeId).append(' ').append(record.label).append(LINE_SEPARATOR);
+			if (record.snapshot != null) {
+				buffer.append(Util.marshal(BinaryUtil.unmarshal(record.snapshot)));
+			} else {
+				buffer.append('<').append(record.note).append('>');
+			}
+			buffer.append(LINE_SEPARATOR);
+			byte[] bytes = buffer.toString().getBytes(UTF8);
+
+			if (out == null) {
+				open();
+			} else if (maxFileSize > 0 && fileSize > 0 && fileSize + bytes.length > maxFileSize) {
+				out.close();
+				out = null;
+				roll();
+				open();
+			}
+			out.write(bytes);
+			out.flush();
+			fileSize += bytes.length;
+		} catch (Exception e) {
+			LOG.warn("Failed to write payload trace record to '" + file + "': This exception will be ignored", e);
+		}
+	}
+
+	private void open() throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null && !directory.isDirectory() && !directory.mkdirs()) {
+			throw new IOException("Failed to create payload trace directory '" + directory + "'");
+		}
+		fileSize = file.length();
+		out = new BufferedOutputStream(new FileOutputStream(file, true));
+	}
+
+	private void roll() throws IOException {
+		File oldest = new File(file.getPath() + "." + (maxFiles - 1));
+		if (oldest.exists() && !oldest.delete()) {
+			throw new IOException("Failed to delete payload trace file '" + oldest + "'");
+		}
+		for (int i = maxFiles - 2; i >= 1; i--) {
+			File rolled = new File(file.getPath() + "." + i);
+			if (rolled.exists()) {
+				rolled.renameTo(new File(file.getPath() + "." + (i + 1)));
+			}
+		}
+		if (maxFiles > 1) {
+			file.renameTo(new File(file.getPath() + ".1"));
+		} else {
+			file.delete();
+		}
+	}
+
+	private static class Record {
+
+		final long timestamp;
+
+		final String exchangeId;
+
+		final String label;
+
+		final byte[] snapshot;
+
+		final String note;
+
+		Record(long timestamp, String exchangeId, String label, byte[] snapshot, String note) {
+			this.timestamp = timestamp;
+			this.exchangeId = exchangeId;
+			this.label = label;
+			this.snapshot = snapshot;
+			this.note = note;
+		}
+	}
+
+	/**
+	 * A byte array output stream which refuses to grow beyond a limit.
+	 */
+	private static class BoundedOutputStream extends ByteArrayOutputStream {
+
+		private final int limit;
+
+		BoundedOutputStream(int limit) {
+			super(Math.min(limit, 8192));
+			this.limit = limit;
+		}
+
+		@Override
+		public synchronized void write(int b) {
+			if (count >= limit) {
+				throw PayloadTooLargeException.INSTANCE;
+			}
+			super.write(b);
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) {
+			if (len > limit - count) {
+				throw PayloadTooLargeException.INSTANCE;
+			}
+			super.write(b, off, len);
+		}
+	}
+
+	/**
+	 * Thrown through the encoder to stop it once a snapshot is too large.
+	 */
+	private static class PayloadTooLargeException extends RuntimeException {
+
+		private static final long serialVersionUID = 3870276346617094210L;
+
+		static final PayloadTooLargeException INSTANCE = new PayloadTooLargeException();
+
+		private PayloadTooLargeException() {
+			super(null, null, false, false);
+		}
+	}
+
+}
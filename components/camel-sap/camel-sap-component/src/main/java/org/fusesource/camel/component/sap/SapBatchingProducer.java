@@ -0,0 +1,264 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultAsyncProducer;
+import org.eclipse.emf.ecore.EObject;
+import org.fusesource.camel.component.sap.util.CallTimings;
+
+import com.sap.conn.jco.JCoDestination;
+
+/**
+ * Base class of the SAP producers sending the item (request or document) of
+ * an exchange to an SAP system in a transactional (tRFC) or queued (qRFC)
+ * remote function call.
+ * <p>
+ * When the batch size of its endpoint is greater than one, the producer sends
+ * the items of consecutive exchanges in one transaction (LUW) using a
+ * {@link DestinationRfcTransactionBatcher}; otherwise it sends the item of
+ * each exchange in its own transaction. Either way the calls are recorded in
+ * the metrics of the endpoint.
+ *
+ * @param <T>
+ *            - the type of the items sent.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public abstract class SapBatchingProducer<T extends EObject> extends DefaultAsyncProducer {
+
+	private final String batcherName;
+
+	private final String itemLabel;
+
+	private DestinationRfcTransactionBatcher<T> batcher;
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Creates a producer for <code>endpoint</code>.
+	 *
+	 * @param endpoint
+	 *            - the endpoint of the producer.
+	 * @param batcherName
+	 *            - the name of the thread sending batches which time out.
+	 * @param itemLabel
+	 *            - the role of the sent items in traced payloads.
+	 */
+	protected SapBatchingProducer(SapEndpoint endpoint, String batcherName, String itemLabel) {
+		super(endpoint);
+		this.batcherName = batcherName;
+		this.itemLabel = itemLabel;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		super.doStart();
+		if (isBatching()) {
+			scheduler = getEndpoint().getCamelContext().getExecutorServiceManager().newSingleThreadScheduledExecutor(this, batcherName + "[" + getDestinationName() + "]");
+			batcher = new DestinationRfcTransactionBatcher<T>(getDestination(), getBatchSize(), getBatchBytes(), getBatchTimeout(), scheduler) {
+				@Override
+				protected void send(JCoDestination destination, List<Exchange> exchanges, List<T> items, String tid) throws Exception {
+					CallTimings timings = getEndpoint().getMetrics().begin();
+					Throwable failure = null;
+					try {
+						sendBatch(destination, exchanges, items, tid, timings);
+					} catch (Exception e) {
+						failure = e;
+						throw e;
+					} finally {
+						getEndpoint().getMetrics().end(timings, failure);
+					}
+				}
+			};
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		if (batcher != null) {
+			batcher.stop();
+			batcher = null;
+		}
+		if (scheduler != null) {
+			getEndpoint().getCamelContext().getExecutorServiceManager().shutdown(scheduler);
+			scheduler = null;
+		}
+		super.doStop();
+	}
+
+	@Override
+	public boolean process(Exchange exchange, AsyncCallback callback) {
+		DestinationRfcTransactionBatcher<T> batcher = this.batcher;
+		if (batcher == null) {
+			try {
+				process(exchange);
+			} catch (Exception e) {
+				exchange.setException(e);
+			}
+			callback.done(true);
+			return true;
+		}
+
+		T item;
+		try {
+			item = getItem(exchange);
+			if (!checkItem(item, true)) {
+				callback.done(true);
+				return true;
+			}
+		} catch (Exception e) {
+			exchange.setException(e);
+			callback.done(true);
+			return true;
+		}
+		getEndpoint().tracePayload(exchange, itemLabel, item);
+		batcher.add(exchange, item, estimateSize(item), callback);
+		return false;
+	}
+
+	@Override
+	public void process(Exchange exchange) throws Exception {
+		T item = getItem(exchange);
+		if (!checkItem(item, false)) {
+			return;
+		}
+		getEndpoint().tracePayload(exchange, itemLabel, item);
+		String tid = DestinationRfcTransactionHandler.getTID(exchange, getDestination());
+		CallTimings timings = getEndpoint().getMetrics().begin(exchange);
+		Throwable failure = null;
+		try {
+			send(exchange, item, tid, timings);
+		} catch (Exception e) {
+			failure = e;
+			throw e;
+		} finally {
+			getEndpoint().getMetrics().end(timings, failure);
+		}
+	}
+
+	@Override
+	public SapEndpoint getEndpoint() {
+		return (SapEndpoint) super.getEndpoint();
+	}
+
+	/**
+	 * Returns <code>true</code> if the items of consecutive exchanges are
+	 * sent in one transaction.
+	 */
+	protected boolean isBatching() {
+		return getBatchSize() > 1;
+	}
+
+	/**
+	 * Returns the maximum number of items sent in one transaction.
+	 */
+	protected abstract int getBatchSize();
+
+	/**
+	 * Returns the estimated size in bytes of the items of a batch which
+	 * triggers sending the batch or <code>0</code> if unlimited.
+	 */
+	protected long getBatchBytes() {
+		return 0;
+	}
+
+	/**
+	 * Returns the maximum number of milliseconds an item waits for its batch
+	 * to fill.
+	 */
+	protected abstract long getBatchTimeout();
+
+	protected abstract String getDestinationName();
+
+	protected abstract JCoDestination getDestination();
+
+	/**
+	 * Returns the item of <code>exchange</code> to send.
+	 *
+	 * @param exchange
+	 *            - the exchange containing the item.
+	 * @return The item.
+	 * @throws Exception
+	 *             Thrown if the item can not be read from the exchange.
+	 */
+	protected abstract T getItem(Exchange exchange) throws Exception;
+
+	/**
+	 * Checks the item of an exchange before it is sent.
+	 *
+	 * @param item
+	 *            - the item.
+	 * @param batched
+	 *            - <code>true</code> if the item is sent in a batch.
+	 * @return <code>false</code> if the exchange has nothing to send.
+	 * @throws Exception
+	 *             Thrown if the item can not be sent.
+	 */
+	protected boolean checkItem(T item, boolean batched) throws Exception {
+		return true;
+	}
+
+	/**
+	 * Returns the estimated size of <code>item</code> in bytes.
+	 */
+	protected long estimateSize(T item) {
+		return 0;
+	}
+
+	/**
+	 * Sends the item of <code>exchange</code> to the destination in the
+	 * transaction <code>tid</code>.
+	 *
+	 * @param exchange
+	 *            - the exchange containing the item.
+	 * @param item
+	 *            - the item.
+	 * @param tid
+	 *            - the transaction ID.
+	 * @param timings
+	 *            - the timings of the call.
+	 * @throws Exception
+	 *             Thrown if sending the item fails.
+	 */
+	protected abstract void send(Exchange exchange, T item, String tid, CallTimings timings) throws Exception;
+
+	/**
+	 * Sends the <code>items</code> of a batch to <code>destination</code> in
+	 * the transaction <code>tid</code>.
+	 *
+	 * @param destination
+	 *            - the destination the transaction is sent to.
+	 * @param exchanges
+	 *            - the exchanges of the batch, one per item.
+	 * @param items
+	 *            - the items of the batch.
+	 * @param tid
+	 *            - the transaction ID.
+	 * @param timings
+	 *            - the timings of the call.
+	 * @throws Exception
+	 *             Thrown if sending the items fails.
+	 */
+	protected abstract void sendBatch(JCoDestination destination, List<Exchange> exchanges, List<T> items, String tid, CallTimings timings) throws Exception;
+
+}
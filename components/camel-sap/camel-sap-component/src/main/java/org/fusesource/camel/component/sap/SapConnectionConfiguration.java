@@ -1,5 +1,6 @@
 package org.fusesource.camel.component.sap;
 
+import java.io.File;
 import java.util.Map;
 
 import org.fusesource.camel.component.sap.model.rfc.DestinationData;
@@ -9,6 +10,10 @@ import org.fusesource.camel.component.sap.model.rfc.ServerData;
 import org.fusesource.camel.component.sap.model.rfc.ServerDataStore;
 import org.fusesource.camel.component.sap.util.ComponentDestinationDataProvider;
 import org.fusesource.camel.component.sap.util.ComponentServerDataProvider;
+import org.fusesource.camel.component.sap.util.ConversionDiagnostics;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+import org.fusesource.camel.component.sap.util.MetadataStore;
+import org.fusesource.camel.component.sap.util.RfcUtil;
 
 public class SapConnectionConfiguration {
 
@@ -16,6 +21,10 @@ public class SapConnectionConfiguration {
 
 	protected final ServerDataStore serverDataStore = RfcFactory.eINSTANCE.createServerDataStore();
 
+	protected String metadataStoreDirectory;
+
+	protected int conversionMaxWarningsPerMinute = ConversionDiagnostics.DEFAULT_MAX_WARNINGS_PER_MINUTE;
+
 	public SapConnectionConfiguration() {
 	   	ComponentDestinationDataProvider.INSTANCE.addDestinationDataStore(destinationDataStore);
     	ComponentServerDataProvider.INSTANCE.addServerDataStore(serverDataStore);
@@ -39,4 +48,38 @@ public class SapConnectionConfiguration {
     	serverDataStore.getEntries().putAll(serverDataEntries);
     }
 
+    public String getMetadataStoreDirectory() {
+    	return metadataStoreDirectory;
+    }
+
+    /**
+     * Sets the directory of the store persisting the meta-data of RFC and
+     * IDoc endpoints across restarts; meta-data is fetched from SAP on every
+     * start when no directory is set.
+     */
+    public void setMetadataStoreDirectory(String metadataStoreDirectory) {
+    	MetadataStore previous = RfcUtil.getMetadataCache().getStore();
+    	MetadataStore store = metadataStoreDirectory == null ? null : new MetadataStore(new File(metadataStoreDirectory));
+    	RfcUtil.getMetadataCache().setStore(store);
+    	IDocUtil.getMetadataCache().setStore(store);
+    	if (previous != null) {
+    		previous.close();
+    	}
+    	this.metadataStoreDirectory = metadataStoreDirectory;
+    }
+
+    public int getConversionMaxWarningsPerMinute() {
+    	return conversionMaxWarningsPerMinute;
+    }
+
+    /**
+     * Sets the maximum number of conversion failure summaries logged per
+     * minute; further summaries are counted and the count is logged with the
+     * next summary.
+     */
+    public void setConversionMaxWarningsPerMinute(int conversionMaxWarningsPerMinute) {
+    	ConversionDiagnostics.setMaxWarningsPerMinute(conversionMaxWarningsPerMinute);
+    	this.conversionMaxWarningsPerMinute = conversionMaxWarningsPerMinute;
+    }
+
 }
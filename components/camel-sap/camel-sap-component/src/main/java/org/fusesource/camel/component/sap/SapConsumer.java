@@ -22,6 +22,10 @@ import org.apache.camel.impl.DefaultConsumer;
 
 /**
  * SAP consumer. This consumer provides a session context if stateful.
+ * <p>
+ * The session context of a call is passed to the consumer with the call (see
+ * {@link SapSessionFunctionHandler}), so a stateful consumer may handle calls
+ * of different sessions concurrently.
  * 
  * @author William Collins <punkhornsw@gmail.com>
  * 
@@ -31,7 +35,6 @@ public class SapConsumer extends DefaultConsumer {
 	public static final String SAP_SESSION_CONTEXT_PROPERTY_NAME = "org.fusesource.camel.component.sap.sessionContext";
 
 	protected boolean stateful;
-	protected SapServerSessionContext sessionContext;
 
 	public SapConsumer(Endpoint endpoint, Processor processor) {
 		super(endpoint, processor);
@@ -58,23 +61,4 @@ public class SapConsumer extends DefaultConsumer {
 	protected void setStateful(boolean stateful) {
 		this.stateful = stateful;
 	}
-
-	/**
-	 * Returns session context if this consumer.
-	 * 
-	 * @return session context if this consumer.
-	 */
-	protected SapServerSessionContext getSessionContext() {
-		return sessionContext;
-	}
-
-	/**
-	 * Sets the session context of this consumer.
-	 * 
-	 * @param sessionContext
-	 *            - the session context.
-	 */
-	protected void setSessionContext(SapServerSessionContext sessionContext) {
-		this.sessionContext = sessionContext;
-	}
 }
@@ -0,0 +1,300 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.camel.Component;
+import org.apache.camel.Exchange;
+import org.apache.camel.ThreadPoolRejectedPolicy;
+import org.apache.camel.api.management.ManagedAttribute;
+import org.apache.camel.api.management.ManagedOperation;
+import org.apache.camel.api.management.ManagedResource;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
+import org.apache.camel.impl.DefaultEndpoint;
+import org.apache.camel.spi.ThreadPoolProfile;
+import org.apache.camel.spi.UriParam;
+import org.eclipse.emf.ecore.EObject;
+
+/**
+ * Base class for SAP endpoint types, providing payload tracing and call
+ * metrics exposed over JMX.
+ *
+ * @see PayloadTracer
+ * @see SapEndpointMetrics
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@ManagedResource(description = "Managed SAP Endpoint")
+public abstract class SapEndpoint extends DefaultEndpoint {
+
+	public static final int DEFAULT_TRACE_MAX_PAYLOAD_SIZE = 1024 * 1024;
+
+	public static final long DEFAULT_TRACE_MAX_FILE_SIZE = 10 * 1024 * 1024;
+
+	public static final int DEFAULT_TRACE_MAX_FILES = 5;
+
+	public static final int DEFAULT_TRACE_QUEUE_SIZE = 1000;
+
+	@UriParam(name = "tracePayloads", description = "When true, specifies that this endpoint will record snapshots of the payloads it handles to trace files", defaultValue = "false")
+	protected boolean tracePayloads;
+
+	@UriParam(name = "traceSamplingRate", description = "Specifies the fraction, between 0.0 and 1.0, of exchanges whose payloads are traced", defaultValue = "1.0")
+	protected double traceSamplingRate = 1.0;
+
+	@UriParam(name = "traceMaxPayloadSize", description = "Specifies the maximum size in bytes of a traced payload snapshot; larger payloads are recorded by size only. Zero means unlimited", defaultValue = "1048576")
+	protected int traceMaxPayloadSize = DEFAULT_TRACE_MAX_PAYLOAD_SIZE;
+
+	@UriParam(name = "traceDirectory", description = "Specifies the directory payload trace files are written to", defaultValue = "sap-trace")
+	protected String traceDirectory = "sap-trace";
+
+	@UriParam(name = "traceMaxFileSize", description = "Specifies the size in bytes at which a payload trace file is rolled over. Zero means unlimited", defaultValue = "10485760")
+	protected long traceMaxFileSize = DEFAULT_TRACE_MAX_FILE_SIZE;
+
+	@UriParam(name = "traceMaxFiles", description = "Specifies the maximum number of payload trace files kept", defaultValue = "5")
+	protected int traceMaxFiles = DEFAULT_TRACE_MAX_FILES;
+
+	@UriParam(name = "traceQueueSize", description = "Specifies the maximum number of payload trace records waiting to be written; further records are dropped", defaultValue = "1000")
+	protected int traceQueueSize = DEFAULT_TRACE_QUEUE_SIZE;
+
+	private ExecutorService traceWriter;
+
+	private volatile PayloadTracer payloadTracer;
+
+	private final SapEndpointMetrics metrics = new SapEndpointMetrics();
+
+	public SapEndpoint() {
+	}
+
+	public SapEndpoint(String endpointUri, Component component) {
+		super(endpointUri, component);
+	}
+
+	/**
+	 * Records a snapshot of <code>payload</code> if payload tracing is enabled
+	 * and <code>exchange</code> is sampled.
+	 *
+	 * @param exchange
+	 *            - the exchange handling the payload.
+	 * @param label
+	 *            - the role of the payload in the exchange.
+	 * @param payload
+	 *            - the payload.
+	 */
+	public void tracePayload(Exchange exchange, String label, EObject payload) {
+		PayloadTracer tracer = payloadTracer;
+		if (tracer != null) {
+			tracer.trace(exchange, label, payload);
+		}
+	}
+
+	/**
+	 * Records <code>summary</code> instead of a snapshot of a payload if
+	 * payload tracing is enabled and <code>exchange</code> is sampled.
+	 *
+	 * @param exchange
+	 *            - the exchange handling the payload.
+	 * @param label
+	 *            - the role of the payload in the exchange.
+	 * @param summary
+	 *            - the summary of the payload.
+	 */
+	public void tracePayloadSummary(Exchange exchange, String label, String summary) {
+		PayloadTracer tracer = payloadTracer;
+		if (tracer != null) {
+			tracer.traceSummary(exchange, label, summary);
+		}
+	}
+
+	public PayloadTracer getPayloadTracer() {
+		return payloadTracer;
+	}
+
+	/**
+	 * Returns the metrics of the calls made or handled by this endpoint.
+	 */
+	public SapEndpointMetrics getMetrics() {
+		return metrics;
+	}
+
+	@ManagedAttribute(description = "Number of calls made or handled by the endpoint")
+	public long getCallCount() {
+		return metrics.getCalls();
+	}
+
+	@ManagedAttribute(description = "Number of failed calls")
+	public long getFailedCallCount() {
+		return metrics.getFailures();
+	}
+
+	@ManagedAttribute(description = "Number of calls in progress")
+	public int getInFlightCallCount() {
+		return metrics.getInFlight();
+	}
+
+	@ManagedAttribute(description = "Number of table rows transferred")
+	public long getRowCount() {
+		return metrics.getRows();
+	}
+
+	@ManagedAttribute(description = "Number of IDoc segments transferred")
+	public long getSegmentCount() {
+		return metrics.getSegments();
+	}
+
+	@ManagedAttribute(description = "Number of failed calls by ABAP exception or error key")
+	public String getErrorCounts() {
+		return metrics.getErrors().toString();
+	}
+
+	@ManagedAttribute(description = "Mean time in ms spent converting payloads")
+	public double getMeanConversionTime() {
+		return metrics.getConversionTime().getMean();
+	}
+
+	@ManagedAttribute(description = "99th percentile of time in ms spent converting payloads")
+	public double getP99ConversionTime() {
+		return metrics.getConversionTime().getQuantile(0.99);
+	}
+
+	@ManagedAttribute(description = "Maximum time in ms spent converting payloads")
+	public double getMaxConversionTime() {
+		return metrics.getConversionTime().getMax();
+	}
+
+	@ManagedAttribute(description = "Mean time in ms spent executing calls in SAP, including the network round trip")
+	public double getMeanExecutionTime() {
+		return metrics.getExecutionTime().getMean();
+	}
+
+	@ManagedAttribute(description = "99th percentile of time in ms spent executing calls in SAP, including the network round trip")
+	public double getP99ExecutionTime() {
+		return metrics.getExecutionTime().getQuantile(0.99);
+	}
+
+	@ManagedAttribute(description = "Maximum time in ms spent executing calls in SAP, including the network round trip")
+	public double getMaxExecutionTime() {
+		return metrics.getExecutionTime().getMax();
+	}
+
+	@ManagedAttribute(description = "Mean time in ms spent in the route")
+	public double getMeanRouteTime() {
+		return metrics.getRouteTime().getMean();
+	}
+
+	@ManagedAttribute(description = "99th percentile of time in ms spent in the route")
+	public double getP99RouteTime() {
+		return metrics.getRouteTime().getQuantile(0.99);
+	}
+
+	@ManagedAttribute(description = "Maximum time in ms spent in the route")
+	public double getMaxRouteTime() {
+		return metrics.getRouteTime().getMax();
+	}
+
+	@ManagedOperation(description = "Reset the call metrics of the endpoint")
+	public void resetMetrics() {
+		metrics.reset();
+	}
+
+	public boolean isTracePayloads() {
+		return tracePayloads;
+	}
+
+	public void setTracePayloads(boolean tracePayloads) {
+		this.tracePayloads = tracePayloads;
+	}
+
+	public double getTraceSamplingRate() {
+		return traceSamplingRate;
+	}
+
+	public void setTraceSamplingRate(double traceSamplingRate) {
+		this.traceSamplingRate = traceSamplingRate;
+	}
+
+	public int getTraceMaxPayloadSize() {
+		return traceMaxPayloadSize;
+	}
+
+	public void setTraceMaxPayloadSize(int traceMaxPayloadSize) {
+		this.traceMaxPayloadSize = traceMaxPayloadSize;
+	}
+
+	public String getTraceDirectory() {
+		return traceDirectory;
+	}
+
+	public void setTraceDirectory(String traceDirectory) {
+		this.traceDirectory = traceDirectory;
+	}
+
+	public long getTraceMaxFileSize() {
+		return traceMaxFileSize;
+	}
+
+	public void setTraceMaxFileSize(long traceMaxFileSize) {
+		this.traceMaxFileSize = traceMaxFileSize;
+	}
+
+	public int getTraceMaxFiles() {
+		return traceMaxFiles;
+	}
+
+	public void setTraceMaxFiles(int traceMaxFiles) {
+		this.traceMaxFiles = traceMaxFiles;
+	}
+
+	public int getTraceQueueSize() {
+		return traceQueueSize;
+	}
+
+	public void setTraceQueueSize(int traceQueueSize) {
+		this.traceQueueSize = traceQueueSize;
+	}
+
+	@Override
+	protected void doStart() throws Exception {
+		super.doStart();
+		if (tracePayloads) {
+			String name = "SapPayloadTracer[" + getEndpointKey() + "]";
+			ThreadPoolProfile profile = new ThreadPoolProfileBuilder(name).poolSize(1).maxPoolSize(1)
+					.maxQueueSize(traceQueueSize).rejectedPolicy(ThreadPoolRejectedPolicy.Abort).build();
+			traceWriter = getCamelContext().getExecutorServiceManager().newThreadPool(this, name, profile);
+			File file = new File(traceDirectory, getEndpointKey().replaceAll("[^A-Za-z0-9._-]", "_") + ".trace");
+			payloadTracer = new PayloadTracer(getEndpointUri(), file, traceSamplingRate, traceMaxPayloadSize, traceMaxFileSize, traceMaxFiles, traceWriter);
+		}
+	}
+
+	@Override
+	protected void doStop() throws Exception {
+		PayloadTracer tracer = payloadTracer;
+		payloadTracer = null;
+		if (traceWriter != null) {
+			// Write out queued records before closing trace file.
+			getCamelContext().getExecutorServiceManager().shutdownGraceful(traceWriter);
+			traceWriter = null;
+		}
+		if (tracer != null) {
+			tracer.close();
+		}
+		super.doStop();
+	}
+
+}
@@ -0,0 +1,297 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.camel.Exchange;
+import org.fusesource.camel.component.sap.util.CallTimings;
+
+import com.sap.conn.jco.JCoException;
+
+/**
+ * Call metrics of an SAP endpoint.
+ * <p>
+ * Each call made by a producer or handled by a consumer of the endpoint is
+ * recorded with its {@link CallTimings}: latency histograms of the time spent
+ * converting payloads, executing in SAP and processing in the route, counters
+ * of the calls, failures, table rows and IDoc segments transferred, and a
+ * count of the errors by key: the ABAP exception key or JCo error key of a
+ * {@link JCoException}, else the simple class name of the exception.
+ * <p>
+ * Recording is lock free and allocates only when a new error key is first
+ * seen.
+ *
+ * @see SapEndpoint
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class SapEndpointMetrics {
+
+	private final AtomicLong calls = new AtomicLong();
+
+	private final AtomicLong failures = new AtomicLong();
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final AtomicLong rows = new AtomicLong();
+
+	private final AtomicLong segments = new AtomicLong();
+
+	private final ConcurrentMap<String, AtomicLong> errors = new ConcurrentHashMap<String, AtomicLong>();
+
+	private final LatencyHistogram conversionTime = new LatencyHistogram();
+
+	private final LatencyHistogram executionTime = new LatencyHistogram();
+
+	private final LatencyHistogram routeTime = new LatencyHistogram();
+
+	/**
+	 * Begins recording a call that is not part of an exchange.
+	 * 
+	 * @return The timings of the call, to be passed to
+	 *         {@link #end(CallTimings, Throwable)} when the call ends.
+	 */
+	public CallTimings begin() {
+		inFlight.incrementAndGet();
+		return new CallTimings();
+	}
+
+	/**
+	 * Begins recording a call made by a producer for <code>exchange</code>.
+	 * The time the exchange spent in the route before reaching the producer
+	 * is recorded as the route time of the call.
+	 * 
+	 * @return The timings of the call, to be passed to
+	 *         {@link #end(CallTimings, Throwable)} when the call ends.
+	 */
+	public CallTimings begin(Exchange exchange) {
+		CallTimings timings = begin();
+		Date created = exchange.getProperty(Exchange.CREATED_TIMESTAMP, Date.class);
+		if (created != null) {
+			long elapsed = System.currentTimeMillis() - created.getTime();
+			timings.addRouteTime(TimeUnit.MILLISECONDS.toNanos(Math.max(elapsed, 0)));
+		}
+		return timings;
+	}
+
+	/**
+	 * Ends recording a call.
+	 * 
+	 * @param timings
+	 *            - the timings returned when the call began.
+	 * @param failure
+	 *            - the exception the call failed with or <code>null</code>.
+	 */
+	public void end(CallTimings timings, Throwable failure) {
+		inFlight.decrementAndGet();
+		calls.incrementAndGet();
+		// A phase the call did not go through, e.g. execution in SAP for a
+		// consumer, is not recorded.
+		if (timings.getConversionTime() > 0) {
+			conversionTime.record(timings.getConversionTime());
+		}
+		if (timings.getExecutionTime() > 0) {
+			executionTime.record(timings.getExecutionTime());
+		}
+		if (timings.getRouteTime() > 0) {
+			routeTime.record(timings.getRouteTime());
+		}
+		rows.addAndGet(timings.getRows());
+		segments.addAndGet(timings.getSegments());
+		if (failure != null) {
+			failures.incrementAndGet();
+			String key = getErrorKey(failure);
+			AtomicLong count = errors.get(key);
+			if (count == null) {
+				AtomicLong newCount = new AtomicLong();
+				count = errors.putIfAbsent(key, newCount);
+				if (count == null) {
+					count = newCount;
+				}
+			}
+			count.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Resets all metrics except the number of calls in flight.
+	 */
+	public void reset() {
+		calls.set(0);
+		failures.set(0);
+		rows.set(0);
+		segments.set(0);
+		errors.clear();
+		conversionTime.reset();
+		executionTime.reset();
+		routeTime.reset();
+	}
+
+	public long getCalls() {
+		return calls.get();
+	}
+
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getRows() {
+		return rows.get();
+	}
+
+	public long getSegments() {
+		return segments.get();
+	}
+
+	/**
+	 * Returns the number of failed calls by error key.
+	 */
+	public Map<String, Long> getErrors() {
+		Map<String, Long> counts = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> entry : errors.entrySet()) {
+			counts.put(entry.getKey(), entry.getValue().get());
+		}
+		return counts;
+	}
+
+	public LatencyHistogram getConversionTime() {
+		return conversionTime;
+	}
+
+	public LatencyHistogram getExecutionTime() {
+		return executionTime;
+	}
+
+	public LatencyHistogram getRouteTime() {
+		return routeTime;
+	}
+
+	/**
+	 * Returns the key <code>failure</code> is counted under: the key of the
+	 * first {@link JCoException} in its causal chain, else its simple class
+	 * name.
+	 */
+	static String getErrorKey(Throwable failure) {
+		for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+			if (cause instanceof JCoException && ((JCoException) cause).getKey() != null) {
+				return ((JCoException) cause).getKey();
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return failure.getClass().getSimpleName();
+	}
+
+	/**
+	 * Histogram of latencies with power of two buckets in microseconds: bucket
+	 * <code>i</code> counts the latencies below <code>2^i</code>
+	 * microseconds not counted by a lower bucket. Quantiles are therefore
+	 * reported to within a factor of two.
+	 */
+	public static class LatencyHistogram {
+
+		private static final int BUCKETS = 40;
+
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong total = new AtomicLong();
+
+		private final AtomicLong max = new AtomicLong();
+
+		/**
+		 * Records a latency of <code>nanos</code> nanoseconds.
+		 */
+		public void record(long nanos) {
+			long micros = Math.max(nanos / 1000, 0);
+			int bucket = Math.min(64 - Long.numberOfLeadingZeros(micros), BUCKETS - 1);
+			counts.incrementAndGet(bucket);
+			count.incrementAndGet();
+			total.addAndGet(nanos);
+			long current;
+			while (nanos > (current = max.get()) && !max.compareAndSet(current, nanos)) {
+				// retry
+			}
+		}
+
+		public long getCount() {
+			return count.get();
+		}
+
+		/**
+		 * Returns the mean latency in milliseconds.
+		 */
+		public double getMean() {
+			long n = count.get();
+			return n == 0 ? 0 : total.get() / (n * 1e6);
+		}
+
+		/**
+		 * Returns the maximum latency in milliseconds.
+		 */
+		public double getMax() {
+			return max.get() / 1e6;
+		}
+
+		/**
+		 * Returns the upper bound in milliseconds of the bucket holding the
+		 * <code>quantile</code> latency, e.g. <code>0.99</code> for the 99th
+		 * percentile.
+		 */
+		public double getQuantile(double quantile) {
+			long n = count.get();
+			if (n == 0) {
+				return 0;
+			}
+			long rank = (long) Math.ceil(quantile * n);
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += counts.get(i);
+				if (seen >= rank) {
+					return Math.min((1L << i) / 1e3, getMax());
+				}
+			}
+			return getMax();
+		}
+
+		void reset() {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts.set(i, 0);
+			}
+			count.set(0);
+			total.set(0);
+			max.set(0);
+		}
+	}
+
+}
@@ -16,12 +16,20 @@
  */
 package org.fusesource.camel.component.sap;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import org.apache.camel.Component;
 import org.apache.camel.Consumer;
+import org.apache.camel.Exchange;
 import org.apache.camel.Processor;
-import org.apache.camel.impl.DefaultEndpoint;
 import org.apache.camel.spi.Metadata;
+import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
+import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.model.idoc.Segment;
+import org.fusesource.camel.component.sap.util.ConversionDiagnostics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -36,10 +44,16 @@ import com.sap.conn.jco.JCoDestinationManager;
  * @author William Collins <punkhornsw@gmail.com>
  *
  */
-public abstract class SapIDocDestinationEndpoint extends DefaultEndpoint {
+public abstract class SapIDocDestinationEndpoint extends SapEndpoint {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SapIDocDestinationEndpoint.class); 
 	
+	/**
+	 * Name of the exchange property holding the {@link ConversionDiagnostics}
+	 * of an IDoc whose values could not all be converted.
+	 */
+	public static final String CONVERSION_DIAGNOSTICS_PROPERTY_NAME = "org.fusesource.camel.component.sap.conversionDiagnostics";
+	
 	@UriPath(name = "idocType", description = "Specifies the Basic IDoc Type of an IDoc produced by this endpoint") @Metadata(required = "true")
 	protected String idocType;
 	
@@ -55,8 +69,13 @@ public abstract class SapIDocDestinationEndpoint extends DefaultEndpoint {
 	@UriPath(name = "destination", description = "Specifies the destination this endpoint sends an IDoc to") @Metadata(required = "true")
     protected String destinationName;
 	
+	@UriParam(name = "conversionFailurePolicy", description = "Specifies how values of an IDoc which can not be converted are handled: FAIL fails the exchange, COUNT skips and counts them, COLLECT skips, counts and records them in the conversion diagnostics of the exchange", defaultValue = "COLLECT")
+	protected ConversionDiagnostics.Policy conversionFailurePolicy = ConversionDiagnostics.Policy.COLLECT;
+	
     protected JCoDestination destination;
 
+    protected volatile IDocRepository iDocRepository;
+
 	public SapIDocDestinationEndpoint() {
 	}
 
@@ -115,11 +134,95 @@ public abstract class SapIDocDestinationEndpoint extends DefaultEndpoint {
 		this.destinationName = destinationName;
 	}
 
+	public ConversionDiagnostics.Policy getConversionFailurePolicy() {
+		return conversionFailurePolicy;
+	}
+
+	public void setConversionFailurePolicy(ConversionDiagnostics.Policy conversionFailurePolicy) {
+		this.conversionFailurePolicy = conversionFailurePolicy;
+	}
+
+	/**
+	 * Creates the report of a conversion of an IDoc sent by this endpoint.
+	 */
+	public ConversionDiagnostics createConversionDiagnostics() {
+		return new ConversionDiagnostics(getConversionFailurePolicy());
+	}
+
+	/**
+	 * Sets <code>diagnostics</code> as the
+	 * {@link #CONVERSION_DIAGNOSTICS_PROPERTY_NAME} property of
+	 * <code>exchange</code> if the conversion had failures.
+	 */
+	public void attachConversionDiagnostics(Exchange exchange, ConversionDiagnostics diagnostics) {
+		if (diagnostics.hasFailures()) {
+			exchange.setProperty(CONVERSION_DIAGNOSTICS_PROPERTY_NAME, diagnostics);
+		}
+	}
+
+	/**
+	 * Checks that <code>document</code> has the IDoc type, IDoc type
+	 * extension, system release and application release of this endpoint, so
+	 * that it can be sent in a document list created by
+	 * {@link #createDocumentList()}.
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the document has another IDoc type.
+	 */
+	public void checkBatchable(Document document) {
+		Segment rootSegment = document.getRootSegment();
+		String documentType = describeIDocType(rootSegment.getIdocType(), rootSegment.getIdocTypeExtension(), rootSegment.getSystemRelease(), rootSegment.getApplicationRelease());
+		String endpointType = describeIDocType(getIdocType(), getIdocTypeExtension(), getSystemRelease(), getApplicationRelease());
+		if (!endpointType.equals(documentType)) {
+			// A batch can only be sent in an IDoc list of the endpoint's type.
+			throw new IllegalArgumentException("IDoc document of type '" + documentType + "' can not be batched with IDocs of type '" + endpointType + "'");
+		}
+	}
+
+	private static String describeIDocType(String idocType, String idocTypeExtension, String systemRelease, String applicationRelease) {
+		// Missing keys are empty, as in the meta-data of a document list.
+		return nullToEmpty(idocType) + ":" + nullToEmpty(idocTypeExtension) + ":" + nullToEmpty(systemRelease) + ":" + nullToEmpty(applicationRelease);
+	}
+
+	private static String nullToEmpty(String value) {
+		return value == null ? "" : value;
+	}
+
+	/**
+	 * Creates an empty document list of this endpoint's IDoc type.
+	 */
+	public abstract DocumentList createDocumentList() throws Exception;
+
+	/**
+	 * Submits the lookup of the meta-data of this endpoint's IDoc type to the
+	 * {@link MetadataWarmUp} of its CamelContext.
+	 * 
+	 * @return The future of the lookup.
+	 */
+	public Future<?> warmUpMetadata() throws Exception {
+		String key = "idoc:" + getDestinationName() + ":" + getIdocType() + ":" + getIdocTypeExtension() + ":" + getSystemRelease() + ":" + getApplicationRelease();
+		return MetadataWarmUp.getInstance(getCamelContext()).submit(getDestinationName(), getDestination(), key, new Callable<DocumentList>() {
+			@Override
+			public DocumentList call() throws Exception {
+				return createDocumentList();
+			}
+		});
+	}
+
+	/**
+	 * Returns the IDoc repository of this endpoint's destination, looking it
+	 * up on first use and caching it for subsequent sends.
+	 */
 	protected IDocRepository getIDocRepository() throws Exception{
-		if (getDestination() != null) {
-			return JCoIDoc.getIDocRepository(getDestination());
+		IDocRepository repository = iDocRepository;
+		if (repository == null) {
+			if (getDestination() == null) {
+				throw new Exception("Failed to get IDoc repository: no destination set of endpoint");
+			}
+			repository = JCoIDoc.getIDocRepository(getDestination());
+			iDocRepository = repository;
 		}
-		throw new Exception("Failed to get IDoc repository: no destination set of endpoint");
+		return repository;
 	}
 
 	protected JCoDestination getDestination() {
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.camel.Exchange;
+import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.util.CallTimings;
+import org.fusesource.camel.component.sap.util.ConversionDiagnostics;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sap.conn.jco.JCoDestination;
+
+/**
+ * Base class of the SAP producers sending an IDoc (Intermediate Document) to
+ * an SAP system using the transactional (tRFC) or queued (qRFC) remote
+ * function call protocol.
+ * <p>
+ * Only IDocs of the type of the endpoint are batched.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public abstract class SapIDocTransactionProducer extends SapBatchingProducer<Document> {
+
+	private static final transient Logger LOG = LoggerFactory.getLogger(SapIDocTransactionProducer.class);
+
+	protected SapIDocTransactionProducer(SapIDocDestinationEndpoint endpoint) {
+		super(endpoint, "SapIDocTransactionBatcher", "Document");
+	}
+
+	@Override
+	public SapIDocDestinationEndpoint getEndpoint() {
+		return (SapIDocDestinationEndpoint) super.getEndpoint();
+	}
+
+	/**
+	 * Returns the name of the queue the IDocs are sent to or
+	 * <code>null</code> if they are not sent to a queue.
+	 */
+	protected abstract String getQueueName();
+
+	@Override
+	protected String getDestinationName() {
+		return getEndpoint().getDestinationName();
+	}
+
+	@Override
+	protected JCoDestination getDestination() {
+		return getEndpoint().getDestination();
+	}
+
+	@Override
+	protected Document getItem(Exchange exchange) throws Exception {
+		return exchange.getIn().getBody(Document.class);
+	}
+
+	@Override
+	protected boolean checkItem(Document document, boolean batched) throws Exception {
+		if (document == null) {
+			LOG.warn("Exchange input message body does not contain IDoc document");
+			return false;
+		}
+		if (batched) {
+			getEndpoint().checkBatchable(document);
+		}
+		return true;
+	}
+
+	@Override
+	protected long estimateSize(Document document) {
+		return IDocUtil.estimateDocumentSize(document);
+	}
+
+	@Override
+	protected void send(Exchange exchange, Document document, String tid, CallTimings timings) throws Exception {
+		LOG.debug("Sending IDoc document to ''{}''", getEndpoint().getEndpointUri());
+		ConversionDiagnostics diagnostics = getEndpoint().createConversionDiagnostics();
+		try {
+			IDocUtil.sendDocument(getEndpoint().getDestination(), getEndpoint().getIDocRepository(), document, tid, getQueueName(), timings, diagnostics);
+		} finally {
+			getEndpoint().attachConversionDiagnostics(exchange, diagnostics);
+		}
+	}
+
+	@Override
+	protected void sendBatch(JCoDestination destination, List<Exchange> exchanges, List<Document> documents, String tid, CallTimings timings) throws Exception {
+		// Each document has its own report, attached to its own exchange
+		// before the exchanges of the batch are completed.
+		List<ConversionDiagnostics> diagnostics = new ArrayList<ConversionDiagnostics>(documents.size());
+		for (int i = 0; i < documents.size(); i++) {
+			diagnostics.add(getEndpoint().createConversionDiagnostics());
+		}
+		try {
+			// Documents are not added to a document list: that would remove them
+			// from the containers of their exchanges.
+			IDocUtil.sendDocuments(destination, getEndpoint().getIDocRepository(), documents, tid, getQueueName(), timings, diagnostics);
+		} finally {
+			for (int i = 0; i < exchanges.size(); i++) {
+				getEndpoint().attachConversionDiagnostics(exchanges.get(i), diagnostics.get(i));
+			}
+		}
+	}
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.spi.DataFormat;
+import org.eclipse.emf.ecore.EObject;
+import org.fusesource.camel.component.sap.util.JsonUtil;
+
+/**
+ * Data format marshaling SAP data objects (structures, documents and document
+ * lists) to and from their JSON representation.
+ * <p>
+ * Available by name as <code>sap-json</code>. The SAP type converters also
+ * read JSON, so a JSON body can be converted directly to a structure or
+ * document.
+ *
+ * @see JsonUtil
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class SapJsonDataFormat implements DataFormat {
+
+	@Override
+	public void marshal(Exchange exchange, Object graph, OutputStream stream) throws Exception {
+		if (!(graph instanceof EObject)) {
+			throw new IllegalArgumentException("Can not marshal " + (graph == null ? "null" : graph.getClass().getName()) + " to JSON: not an SAP data object");
+		}
+		JsonUtil.marshal((EObject) graph, stream);
+	}
+
+	@Override
+	public Object unmarshal(Exchange exchange, InputStream stream) throws Exception {
+		return JsonUtil.unmarshal(stream);
+	}
+
+}
@@ -19,8 +19,10 @@ package org.fusesource.camel.component.sap;
 import org.apache.camel.Producer;
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriEndpoint;
+import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
 import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
 import org.fusesource.camel.component.sap.util.IDocUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,6 +42,15 @@ public class SapQueuedIDocDestinationEndpoint extends SapIDocDestinationEndpoint
 	@UriPath(name = "queue", description = "Specifies the queue this endpoint sends an IDoc to") @Metadata(required = "true")
     protected String queueName;
 
+	@UriParam(name = "batchSize", description = "The maximum number of IDocs sent in one IDoc list transaction (LUW); 1 sends each IDoc in its own transaction", defaultValue = "1")
+	protected int batchSize = 1;
+
+	@UriParam(name = "batchBytes", description = "The estimated size in bytes of the IDocs of a transaction batch which triggers sending the batch; 0 if unlimited", defaultValue = "0")
+	protected long batchBytes;
+
+	@UriParam(name = "batchTimeout", description = "The maximum number of milliseconds an IDoc waits for its transaction batch to fill before the batch is sent", defaultValue = "1000")
+	protected long batchTimeout = 1000;
+
     public SapQueuedIDocDestinationEndpoint() {
 	}
 
@@ -63,6 +74,38 @@ public class SapQueuedIDocDestinationEndpoint extends SapIDocDestinationEndpoint
 		}
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getBatchBytes() {
+		return batchBytes;
+	}
+
+	public void setBatchBytes(long batchBytes) {
+		this.batchBytes = batchBytes;
+	}
+
+	public long getBatchTimeout() {
+		return batchTimeout;
+	}
+
+	public void setBatchTimeout(long batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
+	public DocumentList createDocumentList() throws Exception {
+		try {
+			return IDocUtil.createDocumentList(getIDocRepository(), getIdocType(), getIdocTypeExtension(), getSystemRelease(), getApplicationRelease());
+		} catch (Exception e) {
+			throw new Exception("Failed to get Document List from endpoint", e);
+		}
+	}
+
 	@Override
 	public Producer createProducer() throws Exception {
 		LOG.debug("Created producer for endpoint '" + getEndpointUri() + "'");
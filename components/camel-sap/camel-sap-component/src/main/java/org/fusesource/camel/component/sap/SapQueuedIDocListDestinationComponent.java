@@ -68,9 +68,10 @@ public class SapQueuedIDocListDestinationComponent extends UriEndpointComponent
 		setProperties(endpoint, parameters);
 		LOG.debug("Created endpoint '" + uri + "'");
 
-		// Create a document list to ensure that the data layer's package registry is
-		// loaded with the schema of this endpoint's IDoc type.
-		endpoint.createDocumentList();
+		// Load the data layer's package registry with the schema of
+		// this endpoint's IDoc type in the background rather than
+		// delaying the creation of the endpoint's route.
+		endpoint.warmUpMetadata();
 		
 		return endpoint;
 	}
@@ -16,51 +16,46 @@
  */
 package org.fusesource.camel.component.sap;
 
-import org.apache.camel.Exchange;
-import org.apache.camel.impl.DefaultProducer;
-import org.fusesource.camel.component.sap.model.idoc.Document;
-import org.fusesource.camel.component.sap.util.IDocUtil;
-import org.fusesource.camel.component.sap.util.Util;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * An SAP producer sending a IDoc (Intermediate Document) to an SAP system using
  * the queued remote function call (qRFC) protocol.
+ * <p>
+ * When the batch size of its endpoint is greater than one, the producer sends
+ * the IDocs of consecutive exchanges in one IDoc list transaction (LUW) using a
+ * {@link DestinationRfcTransactionBatcher}.
  * 
  * @author William Collins <punkhornsw@gmail.com>
  * 
  */
-public class SapQueuedIDocProducer extends DefaultProducer {
-
-	private static final transient Logger LOG = LoggerFactory.getLogger(SapQueuedIDocProducer.class);
+public class SapQueuedIDocProducer extends SapIDocTransactionProducer {
 
 	public SapQueuedIDocProducer(SapQueuedIDocDestinationEndpoint endpoint) {
 		super(endpoint);
 	}
 
 	@Override
-	public void process(Exchange exchange) throws Exception {
-		Document document = exchange.getIn().getBody(Document.class);
-		if (document == null) {
-			LOG.warn("Exchange input message body does not contain IDoc document");
-			return;
-		}
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Sending IDoc document to ''{}''", getEndpoint().getEndpointUri());
-				LOG.debug("Document: " + (document == null ? document : Util.marshal(document)));
-			} catch (Exception e) {
-				LOG.warn("Failed to log request", e);
-			}
-		}
-		String tid = DestinationRfcTransactionHandler.getTID(exchange, getEndpoint().getDestination());
-		IDocUtil.sendDocument(getEndpoint().getDestination(), document, tid, getEndpoint().getQueueName());
+	public SapQueuedIDocDestinationEndpoint getEndpoint() {
+		return (SapQueuedIDocDestinationEndpoint) super.getEndpoint();
 	}
 
 	@Override
-	public SapQueuedIDocDestinationEndpoint getEndpoint() {
-		return (SapQueuedIDocDestinationEndpoint) super.getEndpoint();
+	protected String getQueueName() {
+		return getEndpoint().getQueueName();
+	}
+
+	@Override
+	protected int getBatchSize() {
+		return getEndpoint().getBatchSize();
+	}
+
+	@Override
+	protected long getBatchBytes() {
+		return getEndpoint().getBatchBytes();
+	}
+
+	@Override
+	protected long getBatchTimeout() {
+		return getEndpoint().getBatchTimeout();
 	}
 
 }
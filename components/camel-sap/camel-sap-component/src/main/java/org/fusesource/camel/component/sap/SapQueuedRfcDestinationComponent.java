@@ -60,9 +60,10 @@ public class SapQueuedRfcDestinationComponent extends UriEndpointComponent {
 		setProperties(endpoint, parameters);
 		LOG.debug("Created endpoint '" + uri + "'");
 		
-		// Create a request to ensure that the data layer's package registry is
-		// loaded with the schema of this endpoint's request and response types.
-		endpoint.createRequest();
+		// Load the data layer's package registry with the schema of
+		// this endpoint's request and response types in the background rather than
+		// delaying the creation of the endpoint's route.
+		endpoint.warmUpMetadata();
 		
 		return endpoint;
 	}
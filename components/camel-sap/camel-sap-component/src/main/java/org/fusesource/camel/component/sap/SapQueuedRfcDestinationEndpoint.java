@@ -19,6 +19,7 @@ package org.fusesource.camel.component.sap;
 import org.apache.camel.Producer;
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriEndpoint;
+import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,6 +38,12 @@ public class SapQueuedRfcDestinationEndpoint extends SapRfcDestinationEndpoint {
 	@UriPath(name = "queue", description = "Specifies the queue this endpoint sends an SAP request to") @Metadata(required = "true")
     protected String queueName;
 
+	@UriParam(name = "batchSize", description = "The maximum number of exchanges whose function calls are sent in one transaction (LUW); 1 sends each exchange in its own transaction; ignored when transacted or stateful", defaultValue = "1")
+	protected int batchSize = 1;
+
+	@UriParam(name = "batchTimeout", description = "The maximum number of milliseconds an exchange waits for its transaction batch to fill before the batch is sent", defaultValue = "1000")
+	protected long batchTimeout = 1000;
+
 	public SapQueuedRfcDestinationEndpoint() {
 	}
 
@@ -52,6 +59,22 @@ public class SapQueuedRfcDestinationEndpoint extends SapRfcDestinationEndpoint {
 		this.queueName = queueName;
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getBatchTimeout() {
+		return batchTimeout;
+	}
+
+	public void setBatchTimeout(long batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
 	@Override
 	public Producer createProducer() throws Exception {
 		LOG.debug("Created producer for endpoint '" + getEndpointUri() + "'");
@@ -16,10 +16,12 @@
  */
 package org.fusesource.camel.component.sap;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
 import org.apache.camel.Component;
 import org.apache.camel.Consumer;
 import org.apache.camel.Processor;
-import org.apache.camel.impl.DefaultEndpoint;
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
@@ -37,7 +39,7 @@ import com.sap.conn.jco.JCoDestinationManager;
  * @author William Collins <punkhornsw@gmail.com>
  *
  */
-public abstract class SapRfcDestinationEndpoint extends DefaultEndpoint {
+public abstract class SapRfcDestinationEndpoint extends SapEndpoint {
 	
     private static final Logger LOG = LoggerFactory.getLogger(SapRfcDestinationEndpoint.class);
 
@@ -110,6 +112,22 @@ public abstract class SapRfcDestinationEndpoint extends DefaultEndpoint {
 		return RfcUtil.getRequest(getDestination().getRepository(), getRfcName());
 	}
 
+	/**
+	 * Submits the lookup of the meta-data of this endpoint's request and
+	 * response types to the {@link MetadataWarmUp} of its CamelContext.
+	 * 
+	 * @return The future of the lookup.
+	 */
+	public Future<?> warmUpMetadata() throws Exception {
+		String key = "rfc:" + getDestinationName() + ":" + getRfcName();
+		return MetadataWarmUp.getInstance(getCamelContext()).submit(getDestinationName(), getDestination(), key, new Callable<Structure>() {
+			@Override
+			public Structure call() throws Exception {
+				return createRequest();
+			}
+		});
+	}
+
 	protected JCoDestination getDestination() {
 		if (destination == null) {
 			try {
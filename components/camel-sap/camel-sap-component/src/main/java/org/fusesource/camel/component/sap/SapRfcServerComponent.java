@@ -51,6 +51,8 @@ public abstract class SapRfcServerComponent extends UriEndpointComponent {
 	
 	protected File tidStoresLocation = new File(".");
 
+	protected long sessionIdleTimeout = FunctionHandlerFactory.DEFAULT_SESSION_IDLE_TIMEOUT;
+
 	protected Map<String, JCoServer> activeServers = new HashMap<String, JCoServer>();
 
 	protected Map<String, JCoCustomRepository> repositories = new HashMap<String, JCoCustomRepository>();
@@ -80,6 +82,27 @@ public abstract class SapRfcServerComponent extends UriEndpointComponent {
 		this.tidStoresLocation = new File(tidStoresLocation);
 	}
 
+	public long getSessionIdleTimeout() {
+		return sessionIdleTimeout;
+	}
+
+	/**
+	 * Sets the time in milliseconds after which the context of an idle
+	 * stateful session is discarded.
+	 * 
+	 * @param sessionIdleTimeout
+	 *            - the session idle timeout in milliseconds; less than or
+	 *            equal to zero to keep idle sessions until closed.
+	 */
+	public void setSessionIdleTimeout(long sessionIdleTimeout) {
+		this.sessionIdleTimeout = sessionIdleTimeout;
+		for (JCoServer server : activeServers.values()) {
+			if (server.getCallHandlerFactory() instanceof FunctionHandlerFactory) {
+				((FunctionHandlerFactory) server.getCallHandlerFactory()).setSessionIdleTimeout(sessionIdleTimeout);
+			}
+		}
+	}
+
 	protected FunctionHandlerFactory getServerHandlerFactory(String serverName) throws Exception {
 		JCoServer server = getServer(serverName);
 		if (server == null) {
@@ -98,7 +121,9 @@ public abstract class SapRfcServerComponent extends UriEndpointComponent {
 				throw new Exception("The server connection '" + serverName + "' is already in use");
 			}
 
-			server.setCallHandlerFactory(new FunctionHandlerFactory());
+			FunctionHandlerFactory handlerFactory = new FunctionHandlerFactory();
+			handlerFactory.setSessionIdleTimeout(sessionIdleTimeout);
+			server.setCallHandlerFactory(handlerFactory);
 			
 			File tidStoreFile = new File(tidStoresLocation, serverName);
 			server.setTIDHandler(new ServerTIDHandler(tidStoreFile));
@@ -163,6 +188,9 @@ public abstract class SapRfcServerComponent extends UriEndpointComponent {
 			server.removeServerErrorListener(serverErrorAndExceptionListener);
 			server.removeServerExceptionListener(serverErrorAndExceptionListener);
 			server.removeServerStateChangedListener(serverStateChangedListener);
+			if (server.getTIDHandler() instanceof ServerTIDHandler) {
+				((ServerTIDHandler) server.getTIDHandler()).close();
+			}
 			server.setTIDHandler(null);
 			server.release();
 		}
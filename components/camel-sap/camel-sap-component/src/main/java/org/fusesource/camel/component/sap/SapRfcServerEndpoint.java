@@ -18,7 +18,6 @@ package org.fusesource.camel.component.sap;
 
 import org.apache.camel.Component;
 import org.apache.camel.Producer;
-import org.apache.camel.impl.DefaultEndpoint;
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriParam;
 import org.apache.camel.spi.UriPath;
@@ -35,7 +34,7 @@ import com.sap.conn.jco.server.JCoServer;
  * @author William Collins <punkhornsw@gmail.com>
  *
  */
-public abstract class SapRfcServerEndpoint extends DefaultEndpoint {
+public abstract class SapRfcServerEndpoint extends SapEndpoint {
 	
     private static final Logger LOG = LoggerFactory.getLogger(SapRfcServerEndpoint.class);
 
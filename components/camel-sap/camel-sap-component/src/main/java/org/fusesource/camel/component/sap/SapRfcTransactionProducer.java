@@ -0,0 +1,122 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.List;
+
+import org.apache.camel.Exchange;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.CallTimings;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sap.conn.jco.JCoContext;
+import com.sap.conn.jco.JCoDestination;
+import com.sap.conn.jco.JCoException;
+
+/**
+ * Base class of the SAP producers performing a transactional (tRFC) or queued
+ * (qRFC) remote function call to a remote function module (RFM) in SAP.
+ * <p>
+ * Requests are not batched when the endpoint is transacted or stateful.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public abstract class SapRfcTransactionProducer extends SapBatchingProducer<Structure> {
+
+	private static final transient Logger LOG = LoggerFactory.getLogger(SapRfcTransactionProducer.class);
+
+	protected SapRfcTransactionProducer(SapRfcDestinationEndpoint endpoint) {
+		super(endpoint, "SapRfcTransactionBatcher", "Request");
+	}
+
+	@Override
+	public void process(Exchange exchange) throws Exception {
+		if (getEndpoint().isTransacted()) {
+			// Ensure that an SAP transaction for destination has begun and is
+			// handled by this exchange.
+			DestinationSapTransactionHandler.ensureSapTransactionHasBegunAndIsHandled(exchange, getEndpoint().getDestination());
+		} else if (getEndpoint().isStateful()) {
+			// Ensure that an SAP stateful session for destination has begun and is
+			// handled by this exchange.
+			DestinationSapStatefulSessionHandler.ensureSapStatefulSessionHasBegunAndIsHandled(exchange, getEndpoint().getDestination());
+		}
+		super.process(exchange);
+	}
+
+	@Override
+	public SapRfcDestinationEndpoint getEndpoint() {
+		return (SapRfcDestinationEndpoint) super.getEndpoint();
+	}
+
+	/**
+	 * Returns the name of the queue the function calls are sent to or
+	 * <code>null</code> if they are not sent to a queue.
+	 */
+	protected abstract String getQueueName();
+
+	@Override
+	protected boolean isBatching() {
+		return super.isBatching() && !getEndpoint().isTransacted() && !getEndpoint().isStateful();
+	}
+
+	@Override
+	protected String getDestinationName() {
+		return getEndpoint().getDestinationName();
+	}
+
+	@Override
+	protected JCoDestination getDestination() {
+		return getEndpoint().getDestination();
+	}
+
+	@Override
+	protected Structure getItem(Exchange exchange) throws Exception {
+		return exchange.getIn().getBody(Structure.class);
+	}
+
+	@Override
+	protected void send(Exchange exchange, Structure request, String tid, CallTimings timings) throws Exception {
+		LOG.debug("Calling '{}' RFC", getEndpoint().getRfcName());
+		executeFunction(getEndpoint().getDestination(), request, tid, timings);
+	}
+
+	@Override
+	protected void sendBatch(JCoDestination destination, List<Exchange> exchanges, List<Structure> requests, String tid, CallTimings timings) throws Exception {
+		// Execute function calls of transaction in one context.
+		JCoContext.begin(destination);
+		try {
+			for (Structure request : requests) {
+				executeFunction(destination, request, tid, timings);
+			}
+		} finally {
+			JCoContext.end(destination);
+		}
+	}
+
+	private void executeFunction(JCoDestination destination, Structure request, String tid, CallTimings timings) throws JCoException {
+		String queueName = getQueueName();
+		if (queueName == null) {
+			RfcUtil.executeFunction(destination, getEndpoint().getRfcName(), request, tid, timings);
+		} else {
+			RfcUtil.executeFunction(destination, getEndpoint().getRfcName(), request, tid, queueName, timings);
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ * 
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ * 
+ */
+package org.fusesource.camel.component.sap;
+
+import com.sap.conn.jco.AbapClassException;
+import com.sap.conn.jco.AbapException;
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.server.JCoServerContext;
+import com.sap.conn.jco.server.JCoServerFunctionHandler;
+
+/**
+ * Function handler which handles calls made in a stateful session with the
+ * session context of the call.
+ * 
+ * @author William Collins <punkhornsw@gmail.com>
+ * 
+ */
+public interface SapSessionFunctionHandler extends JCoServerFunctionHandler {
+
+	/**
+	 * Handles a call made in a stateful session.
+	 * 
+	 * @param serverContext
+	 *            - the server context of the call.
+	 * @param jcoFunction
+	 *            - the function called.
+	 * @param sessionContext
+	 *            - the context of the session the call was made in or
+	 *            <code>null</code> if the call was not made in a stateful
+	 *            session.
+	 * @throws AbapException
+	 * @throws AbapClassException
+	 */
+	void handleRequest(JCoServerContext serverContext, JCoFunction jcoFunction, SapServerSessionContext sessionContext) throws AbapException, AbapClassException;
+
+}
@@ -16,13 +16,12 @@
  */
 package org.fusesource.camel.component.sap;
 
-import java.io.IOException;
-
 import org.apache.camel.Exchange;
 import org.apache.camel.ExchangePattern;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.CallTimings;
 import org.fusesource.camel.component.sap.util.RfcUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,7 +30,6 @@ import com.sap.conn.jco.AbapClassException;
 import com.sap.conn.jco.AbapException;
 import com.sap.conn.jco.JCoFunction;
 import com.sap.conn.jco.server.JCoServerContext;
-import com.sap.conn.jco.server.JCoServerFunctionHandler;
 
 /**
  * An SAP consumer receiving a synchronous remote function call (sRFC) from an SAP system. 
@@ -39,7 +37,7 @@ import com.sap.conn.jco.server.JCoServerFunctionHandler;
  * @author William Collins <punkhornsw@gmail.com>
  *
  */
-public class SapSynchronousRfcConsumer extends SapConsumer implements JCoServerFunctionHandler {
+public class SapSynchronousRfcConsumer extends SapConsumer implements SapSessionFunctionHandler {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SapSynchronousRfcConsumer.class);
 
@@ -53,61 +51,73 @@ public class SapSynchronousRfcConsumer extends SapConsumer implements JCoServerF
 
 	@Override
 	public void handleRequest(JCoServerContext serverContext, JCoFunction jcoFunction) throws AbapException, AbapClassException {
+		handleRequest(serverContext, jcoFunction, null);
+	}
+
+	@Override
+	public void handleRequest(JCoServerContext serverContext, JCoFunction jcoFunction, SapServerSessionContext sessionContext) throws AbapException, AbapClassException {
 		
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Handling request for RFC '{}'", jcoFunction.getName());
 		}
 
-		Exchange exchange = getEndpoint().createExchange(ExchangePattern.InOut);
-
-		// Create Request structure
-		Structure request = RfcUtil.getRequest(serverContext.getRepository(), jcoFunction.getName());
-		RfcUtil.extractJCoParameterListsIntoRequest(jcoFunction, request);
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Request: " + (request == null ? request : RfcUtil.marshal(request)));
-			} catch (IOException e) {
-				LOG.warn("Failed to log request", e);
-			}
-		}
-
+		CallTimings timings = getEndpoint().getMetrics().begin();
+		Throwable failure = null;
 		try {
+			Exchange exchange = getEndpoint().createExchange(ExchangePattern.InOut);
 
-			// Populated request
-			Message message = exchange.getIn();
-			if (isStateful()) {
-				exchange.setProperty(SAP_SESSION_CONTEXT_PROPERTY_NAME, sessionContext);
-			}
-			message.setBody(request);
+			// Create Request structure
+			long start = System.nanoTime();
+			Structure request = RfcUtil.getRequest(serverContext.getRepository(), jcoFunction.getName());
+			RfcUtil.extractJCoParameterListsIntoRequest(jcoFunction, request);
+			timings.addConversionTime(System.nanoTime() - start);
+			getEndpoint().tracePayload(exchange, "Request", request);
 
-			// Process exchange
-			getProcessor().process(exchange);
+			try {
 
-		} catch (Exception e) {
-			throw new AbapException("ROUTE_EXCEPTION", e.getMessage());
-		}
-		
-		if(exchange.getException() != null) {
-			throw new AbapException("ROUTE_EXCEPTION", exchange.getException().getMessage());
-		}
-		
-		// Return response
-		Message message;
-		if (exchange.hasOut()) {
-			message = exchange.getOut();
-		} else {
-			message = exchange.getIn();
-		}
+				// Populated request
+				Message message = exchange.getIn();
+				if (isStateful()) {
+					exchange.setProperty(SAP_SESSION_CONTEXT_PROPERTY_NAME, sessionContext);
+				}
+				message.setBody(request);
+
+				// Process exchange
+				long routeStart = System.nanoTime();
+				try {
+					getProcessor().process(exchange);
+				} finally {
+					timings.addRouteTime(System.nanoTime() - routeStart);
+				}
 
-		Structure response = message.getBody(Structure.class);
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Response: " + (response == null ? response : RfcUtil.marshal(response)));
 			} catch (Exception e) {
-				LOG.warn("Failed to log response", e);
+				throw new AbapException("ROUTE_EXCEPTION", e.getMessage());
+			}
+			
+			if(exchange.getException() != null) {
+				throw new AbapException("ROUTE_EXCEPTION", exchange.getException().getMessage());
 			}
+			
+			// Return response
+			Message message;
+			if (exchange.hasOut()) {
+				message = exchange.getOut();
+			} else {
+				message = exchange.getIn();
+			}
+
+			Structure response = message.getBody(Structure.class);
+			getEndpoint().tracePayload(exchange, "Response", response);
+			start = System.nanoTime();
+			RfcUtil.fillJCoParameterListsFromResponse(response, jcoFunction);
+			timings.addConversionTime(System.nanoTime() - start);
+			timings.addRows(RfcUtil.getNumTableRows(jcoFunction));
+		} catch (AbapException | RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			getEndpoint().getMetrics().end(timings, failure);
 		}
-		RfcUtil.fillJCoParameterListsFromResponse(response, jcoFunction);
 		
 	}
 
@@ -16,13 +16,20 @@
  */
 package org.fusesource.camel.component.sap;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.camel.Endpoint;
+import org.apache.camel.ThreadPoolRejectedPolicy;
+import org.apache.camel.builder.ThreadPoolProfileBuilder;
 import org.apache.camel.impl.UriEndpointComponent;
+import org.apache.camel.spi.ThreadPoolProfile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.sap.conn.jco.JCoDestination;
+
 /**
  * An SAP component that manages {@link SapSynchronousRfcDestinationEndpoint}.
  * 
@@ -32,6 +39,19 @@ import org.slf4j.LoggerFactory;
 public class SapSynchronousRfcDestinationComponent extends UriEndpointComponent {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SapSynchronousRfcDestinationComponent.class);
+
+	/**
+	 * The maximum number of threads of a destination executor when the peak
+	 * limit of its destination is unlimited.
+	 */
+	public static final int DEFAULT_MAX_POOL_SIZE = 10;
+
+	/**
+	 * The maximum number of calls queued by a destination executor.
+	 */
+	public static final int DEFAULT_MAX_QUEUE_SIZE = 1000;
+
+	protected final Map<String, ExecutorService> destinationExecutors = new HashMap<String, ExecutorService>();
 	
 	public SapSynchronousRfcDestinationComponent() {
 		super(SapSynchronousRfcDestinationEndpoint.class);
@@ -59,9 +79,10 @@ public class SapSynchronousRfcDestinationComponent extends UriEndpointComponent
 		setProperties(endpoint, parameters);
 		LOG.debug("Created endpoint '" + uri + "'");
 		
-		// Create a request to ensure that the data layer's package registry is
-		// loaded with the schema of this endpoint's request and response types.
-		endpoint.createRequest();
+		// Load the data layer's package registry with the schema of
+		// this endpoint's request and response types in the background rather than
+		// delaying the creation of the endpoint's route.
+		endpoint.warmUpMetadata();
 		
 		return endpoint;
 	}
@@ -72,8 +93,44 @@ public class SapSynchronousRfcDestinationComponent extends UriEndpointComponent
     	LOG.debug("STARTED");
     }
     
+	/**
+	 * Returns the executor running asynchronous calls to <code>destination</code>.
+	 * <p>
+	 * A destination executor is created when first requested. Its core pool
+	 * size is the pool capacity of the destination and its maximum pool size
+	 * is the peak limit of the destination, so that its threads do not wait
+	 * for connections of the destination's connection pool. When its queue is
+	 * full the calling thread runs the call.
+	 * 
+	 * @param destinationName
+	 *            - the name of destination.
+	 * @param destination
+	 *            - the destination.
+	 * @return The executor of the destination.
+	 */
+	protected synchronized ExecutorService getDestinationExecutor(String destinationName, JCoDestination destination) {
+		ExecutorService executor = destinationExecutors.get(destinationName);
+		if (executor == null) {
+			int maxPoolSize = destination.getPeakLimit() > 0 ? destination.getPeakLimit() : DEFAULT_MAX_POOL_SIZE;
+			int poolSize = Math.min(Math.max(destination.getPoolCapacity(), 1), maxPoolSize);
+			String name = "SapSynchronousRfcDestination[" + destinationName + "]";
+			ThreadPoolProfile profile = new ThreadPoolProfileBuilder(name).poolSize(poolSize).maxPoolSize(maxPoolSize)
+					.maxQueueSize(DEFAULT_MAX_QUEUE_SIZE).rejectedPolicy(ThreadPoolRejectedPolicy.CallerRuns).build();
+			executor = getCamelContext().getExecutorServiceManager().newThreadPool(this, name, profile);
+			destinationExecutors.put(destinationName, executor);
+			LOG.debug("Created executor for destination '" + destinationName + "' with pool size " + poolSize + " and maximum pool size " + maxPoolSize);
+		}
+		return executor;
+	}
+
     @Override
     protected void doStop() throws Exception {
+    	synchronized (this) {
+    		for (ExecutorService executor : destinationExecutors.values()) {
+    			getCamelContext().getExecutorServiceManager().shutdown(executor);
+    		}
+    		destinationExecutors.clear();
+    	}
     	super.doStop();
     	LOG.debug("STOPPED");
     }
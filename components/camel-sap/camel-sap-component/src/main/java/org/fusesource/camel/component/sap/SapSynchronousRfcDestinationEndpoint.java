@@ -18,6 +18,7 @@ package org.fusesource.camel.component.sap;
 
 import org.apache.camel.Producer;
 import org.apache.camel.spi.UriEndpoint;
+import org.apache.camel.spi.UriParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,18 @@ public class SapSynchronousRfcDestinationEndpoint extends SapRfcDestinationEndpo
 	
     private static final Logger LOG = LoggerFactory.getLogger(SapSynchronousRfcDestinationEndpoint.class);
 
+	@UriParam(name = "lazyTables", description = "When true, specifies that the rows of response tables are read from the returned JCo tables only when accessed", defaultValue = "false")
+	protected boolean lazyTables;
+
+	@UriParam(name = "async", description = "When true, specifies that calls are made asynchronously on an executor sized from the connection pool of the destination; ignored when transacted or stateful", defaultValue = "false")
+	protected boolean async;
+
+	@UriParam(name = "streamTable", description = "When specified, the name of the response table parameter whose rows are sent as the body of the out message, as an iterator over lists of rows")
+	protected String streamTable;
+
+	@UriParam(name = "streamBatchSize", description = "Specifies the maximum number of rows in each list of rows returned by the iterator when streamTable is specified", defaultValue = "100")
+	protected int streamBatchSize = 100;
+
 	public SapSynchronousRfcDestinationEndpoint() {
 	}
 
@@ -45,4 +58,41 @@ public class SapSynchronousRfcDestinationEndpoint extends SapRfcDestinationEndpo
 		return new SapSynchronousRfcProducer(this);
 	}
 
+	public boolean isLazyTables() {
+		return lazyTables;
+	}
+
+	public void setLazyTables(boolean lazyTables) {
+		this.lazyTables = lazyTables;
+	}
+
+	public boolean isAsync() {
+		return async;
+	}
+
+	public void setAsync(boolean async) {
+		this.async = async;
+	}
+
+	@Override
+	public SapSynchronousRfcDestinationComponent getComponent() {
+		return (SapSynchronousRfcDestinationComponent) super.getComponent();
+	}
+
+	public String getStreamTable() {
+		return streamTable;
+	}
+
+	public void setStreamTable(String streamTable) {
+		this.streamTable = streamTable;
+	}
+
+	public int getStreamBatchSize() {
+		return streamBatchSize;
+	}
+
+	public void setStreamBatchSize(int streamBatchSize) {
+		this.streamBatchSize = streamBatchSize;
+	}
+
 }
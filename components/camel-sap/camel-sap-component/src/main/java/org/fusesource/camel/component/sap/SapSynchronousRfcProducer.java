@@ -16,29 +16,87 @@
  */
 package org.fusesource.camel.component.sap;
 
+import java.util.concurrent.ExecutorService;
+
+import org.apache.camel.AsyncCallback;
 import org.apache.camel.Exchange;
-import org.apache.camel.impl.DefaultProducer;
+import org.apache.camel.impl.DefaultAsyncProducer;
 import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.model.rfc.Table;
+import org.fusesource.camel.component.sap.util.CallTimings;
 import org.fusesource.camel.component.sap.util.RfcUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * An SAP producer performing a synchronous remote function call (sRFC) to an remote function module (RFM) in SAP. 
+ * <p>
+ * When its endpoint is asynchronous the producer makes non transacted and
+ * stateless calls on the executor of its destination and releases the calling
+ * thread while the call is in progress.
  * 
  * @author William Collins <punkhornsw@gmail.com>
  *
  */
-public class SapSynchronousRfcProducer extends DefaultProducer {
+public class SapSynchronousRfcProducer extends DefaultAsyncProducer {
 
 	private static final transient Logger LOG = LoggerFactory.getLogger(SapSynchronousRfcProducer.class);
 
+	/**
+	 * The name of the header holding the remainder of the response when the
+	 * rows of a response table are streamed.
+	 */
+	public static final String RESPONSE_HEADER_NAME = "CamelSapResponse";
+
 	public SapSynchronousRfcProducer(SapSynchronousRfcDestinationEndpoint endpoint) {
 		super(endpoint);
 	}
 
 	@Override
-	public void process(Exchange exchange) throws Exception {
+	public boolean process(final Exchange exchange, final AsyncCallback callback) {
+		// Transacted and stateful calls are bound to the JCo context of the calling thread.
+		if (!getEndpoint().isAsync() || getEndpoint().isTransacted() || getEndpoint().isStateful()) {
+			call(exchange);
+			callback.done(true);
+			return true;
+		}
+
+		try {
+			ExecutorService executor = getEndpoint().getComponent().getDestinationExecutor(getEndpoint().getDestinationName(), getEndpoint().getDestination());
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					call(exchange);
+					callback.done(false);
+				}
+			});
+		} catch (Exception e) {
+			// Executor is shut down or destination is not available.
+			exchange.setException(e);
+			callback.done(true);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Calls the RFC of the endpoint with the request in <code>exchange</code>,
+	 * setting any failure of the call on <code>exchange</code>.
+	 */
+	protected void call(Exchange exchange) {
+		CallTimings timings = getEndpoint().getMetrics().begin(exchange);
+		Throwable failure = null;
+		try {
+			doCall(exchange, timings);
+		} catch (Throwable e) {
+			failure = e;
+			exchange.setException(e);
+		} finally {
+			getEndpoint().getMetrics().end(timings, failure);
+		}
+	}
+
+	protected void doCall(Exchange exchange, CallTimings timings) throws Exception {
 		if (getEndpoint().isTransacted()) {
 			// Ensure that an SAP transaction for destination has begun and is handled by this exchange.
 			DestinationSapTransactionHandler.ensureSapTransactionHasBegunAndIsHandled(exchange, getEndpoint().getDestination());
@@ -49,21 +107,50 @@ public class SapSynchronousRfcProducer extends DefaultProducer {
 		}
 
 		Structure request = exchange.getIn().getBody(Structure.class);
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Calling '{}' RFC", getEndpoint().getRfcName());
-				LOG.debug("Request: " + (request == null ? request : RfcUtil.marshal(request)));
-			} catch (Exception e) {
-				LOG.warn("Failed to log request", e);
-			}
+		LOG.debug("Calling '{}' RFC", getEndpoint().getRfcName());
+		getEndpoint().tracePayload(exchange, "Request", request);
+		String streamTable = getEndpoint().getStreamTable();
+		if (streamTable != null) {
+			processStreamed(exchange, request, streamTable, timings);
+			return;
 		}
-		Structure response = RfcUtil.executeFunction(getEndpoint().getDestination(), getEndpoint().getRfcName(), request);
-		if (LOG.isDebugEnabled()) {
-			LOG.debug("Response: " + (response == null ? response : RfcUtil.marshal(response)));
+		Structure response = RfcUtil.executeFunction(getEndpoint().getDestination(), getEndpoint().getRfcName(), request, getEndpoint().isLazyTables(), timings);
+		if (getEndpoint().isLazyTables()) {
+			// A snapshot would read every lazy table from its JCo table.
+			getEndpoint().tracePayloadSummary(exchange, "Response", "response of '" + getEndpoint().getRfcName() + "' RFC with lazily read tables not traced");
+		} else {
+			getEndpoint().tracePayload(exchange, "Response", response);
 		}
 		exchange.setOut(exchange.getIn().copy());
 		exchange.getOut().setBody(response);
 	}
+
+	/**
+	 * Sends the rows of the response table <code>streamTable</code> as an
+	 * iterator over lists of rows in the body of the out message, reading each
+	 * list from the returned JCo table only when it is requested. The rest of
+	 * the response is sent in the {@link #RESPONSE_HEADER_NAME} header.
+	 */
+	protected void processStreamed(Exchange exchange, Structure request, String streamTable, CallTimings timings) throws Exception {
+		Structure response = RfcUtil.executeFunction(getEndpoint().getDestination(), getEndpoint().getRfcName(), request, true, timings);
+		if (response == null) {
+			throw new IllegalStateException("No response returned by '" + getEndpoint().getRfcName() + "' RFC");
+		}
+		Object table = response.remove(streamTable);
+		if (!(table instanceof Table)) {
+			throw new IllegalArgumentException("Response of '" + getEndpoint().getRfcName() + "' RFC has no table parameter named '" + streamTable + "'");
+		}
+		@SuppressWarnings("unchecked")
+		Table<? extends Structure> rows = (Table<? extends Structure>) table;
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Streaming " + rows.size() + " rows of '" + streamTable + "' in batches of " + getEndpoint().getStreamBatchSize());
+		}
+		// The response's tables are read lazily, so only summarize it.
+		getEndpoint().tracePayloadSummary(exchange, "Response", "response of '" + getEndpoint().getRfcName() + "' RFC streaming " + rows.size() + " rows of '" + streamTable + "' not traced");
+		exchange.setOut(exchange.getIn().copy());
+		exchange.getOut().setHeader(RESPONSE_HEADER_NAME, response);
+		exchange.getOut().setBody(RfcUtil.getTableRowBatches(rows, getEndpoint().getStreamBatchSize()));
+	}
 	
 	@Override
 	public SapSynchronousRfcDestinationEndpoint getEndpoint() {
@@ -67,9 +67,10 @@ public class SapTransactionalIDocDestinationComponent extends UriEndpointCompone
 		setProperties(endpoint, parameters);
 		LOG.debug("Created endpoint '" + uri + "'");
 		
-		// Create a document to ensure that the data layer's package registry is
-		// loaded with the schema of this endpoint's IDoc type.
-		endpoint.createDocument();
+		// Load the data layer's package registry with the schema of
+		// this endpoint's IDoc type in the background rather than
+		// delaying the creation of the endpoint's route.
+		endpoint.warmUpMetadata();
 		
 		return endpoint;
 	}
@@ -22,6 +22,7 @@ import org.apache.camel.ExchangePattern;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.util.CallTimings;
 import org.fusesource.camel.component.sap.util.IDocUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +55,8 @@ public class SapTransactionalIDocListConsumer extends SapConsumer implements JCo
 	public void handleRequest(JCoServerContext serverContext, IDocDocumentList idocDocumentList) {
 		
 		Exchange exchange = getEndpoint().createExchange(ExchangePattern.InOnly);
+		CallTimings timings = getEndpoint().getMetrics().begin();
+		Throwable failure = null;
 		
 		try {
 
@@ -61,28 +64,48 @@ public class SapTransactionalIDocListConsumer extends SapConsumer implements JCo
 				LOG.debug("Handling IDoc document {}", idocDocumentList.toString());
 			}
 
-			// Create and populate document list
-			DocumentList documentList = IDocUtil.createDocumentList(getEndpoint().getServer().getIDocRepository(), idocDocumentList.getIDocType(), idocDocumentList.getIDocTypeExtension(), idocDocumentList.getSystemRelease(), idocDocumentList.getApplicationRelease());
-			IDocUtil.extractIDocDocumentListIntoDocumentList(idocDocumentList, documentList);
-			
-			// Populated exchange message
 			Message message = exchange.getIn();
-			if (isStateful()) {
-				exchange.setProperty(SAP_SESSION_CONTEXT_PROPERTY_NAME, sessionContext);
+			if (getEndpoint().isStreamDocuments()) {
+				// Documents are converted as the route reads them, while the
+				// IDoc document list is still valid: this handler returns only
+				// once the route has completed.
+				message.setBody(IDocUtil.getDocuments(getEndpoint().getServer().getIDocRepository(), idocDocumentList, timings));
+			} else {
+				// Create and populate document list
+				long start = System.nanoTime();
+				DocumentList documentList = IDocUtil.createDocumentList(getEndpoint().getServer().getIDocRepository(), idocDocumentList.getIDocType(), idocDocumentList.getIDocTypeExtension(), idocDocumentList.getSystemRelease(), idocDocumentList.getApplicationRelease());
+				IDocUtil.extractIDocDocumentListIntoDocumentList(idocDocumentList, documentList, getEndpoint().getComponent().getConversionExecutor());
+				timings.addConversionTime(System.nanoTime() - start);
+				timings.addSegments(IDocUtil.getNumSegments(documentList));
+				getEndpoint().tracePayload(exchange, "Document", documentList);
+
+				// Populated exchange message
+				message.setBody(documentList);
 			}
-			message.setBody(documentList);
 
 			// Process exchange
-			getProcessor().process(exchange);
+			long routeStart = System.nanoTime();
+			try {
+				getProcessor().process(exchange);
+			} finally {
+				timings.addRouteTime(System.nanoTime() - routeStart);
+			}
 			
 		} catch (Exception e) {
+			failure = e;
 			if(getEndpoint().isPropagateExceptions()) {
+				getEndpoint().getMetrics().end(timings, failure);
 				throw new IDocRuntimeException(e.getMessage(), e);
 			} else {
 				getExceptionHandler().handleException("Failed to process document list", e);
 			}
 		}
 		
+		if (exchange.getException() != null) {
+			failure = exchange.getException();
+		}
+		getEndpoint().getMetrics().end(timings, failure);
+		
 		if (exchange.getException() != null && getEndpoint().isPropagateExceptions()) {
 			throw new IDocRuntimeException(exchange.getException().getMessage(), exchange.getException());
 		}
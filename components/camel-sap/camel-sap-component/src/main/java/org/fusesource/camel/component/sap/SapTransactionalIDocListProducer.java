@@ -19,8 +19,9 @@ package org.fusesource.camel.component.sap;
 import org.apache.camel.Exchange;
 import org.apache.camel.impl.DefaultProducer;
 import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.util.CallTimings;
+import org.fusesource.camel.component.sap.util.ConversionDiagnostics;
 import org.fusesource.camel.component.sap.util.IDocUtil;
-import org.fusesource.camel.component.sap.util.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,16 +47,21 @@ public class SapTransactionalIDocListProducer extends DefaultProducer {
 			LOG.warn("Exchange input message body does not contain IDoc document list");
 			return;
 		}
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Sending IDoc document list to ''{}''", getEndpoint().getEndpointUri());
-				LOG.debug("Document: " + (documentList == null ? documentList : Util.marshal(documentList)));
-			} catch (Exception e) {
-				LOG.warn("Failed to log request", e);
-			}
-		}
+		LOG.debug("Sending IDoc document list to ''{}''", getEndpoint().getEndpointUri());
+		getEndpoint().tracePayload(exchange, "Document", documentList);
 		String tid = DestinationRfcTransactionHandler.getTID(exchange, getEndpoint().getDestination());
-		IDocUtil.sendDocumentList(getEndpoint().getDestination(), documentList, tid);
+		CallTimings timings = getEndpoint().getMetrics().begin(exchange);
+		Throwable failure = null;
+		ConversionDiagnostics diagnostics = getEndpoint().createConversionDiagnostics();
+		try {
+			IDocUtil.sendDocumentList(getEndpoint().getDestination(), getEndpoint().getIDocRepository(), documentList, tid, null, timings, diagnostics);
+		} catch (Exception e) {
+			failure = e;
+			throw e;
+		} finally {
+			getEndpoint().getMetrics().end(timings, failure);
+			getEndpoint().attachConversionDiagnostics(exchange, diagnostics);
+		}
 	}
 
 	@Override
@@ -19,6 +19,7 @@ package org.fusesource.camel.component.sap;
 import java.io.File;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.camel.Endpoint;
 import org.apache.camel.impl.UriEndpointComponent;
@@ -51,6 +52,10 @@ public class SapTransactionalIDocListServerComponent extends UriEndpointComponen
 	
 	protected ServerStateChangedListener serverStateChangedListener = new ServerStateChangedListener();
 
+	protected int idocConversionParallelism;
+
+	protected ExecutorService conversionExecutor;
+
 	public SapTransactionalIDocListServerComponent() {
 		super(SapTransactionalIDocListServerEndpoint.class);
 	}
@@ -63,6 +68,30 @@ public class SapTransactionalIDocListServerComponent extends UriEndpointComponen
 		this.tidStoresLocation = new File(tidStoresLocation);
 	}
 
+	public int getIdocConversionParallelism() {
+		return idocConversionParallelism;
+	}
+
+	/**
+	 * Sets the number of threads extracting the documents of a received IDoc
+	 * list in parallel; documents are extracted one after another on the
+	 * calling thread when not greater than one.
+	 */
+	public void setIdocConversionParallelism(int idocConversionParallelism) {
+		this.idocConversionParallelism = idocConversionParallelism;
+	}
+
+	/**
+	 * Returns the executor extracting the documents of received IDoc lists in
+	 * parallel.
+	 * 
+	 * @return The executor or <code>null</code> if documents are extracted on
+	 *         the calling thread.
+	 */
+	protected ExecutorService getConversionExecutor() {
+		return conversionExecutor;
+	}
+
 	@Override
 	protected Endpoint createEndpoint(String uri, String remaining, Map<String, Object> parameters) throws Exception {
 		if (!uri.startsWith("sap-idoclist-server:")) { 
@@ -159,6 +188,9 @@ public class SapTransactionalIDocListServerComponent extends UriEndpointComponen
 	@Override
     protected void doStart() throws Exception {
     	super.doStart();
+    	if (idocConversionParallelism > 1) {
+    		conversionExecutor = getCamelContext().getExecutorServiceManager().newFixedThreadPool(this, "SapIDocConversion", idocConversionParallelism);
+    	}
     	for(JCoServer server: activeServers.values()) {
     		server.start();
     	}
@@ -172,9 +204,16 @@ public class SapTransactionalIDocListServerComponent extends UriEndpointComponen
 			server.removeServerErrorListener(serverErrorAndExceptionListener);
 			server.removeServerExceptionListener(serverErrorAndExceptionListener);
 			server.removeServerStateChangedListener(serverStateChangedListener);
+			if (server.getTIDHandler() instanceof ServerTIDHandler) {
+				((ServerTIDHandler) server.getTIDHandler()).close();
+			}
 			server.setTIDHandler(null);
     		server.release();
     	}
+    	if (conversionExecutor != null) {
+    		getCamelContext().getExecutorServiceManager().shutdown(conversionExecutor);
+    		conversionExecutor = null;
+    	}
     	super.doStop();
     	LOG.debug("STOPPED");
     }
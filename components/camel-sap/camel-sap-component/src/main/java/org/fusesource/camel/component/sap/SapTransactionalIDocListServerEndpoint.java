@@ -19,7 +19,6 @@ package org.fusesource.camel.component.sap;
 import org.apache.camel.Consumer;
 import org.apache.camel.Processor;
 import org.apache.camel.Producer;
-import org.apache.camel.impl.DefaultEndpoint;
 import org.apache.camel.spi.Metadata;
 import org.apache.camel.spi.UriEndpoint;
 import org.apache.camel.spi.UriParam;
@@ -40,7 +39,7 @@ import com.sap.conn.idoc.jco.JCoIDocServer;
  * 
  */
 @UriEndpoint(scheme = "sap-idoclist-server", consumerClass = SapTransactionalIDocListConsumer.class, syntax = "sap-idoclist-server:server:rfc", consumerOnly = true, title="SAP IDoc List Server")
-public class SapTransactionalIDocListServerEndpoint extends DefaultEndpoint {
+public class SapTransactionalIDocListServerEndpoint extends SapEndpoint {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SapTransactionalIDocListServerEndpoint.class);
 
@@ -65,6 +64,9 @@ public class SapTransactionalIDocListServerEndpoint extends DefaultEndpoint {
 	@UriParam(name = "stateful", description = "When true, specifies that this endpoint will initiate an SAP stateful session", defaultValue = "false")
 	protected boolean stateful;
 
+	@UriParam(name = "streamDocuments", description = "When true, specifies that the body of the exchange is an iterator over the documents of the received IDoc list, each document converted only when it is read, instead of a document list", defaultValue = "false")
+	protected boolean streamDocuments;
+
 	public SapTransactionalIDocListServerEndpoint() {
 	}
 
@@ -128,6 +130,14 @@ public class SapTransactionalIDocListServerEndpoint extends DefaultEndpoint {
 		this.stateful = stateful;
 	}
 
+	public boolean isStreamDocuments() {
+		return streamDocuments;
+	}
+
+	public void setStreamDocuments(boolean streamDocuments) {
+		this.streamDocuments = streamDocuments;
+	}
+
 	@Override
 	public boolean isSingleton() {
 		return true;
@@ -16,7 +16,6 @@
  */
 package org.fusesource.camel.component.sap;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,6 +24,7 @@ import org.apache.camel.ExchangePattern;
 import org.apache.camel.Message;
 import org.apache.camel.Processor;
 import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.CallTimings;
 import org.fusesource.camel.component.sap.util.RfcUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,7 +33,6 @@ import com.sap.conn.jco.AbapClassException;
 import com.sap.conn.jco.AbapException;
 import com.sap.conn.jco.JCoFunction;
 import com.sap.conn.jco.server.JCoServerContext;
-import com.sap.conn.jco.server.JCoServerFunctionHandler;
 import com.sap.conn.jco.server.JCoServerTIDHandler;
 
 /**
@@ -42,7 +41,7 @@ import com.sap.conn.jco.server.JCoServerTIDHandler;
  * @author William Collins <punkhornsw@gmail.com>
  *
  */
-public class SapTransactionalRfcConsumer extends SapConsumer implements JCoServerFunctionHandler {
+public class SapTransactionalRfcConsumer extends SapConsumer implements SapSessionFunctionHandler {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SapTransactionalRfcConsumer.class);
 
@@ -59,51 +58,71 @@ public class SapTransactionalRfcConsumer extends SapConsumer implements JCoServe
 
 	@Override
 	public void handleRequest(JCoServerContext serverContext, JCoFunction jcoFunction) throws AbapException, AbapClassException {
+		handleRequest(serverContext, jcoFunction, null);
+	}
+
+	@Override
+	public void handleRequest(JCoServerContext serverContext, JCoFunction jcoFunction, SapServerSessionContext sessionContext) throws AbapException, AbapClassException {
 		
 		if (LOG.isDebugEnabled()) {
 			LOG.debug("Handling request for RFC '{}'", jcoFunction.getName());
 		}
 
-		Exchange exchange = getEndpoint().createExchange(ExchangePattern.InOnly);
-
-		// Create Request structure
-		Structure request = RfcUtil.getRequest(serverContext.getRepository(), jcoFunction.getName());
-		RfcUtil.extractJCoParameterListsIntoRequest(jcoFunction, request);
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Request: " + (request == null ? request : RfcUtil.marshal(request)));
-			} catch (IOException e) {
-				LOG.warn("Failed to log request", e);
-			}
-		}
-
+		CallTimings timings = getEndpoint().getMetrics().begin();
+		Throwable failure = null;
 		try {
+			Exchange exchange = getEndpoint().createExchange(ExchangePattern.InOnly);
 
-			// Populated request
-			Message message = exchange.getIn();
-			if (isStateful()) {
-				exchange.setProperty(SAP_SESSION_CONTEXT_PROPERTY_NAME, getSessionContext());
-			}
-			message.setBody(request);
+			// Create Request structure
+			long start = System.nanoTime();
+			Structure request = RfcUtil.getRequest(serverContext.getRepository(), jcoFunction.getName());
+			RfcUtil.extractJCoParameterListsIntoRequest(jcoFunction, request);
+			timings.addConversionTime(System.nanoTime() - start);
+			timings.addRows(RfcUtil.getNumTableRows(jcoFunction));
+			getEndpoint().tracePayload(exchange, "Request", request);
 
-			// Process exchange
-			getProcessor().process(exchange);
+			try {
 
-		} catch (Exception e) {
-			if(getEndpoint().isPropagateExceptions()) {
-				throw new AbapException("ROUTE_EXCEPTION", e.getMessage());
-			} else {
-				getExceptionHandler().handleException("Failed to process request", e);
+				// Populated request
+				Message message = exchange.getIn();
+				if (isStateful()) {
+					exchange.setProperty(SAP_SESSION_CONTEXT_PROPERTY_NAME, sessionContext);
+				}
+				message.setBody(request);
+
+				// Process exchange
+				long routeStart = System.nanoTime();
+				try {
+					getProcessor().process(exchange);
+				} finally {
+					timings.addRouteTime(System.nanoTime() - routeStart);
+				}
+
+			} catch (Exception e) {
+				if(getEndpoint().isPropagateExceptions()) {
+					throw new AbapException("ROUTE_EXCEPTION", e.getMessage());
+				} else {
+					failure = e;
+					getExceptionHandler().handleException("Failed to process request", e);
+				}
+			}
+			
+			if(exchange.getException() != null) {
+				if (getEndpoint().isPropagateExceptions()) {
+					throw new AbapException("ROUTE_EXCEPTION", exchange.getException().getMessage());
+				}
+				failure = exchange.getException();
 			}
-		}
-		
-		if(exchange.getException() != null && getEndpoint().isPropagateExceptions()) {
-			throw new AbapException("ROUTE_EXCEPTION", exchange.getException().getMessage());
-		}
 
-		JCoServerTIDHandler jcoServerTidHandler = serverContext.getServer().getTIDHandler();
-		if (jcoServerTidHandler instanceof ServerTIDHandler) {
-			((ServerTIDHandler)jcoServerTidHandler).execute(serverContext);
+			JCoServerTIDHandler jcoServerTidHandler = serverContext.getServer().getTIDHandler();
+			if (jcoServerTidHandler instanceof ServerTIDHandler) {
+				((ServerTIDHandler)jcoServerTidHandler).execute(serverContext);
+			}
+		} catch (AbapException | RuntimeException e) {
+			failure = e;
+			throw e;
+		} finally {
+			getEndpoint().getMetrics().end(timings, failure);
 		}
 	}
 
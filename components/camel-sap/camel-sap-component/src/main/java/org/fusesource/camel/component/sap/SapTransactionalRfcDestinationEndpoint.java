@@ -18,6 +18,7 @@ package org.fusesource.camel.component.sap;
 
 import org.apache.camel.Producer;
 import org.apache.camel.spi.UriEndpoint;
+import org.apache.camel.spi.UriParam;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +33,12 @@ public class SapTransactionalRfcDestinationEndpoint extends SapRfcDestinationEnd
 	
     private static final Logger LOG = LoggerFactory.getLogger(SapTransactionalRfcDestinationEndpoint.class);
 
+	@UriParam(name = "batchSize", description = "The maximum number of exchanges whose function calls are sent in one transaction (LUW); 1 sends each exchange in its own transaction; ignored when transacted or stateful", defaultValue = "1")
+	protected int batchSize = 1;
+
+	@UriParam(name = "batchTimeout", description = "The maximum number of milliseconds an exchange waits for its transaction batch to fill before the batch is sent", defaultValue = "1000")
+	protected long batchTimeout = 1000;
+
 	public SapTransactionalRfcDestinationEndpoint() {
 	}
 
@@ -39,6 +46,22 @@ public class SapTransactionalRfcDestinationEndpoint extends SapRfcDestinationEnd
 		super(endpointUri, component);
 	}
 
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
+
+	public long getBatchTimeout() {
+		return batchTimeout;
+	}
+
+	public void setBatchTimeout(long batchTimeout) {
+		this.batchTimeout = batchTimeout;
+	}
+
 	@Override
 	public Producer createProducer() throws Exception {
 		LOG.debug("Created producer for endpoint '" + getEndpointUri() + "'");
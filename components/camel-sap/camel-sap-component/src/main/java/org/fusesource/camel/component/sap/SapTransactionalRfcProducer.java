@@ -16,56 +16,41 @@
  */
 package org.fusesource.camel.component.sap;
 
-import org.apache.camel.Exchange;
-import org.apache.camel.impl.DefaultProducer;
-import org.fusesource.camel.component.sap.model.rfc.Structure;
-import org.fusesource.camel.component.sap.util.RfcUtil;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
 /**
  * An SAP producer performing a transactional remote function call (tRFC) to an
  * remote function module (RFM) in SAP.
+ * <p>
+ * When the batch size of its endpoint is greater than one, the producer sends
+ * the function calls of consecutive exchanges in one transaction (LUW) using a
+ * {@link DestinationRfcTransactionBatcher}.
  * 
  * @author William Collins <punkhornsw@gmail.com>
  * 
  */
-public class SapTransactionalRfcProducer extends DefaultProducer {
-
-	private static final transient Logger LOG = LoggerFactory.getLogger(SapTransactionalRfcProducer.class);
+public class SapTransactionalRfcProducer extends SapRfcTransactionProducer {
 
 	public SapTransactionalRfcProducer(SapTransactionalRfcDestinationEndpoint endpoint) {
 		super(endpoint);
 	}
 
 	@Override
-	public void process(Exchange exchange) throws Exception {
-		if (getEndpoint().isTransacted()) {
-			// Ensure that an SAP transaction for destination has begun and is
-			// handled by this exchange.
-			DestinationSapTransactionHandler.ensureSapTransactionHasBegunAndIsHandled(exchange, getEndpoint().getDestination());
-		} else if (getEndpoint().isStateful()) {
-			// Ensure that an SAP stateful session for destination has begun and is
-			// handled by this exchange.
-			DestinationSapStatefulSessionHandler.ensureSapStatefulSessionHasBegunAndIsHandled(exchange, getEndpoint().getDestination());
-		}
+	public SapTransactionalRfcDestinationEndpoint getEndpoint() {
+		return (SapTransactionalRfcDestinationEndpoint) super.getEndpoint();
+	}
 
-		Structure request = exchange.getIn().getBody(Structure.class);
-		if (LOG.isDebugEnabled()) {
-			try {
-				LOG.debug("Calling '{}' RFC", getEndpoint().getRfcName());
-				LOG.debug("Request: " + (request == null ? request : RfcUtil.marshal(request)));
-			} catch (Exception e) {
-				LOG.warn("Failed to log request", e);
-			}
-		}
-		String tid = DestinationRfcTransactionHandler.getTID(exchange, getEndpoint().getDestination());
-		RfcUtil.executeFunction(getEndpoint().getDestination(), getEndpoint().getRfcName(), request, tid);
+	@Override
+	protected String getQueueName() {
+		return null;
 	}
 
 	@Override
-	public SapTransactionalRfcDestinationEndpoint getEndpoint() {
-		return (SapTransactionalRfcDestinationEndpoint) super.getEndpoint();
+	protected int getBatchSize() {
+		return getEndpoint().getBatchSize();
+	}
+
+	@Override
+	protected long getBatchTimeout() {
+		return getEndpoint().getBatchTimeout();
 	}
 
 }
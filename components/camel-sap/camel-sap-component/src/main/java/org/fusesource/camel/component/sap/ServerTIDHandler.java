@@ -16,10 +16,11 @@
  */
 package org.fusesource.camel.component.sap;
 
+import java.io.Closeable;
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Map;
 
-import org.fusesource.camel.component.sap.model.rfc.RfcFactory;
 import org.fusesource.camel.component.sap.model.rfc.TIDState;
 import org.fusesource.camel.component.sap.model.rfc.TIDStore;
 import org.fusesource.camel.component.sap.util.Util;
@@ -62,29 +63,41 @@ import com.sap.conn.jco.server.JCoServerTIDHandler;
  * <li>confirmTID</li>
  * </ul>
  * 
+ * <p>
+ * The state of each transaction is recorded in a {@link TIDJournal} kept in
+ * a journal file next to the transaction store file. A transaction store
+ * file saved by earlier versions of this handler is imported into the
+ * journal and deleted when the handler is created.
+ * 
  * @author William Collins <punkhornsw@gmail.com>
  * 
  */
-public class ServerTIDHandler implements JCoServerTIDHandler {
+public class ServerTIDHandler implements JCoServerTIDHandler, Closeable {
 
 	private static final Logger LOG = LoggerFactory.getLogger(SapSynchronousRfcServerComponent.class);
 
-	TIDStore availableTIDs = RfcFactory.eINSTANCE.createTIDStore();
+	/**
+	 * The suffix of journal file name appended to the transaction store file
+	 * name.
+	 */
+	public static final String JOURNAL_FILE_SUFFIX = ".journal";
+
+	TIDJournal journal;
 
 	File tidStoreFile;
 
 	public ServerTIDHandler(File tidStoreFile)  throws Exception {
 		this.tidStoreFile = tidStoreFile;
-		loadTIDs();
+		this.journal = new TIDJournal(new File(tidStoreFile.getPath() + JOURNAL_FILE_SUFFIX));
+		importTIDs();
 	}
 
 	@Override
 	public boolean checkTID(JCoServerContext serverContext, String tid) {
-		TIDState state = TIDState.getByName(availableTIDs.getEntries().get(tid));
+		TIDState state = journal.get(tid);
 		if (state == null) {
-			availableTIDs.getEntries().put(tid, TIDState.CREATED.getName());
 			try {
-				saveTIDs();
+				journal.put(tid, TIDState.CREATED);
 			} catch (Exception e) {
 				throw new RuntimeException("Failed to save transaction IDs", e);
 			}
@@ -103,9 +116,8 @@ public class ServerTIDHandler implements JCoServerTIDHandler {
 
 	@Override
 	public void commit(JCoServerContext serverContext, String tid) {
-		availableTIDs.getEntries().put(tid, TIDState.COMMITTED.getName());
 		try {
-			saveTIDs();
+			journal.put(tid, TIDState.COMMITTED);
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to save transaction IDs", e);
 		}
@@ -114,9 +126,8 @@ public class ServerTIDHandler implements JCoServerTIDHandler {
 
 	@Override
 	public void rollback(JCoServerContext serverContext, String tid) {
-		availableTIDs.getEntries().put(tid, TIDState.ROLLED_BACK.getName());
 		try {
-			saveTIDs();
+			journal.put(tid, TIDState.ROLLED_BACK);
 		} catch (Exception e) {
 			throw new RuntimeException("Failed to save transaction IDs", e);
 		}
@@ -125,9 +136,8 @@ public class ServerTIDHandler implements JCoServerTIDHandler {
 
 	@Override
 	public void confirmTID(JCoServerContext serverContext, String tid) {
-		availableTIDs.getEntries().remove(tid);
 		try {
-			saveTIDs();
+			journal.remove(tid);
 		} catch (Exception e) {
 			LOG.warn("Failed to save transaction IDs", e);
 		}
@@ -137,9 +147,8 @@ public class ServerTIDHandler implements JCoServerTIDHandler {
 	public void execute(JCoServerContext serverContext) {
 		String tid = serverContext.getTID();
 		if (tid != null) {
-			availableTIDs.getEntries().put(tid, TIDState.EXECUTED.getName());
 			try {
-				saveTIDs();
+				journal.put(tid, TIDState.EXECUTED);
 			} catch (Exception e) {
 				throw new RuntimeException("Failed to save transaction IDs", e);
 			}
@@ -147,18 +156,42 @@ public class ServerTIDHandler implements JCoServerTIDHandler {
 		}
 	}
 
-	private void saveTIDs() throws Exception {
-		Util.save(tidStoreFile, availableTIDs);
+	/**
+	 * Returns the outstanding transactions and their states.
+	 * 
+	 * @return The outstanding transactions.
+	 */
+	public Map<String, TIDState> getTIDs() {
+		return journal.getEntries();
 	}
 
-	private void loadTIDs()  throws Exception {
-		try {
-			TIDStore tidStore = (TIDStore) Util.load(tidStoreFile);
-			availableTIDs.getEntries().clear();
-			availableTIDs.getEntries().addAll(tidStore.getEntries());
-		} catch (FileNotFoundException e) {
-			// No file saved yet: ignore.
+	/**
+	 * Closes the journal of this handler.
+	 */
+	@Override
+	public void close() throws IOException {
+		journal.close();
+	}
+
+	/**
+	 * Imports the transactions of a transaction store file saved by earlier
+	 * versions of this handler into the journal.
+	 */
+	private void importTIDs() throws Exception {
+		if (!tidStoreFile.isFile()) {
+			return;
+		}
+		TIDStore tidStore = (TIDStore) Util.load(tidStoreFile);
+		for (Map.Entry<String, String> entry : tidStore.getEntries()) {
+			TIDState state = TIDState.getByName(entry.getValue());
+			if (state != null && journal.get(entry.getKey()) == null) {
+				journal.put(entry.getKey(), state);
+			}
+		}
+		if (!tidStoreFile.delete()) {
+			LOG.warn("Failed to delete imported transaction store file '" + tidStoreFile + "'");
 		}
+		LOG.debug("Imported " + tidStore.getEntries().size() + " TIDs from '" + tidStoreFile + "'");
 	}
 
 }
@@ -0,0 +1,426 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.CRC32;
+
+import org.fusesource.camel.component.sap.model.rfc.TIDState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Append only journal of the states of the transactions received by an SAP
+ * server.
+ *
+ * <p>
+ * Each state change is appended to the journal file as a fixed size record
+ * and is durable when {@link #put(String, TIDState)} or
+ * {@link #remove(String)} returns. Concurrent updates share forces of the
+ * journal file to disk (group commit). The current state of all outstanding
+ * transactions is held in an in-memory index, replayed from the journal file
+ * when the journal is opened. A journal file whose tail was not completely
+ * written is truncated to its last complete record.
+ *
+ * <p>
+ * When the journal file holds many more records than outstanding transactions
+ * it is compacted in the background: the outstanding transactions are written
+ * to a new journal file which then atomically replaces the old one.
+ *
+ * <p>
+ * Record layout:
+ * <ul>
+ * <li>marker - 1 byte</li>
+ * <li>state - 1 byte, the value of the transaction's {@link TIDState}</li>
+ * <li>TID length - 1 byte</li>
+ * <li>TID - {@value #MAX_TID_LENGTH} bytes, US-ASCII, zero padded</li>
+ * <li>reserved - 1 byte</li>
+ * <li>CRC32 of the preceding bytes - 4 bytes</li>
+ * </ul>
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+class TIDJournal implements Closeable {
+
+	private static final Logger LOG = LoggerFactory.getLogger(TIDJournal.class);
+
+	/**
+	 * The maximum length of a TID; SAP TIDs are 24 characters long.
+	 */
+	static final int MAX_TID_LENGTH = 32;
+
+	static final int RECORD_SIZE = 40;
+
+	/**
+	 * The number of records in journal file above which the journal is
+	 * compacted when it holds mostly obsolete records.
+	 */
+	static final int DEFAULT_COMPACTION_THRESHOLD = 4096;
+
+	private static final byte RECORD_MARKER = (byte) 0xA5;
+
+	private static final int CRC_OFFSET = RECORD_SIZE - 4;
+
+	private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+	private final File file;
+
+	private final int compactionThreshold;
+
+	private final ConcurrentMap<String, TIDState> index = new ConcurrentHashMap<String, TIDState>();
+
+	/**
+	 * Guards appends to the journal file and updates of the index. When both
+	 * locks are held {@link #syncLock} is acquired first.
+	 */
+	private final Object writeLock = new Object();
+
+	/**
+	 * Guards forces of the journal file.
+	 */
+	private final Object syncLock = new Object();
+
+	private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+	private final CRC32 crc = new CRC32();
+
+	private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+
+	private final ExecutorService compactor;
+
+	/** Guarded by writeLock. */
+	private FileChannel channel;
+
+	/** The number of records in the journal file; guarded by writeLock. */
+	private long recordCount;
+
+	/** The sequence number of the last record appended; guarded by writeLock. */
+	private long appended;
+
+	/** The sequence number of the last record forced to disk; guarded by syncLock. */
+	private long durable;
+
+	private volatile boolean closed;
+
+	TIDJournal(File file) throws IOException {
+		this(file, DEFAULT_COMPACTION_THRESHOLD);
+	}
+
+	TIDJournal(File file, int compactionThreshold) throws IOException {
+		this.file = file;
+		this.compactionThreshold = compactionThreshold;
+		this.compactor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "TIDJournal compactor [" + TIDJournal.this.file.getName() + "]");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		recover();
+	}
+
+	/**
+	 * Returns the state of transaction <code>tid</code>.
+	 *
+	 * @param tid
+	 *            - the transaction ID.
+	 * @return The state of transaction or <code>null</code> if the transaction
+	 *         is not outstanding.
+	 */
+	TIDState get(String tid) {
+		return index.get(tid);
+	}
+
+	/**
+	 * Records the state of transaction <code>tid</code>.
+	 *
+	 * @param tid
+	 *            - the transaction ID.
+	 * @param state
+	 *            - the new state of transaction.
+	 * @throws IOException
+	 *             if the state could not be written to disk.
+	 */
+	void put(String tid, TIDState state) throws IOException {
+		long sequence;
+		synchronized (writeLock) {
+			sequence = append(tid, state);
+			index.put(tid, state);
+		}
+		sync(sequence);
+		scheduleCompactionIfNeeded();
+	}
+
+	/**
+	 * Records the confirmation of transaction <code>tid</code>, removing it
+	 * from the outstanding transactions.
+	 *
+	 * @param tid
+	 *            - the transaction ID.
+	 * @throws IOException
+	 *             if the confirmation could not be written to disk.
+	 */
+	void remove(String tid) throws IOException {
+		long sequence;
+		synchronized (writeLock) {
+			if (!index.containsKey(tid)) {
+				return;
+			}
+			sequence = append(tid, TIDState.CONFIRMED);
+			index.remove(tid);
+		}
+		sync(sequence);
+		scheduleCompactionIfNeeded();
+	}
+
+	/**
+	 * Returns a snapshot of the outstanding transactions and their states.
+	 *
+	 * @return The outstanding transactions.
+	 */
+	Map<String, TIDState> getEntries() {
+		return Collections.unmodifiableMap(new ConcurrentHashMap<String, TIDState>(index));
+	}
+
+	int size() {
+		return index.size();
+	}
+
+	long getRecordCount() {
+		synchronized (writeLock) {
+			return recordCount;
+		}
+	}
+
+	File getFile() {
+		return file;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		compactor.shutdown();
+		synchronized (syncLock) {
+			synchronized (writeLock) {
+				if (channel != null && channel.isOpen()) {
+					channel.force(false);
+					channel.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compacts the journal file to a record per outstanding transaction.
+	 *
+	 * @throws IOException
+	 *             if the compacted journal file could not be written.
+	 */
+	void compact() throws IOException {
+		synchronized (syncLock) {
+			synchronized (writeLock) {
+				ensureOpen();
+				File compactFile = new File(file.getPath() + ".compact");
+				try (RandomAccessFile raf = new RandomAccessFile(compactFile, "rw")) {
+					FileChannel compactChannel = raf.getChannel();
+					compactChannel.truncate(0);
+					for (Map.Entry<String, TIDState> entry : index.entrySet()) {
+						write(compactChannel, entry.getKey(), entry.getValue());
+					}
+					compactChannel.force(true);
+				}
+				long previousCount = recordCount;
+				channel.close();
+				Files.move(compactFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				channel = open(file);
+				channel.position(channel.size());
+				recordCount = index.size();
+				durable = appended;
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Compacted TID journal '" + file + "' from " + previousCount + " to " + recordCount + " records");
+				}
+			}
+		}
+	}
+
+	private long append(String tid, TIDState state) throws IOException {
+		ensureOpen();
+		write(channel, tid, state);
+		recordCount++;
+		return ++appended;
+	}
+
+	/**
+	 * Forces the journal file to disk unless a force issued since the record
+	 * with given sequence number was appended has already done so.
+	 */
+	private void sync(long sequence) throws IOException {
+		synchronized (syncLock) {
+			if (durable >= sequence) {
+				return;
+			}
+			long target;
+			FileChannel syncChannel;
+			synchronized (writeLock) {
+				ensureOpen();
+				target = appended;
+				syncChannel = channel;
+			}
+			syncChannel.force(false);
+			durable = target;
+		}
+	}
+
+	private void scheduleCompactionIfNeeded() {
+		long count;
+		synchronized (writeLock) {
+			count = recordCount;
+		}
+		if (count <= compactionThreshold || count <= 4L * index.size() || closed) {
+			return;
+		}
+		if (compactionScheduled.compareAndSet(false, true)) {
+			compactor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						if (!closed) {
+							compact();
+						}
+					} catch (Exception e) {
+						LOG.warn("Failed to compact TID journal '" + file + "'", e);
+					} finally {
+						compactionScheduled.set(false);
+					}
+				}
+			});
+		}
+	}
+
+	private void write(FileChannel target, String tid, TIDState state) throws IOException {
+		byte[] tidBytes = tid.getBytes(US_ASCII);
+		if (tidBytes.length > MAX_TID_LENGTH) {
+			throw new IllegalArgumentException("TID '" + tid + "' exceeds maximum length of " + MAX_TID_LENGTH);
+		}
+		ByteBuffer buffer = recordBuffer;
+		buffer.clear();
+		buffer.put(RECORD_MARKER);
+		buffer.put((byte) state.getValue());
+		buffer.put((byte) tidBytes.length);
+		buffer.put(tidBytes);
+		while (buffer.position() < CRC_OFFSET) {
+			buffer.put((byte) 0);
+		}
+		crc.reset();
+		crc.update(buffer.array(), 0, CRC_OFFSET);
+		buffer.putInt((int) crc.getValue());
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			target.write(buffer);
+		}
+	}
+
+	/**
+	 * Replays the journal file into the index, truncating any incomplete or
+	 * corrupt tail.
+	 */
+	private void recover() throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null && !parent.exists() && !parent.mkdirs()) {
+			throw new IOException("Failed to create directory '" + parent + "'");
+		}
+		channel = open(file);
+		long size = channel.size();
+		long position = 0;
+		ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+		byte[] tidBytes = new byte[MAX_TID_LENGTH];
+		while (position + RECORD_SIZE <= size) {
+			buffer.clear();
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, position + buffer.position()) < 0) {
+					break;
+				}
+			}
+			if (buffer.hasRemaining() || !isValid(buffer)) {
+				break;
+			}
+			TIDState state = TIDState.get(buffer.get(1));
+			int tidLength = buffer.get(2);
+			if (state == null || tidLength < 0 || tidLength > MAX_TID_LENGTH) {
+				break;
+			}
+			buffer.position(3);
+			buffer.get(tidBytes, 0, tidLength);
+			String tid = new String(tidBytes, 0, tidLength, US_ASCII);
+			if (state == TIDState.CONFIRMED) {
+				index.remove(tid);
+			} else {
+				index.put(tid, state);
+			}
+			recordCount++;
+			position += RECORD_SIZE;
+		}
+		if (position < size) {
+			LOG.warn("Truncating TID journal '" + file + "' from " + size + " to " + position + " bytes: incomplete or corrupt record at end of journal");
+			channel.truncate(position);
+			channel.force(true);
+		}
+		channel.position(position);
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Recovered " + index.size() + " outstanding TIDs from " + recordCount + " records of TID journal '" + file + "'");
+		}
+	}
+
+	private boolean isValid(ByteBuffer record) {
+		if (record.get(0) != RECORD_MARKER) {
+			return false;
+		}
+		crc.reset();
+		crc.update(record.array(), 0, CRC_OFFSET);
+		return record.getInt(CRC_OFFSET) == (int) crc.getValue();
+	}
+
+	private void ensureOpen() throws IOException {
+		if (closed || channel == null || !channel.isOpen()) {
+			throw new IOException("TID journal '" + file + "' is closed");
+		}
+	}
+
+	@SuppressWarnings("resource")
+	private static FileChannel open(File file) throws IOException {
+		return new RandomAccessFile(file, "rw").getChannel();
+	}
+
+}
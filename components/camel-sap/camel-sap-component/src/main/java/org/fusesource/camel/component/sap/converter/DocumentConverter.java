@@ -16,6 +16,8 @@
  */
 package org.fusesource.camel.component.sap.converter;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -24,12 +26,18 @@ import org.apache.camel.Converter;
 import org.eclipse.emf.ecore.EObject;
 import org.fusesource.camel.component.sap.model.idoc.Document;
 import org.fusesource.camel.component.sap.model.idoc.impl.DocumentImpl;
+import org.fusesource.camel.component.sap.util.BinaryUtil;
+import org.fusesource.camel.component.sap.util.JsonUtil;
 import org.fusesource.camel.component.sap.util.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * A Type Converter for SAP document objects.
+ * <p>
+ * Documents are converted to byte arrays in the compact binary encoding of
+ * {@link BinaryUtil}; strings, byte arrays and input streams are read in
+ * either the binary, the JSON ({@link JsonUtil}) or the XML encoding.
  * 
  * @author William Collins <punkhornsw@gmail.com>
  *
@@ -43,7 +51,7 @@ public enum DocumentConverter {
 	@Converter
 	public static Document toDocument(String string) {
 		try {
-			EObject eObject = Util.unmarshal(string);
+			EObject eObject = JsonUtil.isJson(string) ? JsonUtil.unmarshal(string) : Util.unmarshal(string);
 			
 			if (DocumentImpl.class.isInstance(eObject)) {
 				return (DocumentImpl) eObject;
@@ -58,7 +66,17 @@ public enum DocumentConverter {
 	@Converter
 	public static Document toDocument(InputStream in) {
 		try {
-			EObject eObject = Util.fromInputStream(in);
+			if (!in.markSupported()) {
+				in = new BufferedInputStream(in);
+			}
+			EObject eObject;
+			if (BinaryUtil.isBinary(in)) {
+				eObject = BinaryUtil.unmarshal(in);
+			} else if (JsonUtil.isJson(in)) {
+				eObject = JsonUtil.unmarshal(in);
+			} else {
+				eObject = Util.fromInputStream(in);
+			}
 			
 			if (DocumentImpl.class.isInstance(eObject)) {
 				return (DocumentImpl) eObject;
@@ -73,7 +91,14 @@ public enum DocumentConverter {
 	@Converter
 	public static Document toDocument(byte[] byteArray) {
 		try {
-			EObject eObject = Util.unmarshal(new String(byteArray));
+			EObject eObject;
+			if (BinaryUtil.isBinary(byteArray)) {
+				eObject = BinaryUtil.unmarshal(byteArray);
+			} else if (JsonUtil.isJson(byteArray)) {
+				eObject = JsonUtil.unmarshal(new ByteArrayInputStream(byteArray));
+			} else {
+				eObject = Util.unmarshal(new String(byteArray));
+			}
 			
 			if (DocumentImpl.class.isInstance(eObject)) {
 				return (DocumentImpl) eObject;
@@ -96,6 +121,16 @@ public enum DocumentConverter {
 		}
 	}
 	
+	@Converter
+	public static byte[] toByteArray(DocumentImpl document) {
+		try {
+			return BinaryUtil.marshal(document);
+		} catch (IOException e) {
+			LOG.warn("Failed to convert Document to byte array", e);
+			return null;
+		}
+	}
+	
 	@Converter
 	public static OutputStream toOutputStream(DocumentImpl document) {
 		try {
@@ -0,0 +1,145 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.AsyncCallback;
+import org.apache.camel.Exchange;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sap.conn.jco.JCoDestination;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DestinationRfcTransactionBatcherTest {
+
+	private static final int RACES = 50;
+
+	@Test
+	public void testTimeoutFlushRacingSizeFlushKeepsBatchOrder() throws Exception {
+		for (int i = 0; i < RACES; i++) {
+			raceTimeoutFlushAndSizeFlush();
+		}
+	}
+
+	private void raceTimeoutFlushAndSizeFlush() throws Exception {
+
+		//
+		// Given
+		//
+
+		JCoDestination destination = mock(JCoDestination.class);
+		when(destination.createTID()).thenReturn("TID");
+
+		final List<Runnable> timeouts = Collections.synchronizedList(new ArrayList<Runnable>());
+		ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+		doAnswer(new Answer<ScheduledFuture<?>>() {
+			@Override
+			public ScheduledFuture<?> answer(InvocationOnMock invocation) throws Throwable {
+				timeouts.add((Runnable) invocation.getArguments()[0]);
+				return mock(ScheduledFuture.class);
+			}
+		}).when(scheduler).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+
+		// The first batch blocks in its send until released.
+		final CountDownLatch firstBatchSending = new CountDownLatch(1);
+		final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+		final List<List<String>> sent = Collections.synchronizedList(new ArrayList<List<String>>());
+		final DestinationRfcTransactionBatcher<String> batcher = new DestinationRfcTransactionBatcher<String>(destination, 2, 0, 60000, scheduler) {
+			@Override
+			protected void send(JCoDestination destination, List<Exchange> exchanges, List<String> items, String tid) throws Exception {
+				if (sent.isEmpty() && items.contains("A")) {
+					firstBatchSending.countDown();
+					releaseFirstBatch.await();
+				}
+				sent.add(new ArrayList<String>(items));
+			}
+		};
+
+		Thread firstBatch = start(new Runnable() {
+			@Override
+			public void run() {
+				add(batcher, "A");
+				add(batcher, "B");
+			}
+		});
+		firstBatchSending.await();
+
+		//
+		// When
+		//
+
+		// The timeout of the second batch takes it while the first is sending.
+		add(batcher, "C");
+		Thread timeoutFlush = start(timeouts.get(timeouts.size() - 1));
+		awaitBlocked(timeoutFlush);
+
+		// A route thread fills and sends the third batch meanwhile.
+		Thread sizeFlush = start(new Runnable() {
+			@Override
+			public void run() {
+				add(batcher, "D");
+				add(batcher, "E");
+			}
+		});
+		awaitBlocked(sizeFlush);
+
+		releaseFirstBatch.countDown();
+		firstBatch.join();
+		timeoutFlush.join();
+		sizeFlush.join();
+
+		//
+		// Then
+		//
+
+		assertThat("Batches sent out of order", sent, is(Arrays.asList(Arrays.asList("A", "B"), Arrays.asList("C"), Arrays.asList("D", "E"))));
+	}
+
+	private static void add(DestinationRfcTransactionBatcher<String> batcher, String item) {
+		batcher.add(mock(Exchange.class), item, 0, mock(AsyncCallback.class));
+	}
+
+	private static Thread start(Runnable runnable) {
+		Thread thread = new Thread(runnable);
+		thread.start();
+		return thread;
+	}
+
+	private static void awaitBlocked(Thread thread) throws InterruptedException {
+		while (thread.getState() != Thread.State.BLOCKED && thread.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+	}
+
+}
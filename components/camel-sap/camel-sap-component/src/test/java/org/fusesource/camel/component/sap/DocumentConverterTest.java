@@ -10,6 +10,8 @@ import org.fusesource.camel.component.sap.converter.DocumentConverter;
 import org.fusesource.camel.component.sap.model.idoc.Document;
 import org.fusesource.camel.component.sap.model.idoc.Segment;
 import org.fusesource.camel.component.sap.model.idoc.impl.DocumentImpl;
+import org.fusesource.camel.component.sap.util.BinaryUtil;
+import org.fusesource.camel.component.sap.util.JsonUtil;
 import org.fusesource.camel.component.sap.util.Util;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -213,6 +215,70 @@ public class DocumentConverterTest extends SapIDocTestSupport {
 		verifyDocument(document);
 
 	}
+
+	@Test
+	public void testFromJson() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRegistry.ecore");
+		Util.loadRegistry(file);
+		Document document = createAndPopulateDocument();
+		
+		//
+		// When
+		//
+		
+		String json = JsonUtil.marshal(document);
+		
+		//
+		// Then
+		//
+
+		assertThat("The JSON representation is not recognized as such", JsonUtil.isJson(json), is(true));
+
+		document = DocumentConverter.toDocument(json);
+		verifyDocument(document);
+		
+		document = DocumentConverter.toDocument(new ByteArrayInputStream(json.getBytes("UTF-8")));
+		verifyDocument(document);
+
+	}
+
+	@Test
+	public void testToByteArray() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRegistry.ecore");
+		Util.loadRegistry(file);
+		Document document = createAndPopulateDocument();
+		
+		//
+		// When
+		//
+		
+		byte[] bytes = DocumentConverter.toByteArray((DocumentImpl)document);
+		
+		//
+		// Then
+		//
+
+		assertThat("The binary encoding is not recognized as such", BinaryUtil.isBinary(bytes), is(true));
+		byte[] xmlBytes = DocumentConverter.toString((DocumentImpl)document).getBytes("UTF-8");
+		assertThat("The binary encoding of " + bytes.length + " bytes is not smaller than the XML encoding of " + xmlBytes.length + " bytes", bytes.length < xmlBytes.length, is(true));
+
+		document = DocumentConverter.toDocument(bytes);
+		verifyDocument(document);
+		
+		document = DocumentConverter.toDocument(new ByteArrayInputStream(bytes));
+		verifyDocument(document);
+
+	}
 	
 	public void verifyDocument(Document document) throws Exception {
 		assertThat("The document is an unexpected null value",document, notNullValue());
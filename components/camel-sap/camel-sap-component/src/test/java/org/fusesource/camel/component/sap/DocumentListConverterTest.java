@@ -6,11 +6,15 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 
+import org.fusesource.camel.component.sap.converter.DocumentConverter;
 import org.fusesource.camel.component.sap.converter.DocumentListConverter;
 import org.fusesource.camel.component.sap.model.idoc.Document;
 import org.fusesource.camel.component.sap.model.idoc.DocumentList;
 import org.fusesource.camel.component.sap.model.idoc.Segment;
+import org.fusesource.camel.component.sap.model.idoc.impl.DocumentImpl;
 import org.fusesource.camel.component.sap.model.idoc.impl.DocumentListImpl;
+import org.fusesource.camel.component.sap.util.BinaryUtil;
+import org.fusesource.camel.component.sap.util.JsonUtil;
 import org.fusesource.camel.component.sap.util.Util;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -27,6 +31,7 @@ import com.sap.conn.jco.ext.Environment;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.mockito.Mockito.when;
 
 @RunWith(PowerMockRunner.class)
@@ -216,6 +221,99 @@ public class DocumentListConverterTest extends SapIDocTestSupport {
 		verifyDocumentList(documentList);
 
 	}
+
+	@Test
+	public void testToInputStreamOfContainedDocument() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRegistry.ecore");
+		Util.loadRegistry(file);
+		DocumentList documentList = createAndPopulateDocumentList();
+		Document document = documentList.get(0);
+		
+		//
+		// When
+		//
+		
+		InputStream is = DocumentConverter.toInputStream((DocumentImpl)document);
+		Document unmarshaledDocument = DocumentConverter.toDocument(is);
+		
+		//
+		// Then
+		//
+
+		assertThat("The marshaled document was detached from its document list", document.eContainer(), sameInstance((Object) documentList));
+		verifyDocumentList(documentList);
+		assertThat("unmarshaledDocument.getIDocType() returned '" +  unmarshaledDocument.getIDocType() + "' instead of expected value '" + IDOC_TYPE_VALUE + "'", (String) unmarshaledDocument.getIDocType(), is(IDOC_TYPE_VALUE));
+
+	}
+
+	@Test
+	public void testFromJson() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRegistry.ecore");
+		Util.loadRegistry(file);
+		DocumentList documentList = createAndPopulateDocumentList();
+		
+		//
+		// When
+		//
+		
+		String json = JsonUtil.marshal(documentList);
+		
+		//
+		// Then
+		//
+
+		assertThat("The JSON representation is not recognized as such", JsonUtil.isJson(json), is(true));
+
+		documentList = DocumentListConverter.toDocumentList(json);
+		verifyDocumentList(documentList);
+		
+		documentList = DocumentListConverter.toDocumentList(new ByteArrayInputStream(json.getBytes("UTF-8")));
+		verifyDocumentList(documentList);
+
+	}
+
+	@Test
+	public void testToByteArray() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRegistry.ecore");
+		Util.loadRegistry(file);
+		DocumentList documentList = createAndPopulateDocumentList();
+		
+		//
+		// When
+		//
+		
+		byte[] bytes = DocumentListConverter.toByteArray((DocumentListImpl)documentList);
+		
+		//
+		// Then
+		//
+
+		assertThat("The binary encoding is not recognized as such", BinaryUtil.isBinary(bytes), is(true));
+		byte[] xmlBytes = DocumentListConverter.toString((DocumentListImpl)documentList).getBytes("UTF-8");
+		assertThat("The binary encoding of " + bytes.length + " bytes is not smaller than the XML encoding of " + xmlBytes.length + " bytes", bytes.length < xmlBytes.length, is(true));
+
+		documentList = DocumentListConverter.toDocumentList(bytes);
+		verifyDocumentList(documentList);
+		
+		documentList = DocumentListConverter.toDocumentList(new ByteArrayInputStream(bytes));
+		verifyDocumentList(documentList);
+
+	}
 	
 	public void verifyDocumentList(DocumentList documentList) throws Exception {
 		
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.server.JCoServerContext;
+import com.sap.conn.jco.server.JCoServerFunctionHandler;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FunctionHandlerFactoryTest {
+
+	private static final String FUNCTION_NAME = "TEST_FUNCTION_MODULE";
+
+	private FunctionHandlerFactory factory;
+
+	private SapSynchronousRfcConsumer consumer;
+
+	private JCoFunction function;
+
+	@Before
+	public void setUp() {
+		factory = new FunctionHandlerFactory();
+		consumer = mock(SapSynchronousRfcConsumer.class);
+		when(consumer.isStateful()).thenReturn(true);
+		function = mock(JCoFunction.class);
+		factory.registerHandler(FUNCTION_NAME, consumer);
+	}
+
+	@Test
+	public void testCallsAreDispatchedWithContextOfTheirSession() throws Exception {
+		JCoServerContext session1 = mockServerContext("SESSION1", false);
+		JCoServerContext session2 = mockServerContext("SESSION2", false);
+
+		SapServerSessionContext context1 = call(session1);
+		SapServerSessionContext context2 = call(session2);
+		assertThat(context1, not(sameInstance(context2)));
+
+		// Subsequent calls of a session get the session's context.
+		when(session1.isStatefulSession()).thenReturn(true);
+		assertThat(call(session1), sameInstance(context1));
+		assertThat(factory.getSessionCount(), is(2));
+
+		factory.sessionClosed(session1, null, false);
+		assertThat(factory.getSessionCount(), is(1));
+	}
+
+	@Test
+	public void testIdleSessionsAreDiscarded() throws Exception {
+		factory.setSessionIdleTimeout(1);
+		JCoServerContext session1 = mockServerContext("SESSION1", false);
+		call(session1);
+		Thread.sleep(10);
+
+		call(mockServerContext("SESSION2", false));
+		assertThat(factory.getSessionCount(), is(1));
+
+		when(session1.isStatefulSession()).thenReturn(true);
+		try {
+			factory.getCallHandler(session1, FUNCTION_NAME);
+			fail("Expected discarded session to be rejected");
+		} catch (RuntimeException e) {
+			// expected
+		}
+	}
+
+	private SapServerSessionContext call(JCoServerContext serverContext) throws Exception {
+		JCoServerFunctionHandler handler = factory.getCallHandler(serverContext, FUNCTION_NAME);
+		assertThat(handler, notNullValue());
+		handler.handleRequest(serverContext, function);
+
+		ArgumentCaptor<SapServerSessionContext> sessionContext = ArgumentCaptor.forClass(SapServerSessionContext.class);
+		verify(consumer, atLeastOnce()).handleRequest(eq(serverContext), eq(function), sessionContext.capture());
+		assertThat(sessionContext.getValue(), notNullValue());
+		return sessionContext.getValue();
+	}
+
+	private JCoServerContext mockServerContext(String sessionID, boolean stateful) {
+		JCoServerContext serverContext = mock(JCoServerContext.class);
+		when(serverContext.getSessionID()).thenReturn(sessionID);
+		when(serverContext.isStatefulSession()).thenReturn(stateful);
+		return serverContext;
+	}
+
+}
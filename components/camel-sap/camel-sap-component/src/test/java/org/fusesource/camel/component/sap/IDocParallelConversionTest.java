@@ -0,0 +1,216 @@
+package org.fusesource.camel.component.sap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.model.idoc.Segment;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.powermock.api.mockito.mockpolicies.Slf4jMockPolicy;
+import org.powermock.core.classloader.annotations.MockPolicy;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.sap.conn.idoc.IDocDocument;
+import com.sap.conn.jco.JCoDestinationManager;
+import com.sap.conn.jco.ext.Environment;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@MockPolicy({Slf4jMockPolicy.class})
+@PrepareForTest({ JCoDestinationManager.class, Environment.class })
+public class IDocParallelConversionTest extends SapIDocTestSupport {
+
+	private static final int NUM_DOCUMENTS = 4 * IDocUtil.MIN_PARALLEL_CONVERSION_SIZE;
+
+	@Test
+	public void testParallelExtractionPreservesOrderAndContent() throws Exception {
+
+		//
+		// Given
+		//
+
+		Boolean[] hasNext = new Boolean[NUM_DOCUMENTS];
+		Arrays.fill(hasNext, Boolean.TRUE);
+		hasNext[NUM_DOCUMENTS - 1] = Boolean.FALSE;
+		when(mockIDocDocumentListIterator.hasNext()).thenReturn(Boolean.TRUE, hasNext);
+		IDocDocument[] next = new IDocDocument[NUM_DOCUMENTS - 1];
+		Arrays.fill(next, mockIDocDocument);
+		when(mockIDocDocumentListIterator.next()).thenReturn(mockIDocDocument, next);
+
+		DocumentList documentList = IDocUtil.createDocumentList(mockIDocRepository, TEST_IDOC_TYPE, TEST_IDOC_TYPE_EXTENSION, TEST_SYSTEM_RELEASE, TEST_APPLICATION_RELEASE);
+
+		//
+		// When
+		//
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			IDocUtil.extractIDocDocumentListIntoDocumentList(mockIDocDocumentList, documentList, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		//
+		// Then
+		//
+
+		assertThat("documentList.size() returned unexpected value", documentList.size(), is(NUM_DOCUMENTS));
+		for (int i = 0; i < NUM_DOCUMENTS; i++) {
+			Document document = documentList.get(i);
+			assertThat("document.getArchiveKey() returned '" +  document.getArchiveKey() + "' instead of expected value '" + ARCHIVE_KEY_VALUE + "'", (String) document.getArchiveKey(), is(ARCHIVE_KEY_VALUE));
+			Segment level1Segment = document.getRootSegment().getChildren().get(0);
+			assertThat("rootSegment.getChildren().get(0) returned unexpected null value", level1Segment, notNullValue());
+			assertThat("level1Segment.get(FIELD0) returned unexpected value", (String) level1Segment.get(FIELD0), is(FIELD0_VALUE));
+			Segment level3Segment = level1Segment.getChildren().get(0).getChildren().get(0);
+			assertThat("level3Segment.get(FIELD20) returned unexpected value", (String) level3Segment.get(FIELD20), is(FIELD20_VALUE));
+		}
+	}
+
+	@Test
+	public void testParallelExtractionReadsIDocDocumentsOnCallingThread() throws Exception {
+
+		//
+		// Given
+		//
+
+		Boolean[] hasNext = new Boolean[NUM_DOCUMENTS];
+		Arrays.fill(hasNext, Boolean.TRUE);
+		hasNext[NUM_DOCUMENTS - 1] = Boolean.FALSE;
+		when(mockIDocDocumentListIterator.hasNext()).thenReturn(Boolean.TRUE, hasNext);
+		IDocDocument[] next = new IDocDocument[NUM_DOCUMENTS - 1];
+		Arrays.fill(next, mockIDocDocument);
+		when(mockIDocDocumentListIterator.next()).thenReturn(mockIDocDocument, next);
+
+		final Set<Thread> readingThreads = Collections.synchronizedSet(new HashSet<Thread>());
+		doAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				readingThreads.add(Thread.currentThread());
+				return FIELD0_VALUE;
+			}
+		}).when(mockLevel1Segment).getValue(0);
+
+		DocumentList documentList = IDocUtil.createDocumentList(mockIDocRepository, TEST_IDOC_TYPE, TEST_IDOC_TYPE_EXTENSION, TEST_SYSTEM_RELEASE, TEST_APPLICATION_RELEASE);
+
+		//
+		// When
+		//
+
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			IDocUtil.extractIDocDocumentListIntoDocumentList(mockIDocDocumentList, documentList, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		//
+		// Then
+		//
+
+		verify(mockLevel1Segment, times(NUM_DOCUMENTS)).getValue(0);
+		assertThat("IDoc segments read on unexpected threads", readingThreads, is(Collections.singleton(Thread.currentThread())));
+	}
+
+	@Test
+	public void testSequentialAndParallelExtractionSkipValueRejectedByField() throws Exception {
+
+		//
+		// Given
+		//
+
+		// A value of the wrong type is rejected by the field.
+		when(mockLevel1Segment.getValue(0)).thenReturn(Integer.valueOf(0));
+
+		Boolean[] hasNext = new Boolean[2 * NUM_DOCUMENTS];
+		Arrays.fill(hasNext, Boolean.TRUE);
+		hasNext[NUM_DOCUMENTS - 1] = Boolean.FALSE;
+		hasNext[2 * NUM_DOCUMENTS - 1] = Boolean.FALSE;
+		when(mockIDocDocumentListIterator.hasNext()).thenReturn(Boolean.TRUE, hasNext);
+		IDocDocument[] next = new IDocDocument[2 * NUM_DOCUMENTS - 1];
+		Arrays.fill(next, mockIDocDocument);
+		when(mockIDocDocumentListIterator.next()).thenReturn(mockIDocDocument, next);
+
+		DocumentList sequentialDocumentList = IDocUtil.createDocumentList(mockIDocRepository, TEST_IDOC_TYPE, TEST_IDOC_TYPE_EXTENSION, TEST_SYSTEM_RELEASE, TEST_APPLICATION_RELEASE);
+		DocumentList parallelDocumentList = IDocUtil.createDocumentList(mockIDocRepository, TEST_IDOC_TYPE, TEST_IDOC_TYPE_EXTENSION, TEST_SYSTEM_RELEASE, TEST_APPLICATION_RELEASE);
+
+		//
+		// When
+		//
+
+		IDocUtil.extractIDocDocumentListIntoDocumentList(mockIDocDocumentList, sequentialDocumentList);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			IDocUtil.extractIDocDocumentListIntoDocumentList(mockIDocDocumentList, parallelDocumentList, executor);
+		} finally {
+			executor.shutdown();
+		}
+
+		//
+		// Then
+		//
+
+		for (DocumentList documentList : Arrays.asList(sequentialDocumentList, parallelDocumentList)) {
+			assertThat("documentList.size() returned unexpected value", documentList.size(), is(NUM_DOCUMENTS));
+			for (Document document : documentList) {
+				Segment level1Segment = document.getRootSegment().getChildren().get(0);
+				assertThat("level1Segment.get(FIELD0) returned unexpected value", level1Segment.get(FIELD0), nullValue());
+				assertThat("level1Segment.get(FIELD1) returned unexpected value", (String) level1Segment.get(FIELD1), is(FIELD1_VALUE));
+			}
+		}
+	}
+
+	@Test
+	public void testFillStaysOnCallingThread() throws Exception {
+
+		//
+		// Given
+		//
+
+		DocumentList documentList = IDocUtil.createDocumentList(mockIDocRepository, TEST_IDOC_TYPE, TEST_IDOC_TYPE_EXTENSION, TEST_SYSTEM_RELEASE, TEST_APPLICATION_RELEASE);
+		for (int i = 0; i < NUM_DOCUMENTS; i++) {
+			Document document = documentList.add();
+			document.setArchiveKey(ARCHIVE_KEY_VALUE);
+		}
+		final Set<Thread> fillingThreads = Collections.synchronizedSet(new HashSet<Thread>());
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				fillingThreads.add(Thread.currentThread());
+				return null;
+			}
+		}).when(mockIDocDocument).setArchiveKey(anyString());
+
+		//
+		// When
+		//
+
+		IDocUtil.fillIDocDocumentListFromDocumentList(documentList, mockIDocDocumentList);
+
+		//
+		// Then
+		//
+
+		verify(mockIDocDocumentList, times(NUM_DOCUMENTS)).addNew();
+		verify(mockIDocDocument, times(NUM_DOCUMENTS)).setArchiveKey(ARCHIVE_KEY_VALUE);
+		assertThat("IDoc documents filled on unexpected threads", fillingThreads, is(Collections.singleton(Thread.currentThread())));
+	}
+
+}
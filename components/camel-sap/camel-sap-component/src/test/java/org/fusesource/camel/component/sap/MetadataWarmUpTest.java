@@ -0,0 +1,140 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.camel.CamelContext;
+import org.apache.camel.impl.DefaultCamelContext;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sap.conn.jco.JCoDestination;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Meta-data warm-up test cases.
+ * 
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class MetadataWarmUpTest {
+
+	private CamelContext camelContext;
+
+	private JCoDestination destination;
+
+	@Before
+	public void setUp() throws Exception {
+		camelContext = new DefaultCamelContext();
+		camelContext.start();
+		destination = mock(JCoDestination.class);
+		when(destination.getPeakLimit()).thenReturn(2);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		camelContext.stop();
+	}
+
+	@Test
+	public void testLookupSubmittedOnce() throws Exception {
+
+		//
+		// Given
+		//
+
+		MetadataWarmUp warmUp = MetadataWarmUp.getInstance(camelContext);
+		final AtomicInteger lookups = new AtomicInteger();
+		Callable<Object> lookup = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				return lookups.incrementAndGet();
+			}
+		};
+
+		//
+		// When
+		//
+
+		Future<?> first = warmUp.submit("TEST_DEST", destination, "rfc:TEST_DEST:TEST_FUNCTION_MODULE", lookup);
+		Future<?> second = warmUp.submit("TEST_DEST", destination, "rfc:TEST_DEST:TEST_FUNCTION_MODULE", lookup);
+
+		//
+		// Then
+		//
+
+		assertThat("warmUp.awaitCompletion() timed out", warmUp.awaitCompletion(5, TimeUnit.SECONDS), is(true));
+		assertThat("Second submit did not return lookup in progress", (Object) second, sameInstance((Object) first));
+		assertThat("Lookup performed unexpected number of times", lookups.get(), is(1));
+		assertThat("MetadataWarmUp.getInstance() returned another instance", MetadataWarmUp.getInstance(camelContext), sameInstance(warmUp));
+	}
+
+	@Test
+	public void testLookupsBoundedByPeakLimit() throws Exception {
+
+		//
+		// Given
+		//
+
+		MetadataWarmUp warmUp = MetadataWarmUp.getInstance(camelContext);
+		final AtomicInteger active = new AtomicInteger();
+		final AtomicInteger peak = new AtomicInteger();
+		final CountDownLatch release = new CountDownLatch(1);
+		Callable<Object> lookup = new Callable<Object>() {
+			@Override
+			public Object call() throws Exception {
+				int current = active.incrementAndGet();
+				synchronized (peak) {
+					peak.set(Math.max(peak.get(), current));
+				}
+				release.await(5, TimeUnit.SECONDS);
+				active.decrementAndGet();
+				return null;
+			}
+		};
+
+		//
+		// When
+		//
+
+		for (int i = 0; i < 10; i++) {
+			warmUp.submit("TEST_DEST", destination, "rfc:TEST_DEST:FUNCTION_MODULE_" + i, lookup);
+		}
+		Thread.sleep(100);
+		release.countDown();
+
+		//
+		// Then
+		//
+
+		assertThat("warmUp.awaitCompletion() timed out", warmUp.awaitCompletion(5, TimeUnit.SECONDS), is(true));
+		assertThat("Concurrent lookups exceeded peak limit of destination", peak.get(), lessThanOrEqualTo(2));
+	}
+
+}
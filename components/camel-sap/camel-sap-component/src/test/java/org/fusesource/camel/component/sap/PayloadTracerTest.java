@@ -0,0 +1,240 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
+import org.apache.camel.impl.DefaultExchange;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.Util;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.api.mockito.mockpolicies.Slf4jMockPolicy;
+import org.powermock.core.classloader.annotations.MockPolicy;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.sap.conn.jco.JCoDestinationManager;
+import com.sap.conn.jco.ext.Environment;
+import com.sap.conn.jco.server.JCoServerFactory;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.mockito.Mockito.when;
+
+@RunWith(PowerMockRunner.class)
+@MockPolicy({Slf4jMockPolicy.class})
+@PrepareForTest({ JCoDestinationManager.class, Environment.class, JCoServerFactory.class })
+public class PayloadTracerTest extends SapRfcTestSupport {
+
+	private File traceDirectory;
+
+	private ExecutorService writer;
+
+	@SuppressWarnings("deprecation")
+	@Override
+	public void doPreSetup() throws Exception {
+		super.doPreSetup();
+
+		PowerMockito.mockStatic(JCoDestinationManager.class, JCoServerFactory.class);
+		when(JCoDestinationManager.getDestination(DESTINATION_NAME)).thenReturn(mockDestination);
+		when(JCoServerFactory.get()).thenReturn(mockServerFactory);
+		when(JCoServerFactory.getServer(SERVER_NAME)).thenReturn(mockServer);
+
+		traceDirectory = File.createTempFile("sap", "trace");
+		traceDirectory.delete();
+		writer = Executors.newSingleThreadExecutor();
+	}
+
+	@After
+	public void tearDownTraceDirectory() throws Exception {
+		writer.shutdownNow();
+		File[] files = traceDirectory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		traceDirectory.delete();
+	}
+
+	@Test
+	public void testTraceWritesSampledPayloadToFile() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure request = createRequest();
+		File file = new File(traceDirectory, "test.trace");
+		PayloadTracer tracer = new PayloadTracer("test", file, 1.0, 0, 0, 1, writer);
+		Exchange exchange = new DefaultExchange(context);
+
+		//
+		// When
+		//
+
+		tracer.trace(exchange, "Request", request);
+		close(tracer);
+
+		//
+		// Then
+		//
+
+		String trace = read(file);
+		assertThat(trace, containsString(" test " + exchange.getExchangeId() + " Request"));
+		assertThat(trace, containsString("PARAM_LIST_CHAR_PARAM=\"ABCDEFGHIJ\""));
+		assertThat(tracer.getDroppedCount(), is(0L));
+
+	}
+
+	@Test
+	public void testTraceRecordsOversizedPayloadBySize() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure request = createRequest();
+		File file = new File(traceDirectory, "test.trace");
+		PayloadTracer tracer = new PayloadTracer("test", file, 1.0, 16, 0, 1, writer);
+
+		//
+		// When
+		//
+
+		tracer.trace(new DefaultExchange(context), "Request", request);
+		close(tracer);
+
+		//
+		// Then
+		//
+
+		String trace = read(file);
+		assertThat(trace, containsString("exceeds maximum size of 16 bytes"));
+		assertThat(trace, not(containsString("PARAM_LIST_CHAR_PARAM")));
+
+	}
+
+	@Test
+	public void testTraceSummaryRecordsSummaryOnly() throws Exception {
+
+		//
+		// Given
+		//
+
+		File file = new File(traceDirectory, "test.trace");
+		PayloadTracer tracer = new PayloadTracer("test", file, 1.0, 0, 0, 1, writer);
+		Exchange exchange = new DefaultExchange(context);
+
+		//
+		// When
+		//
+
+		tracer.traceSummary(exchange, "Response", "response streaming 3 rows not traced");
+		close(tracer);
+
+		//
+		// Then
+		//
+
+		String trace = read(file);
+		assertThat(trace, containsString(" test " + exchange.getExchangeId() + " Response"));
+		assertThat(trace, containsString("<response streaming 3 rows not traced>"));
+
+	}
+
+	@Test
+	public void testTraceIgnoresUnsampledExchanges() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure request = createRequest();
+		File file = new File(traceDirectory, "test.trace");
+		PayloadTracer tracer = new PayloadTracer("test", file, 0.0, 0, 0, 1, writer);
+
+		//
+		// When
+		//
+
+		tracer.trace(new DefaultExchange(context), "Request", request);
+		close(tracer);
+
+		//
+		// Then
+		//
+
+		assertThat(file.exists(), is(false));
+
+	}
+
+	@Test
+	public void testTraceRollsOverFiles() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure request = createRequest();
+		File file = new File(traceDirectory, "test.trace");
+		PayloadTracer tracer = new PayloadTracer("test", file, 1.0, 0, 1, 2, writer);
+
+		//
+		// When
+		//
+
+		for (int i = 0; i < 3; i++) {
+			tracer.trace(new DefaultExchange(context), "Request", request);
+		}
+		close(tracer);
+
+		//
+		// Then
+		//
+
+		assertThat(file.exists(), is(true));
+		assertThat(new File(traceDirectory, "test.trace.1").exists(), is(true));
+		assertThat(new File(traceDirectory, "test.trace.2").exists(), is(false));
+
+	}
+
+	private Structure createRequest() throws Exception {
+		Util.loadRegistry(new File("data/testRfcRegistry.ecore"));
+		return StructureConverter.toStructure(StructureConverterTest.REQUEST_STRING);
+	}
+
+	private void close(PayloadTracer tracer) throws Exception {
+		writer.shutdown();
+		writer.awaitTermination(10, TimeUnit.SECONDS);
+		tracer.close();
+	}
+
+	private String read(File file) throws Exception {
+		return new String(Files.readAllBytes(file.toPath()), "UTF-8");
+	}
+
+}
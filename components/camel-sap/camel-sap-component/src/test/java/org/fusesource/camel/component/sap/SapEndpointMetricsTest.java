@@ -0,0 +1,156 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import org.apache.camel.builder.RouteBuilder;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.CallTimings;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.api.mockito.mockpolicies.Slf4jMockPolicy;
+import org.powermock.core.classloader.annotations.MockPolicy;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.sap.conn.jco.AbapException;
+import com.sap.conn.jco.JCoDestinationManager;
+import com.sap.conn.jco.ext.Environment;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+/**
+ * SAP endpoint metrics test cases.
+ * 
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@RunWith(PowerMockRunner.class)
+@MockPolicy({Slf4jMockPolicy.class})
+@PrepareForTest({ JCoDestinationManager.class, Environment.class })
+public class SapEndpointMetricsTest extends SapRfcTestSupport {
+
+	private static final String ENDPOINT_URI = "sap-srfc-destination:TEST_DEST:TEST_FUNCTION_MODULE";
+
+	@Override
+	public void doPreSetup() throws Exception {
+		super.doPreSetup();
+
+		PowerMockito.mockStatic(JCoDestinationManager.class);
+		when(JCoDestinationManager.getDestination(DESTINATION_NAME)).thenReturn(mockDestination);
+	}
+
+	@Test
+	public void testProducerCallRecorded() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure request = createAndPopulateRequest();
+
+		//
+		// When
+		//
+
+		template.sendBody("direct:start", request);
+
+		//
+		// Then
+		//
+
+		SapEndpoint endpoint = context.getEndpoint(ENDPOINT_URI, SapEndpoint.class);
+		assertThat("endpoint.getCallCount() returned an unexpected value", endpoint.getCallCount(), is(1L));
+		assertThat("endpoint.getFailedCallCount() returned an unexpected value", endpoint.getFailedCallCount(), is(0L));
+		assertThat("endpoint.getInFlightCallCount() returned an unexpected value", endpoint.getInFlightCallCount(), is(0));
+		assertThat("endpoint.getRowCount() returned an unexpected value", endpoint.getRowCount(), is(1L));
+		assertThat("conversion time was not recorded", endpoint.getMetrics().getConversionTime().getCount(), is(1L));
+		assertThat("execution time was not recorded", endpoint.getMetrics().getExecutionTime().getCount(), is(1L));
+	}
+
+	@Test
+	public void testProducerErrorCountedByAbapExceptionKey() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure request = createAndPopulateRequest();
+		doThrow(new AbapException("NOT_FOUND", "Not found")).when(mockFunction).execute(mockDestination);
+
+		//
+		// When
+		//
+
+		template.send("direct:start", createExchangeWithBody(request));
+
+		//
+		// Then
+		//
+
+		SapEndpoint endpoint = context.getEndpoint(ENDPOINT_URI, SapEndpoint.class);
+		assertThat("endpoint.getFailedCallCount() returned an unexpected value", endpoint.getFailedCallCount(), is(1L));
+		assertThat("endpoint.getErrorCounts() returned an unexpected value", endpoint.getErrorCounts(), is("{NOT_FOUND=1}"));
+		assertThat("execution time was not recorded", endpoint.getMetrics().getExecutionTime().getCount(), is(1L));
+	}
+
+	@Test
+	public void testLatencyHistogram() throws Exception {
+
+		//
+		// Given
+		//
+
+		SapEndpointMetrics metrics = new SapEndpointMetrics();
+
+		//
+		// When
+		//
+
+		for (int i = 1; i <= 100; i++) {
+			CallTimings timings = metrics.begin();
+			timings.addExecutionTime(i * 1000000L);
+			metrics.end(timings, null);
+		}
+
+		//
+		// Then
+		//
+
+		SapEndpointMetrics.LatencyHistogram executionTime = metrics.getExecutionTime();
+		assertThat("executionTime.getCount() returned an unexpected value", executionTime.getCount(), is(100L));
+		assertThat("executionTime.getMean() returned an unexpected value", executionTime.getMean(), is(50.5));
+		assertThat("executionTime.getMax() returned an unexpected value", executionTime.getMax(), is(100.0));
+		assertThat("executionTime.getQuantile(0.99) returned an unexpected value", executionTime.getQuantile(0.99), is(100.0));
+		assertThat("executionTime.getQuantile(0.5) returned an unexpected value", executionTime.getQuantile(0.5), greaterThan(50.0));
+		assertThat("metrics.getInFlight() returned an unexpected value", metrics.getInFlight(), is(0));
+	}
+
+	@Override
+	protected RouteBuilder createRouteBuilder() throws Exception {
+		return new RouteBuilder() {
+			@Override
+			public void configure() throws Exception {
+				from("direct:start").to(ENDPOINT_URI).to("mock:result");
+			}
+		};
+	}
+
+}
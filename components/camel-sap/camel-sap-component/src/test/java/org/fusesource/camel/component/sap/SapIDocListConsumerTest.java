@@ -1,8 +1,13 @@
 package org.fusesource.camel.component.sap;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import org.apache.camel.CamelContext;
 import org.apache.camel.Endpoint;
 import org.apache.camel.Exchange;
+import org.apache.camel.Processor;
 import org.apache.camel.Producer;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.mock.MockEndpoint;
@@ -21,6 +26,7 @@ import com.sap.conn.idoc.jco.JCoIDoc;
 import com.sap.conn.jco.JCoDestinationManager;
 import com.sap.conn.jco.ext.Environment;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -243,6 +249,53 @@ public class SapIDocListConsumerTest extends SapIDocTestSupport {
 
 	}
 
+	@Test
+	public void testStreamedDocuments() throws Exception {
+
+		//
+		// Given
+		//
+
+		final List<Document> documents = new ArrayList<Document>();
+		final List<Object> bodies = new ArrayList<Object>();
+		Processor processor = new Processor() {
+			@Override
+			public void process(Exchange exchange) throws Exception {
+				Object body = exchange.getIn().getBody();
+				bodies.add(body);
+				@SuppressWarnings("unchecked")
+				Iterator<Document> it = (Iterator<Document>) body;
+				while (it.hasNext()) {
+					documents.add(it.next());
+				}
+			}
+		};
+
+		CamelContext context = context();
+		Endpoint endpoint = context.getEndpoint("sap-idoclist-server:TEST_SERVER:TEST_IDOC_TYPE:TEST_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION?streamDocuments=true");
+		SapTransactionalIDocListConsumer idocConsumer = (SapTransactionalIDocListConsumer) endpoint.createConsumer(processor);
+
+		//
+		// When
+		//
+
+		idocConsumer.handleRequest(mockServerContext, mockIDocDocumentList);
+
+		//
+		// Then
+		//
+
+		assertThat("The route received an unexpected number of bodies", bodies.size(), is(1));
+		assertThat("The body received by route is not an iterator", bodies.get(0), instanceOf(Iterator.class));
+		assertThat("The route read an unexpected number of documents", documents.size(), is(2));
+		for (Document document : documents) {
+			assertThat("document.getArchiveKey() returned '" +  document.getArchiveKey() + "' instead of expected value '" + ARCHIVE_KEY_VALUE + "'", (String) document.getArchiveKey(), is(ARCHIVE_KEY_VALUE));
+			Segment level1Segment = document.getRootSegment().getChildren().get(0);
+			assertThat("level1Segment.get(FIELD0) returned unexpected value", (String) level1Segment.get(FIELD0), is(FIELD0_VALUE));
+		}
+		assertThat("documents.get(0) and documents.get(1) are the same document", documents.get(0) != documents.get(1), is(true));
+	}
+
 	@Override
 	protected RouteBuilder createRouteBuilder() throws Exception {
 		return new RouteBuilder() {
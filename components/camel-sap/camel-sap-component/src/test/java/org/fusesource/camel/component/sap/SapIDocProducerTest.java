@@ -1,7 +1,13 @@
 package org.fusesource.camel.component.sap;
 
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
 import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.DocumentList;
+import org.fusesource.camel.component.sap.util.ConversionDiagnostics;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.powermock.api.mockito.PowerMockito;
@@ -15,8 +21,9 @@ import com.sap.conn.idoc.jco.JCoIDoc;
 import com.sap.conn.jco.JCoDestinationManager;
 import com.sap.conn.jco.ext.Environment;
 
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
-import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -26,6 +33,8 @@ import static org.mockito.Mockito.when;
 @PrepareForTest({ JCoDestinationManager.class, Environment.class, JCoIDoc.class })
 public class SapIDocProducerTest extends SapIDocTestSupport {
 
+	private static final String BAD_FIELD0_VALUE = "BAD_FIELD0_VALUE";
+
 	@Override
 	public void doPreSetup() throws Exception {
 		super.doPreSetup();
@@ -92,84 +101,292 @@ public class SapIDocProducerTest extends SapIDocTestSupport {
 		verify(mockIDocDocument, times(1)).setStatus(STATUS_VALUE);
 		verify(mockIDocDocument, times(1)).setTestFlag(TEST_FLAG_VALUE);
 		
-		verify(mockRootSegment, times(0)).setValue(anyString(), anyObject());
-		
-		verify(mockLevel1Segment, times(1)).setValue(FIELD0, (Object) FIELD0_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD1, (Object) FIELD1_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD2, (Object) FIELD2_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD3, (Object) FIELD3_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD4, (Object) FIELD4_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD5, (Object) FIELD5_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD6, (Object) FIELD6_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD7, (Object) FIELD7_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD8, (Object) FIELD8_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD9, (Object) FIELD9_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD10, (Object) FIELD10_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD11, (Object) FIELD11_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD12, (Object) FIELD12_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD13, (Object) FIELD13_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD14, (Object) FIELD14_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD15, (Object) FIELD15_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD16, (Object) FIELD16_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD17, (Object) FIELD17_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD18, (Object) FIELD18_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD19, (Object) FIELD19_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD20, (Object) FIELD20_VALUE);
-		
-		verify(mockLevel2Segment, times(1)).setValue(FIELD0, (Object) FIELD0_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD1, (Object) FIELD1_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD2, (Object) FIELD2_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD3, (Object) FIELD3_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD4, (Object) FIELD4_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD5, (Object) FIELD5_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD6, (Object) FIELD6_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD7, (Object) FIELD7_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD8, (Object) FIELD8_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD9, (Object) FIELD9_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD10, (Object) FIELD10_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD11, (Object) FIELD11_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD12, (Object) FIELD12_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD13, (Object) FIELD13_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD14, (Object) FIELD14_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD15, (Object) FIELD15_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD16, (Object) FIELD16_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD17, (Object) FIELD17_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD18, (Object) FIELD18_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD19, (Object) FIELD19_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD20, (Object) FIELD20_VALUE);
-		
-		verify(mockLevel3Segment, times(1)).setValue(FIELD0, (Object) FIELD0_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD1, (Object) FIELD1_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD2, (Object) FIELD2_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD3, (Object) FIELD3_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD4, (Object) FIELD4_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD5, (Object) FIELD5_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD6, (Object) FIELD6_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD7, (Object) FIELD7_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD8, (Object) FIELD8_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD9, (Object) FIELD9_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD10, (Object) FIELD10_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD11, (Object) FIELD11_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD12, (Object) FIELD12_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD13, (Object) FIELD13_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD14, (Object) FIELD14_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD15, (Object) FIELD15_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD16, (Object) FIELD16_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD17, (Object) FIELD17_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD18, (Object) FIELD18_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD19, (Object) FIELD19_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD20, (Object) FIELD20_VALUE);
+		verify(mockRootSegment, times(0)).setValue(anyInt(), anyObject());
+		
+		verify(mockLevel1Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(2, (Object) FIELD2_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(3, (Object) FIELD3_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(4, (Object) FIELD4_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(5, (Object) FIELD5_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(6, (Object) FIELD6_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(7, (Object) FIELD7_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(8, (Object) FIELD8_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(9, (Object) FIELD9_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(10, (Object) FIELD10_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(11, (Object) FIELD11_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(12, (Object) FIELD12_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(13, (Object) FIELD13_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(14, (Object) FIELD14_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(15, (Object) FIELD15_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(16, (Object) FIELD16_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(17, (Object) FIELD17_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(18, (Object) FIELD18_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(19, (Object) FIELD19_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(20, (Object) FIELD20_VALUE);
+		
+		verify(mockLevel2Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(2, (Object) FIELD2_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(3, (Object) FIELD3_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(4, (Object) FIELD4_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(5, (Object) FIELD5_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(6, (Object) FIELD6_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(7, (Object) FIELD7_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(8, (Object) FIELD8_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(9, (Object) FIELD9_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(10, (Object) FIELD10_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(11, (Object) FIELD11_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(12, (Object) FIELD12_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(13, (Object) FIELD13_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(14, (Object) FIELD14_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(15, (Object) FIELD15_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(16, (Object) FIELD16_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(17, (Object) FIELD17_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(18, (Object) FIELD18_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(19, (Object) FIELD19_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(20, (Object) FIELD20_VALUE);
+		
+		verify(mockLevel3Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(2, (Object) FIELD2_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(3, (Object) FIELD3_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(4, (Object) FIELD4_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(5, (Object) FIELD5_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(6, (Object) FIELD6_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(7, (Object) FIELD7_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(8, (Object) FIELD8_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(9, (Object) FIELD9_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(10, (Object) FIELD10_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(11, (Object) FIELD11_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(12, (Object) FIELD12_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(13, (Object) FIELD13_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(14, (Object) FIELD14_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(15, (Object) FIELD15_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(16, (Object) FIELD16_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(17, (Object) FIELD17_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(18, (Object) FIELD18_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(19, (Object) FIELD19_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(20, (Object) FIELD20_VALUE);
 		
 		PowerMockito.verifyStatic();
 		JCoIDoc.send(mockIDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
 	}
 
+	@Test
+	public void testProducerWithBatching() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		getMockEndpoint("mock:batchResult").expectedMessageCount(2);
+
+		//
+		// When
+		//
+
+		template.asyncSendBody("direct:batch", createAndPopulateDocument());
+		template.asyncSendBody("direct:batch", createAndPopulateDocument());
+	
+		//
+		// Then
+		//
+		
+		assertMockEndpointsSatisfied();
+		
+		// both documents sent in one IDoc list
+		verify(mockIDocDocumentList, times(2)).addNew();
+		verify(mockDestination, times(1)).createTID();
+		
+		PowerMockito.verifyStatic(times(1));
+		JCoIDoc.send(mockIDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
+		PowerMockito.verifyStatic(times(0));
+		JCoIDoc.send(mockIDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
+	}
+
+	@Test
+	public void testProducerWithBatchingLeavesDocumentsInTheirList() throws Exception{ 
+
+		//
+		// Given
+		//
+
+		getMockEndpoint("mock:batchResult").expectedMessageCount(2);
+		DocumentList documentList = createAndPopulateDocumentList();
+		documentList.add(createAndPopulateDocument());
+		Document document0 = documentList.get(0);
+		Document document1 = documentList.get(1);
+
+		//
+		// When
+		//
+
+		template.asyncSendBody("direct:batch", document0);
+		template.asyncSendBody("direct:batch", document1);
+
+		//
+		// Then
+		//
+
+		assertMockEndpointsSatisfied();
+
+		PowerMockito.verifyStatic(times(1));
+		JCoIDoc.send(mockIDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
+
+		// sent documents still in their list
+		assertEquals(2, documentList.size());
+		assertSame(document0, documentList.get(0));
+		assertSame(document1, documentList.get(1));
+		assertSame(documentList, document0.eContainer());
+		assertSame(documentList, document1.eContainer());
+	}
+
+	@Test
+	public void testProducerWithBatchingRejectsDocumentOfOtherTypeExtension() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		getMockEndpoint("mock:batchResult").expectedMessageCount(0);
+		Document document = createAndPopulateDocument();
+
+		//
+		// When
+		//
+
+		Exchange exchange = template.send("direct:batchOtherExtension", createExchangeWithBody(document));
+	
+		//
+		// Then
+		//
+		
+		assertMockEndpointsSatisfied();
+		assertTrue("Document of other type extension not rejected", exchange.getException() instanceof IllegalArgumentException);
+		verify(mockDestination, times(0)).createTID();
+	}
+
+	@Test
+	public void testProducerWithCountPolicySkipsAndCountsFailedField() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		doThrow(new IllegalArgumentException("Value too long")).when(mockLevel1Segment).setValue(0, (Object) FIELD0_VALUE);
+		Document document = createAndPopulateDocument();
+
+		//
+		// When
+		//
+
+		Exchange exchange = template.send("direct:count", createExchangeWithBody(document));
+	
+		//
+		// Then
+		//
+		
+		assertNull("Exchange failed by skipped field", exchange.getException());
+		verify(mockLevel1Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		ConversionDiagnostics diagnostics = exchange.getProperty(SapIDocDestinationEndpoint.CONVERSION_DIAGNOSTICS_PROPERTY_NAME, ConversionDiagnostics.class);
+		assertNotNull("Conversion diagnostics not attached to exchange", diagnostics);
+		assertEquals(ConversionDiagnostics.Policy.COUNT, diagnostics.getPolicy());
+		assertEquals(1, diagnostics.getFieldFailureCount());
+		assertTrue("Failures kept by COUNT policy", diagnostics.getFailures().isEmpty());
+		PowerMockito.verifyStatic();
+		JCoIDoc.send(mockIDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
+	}
+
+	@Test
+	public void testProducerWithBatchingAndCountPolicyAttachesDiagnosticsToExchangeOfFailedDocument() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		doThrow(new IllegalArgumentException("Value too long")).when(mockLevel1Segment).setValue(0, (Object) BAD_FIELD0_VALUE);
+		Exchange goodExchange = createExchangeWithBody(createAndPopulateDocument());
+		Exchange badExchange = createExchangeWithBody(createAndPopulateDocumentWithBadField());
+
+		//
+		// When
+		//
+
+		Future<Exchange> goodResult = template.asyncSend("direct:batchCount", goodExchange);
+		Future<Exchange> badResult = template.asyncSend("direct:batchCount", badExchange);
+		goodResult.get(10, TimeUnit.SECONDS);
+		badResult.get(10, TimeUnit.SECONDS);
+	
+		//
+		// Then
+		//
+		
+		assertNull("Exchange failed by skipped field", goodExchange.getException());
+		assertNull("Exchange failed by skipped field", badExchange.getException());
+		assertNull("Conversion diagnostics attached to exchange of converted document", goodExchange.getProperty(SapIDocDestinationEndpoint.CONVERSION_DIAGNOSTICS_PROPERTY_NAME));
+		ConversionDiagnostics diagnostics = badExchange.getProperty(SapIDocDestinationEndpoint.CONVERSION_DIAGNOSTICS_PROPERTY_NAME, ConversionDiagnostics.class);
+		assertNotNull("Conversion diagnostics not attached to exchange of failed document", diagnostics);
+		assertEquals(ConversionDiagnostics.Policy.COUNT, diagnostics.getPolicy());
+		assertEquals(1, diagnostics.getFieldFailureCount());
+		PowerMockito.verifyStatic(times(1));
+		JCoIDoc.send(mockIDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
+	}
+
+	@Test
+	public void testProducerWithBatchingAndFailPolicyAttachesDiagnosticsToExchangeOfFailedDocument() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		doThrow(new IllegalArgumentException("Value too long")).when(mockLevel1Segment).setValue(0, (Object) BAD_FIELD0_VALUE);
+		Exchange goodExchange = createExchangeWithBody(createAndPopulateDocument());
+		Exchange badExchange = createExchangeWithBody(createAndPopulateDocumentWithBadField());
+
+		//
+		// When
+		//
+
+		Future<Exchange> goodResult = template.asyncSend("direct:batchFail", goodExchange);
+		Future<Exchange> badResult = template.asyncSend("direct:batchFail", badExchange);
+		goodResult.get(10, TimeUnit.SECONDS);
+		badResult.get(10, TimeUnit.SECONDS);
+	
+		//
+		// Then
+		//
+		
+		// the whole batch fails, but only the exchange of the failed document has a report
+		assertNotNull("Exchange of batch not failed", goodExchange.getException());
+		assertNotNull("Exchange of batch not failed", badExchange.getException());
+		assertNull("Conversion diagnostics attached to exchange of converted document", goodExchange.getProperty(SapIDocDestinationEndpoint.CONVERSION_DIAGNOSTICS_PROPERTY_NAME));
+		ConversionDiagnostics diagnostics = badExchange.getProperty(SapIDocDestinationEndpoint.CONVERSION_DIAGNOSTICS_PROPERTY_NAME, ConversionDiagnostics.class);
+		assertNotNull("Conversion diagnostics not attached to exchange of failed document", diagnostics);
+		assertEquals(ConversionDiagnostics.Policy.FAIL, diagnostics.getPolicy());
+		assertEquals(1, diagnostics.getFieldFailureCount());
+		PowerMockito.verifyStatic(times(0));
+		JCoIDoc.send(mockIDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID);
+	}
+
+	private Document createAndPopulateDocumentWithBadField() throws Exception {
+		Document document = createAndPopulateDocument();
+		document.getRootSegment().getChildren(LEVEL1).get(0).put(FIELD0, BAD_FIELD0_VALUE);
+		return document;
+	}
+
 	@Override
 	protected RouteBuilder createRouteBuilder() throws Exception {
 		return new RouteBuilder() {
 			@Override
 			public void configure() throws Exception {
 				from("direct:start").to("sap-idoc-destination:TEST_DEST:TEST_IDOC_TYPE:TEST_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION");
+				from("direct:count").to("sap-idoc-destination:TEST_DEST:TEST_IDOC_TYPE:TEST_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION?conversionFailurePolicy=COUNT");
+				from("direct:batch").to("sap-idoc-destination:TEST_DEST:TEST_IDOC_TYPE:TEST_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION?batchSize=2&batchTimeout=60000").to("mock:batchResult");
+				from("direct:batchCount").to("sap-idoc-destination:TEST_DEST:TEST_IDOC_TYPE:TEST_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION?batchSize=2&batchTimeout=60000&conversionFailurePolicy=COUNT");
+				from("direct:batchFail").to("sap-idoc-destination:TEST_DEST:TEST_IDOC_TYPE:TEST_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION?batchSize=2&batchTimeout=60000&conversionFailurePolicy=FAIL");
+				from("direct:batchOtherExtension").to("sap-idoc-destination:TEST_DEST:TEST_IDOC_TYPE:OTHER_IDOC_TYPE_EXTENSION:TEST_SYSTEM_VERSION:TEST_APPLICATION_VERSION?batchSize=2&batchTimeout=60000").to("mock:batchResult");
 			}
 		};
 	}
@@ -664,27 +664,27 @@ public abstract class SapIDocTestSupport extends JCoTestSupport {
 
 		when(mockLevel1Segment.addChild(LEVEL2)).thenReturn(mockLevel2Segment);
 		when(mockLevel1Segment.getChildren(LEVEL2)).thenReturn(new IDocSegment[] { mockLevel2Segment });
-		when(mockLevel1Segment.getValue(FIELD0)).thenReturn(FIELD0_VALUE);
-		when(mockLevel1Segment.getValue(FIELD1)).thenReturn(FIELD1_VALUE);
-		when(mockLevel1Segment.getValue(FIELD2)).thenReturn(FIELD2_VALUE);
-		when(mockLevel1Segment.getValue(FIELD3)).thenReturn(FIELD3_VALUE);
-		when(mockLevel1Segment.getValue(FIELD4)).thenReturn(FIELD4_VALUE);
-		when(mockLevel1Segment.getValue(FIELD5)).thenReturn(FIELD5_VALUE);
-		when(mockLevel1Segment.getValue(FIELD6)).thenReturn(FIELD6_VALUE);
-		when(mockLevel1Segment.getValue(FIELD7)).thenReturn(FIELD7_VALUE);
-		when(mockLevel1Segment.getValue(FIELD8)).thenReturn(FIELD8_VALUE);
-		when(mockLevel1Segment.getValue(FIELD9)).thenReturn(FIELD9_VALUE);
-		when(mockLevel1Segment.getValue(FIELD10)).thenReturn(FIELD10_VALUE);
-		when(mockLevel1Segment.getValue(FIELD11)).thenReturn(FIELD11_VALUE);
-		when(mockLevel1Segment.getValue(FIELD12)).thenReturn(FIELD12_VALUE);
-		when(mockLevel1Segment.getValue(FIELD13)).thenReturn(FIELD13_VALUE);
-		when(mockLevel1Segment.getValue(FIELD14)).thenReturn(FIELD14_VALUE);
-		when(mockLevel1Segment.getValue(FIELD15)).thenReturn(FIELD15_VALUE);
-		when(mockLevel1Segment.getValue(FIELD16)).thenReturn(FIELD16_VALUE);
-		when(mockLevel1Segment.getValue(FIELD17)).thenReturn(FIELD17_VALUE);
-		when(mockLevel1Segment.getValue(FIELD18)).thenReturn(FIELD18_VALUE);
-		when(mockLevel1Segment.getValue(FIELD19)).thenReturn(FIELD19_VALUE);
-		when(mockLevel1Segment.getValue(FIELD20)).thenReturn(FIELD20_VALUE);
+		when(mockLevel1Segment.getValue(0)).thenReturn(FIELD0_VALUE);
+		when(mockLevel1Segment.getValue(1)).thenReturn(FIELD1_VALUE);
+		when(mockLevel1Segment.getValue(2)).thenReturn(FIELD2_VALUE);
+		when(mockLevel1Segment.getValue(3)).thenReturn(FIELD3_VALUE);
+		when(mockLevel1Segment.getValue(4)).thenReturn(FIELD4_VALUE);
+		when(mockLevel1Segment.getValue(5)).thenReturn(FIELD5_VALUE);
+		when(mockLevel1Segment.getValue(6)).thenReturn(FIELD6_VALUE);
+		when(mockLevel1Segment.getValue(7)).thenReturn(FIELD7_VALUE);
+		when(mockLevel1Segment.getValue(8)).thenReturn(FIELD8_VALUE);
+		when(mockLevel1Segment.getValue(9)).thenReturn(FIELD9_VALUE);
+		when(mockLevel1Segment.getValue(10)).thenReturn(FIELD10_VALUE);
+		when(mockLevel1Segment.getValue(11)).thenReturn(FIELD11_VALUE);
+		when(mockLevel1Segment.getValue(12)).thenReturn(FIELD12_VALUE);
+		when(mockLevel1Segment.getValue(13)).thenReturn(FIELD13_VALUE);
+		when(mockLevel1Segment.getValue(14)).thenReturn(FIELD14_VALUE);
+		when(mockLevel1Segment.getValue(15)).thenReturn(FIELD15_VALUE);
+		when(mockLevel1Segment.getValue(16)).thenReturn(FIELD16_VALUE);
+		when(mockLevel1Segment.getValue(17)).thenReturn(FIELD17_VALUE);
+		when(mockLevel1Segment.getValue(18)).thenReturn(FIELD18_VALUE);
+		when(mockLevel1Segment.getValue(19)).thenReturn(FIELD19_VALUE);
+		when(mockLevel1Segment.getValue(20)).thenReturn(FIELD20_VALUE);
 
 	}
 	
@@ -1111,27 +1111,27 @@ public abstract class SapIDocTestSupport extends JCoTestSupport {
 		
 		when(mockLevel2Segment.addChild(LEVEL3)).thenReturn(mockLevel3Segment);
 		when(mockLevel2Segment.getChildren(LEVEL3)).thenReturn(new IDocSegment[] { mockLevel3Segment });
-		when(mockLevel2Segment.getValue(FIELD0)).thenReturn(FIELD0_VALUE);
-		when(mockLevel2Segment.getValue(FIELD1)).thenReturn(FIELD1_VALUE);
-		when(mockLevel2Segment.getValue(FIELD2)).thenReturn(FIELD2_VALUE);
-		when(mockLevel2Segment.getValue(FIELD3)).thenReturn(FIELD3_VALUE);
-		when(mockLevel2Segment.getValue(FIELD4)).thenReturn(FIELD4_VALUE);
-		when(mockLevel2Segment.getValue(FIELD5)).thenReturn(FIELD5_VALUE);
-		when(mockLevel2Segment.getValue(FIELD6)).thenReturn(FIELD6_VALUE);
-		when(mockLevel2Segment.getValue(FIELD7)).thenReturn(FIELD7_VALUE);
-		when(mockLevel2Segment.getValue(FIELD8)).thenReturn(FIELD8_VALUE);
-		when(mockLevel2Segment.getValue(FIELD9)).thenReturn(FIELD9_VALUE);
-		when(mockLevel2Segment.getValue(FIELD10)).thenReturn(FIELD10_VALUE);
-		when(mockLevel2Segment.getValue(FIELD11)).thenReturn(FIELD11_VALUE);
-		when(mockLevel2Segment.getValue(FIELD12)).thenReturn(FIELD12_VALUE);
-		when(mockLevel2Segment.getValue(FIELD13)).thenReturn(FIELD13_VALUE);
-		when(mockLevel2Segment.getValue(FIELD14)).thenReturn(FIELD14_VALUE);
-		when(mockLevel2Segment.getValue(FIELD15)).thenReturn(FIELD15_VALUE);
-		when(mockLevel2Segment.getValue(FIELD16)).thenReturn(FIELD16_VALUE);
-		when(mockLevel2Segment.getValue(FIELD17)).thenReturn(FIELD17_VALUE);
-		when(mockLevel2Segment.getValue(FIELD18)).thenReturn(FIELD18_VALUE);
-		when(mockLevel2Segment.getValue(FIELD19)).thenReturn(FIELD19_VALUE);
-		when(mockLevel2Segment.getValue(FIELD20)).thenReturn(FIELD20_VALUE);
+		when(mockLevel2Segment.getValue(0)).thenReturn(FIELD0_VALUE);
+		when(mockLevel2Segment.getValue(1)).thenReturn(FIELD1_VALUE);
+		when(mockLevel2Segment.getValue(2)).thenReturn(FIELD2_VALUE);
+		when(mockLevel2Segment.getValue(3)).thenReturn(FIELD3_VALUE);
+		when(mockLevel2Segment.getValue(4)).thenReturn(FIELD4_VALUE);
+		when(mockLevel2Segment.getValue(5)).thenReturn(FIELD5_VALUE);
+		when(mockLevel2Segment.getValue(6)).thenReturn(FIELD6_VALUE);
+		when(mockLevel2Segment.getValue(7)).thenReturn(FIELD7_VALUE);
+		when(mockLevel2Segment.getValue(8)).thenReturn(FIELD8_VALUE);
+		when(mockLevel2Segment.getValue(9)).thenReturn(FIELD9_VALUE);
+		when(mockLevel2Segment.getValue(10)).thenReturn(FIELD10_VALUE);
+		when(mockLevel2Segment.getValue(11)).thenReturn(FIELD11_VALUE);
+		when(mockLevel2Segment.getValue(12)).thenReturn(FIELD12_VALUE);
+		when(mockLevel2Segment.getValue(13)).thenReturn(FIELD13_VALUE);
+		when(mockLevel2Segment.getValue(14)).thenReturn(FIELD14_VALUE);
+		when(mockLevel2Segment.getValue(15)).thenReturn(FIELD15_VALUE);
+		when(mockLevel2Segment.getValue(16)).thenReturn(FIELD16_VALUE);
+		when(mockLevel2Segment.getValue(17)).thenReturn(FIELD17_VALUE);
+		when(mockLevel2Segment.getValue(18)).thenReturn(FIELD18_VALUE);
+		when(mockLevel2Segment.getValue(19)).thenReturn(FIELD19_VALUE);
+		when(mockLevel2Segment.getValue(20)).thenReturn(FIELD20_VALUE);
 		
 	}
 
@@ -1538,27 +1538,27 @@ public abstract class SapIDocTestSupport extends JCoTestSupport {
 		when(mockLevel3RecordMetaData.getValueRanges(20)).thenReturn(RECORD_FIELD_VALUE_RANGES);
 		when(mockLevel3RecordMetaData.isISOCode(20)).thenReturn(false);
 
-		when(mockLevel3Segment.getValue(FIELD0)).thenReturn(FIELD0_VALUE);
-		when(mockLevel3Segment.getValue(FIELD1)).thenReturn(FIELD1_VALUE);
-		when(mockLevel3Segment.getValue(FIELD2)).thenReturn(FIELD2_VALUE);
-		when(mockLevel3Segment.getValue(FIELD3)).thenReturn(FIELD3_VALUE);
-		when(mockLevel3Segment.getValue(FIELD4)).thenReturn(FIELD4_VALUE);
-		when(mockLevel3Segment.getValue(FIELD5)).thenReturn(FIELD5_VALUE);
-		when(mockLevel3Segment.getValue(FIELD6)).thenReturn(FIELD6_VALUE);
-		when(mockLevel3Segment.getValue(FIELD7)).thenReturn(FIELD7_VALUE);
-		when(mockLevel3Segment.getValue(FIELD8)).thenReturn(FIELD8_VALUE);
-		when(mockLevel3Segment.getValue(FIELD9)).thenReturn(FIELD9_VALUE);
-		when(mockLevel3Segment.getValue(FIELD10)).thenReturn(FIELD10_VALUE);
-		when(mockLevel3Segment.getValue(FIELD11)).thenReturn(FIELD11_VALUE);
-		when(mockLevel3Segment.getValue(FIELD12)).thenReturn(FIELD12_VALUE);
-		when(mockLevel3Segment.getValue(FIELD13)).thenReturn(FIELD13_VALUE);
-		when(mockLevel3Segment.getValue(FIELD14)).thenReturn(FIELD14_VALUE);
-		when(mockLevel3Segment.getValue(FIELD15)).thenReturn(FIELD15_VALUE);
-		when(mockLevel3Segment.getValue(FIELD16)).thenReturn(FIELD16_VALUE);
-		when(mockLevel3Segment.getValue(FIELD17)).thenReturn(FIELD17_VALUE);
-		when(mockLevel3Segment.getValue(FIELD18)).thenReturn(FIELD18_VALUE);
-		when(mockLevel3Segment.getValue(FIELD19)).thenReturn(FIELD19_VALUE);
-		when(mockLevel3Segment.getValue(FIELD20)).thenReturn(FIELD20_VALUE);
+		when(mockLevel3Segment.getValue(0)).thenReturn(FIELD0_VALUE);
+		when(mockLevel3Segment.getValue(1)).thenReturn(FIELD1_VALUE);
+		when(mockLevel3Segment.getValue(2)).thenReturn(FIELD2_VALUE);
+		when(mockLevel3Segment.getValue(3)).thenReturn(FIELD3_VALUE);
+		when(mockLevel3Segment.getValue(4)).thenReturn(FIELD4_VALUE);
+		when(mockLevel3Segment.getValue(5)).thenReturn(FIELD5_VALUE);
+		when(mockLevel3Segment.getValue(6)).thenReturn(FIELD6_VALUE);
+		when(mockLevel3Segment.getValue(7)).thenReturn(FIELD7_VALUE);
+		when(mockLevel3Segment.getValue(8)).thenReturn(FIELD8_VALUE);
+		when(mockLevel3Segment.getValue(9)).thenReturn(FIELD9_VALUE);
+		when(mockLevel3Segment.getValue(10)).thenReturn(FIELD10_VALUE);
+		when(mockLevel3Segment.getValue(11)).thenReturn(FIELD11_VALUE);
+		when(mockLevel3Segment.getValue(12)).thenReturn(FIELD12_VALUE);
+		when(mockLevel3Segment.getValue(13)).thenReturn(FIELD13_VALUE);
+		when(mockLevel3Segment.getValue(14)).thenReturn(FIELD14_VALUE);
+		when(mockLevel3Segment.getValue(15)).thenReturn(FIELD15_VALUE);
+		when(mockLevel3Segment.getValue(16)).thenReturn(FIELD16_VALUE);
+		when(mockLevel3Segment.getValue(17)).thenReturn(FIELD17_VALUE);
+		when(mockLevel3Segment.getValue(18)).thenReturn(FIELD18_VALUE);
+		when(mockLevel3Segment.getValue(19)).thenReturn(FIELD19_VALUE);
+		when(mockLevel3Segment.getValue(20)).thenReturn(FIELD20_VALUE);
 		
 	}
 
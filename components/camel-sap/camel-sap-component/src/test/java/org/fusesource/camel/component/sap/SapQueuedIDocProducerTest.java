@@ -15,8 +15,8 @@ import com.sap.conn.idoc.jco.JCoIDoc;
 import com.sap.conn.jco.JCoDestinationManager;
 import com.sap.conn.jco.ext.Environment;
 
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyObject;
-import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -92,73 +92,73 @@ public class SapQueuedIDocProducerTest extends SapIDocTestSupport {
 		verify(mockIDocDocument, times(1)).setStatus(STATUS_VALUE);
 		verify(mockIDocDocument, times(1)).setTestFlag(TEST_FLAG_VALUE);
 		
-		verify(mockRootSegment, times(0)).setValue(anyString(), anyObject());
+		verify(mockRootSegment, times(0)).setValue(anyInt(), anyObject());
 		
-		verify(mockLevel1Segment, times(1)).setValue(FIELD0, (Object) FIELD0_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD1, (Object) FIELD1_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD2, (Object) FIELD2_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD3, (Object) FIELD3_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD4, (Object) FIELD4_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD5, (Object) FIELD5_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD6, (Object) FIELD6_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD7, (Object) FIELD7_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD8, (Object) FIELD8_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD9, (Object) FIELD9_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD10, (Object) FIELD10_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD11, (Object) FIELD11_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD12, (Object) FIELD12_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD13, (Object) FIELD13_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD14, (Object) FIELD14_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD15, (Object) FIELD15_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD16, (Object) FIELD16_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD17, (Object) FIELD17_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD18, (Object) FIELD18_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD19, (Object) FIELD19_VALUE);
-		verify(mockLevel1Segment, times(1)).setValue(FIELD20, (Object) FIELD20_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(2, (Object) FIELD2_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(3, (Object) FIELD3_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(4, (Object) FIELD4_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(5, (Object) FIELD5_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(6, (Object) FIELD6_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(7, (Object) FIELD7_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(8, (Object) FIELD8_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(9, (Object) FIELD9_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(10, (Object) FIELD10_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(11, (Object) FIELD11_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(12, (Object) FIELD12_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(13, (Object) FIELD13_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(14, (Object) FIELD14_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(15, (Object) FIELD15_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(16, (Object) FIELD16_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(17, (Object) FIELD17_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(18, (Object) FIELD18_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(19, (Object) FIELD19_VALUE);
+		verify(mockLevel1Segment, times(1)).setValue(20, (Object) FIELD20_VALUE);
 		
-		verify(mockLevel2Segment, times(1)).setValue(FIELD0, (Object) FIELD0_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD1, (Object) FIELD1_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD2, (Object) FIELD2_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD3, (Object) FIELD3_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD4, (Object) FIELD4_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD5, (Object) FIELD5_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD6, (Object) FIELD6_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD7, (Object) FIELD7_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD8, (Object) FIELD8_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD9, (Object) FIELD9_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD10, (Object) FIELD10_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD11, (Object) FIELD11_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD12, (Object) FIELD12_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD13, (Object) FIELD13_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD14, (Object) FIELD14_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD15, (Object) FIELD15_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD16, (Object) FIELD16_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD17, (Object) FIELD17_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD18, (Object) FIELD18_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD19, (Object) FIELD19_VALUE);
-		verify(mockLevel2Segment, times(1)).setValue(FIELD20, (Object) FIELD20_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(2, (Object) FIELD2_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(3, (Object) FIELD3_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(4, (Object) FIELD4_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(5, (Object) FIELD5_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(6, (Object) FIELD6_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(7, (Object) FIELD7_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(8, (Object) FIELD8_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(9, (Object) FIELD9_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(10, (Object) FIELD10_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(11, (Object) FIELD11_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(12, (Object) FIELD12_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(13, (Object) FIELD13_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(14, (Object) FIELD14_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(15, (Object) FIELD15_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(16, (Object) FIELD16_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(17, (Object) FIELD17_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(18, (Object) FIELD18_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(19, (Object) FIELD19_VALUE);
+		verify(mockLevel2Segment, times(1)).setValue(20, (Object) FIELD20_VALUE);
 		
-		verify(mockLevel3Segment, times(1)).setValue(FIELD0, (Object) FIELD0_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD1, (Object) FIELD1_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD2, (Object) FIELD2_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD3, (Object) FIELD3_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD4, (Object) FIELD4_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD5, (Object) FIELD5_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD6, (Object) FIELD6_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD7, (Object) FIELD7_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD8, (Object) FIELD8_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD9, (Object) FIELD9_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD10, (Object) FIELD10_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD11, (Object) FIELD11_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD12, (Object) FIELD12_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD13, (Object) FIELD13_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD14, (Object) FIELD14_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD15, (Object) FIELD15_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD16, (Object) FIELD16_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD17, (Object) FIELD17_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD18, (Object) FIELD18_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD19, (Object) FIELD19_VALUE);
-		verify(mockLevel3Segment, times(1)).setValue(FIELD20, (Object) FIELD20_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(0, (Object) FIELD0_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(1, (Object) FIELD1_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(2, (Object) FIELD2_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(3, (Object) FIELD3_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(4, (Object) FIELD4_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(5, (Object) FIELD5_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(6, (Object) FIELD6_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(7, (Object) FIELD7_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(8, (Object) FIELD8_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(9, (Object) FIELD9_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(10, (Object) FIELD10_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(11, (Object) FIELD11_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(12, (Object) FIELD12_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(13, (Object) FIELD13_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(14, (Object) FIELD14_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(15, (Object) FIELD15_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(16, (Object) FIELD16_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(17, (Object) FIELD17_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(18, (Object) FIELD18_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(19, (Object) FIELD19_VALUE);
+		verify(mockLevel3Segment, times(1)).setValue(20, (Object) FIELD20_VALUE);
 		
 		PowerMockito.verifyStatic();
 		JCoIDoc.send(mockIDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, mockDestination, TEST_TID, TEST_QUEUE);
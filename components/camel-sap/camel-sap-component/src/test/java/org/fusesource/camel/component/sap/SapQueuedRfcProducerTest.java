@@ -75,34 +75,12 @@ public class SapQueuedRfcProducerTest extends SapRfcTestSupport {
 		
 		// check access to jco fields
 
-		verify(mockParameterListCharField, times(1)).setValue((Object)CHAR_PARAM_IN_VAL);
-		verify(mockParameterListNumField, times(1)).setValue((Object)NUM_PARAM_IN_VAL);
-		verify(mockParameterListIntField, times(1)).setValue((Object)INT_PARAM_IN_VAL);
-		verify(mockParameterListFloatField, times(1)).setValue((Object)FLOAT_PARAM_IN_VAL);
-		verify(mockParameterListBCDField, times(1)).setValue((Object)BCD_PARAM_IN_VAL);
-		verify(mockParameterListBinaryField, times(1)).setValue((Object)BINARY_PARAM_IN_VAL);
-		verify(mockParameterListBinaryArrayField, times(1)).setValue((Object)BINARY_ARRAY_PARAM_IN_VAL);
-		verify(mockParameterListDateField, times(1)).setValue((Object)DATE_PARAM_IN_VAL);
-		verify(mockParameterListTimeField, times(1)).setValue((Object)TIME_PARAM_IN_VAL);
-		verify(mockParameterListStringField, times(1)).setValue((Object)STRING_PARAM_IN_VAL);
+		verifyRecordFieldsSetToInputValues(mockChangingParameterList);
 		
-		verify(mockCharField, times(2)).setValue((Object)CHAR_PARAM_IN_VAL);
-		verify(mockNumField, times(2)).setValue((Object)NUM_PARAM_IN_VAL);
-		verify(mockIntField, times(2)).setValue((Object)INT_PARAM_IN_VAL);
-		verify(mockFloatField, times(2)).setValue((Object)FLOAT_PARAM_IN_VAL);
-		verify(mockBCDField, times(2)).setValue((Object)BCD_PARAM_IN_VAL);
-		verify(mockBinaryField, times(2)).setValue((Object)BINARY_PARAM_IN_VAL);
-		verify(mockBinaryArrayField, times(2)).setValue((Object)BINARY_ARRAY_PARAM_IN_VAL);
-		verify(mockDateField, times(2)).setValue((Object)DATE_PARAM_IN_VAL);
-		verify(mockTimeField, times(2)).setValue((Object)TIME_PARAM_IN_VAL);
-		verify(mockStringField, times(2)).setValue((Object)STRING_PARAM_IN_VAL);
+		verifyRecordFieldsSetToInputValues(mockStructure);
 		
-		verify(mockChangingParameterList, times(1)).getFieldIterator();
-		
-		verify(mockStructure, times(1)).getFieldIterator();
-		
-		verify(mockTable, times(1)).appendRow();
-		verify(mockTable, times(1)).getFieldIterator();
+		verify(mockTable, times(1)).appendRows(1);
+		verifyRecordFieldsSetToInputValues(mockTable);
 		
 		verify(mockFunction, times(1)).execute(mockDestination, TEST_TID, QUEUE_NAME);
 	}
@@ -20,7 +20,6 @@ import java.math.BigDecimal;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.GregorianCalendar;
-import java.util.NoSuchElementException;
 
 import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
 import org.fusesource.camel.component.sap.model.rfc.Structure;
@@ -30,13 +29,12 @@ import org.springframework.context.support.AbstractApplicationContext;
 import org.springframework.context.support.StaticApplicationContext;
 
 import com.sap.conn.jco.JCoDestination;
-import com.sap.conn.jco.JCoField;
-import com.sap.conn.jco.JCoFieldIterator;
 import com.sap.conn.jco.JCoFunction;
 import com.sap.conn.jco.JCoFunctionTemplate;
 import com.sap.conn.jco.JCoListMetaData;
 import com.sap.conn.jco.JCoMetaData;
 import com.sap.conn.jco.JCoParameterList;
+import com.sap.conn.jco.JCoRecord;
 import com.sap.conn.jco.JCoRecordMetaData;
 import com.sap.conn.jco.JCoRepository;
 import com.sap.conn.jco.JCoRequest;
@@ -51,6 +49,8 @@ import com.sap.conn.jco.server.JCoServerState;
 import com.sap.conn.jco.server.JCoServerTIDHandler;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -165,33 +165,7 @@ public abstract class SapRfcTestSupport extends JCoTestSupport {
 	protected JCoParameterList mockChangingParameterList;
 	protected JCoParameterList mockExportParameterList;
 	protected JCoParameterList mockTableParameterList;
-	protected JCoFieldIterator mockParameterListFieldIterator;
-	protected JCoFieldIterator mockTableParameterListFieldIterator;
-	protected JCoField mockParameterListCharField;
-	protected JCoField mockParameterListNumField;
-	protected JCoField mockParameterListIntField;
-	protected JCoField mockParameterListFloatField;
-	protected JCoField mockParameterListBCDField;
-	protected JCoField mockParameterListBinaryField;
-	protected JCoField mockParameterListBinaryArrayField;
-	protected JCoField mockParameterListDateField;
-	protected JCoField mockParameterListTimeField;
-	protected JCoField mockParameterListStringField;
-	protected JCoField mockParameterListStructureField;
-	protected JCoField mockParameterListTableField;
-	protected JCoFieldIterator mockStructureFieldIterator;
-	protected JCoField mockCharField;
-	protected JCoField mockNumField;
-	protected JCoField mockIntField;
-	protected JCoField mockFloatField;
-	protected JCoField mockBCDField;
-	protected JCoField mockBinaryField;
-	protected JCoField mockBinaryArrayField;
-	protected JCoField mockDateField;
-	protected JCoField mockTimeField;
-	protected JCoField mockStringField;
 	protected JCoStructure mockStructure;
-	protected JCoFieldIterator mockTableFieldIterator;
 	protected JCoRequest mockRequest;
 	protected JCoResponse mockResponse;
 	protected JCoDestination mockDestination;
@@ -199,7 +173,6 @@ public abstract class SapRfcTestSupport extends JCoTestSupport {
 	protected JCoServerFactory mockServerFactory;
 	protected JCoServerContext mockServerContext;
 	protected JCoServerTIDHandler mockServerTIDHandler;
-	protected JCoFieldIterator mockEmptyParameterListFieldIterator;
 	protected JCoServerFunctionHandlerFactory mockFunctionHandlerFactory;
 	protected JCoTable mockTable;
 	
@@ -224,44 +197,8 @@ public abstract class SapRfcTestSupport extends JCoTestSupport {
 		mockExportParameterList = mock(JCoParameterList.class, "ExportParameterList");
 		mockTableParameterList = mock(JCoParameterList.class, "TableParameterList");
 		
-		/* Create mock field iterator for parameter list  */
-		mockEmptyParameterListFieldIterator = mock(JCoFieldIterator.class, "EmptyParameterListFieldIterator");
-		mockParameterListFieldIterator = mock(JCoFieldIterator.class, "ParameterListFieldIterator");
-		mockTableParameterListFieldIterator = mock(JCoFieldIterator.class, "TableParameterListFieldIterator");
-		
-		/* Create field mocks for field iterator */
-		mockParameterListCharField = mock(JCoField.class, "ParameterListCharField");
-		mockParameterListNumField = mock(JCoField.class, "ParameterListNumField");
-		mockParameterListIntField = mock(JCoField.class, "ParameterListIntField");
-		mockParameterListFloatField = mock(JCoField.class, "ParameterListFloatField");
-		mockParameterListBCDField = mock(JCoField.class, "ParameterListBCDField");
-		mockParameterListBinaryField = mock(JCoField.class, "ParameterListBinaryField");
-		mockParameterListBinaryArrayField = mock(JCoField.class, "ParameterListBinaryArrayField");
-		mockParameterListDateField = mock(JCoField.class, "ParameterListDateField");
-		mockParameterListTimeField = mock(JCoField.class, "ParameterListTimeField");
-		mockParameterListStringField = mock(JCoField.class, "ParameterListStringField");
-		mockParameterListStructureField = mock(JCoField.class, "ParameterListStructureField");
-		mockParameterListTableField = mock(JCoField.class, "ParameterListTableField");
-		
-		/* Create mock for structure */
+		/* Create mocks for structure and table */
 		mockStructure = mock(JCoStructure.class, "Structure");
-		
-		/* Create mock field iterators for structure and table */
-		mockStructureFieldIterator = mock(JCoFieldIterator.class, "StructureFieldIterator");
-		mockTableFieldIterator = mock(JCoFieldIterator.class, "TableFieldIterator");
-
-		/* Create field mocks for field iterator */
-		mockCharField = mock(JCoField.class, "CharField");
-		mockNumField = mock(JCoField.class, "NumField");
-		mockIntField = mock(JCoField.class, "IntField");
-		mockFloatField = mock(JCoField.class, "FloatField");
-		mockBCDField = mock(JCoField.class, "BCDField");
-		mockBinaryField = mock(JCoField.class, "BinaryField");
-		mockBinaryArrayField = mock(JCoField.class, "BinaryArrayField");
-		mockDateField = mock(JCoField.class, "DateField");
-		mockTimeField = mock(JCoField.class, "TimeField");
-		mockStringField = mock(JCoField.class, "StringField");
-		
 		mockTable = mock(JCoTable.class, "Table");
 		
 		/* Create mocks for parameter list meta data */
@@ -307,106 +244,25 @@ public abstract class SapRfcTestSupport extends JCoTestSupport {
 		when(mockFunctionTemplate.getExportParameterList()).thenReturn(mockExportParameterListMetaData);
 		when(mockFunctionTemplate.getTableParameterList()).thenReturn(mockTableParameterListMetaData);
 
-		/* Enhance request/response mock */
-		when(mockRequest.getFieldIterator()).thenReturn(mockParameterListFieldIterator);
-		when(mockResponse.getFieldIterator()).thenReturn(mockParameterListFieldIterator);
-		
-		/* Enhance parameter list mock */
-		when(mockImportParameterList.getFieldIterator()).thenReturn(mockEmptyParameterListFieldIterator);
-		when(mockChangingParameterList.getFieldIterator()).thenReturn(mockParameterListFieldIterator);
-		when(mockExportParameterList.getFieldIterator()).thenReturn(mockEmptyParameterListFieldIterator);
-		when(mockTableParameterList.getFieldIterator()).thenReturn(mockTableParameterListFieldIterator);
-		
-		/* Enhance field iterator mocks  */
-		when(mockEmptyParameterListFieldIterator.hasNextField()).thenReturn(false );
-		when(mockParameterListFieldIterator.hasNextField()).thenReturn(true, true, true, true, true, true, true, true, true, true, true, false, true, true, true, true, true, true, true, true, true, true, true, false );
-		when(mockParameterListFieldIterator.nextField()).thenReturn(mockParameterListCharField, mockParameterListNumField, mockParameterListIntField, mockParameterListFloatField, mockParameterListBCDField, mockParameterListBinaryField, mockParameterListBinaryArrayField, mockParameterListDateField, mockParameterListTimeField, mockParameterListStringField, mockParameterListStructureField, mockParameterListCharField, mockParameterListNumField, mockParameterListIntField, mockParameterListFloatField, mockParameterListBCDField, mockParameterListBinaryField, mockParameterListBinaryArrayField, mockParameterListDateField, mockParameterListTimeField, mockParameterListStringField, mockParameterListStructureField).thenThrow(new NoSuchElementException());
+		/* Enhance parameter list mocks */
+		when(mockImportParameterList.getMetaData()).thenReturn(mockImportParameterListMetaData);
+		when(mockChangingParameterList.getMetaData()).thenReturn(mockChangingParameterListMetaData);
+		when(mockExportParameterList.getMetaData()).thenReturn(mockExportParameterListMetaData);
+		when(mockTableParameterList.getMetaData()).thenReturn(mockTableParameterListMetaData);
 		
-		when(mockTableParameterListFieldIterator.hasNextField()).thenReturn(true, false, true, false );
-		when(mockTableParameterListFieldIterator.nextField()).thenReturn(mockParameterListTableField, mockParameterListTableField).thenThrow(new NoSuchElementException());
-		
-		when(mockStructureFieldIterator.hasNextField()).thenReturn(true, true, true, true, true, true, true, true, true, true, false, true, true, true, true, true, true, true, true, true, true, false );
-		when(mockStructureFieldIterator.nextField()).thenReturn(mockCharField, mockNumField, mockIntField, mockFloatField, mockBCDField, mockBinaryField, mockBinaryArrayField, mockDateField, mockTimeField, mockStringField, mockCharField, mockNumField, mockIntField, mockFloatField, mockBCDField, mockBinaryField, mockBinaryArrayField, mockDateField, mockTimeField, mockStringField).thenThrow(new NoSuchElementException());
-		
-		when(mockTableFieldIterator.hasNextField()).thenReturn(true, true, true, true, true, true, true, true, true, true, false, true, true, true, true, true, true, true, true, true, true, false );
-		when(mockTableFieldIterator.nextField()).thenReturn(mockCharField, mockNumField, mockIntField, mockFloatField, mockBCDField, mockBinaryField, mockBinaryArrayField, mockDateField, mockTimeField, mockStringField, mockCharField, mockNumField, mockIntField, mockFloatField, mockBCDField, mockBinaryField, mockBinaryArrayField, mockDateField, mockTimeField, mockStringField).thenThrow(new NoSuchElementException());
-		
-		/* Enhance parameter list field mocks */
-		when(mockParameterListCharField.getName()).thenReturn(PARAM_LIST_CHAR_PARAM);
-		when(mockParameterListCharField.getValue()).thenReturn(CHAR_PARAM_OUT_VAL);
-
-		when(mockParameterListNumField.getName()).thenReturn(PARAM_LIST_NUM_PARAM);
-		when(mockParameterListNumField.getValue()).thenReturn(NUM_PARAM_OUT_VAL);
-
-		when(mockParameterListIntField.getName()).thenReturn(PARAM_LIST_INT_PARAM);
-		when(mockParameterListIntField.getValue()).thenReturn(INT_PARAM_OUT_VAL);
-
-		when(mockParameterListFloatField.getName()).thenReturn(PARAM_LIST_FLOAT_PARAM);
-		when(mockParameterListFloatField.getValue()).thenReturn(FLOAT_PARAM_OUT_VAL);
-
-		when(mockParameterListBCDField.getName()).thenReturn(PARAM_LIST_BCD_PARAM);
-		when(mockParameterListBCDField.getValue()).thenReturn(BCD_PARAM_OUT_VAL);
-
-		when(mockParameterListBinaryField.getName()).thenReturn(PARAM_LIST_BINARY_PARAM);
-		when(mockParameterListBinaryField.getValue()).thenReturn(BINARY_PARAM_OUT_VAL);
-
-		when(mockParameterListBinaryArrayField.getName()).thenReturn(PARAM_LIST_BINARY_ARRAY_PARAM);
-		when(mockParameterListBinaryArrayField.getValue()).thenReturn(BINARY_ARRAY_PARAM_OUT_VAL);
-
-		when(mockParameterListDateField.getName()).thenReturn(PARAM_LIST_DATE_PARAM);
-		when(mockParameterListDateField.getValue()).thenReturn(DATE_PARAM_OUT_VAL);
-
-		when(mockParameterListTimeField.getName()).thenReturn(PARAM_LIST_TIME_PARAM);
-		when(mockParameterListTimeField.getValue()).thenReturn(TIME_PARAM_OUT_VAL);
-
-		when(mockParameterListStringField.getName()).thenReturn(PARAM_LIST_STRING_PARAM);
-		when(mockParameterListStringField.getValue()).thenReturn(STRING_PARAM_OUT_VAL);
-
-		when(mockParameterListStructureField.getName()).thenReturn(PARAM_LIST_STRUCTURE_PARAM);
-		when(mockParameterListStructureField.isStructure()).thenReturn(true);
-		when(mockParameterListStructureField.getStructure()).thenReturn(mockStructure);
-
-		when(mockParameterListTableField.getName()).thenReturn(PARAM_LIST_TABLE_PARAM);
-		when(mockParameterListTableField.isTable()).thenReturn(true);
-		when(mockParameterListTableField.getTable()).thenReturn(mockTable);
+		enhanceRecordFields(mockChangingParameterList);
+		when(mockChangingParameterList.getStructure(10)).thenReturn(mockStructure);
 		
-		/* Enhance structure field mocks */
-		when(mockCharField.getName()).thenReturn(CHAR_PARAM);
-		when(mockCharField.getValue()).thenReturn(CHAR_PARAM_OUT_VAL);
-
-		when(mockNumField.getName()).thenReturn(NUM_PARAM);
-		when(mockNumField.getValue()).thenReturn(NUM_PARAM_OUT_VAL);
-
-		when(mockIntField.getName()).thenReturn(INT_PARAM);
-		when(mockIntField.getValue()).thenReturn(INT_PARAM_OUT_VAL);
-
-		when(mockFloatField.getName()).thenReturn(FLOAT_PARAM);
-		when(mockFloatField.getValue()).thenReturn(FLOAT_PARAM_OUT_VAL);
-
-		when(mockBCDField.getName()).thenReturn(BCD_PARAM);
-		when(mockBCDField.getValue()).thenReturn(BCD_PARAM_OUT_VAL);
-
-		when(mockBinaryField.getName()).thenReturn(BINARY_PARAM);
-		when(mockBinaryField.getValue()).thenReturn(BINARY_PARAM_OUT_VAL);
-
-		when(mockBinaryArrayField.getName()).thenReturn(BINARY_ARRAY_PARAM);
-		when(mockBinaryArrayField.getValue()).thenReturn(BINARY_ARRAY_PARAM_OUT_VAL);
-
-		when(mockDateField.getName()).thenReturn(DATE_PARAM);
-		when(mockDateField.getValue()).thenReturn(DATE_PARAM_OUT_VAL);
-
-		when(mockTimeField.getName()).thenReturn(TIME_PARAM);
-		when(mockTimeField.getValue()).thenReturn(TIME_PARAM_OUT_VAL);
-
-		when(mockStringField.getName()).thenReturn(STRING_PARAM);
-		when(mockStringField.getValue()).thenReturn(STRING_PARAM_OUT_VAL);
+		when(mockTableParameterList.getTable(0)).thenReturn(mockTable);
 		
 		/* Enhance structure mock */
-		when(mockStructure.getFieldIterator()).thenReturn(mockStructureFieldIterator);
+		when(mockStructure.getMetaData()).thenReturn(mockStructureMetaData);
+		enhanceRecordFields(mockStructure);
 		
 		/* Enhance table mock */
 		when(mockTable.getNumRows()).thenReturn(1);
-		when(mockTable.getFieldIterator()).thenReturn(mockTableFieldIterator);
+		when(mockTable.getMetaData()).thenReturn(mockStructureMetaData);
+		enhanceRecordFields(mockTable);
 
 		/* Enhance structure meta data mock */
 		when(mockStructureMetaData.getName()).thenReturn(STRUCTURE_TYPE_NAME);
@@ -693,6 +549,74 @@ public abstract class SapRfcTestSupport extends JCoTestSupport {
 		
 	}
 
+	/**
+	 * Stubs the value fields of <code>mockRecord</code> to return the output
+	 * values of the test parameters.
+	 */
+	protected void enhanceRecordFields(JCoRecord mockRecord) {
+		when(mockRecord.getString(0)).thenReturn(CHAR_PARAM_OUT_VAL);
+		when(mockRecord.getString(1)).thenReturn(NUM_PARAM_OUT_VAL);
+		when(mockRecord.getInt(2)).thenReturn(INT_PARAM_OUT_VAL);
+		when(mockRecord.getDouble(3)).thenReturn(FLOAT_PARAM_OUT_VAL);
+		when(mockRecord.getBigDecimal(4)).thenReturn(BCD_PARAM_OUT_VAL);
+		when(mockRecord.getByteArray(5)).thenReturn(BINARY_PARAM_OUT_VAL);
+		when(mockRecord.getByteArray(6)).thenReturn(BINARY_ARRAY_PARAM_OUT_VAL);
+		when(mockRecord.getDate(7)).thenReturn(DATE_PARAM_OUT_VAL);
+		when(mockRecord.getDate(8)).thenReturn(TIME_PARAM_OUT_VAL);
+		when(mockRecord.getString(9)).thenReturn(STRING_PARAM_OUT_VAL);
+	}
+
+	/**
+	 * Verifies the value fields of <code>mockRecord</code> were each read
+	 * once.
+	 */
+	protected void verifyRecordFieldsRead(JCoRecord mockRecord) {
+		verify(mockRecord, times(1)).getString(0);
+		verify(mockRecord, times(1)).getString(1);
+		verify(mockRecord, times(1)).getInt(2);
+		verify(mockRecord, times(1)).getDouble(3);
+		verify(mockRecord, times(1)).getBigDecimal(4);
+		verify(mockRecord, times(1)).getByteArray(5);
+		verify(mockRecord, times(1)).getByteArray(6);
+		verify(mockRecord, times(1)).getDate(7);
+		verify(mockRecord, times(1)).getDate(8);
+		verify(mockRecord, times(1)).getString(9);
+	}
+
+	/**
+	 * Verifies the value fields of <code>mockRecord</code> were each set
+	 * once with the input values of the test parameters.
+	 */
+	protected void verifyRecordFieldsSetToInputValues(JCoRecord mockRecord) {
+		verify(mockRecord, times(1)).setValue(0, CHAR_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(1, NUM_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(2, INT_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(3, FLOAT_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(4, BCD_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(5, BINARY_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(6, BINARY_ARRAY_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(7, DATE_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(8, TIME_PARAM_IN_VAL);
+		verify(mockRecord, times(1)).setValue(9, STRING_PARAM_IN_VAL);
+	}
+
+	/**
+	 * Verifies the value fields of <code>mockRecord</code> were each set
+	 * once with the output values of the test parameters.
+	 */
+	protected void verifyRecordFieldsSetToOutputValues(JCoRecord mockRecord) {
+		verify(mockRecord, times(1)).setValue(0, CHAR_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(1, NUM_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(2, INT_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(3, FLOAT_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(4, BCD_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(5, BINARY_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(6, BINARY_ARRAY_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(7, DATE_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(8, TIME_PARAM_OUT_VAL);
+		verify(mockRecord, times(1)).setValue(9, STRING_PARAM_OUT_VAL);
+	}
+
 	protected Structure createAndPopulateRequest() throws Exception {
 
 		Structure request = RfcUtil.getRequest(mockRepository, FUNCTION_MODULE_NAME);
@@ -101,53 +101,15 @@ public class SapSynchronousRfcConsumerTest extends SapRfcTestSupport {
 		
 		// check access to jco fields
 
-		verify(mockParameterListCharField, times(1)).setValue((Object)CHAR_PARAM_OUT_VAL);
-		verify(mockParameterListCharField, times(1)).getValue();
-		verify(mockParameterListNumField, times(1)).setValue((Object)NUM_PARAM_OUT_VAL);
-		verify(mockParameterListNumField, times(1)).getValue();
-		verify(mockParameterListIntField, times(1)).setValue((Object)INT_PARAM_OUT_VAL);
-		verify(mockParameterListIntField, times(1)).getValue();
-		verify(mockParameterListFloatField, times(1)).setValue((Object)FLOAT_PARAM_OUT_VAL);
-		verify(mockParameterListFloatField, times(1)).getValue();
-		verify(mockParameterListBCDField, times(1)).setValue((Object)BCD_PARAM_OUT_VAL);
-		verify(mockParameterListBCDField, times(1)).getValue();
-		verify(mockParameterListBinaryField, times(1)).setValue((Object)BINARY_PARAM_OUT_VAL);
-		verify(mockParameterListBinaryField, times(1)).getValue();
-		verify(mockParameterListBinaryArrayField, times(1)).setValue((Object)BINARY_ARRAY_PARAM_OUT_VAL);
-		verify(mockParameterListBinaryArrayField, times(1)).getValue();
-		verify(mockParameterListDateField, times(1)).setValue((Object)DATE_PARAM_OUT_VAL);
-		verify(mockParameterListDateField, times(1)).getValue();
-		verify(mockParameterListTimeField, times(1)).setValue((Object)TIME_PARAM_OUT_VAL);
-		verify(mockParameterListTimeField, times(1)).getValue();
-		verify(mockParameterListStringField, times(1)).setValue((Object)STRING_PARAM_OUT_VAL);
-		verify(mockParameterListStringField, times(1)).getValue();
+		verifyRecordFieldsRead(mockChangingParameterList);
+		verifyRecordFieldsSetToOutputValues(mockChangingParameterList);
 		
-		verify(mockCharField, times(2)).setValue((Object)CHAR_PARAM_OUT_VAL);
-		verify(mockCharField, times(2)).getValue();
-		verify(mockNumField, times(2)).setValue((Object)NUM_PARAM_OUT_VAL);
-		verify(mockNumField, times(2)).getValue();
-		verify(mockIntField, times(2)).setValue((Object)INT_PARAM_OUT_VAL);
-		verify(mockIntField, times(2)).getValue();
-		verify(mockFloatField, times(2)).setValue((Object)FLOAT_PARAM_OUT_VAL);
-		verify(mockFloatField, times(2)).getValue();
-		verify(mockBCDField, times(2)).setValue((Object)BCD_PARAM_OUT_VAL);
-		verify(mockBCDField, times(2)).getValue();
-		verify(mockBinaryField, times(2)).setValue((Object)BINARY_PARAM_OUT_VAL);
-		verify(mockBinaryField, times(2)).getValue();
-		verify(mockBinaryArrayField, times(2)).setValue((Object)BINARY_ARRAY_PARAM_OUT_VAL);
-		verify(mockBinaryArrayField, times(2)).getValue();
-		verify(mockDateField, times(2)).setValue((Object)DATE_PARAM_OUT_VAL);
-		verify(mockDateField, times(2)).getValue();
-		verify(mockTimeField, times(2)).setValue((Object)TIME_PARAM_OUT_VAL);
-		verify(mockTimeField, times(2)).getValue();
-		verify(mockStringField, times(2)).setValue((Object)STRING_PARAM_OUT_VAL);
-		verify(mockStringField, times(2)).getValue();
+		verifyRecordFieldsRead(mockStructure);
+		verifyRecordFieldsSetToOutputValues(mockStructure);
 		
-		verify(mockChangingParameterList, times(2)).getFieldIterator();
-		
-		verify(mockStructure, times(2)).getFieldIterator();
-		
-		verify(mockTable, times(2)).getFieldIterator();
+		verifyRecordFieldsRead(mockTable);
+		verify(mockTable, times(1)).appendRows(1);
+		verifyRecordFieldsSetToOutputValues(mockTable);
 
 		// check response
 		Exchange exchange = getMockEndpoint("mock:result").getExchanges().get(0);
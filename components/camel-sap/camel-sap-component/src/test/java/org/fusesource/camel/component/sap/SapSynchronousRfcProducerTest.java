@@ -19,6 +19,7 @@ package org.fusesource.camel.component.sap;
 
 import java.math.BigDecimal;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 
 import org.apache.camel.Exchange;
@@ -87,54 +88,15 @@ public class SapSynchronousRfcProducerTest extends SapRfcTestSupport {
 		
 		// check access to jco fields
 
-		verify(mockParameterListCharField, times(1)).setValue((Object)CHAR_PARAM_IN_VAL);
-		verify(mockParameterListCharField, times(1)).getValue();
-		verify(mockParameterListNumField, times(1)).setValue((Object)NUM_PARAM_IN_VAL);
-		verify(mockParameterListNumField, times(1)).getValue();
-		verify(mockParameterListIntField, times(1)).setValue((Object)INT_PARAM_IN_VAL);
-		verify(mockParameterListIntField, times(1)).getValue();
-		verify(mockParameterListFloatField, times(1)).setValue((Object)FLOAT_PARAM_IN_VAL);
-		verify(mockParameterListFloatField, times(1)).getValue();
-		verify(mockParameterListBCDField, times(1)).setValue((Object)BCD_PARAM_IN_VAL);
-		verify(mockParameterListBCDField, times(1)).getValue();
-		verify(mockParameterListBinaryField, times(1)).setValue((Object)BINARY_PARAM_IN_VAL);
-		verify(mockParameterListBinaryField, times(1)).getValue();
-		verify(mockParameterListBinaryArrayField, times(1)).setValue((Object)BINARY_ARRAY_PARAM_IN_VAL);
-		verify(mockParameterListBinaryArrayField, times(1)).getValue();
-		verify(mockParameterListDateField, times(1)).setValue((Object)DATE_PARAM_IN_VAL);
-		verify(mockParameterListDateField, times(1)).getValue();
-		verify(mockParameterListTimeField, times(1)).setValue((Object)TIME_PARAM_IN_VAL);
-		verify(mockParameterListTimeField, times(1)).getValue();
-		verify(mockParameterListStringField, times(1)).setValue((Object)STRING_PARAM_IN_VAL);
-		verify(mockParameterListStringField, times(1)).getValue();
-		
-		verify(mockCharField, times(2)).setValue((Object)CHAR_PARAM_IN_VAL);
-		verify(mockCharField, times(2)).getValue();
-		verify(mockNumField, times(2)).setValue((Object)NUM_PARAM_IN_VAL);
-		verify(mockNumField, times(2)).getValue();
-		verify(mockIntField, times(2)).setValue((Object)INT_PARAM_IN_VAL);
-		verify(mockIntField, times(2)).getValue();
-		verify(mockFloatField, times(2)).setValue((Object)FLOAT_PARAM_IN_VAL);
-		verify(mockFloatField, times(2)).getValue();
-		verify(mockBCDField, times(2)).setValue((Object)BCD_PARAM_IN_VAL);
-		verify(mockBCDField, times(2)).getValue();
-		verify(mockBinaryField, times(2)).setValue((Object)BINARY_PARAM_IN_VAL);
-		verify(mockBinaryField, times(2)).getValue();
-		verify(mockBinaryArrayField, times(2)).setValue((Object)BINARY_ARRAY_PARAM_IN_VAL);
-		verify(mockBinaryArrayField, times(2)).getValue();
-		verify(mockDateField, times(2)).setValue((Object)DATE_PARAM_IN_VAL);
-		verify(mockDateField, times(2)).getValue();
-		verify(mockTimeField, times(2)).setValue((Object)TIME_PARAM_IN_VAL);
-		verify(mockTimeField, times(2)).getValue();
-		verify(mockStringField, times(2)).setValue((Object)STRING_PARAM_IN_VAL);
-		verify(mockStringField, times(2)).getValue();
-		
-		verify(mockChangingParameterList, times(2)).getFieldIterator();
-		
-		verify(mockStructure, times(2)).getFieldIterator();
-		
-		verify(mockTable, times(1)).appendRow();
-		verify(mockTable, times(2)).getFieldIterator();
+		verifyRecordFieldsSetToInputValues(mockChangingParameterList);
+		verifyRecordFieldsRead(mockChangingParameterList);
+		
+		verifyRecordFieldsSetToInputValues(mockStructure);
+		verifyRecordFieldsRead(mockStructure);
+		
+		verify(mockTable, times(1)).appendRows(1);
+		verifyRecordFieldsSetToInputValues(mockTable);
+		verifyRecordFieldsRead(mockTable);
 
 		verify(mockFunction, times(1)).execute(mockDestination);
 	
@@ -186,12 +148,143 @@ public class SapSynchronousRfcProducerTest extends SapRfcTestSupport {
 
 	}
 
+	@Test
+	public void testProducerWithLazyTables() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		Structure request = createAndPopulateRequest();
+		
+		getMockEndpoint("mock:lazyResult").expectedMessageCount(1);
+		
+		//
+		// When
+		//
+		
+		template.sendBody("direct:lazy", request);
+		
+		//
+		// Then
+		//
+		
+		assertMockEndpointsSatisfied();
+		
+		Exchange exchange = getMockEndpoint("mock:lazyResult").getExchanges().get(0);
+		Structure response = exchange.getIn().getBody(Structure.class);
+		assertThat("The response returned by route is an unexpected null value", response, notNullValue());
+		
+		@SuppressWarnings("unchecked")
+		Table<? extends Structure> table = response.get(PARAM_LIST_TABLE_PARAM, Table.class);
+		assertThat("response.get(PARAM_LIST_TABLE_PARAM) returned unexpected null value", table, notNullValue());
+		assertThat("table.size() returned '" + table.size() + "' instead of expected value of '1'", table.size(), is(1));
+		
+		// rows are read from the JCo table only when accessed
+		verify(mockTable, times(0)).getString(0);
+		
+		Structure tableRow = table.get(0);
+		assertThat("tableRow.get(CHAR_PARAM) returned '" +  tableRow.get(CHAR_PARAM) + "' instead of expected value '" + CHAR_PARAM_OUT_VAL + "'", (String) tableRow.get(CHAR_PARAM), is(CHAR_PARAM_OUT_VAL));
+		assertThat("tableRow.get(STRING_PARAM) returned '" +  tableRow.get(STRING_PARAM) + "' instead of expected value '" + STRING_PARAM_OUT_VAL + "'", (String) tableRow.get(STRING_PARAM), is(STRING_PARAM_OUT_VAL));
+		verifyRecordFieldsRead(mockTable);
+		
+		// accessing the row list copies the rows into the table
+		List<? extends Structure> rows = table.getRows();
+		assertThat("rows.size() returned '" + rows.size() + "' instead of expected value of '1'", rows.size(), is(1));
+		assertThat("rows.get(0) did not return the row already accessed", rows.get(0) == tableRow, is(true));
+	}
+
+	@Test
+	public void testProducerWithStreamTable() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		Structure request = createAndPopulateRequest();
+		
+		getMockEndpoint("mock:streamResult").expectedMessageCount(1);
+		
+		//
+		// When
+		//
+		
+		template.sendBody("direct:stream", request);
+		
+		//
+		// Then
+		//
+		
+		assertMockEndpointsSatisfied();
+		
+		Exchange exchange = getMockEndpoint("mock:streamResult").getExchanges().get(0);
+		Structure response = exchange.getIn().getHeader(SapSynchronousRfcProducer.RESPONSE_HEADER_NAME, Structure.class);
+		assertThat("The response header set by route is an unexpected null value", response, notNullValue());
+		assertThat("response.get(PARAM_LIST_TABLE_PARAM) returned unexpected streamed table", response.get(PARAM_LIST_TABLE_PARAM), is((Object) null));
+		assertThat("response.get(PARAM_LIST_STRING_PARAM) returned '" + response.get(PARAM_LIST_STRING_PARAM) + "' instead of expected value '" + STRING_PARAM_OUT_VAL + "'", (String) response.get(PARAM_LIST_STRING_PARAM), is(STRING_PARAM_OUT_VAL));
+		
+		@SuppressWarnings("unchecked")
+		Iterator<List<Structure>> batches = exchange.getIn().getBody(Iterator.class);
+		assertThat("The body set by route is an unexpected null value", batches, notNullValue());
+		
+		// rows are read from the JCo table only when their batch is requested
+		verify(mockTable, times(0)).getString(0);
+		
+		assertThat("batches.hasNext() returned 'false' instead of expected value 'true'", batches.hasNext(), is(true));
+		List<Structure> batch = batches.next();
+		assertThat("batch.size() returned '" + batch.size() + "' instead of expected value of '1'", batch.size(), is(1));
+		Structure tableRow = batch.get(0);
+		assertThat("tableRow.get(CHAR_PARAM) returned '" +  tableRow.get(CHAR_PARAM) + "' instead of expected value '" + CHAR_PARAM_OUT_VAL + "'", (String) tableRow.get(CHAR_PARAM), is(CHAR_PARAM_OUT_VAL));
+		assertThat("tableRow.get(STRING_PARAM) returned '" +  tableRow.get(STRING_PARAM) + "' instead of expected value '" + STRING_PARAM_OUT_VAL + "'", (String) tableRow.get(STRING_PARAM), is(STRING_PARAM_OUT_VAL));
+		assertThat("batches.hasNext() returned 'true' instead of expected value 'false'", batches.hasNext(), is(false));
+		verifyRecordFieldsRead(mockTable);
+	}
+
+	@Test
+	public void testAsyncProducer() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		Structure request = createAndPopulateRequest();
+		
+		getMockEndpoint("mock:asyncResult").expectedMessageCount(1);
+		
+		//
+		// When
+		//
+		
+		template.sendBody("direct:async", request);
+		
+		//
+		// Then
+		//
+		
+		assertMockEndpointsSatisfied();
+		
+		verify(mockFunction, times(1)).execute(mockDestination);
+	
+		// check response
+		Exchange exchange = getMockEndpoint("mock:asyncResult").getExchanges().get(0);
+		Structure response = exchange.getIn().getBody(Structure.class);
+		assertThat("The response returned by route is an unexpected null value", response, notNullValue());
+		assertThat("response.get(PARAM_LIST_CHAR_PARAM) returned '" +  response.get(PARAM_LIST_CHAR_PARAM) + "' instead of expected value '" + CHAR_PARAM_OUT_VAL + "'", (String) response.get(PARAM_LIST_CHAR_PARAM), is(CHAR_PARAM_OUT_VAL));
+		
+		// call made on executor of destination
+		SapSynchronousRfcDestinationComponent component = context.getComponent("sap-srfc-destination", SapSynchronousRfcDestinationComponent.class);
+		assertThat("No executor created for destination", component.destinationExecutors.containsKey(DESTINATION_NAME), is(true));
+	}
+
 	@Override
 	protected RouteBuilder createRouteBuilder() throws Exception {
 		return new RouteBuilder() {
 			@Override
 			public void configure() throws Exception {
 				from("direct:start").to("sap-srfc-destination:TEST_DEST:TEST_FUNCTION_MODULE").to("mock:result");
+				from("direct:stream").to("sap-srfc-destination:TEST_DEST:TEST_FUNCTION_MODULE?streamTable=" + PARAM_LIST_TABLE_PARAM + "&streamBatchSize=10").to("mock:streamResult");
+				from("direct:lazy").to("sap-srfc-destination:TEST_DEST:TEST_FUNCTION_MODULE?lazyTables=true").to("mock:lazyResult");
+				from("direct:async").to("sap-srfc-destination:TEST_DEST:TEST_FUNCTION_MODULE?async=true").to("mock:asyncResult");
 			}
 		};
 	}
@@ -27,6 +27,7 @@ import org.powermock.core.classloader.annotations.MockPolicy;
 import org.powermock.core.classloader.annotations.PrepareForTest;
 import org.powermock.modules.junit4.PowerMockRunner;
 
+import com.sap.conn.jco.JCoContext;
 import com.sap.conn.jco.JCoDestinationManager;
 import com.sap.conn.jco.ext.Environment;
 
@@ -42,7 +43,7 @@ import static org.mockito.Mockito.when;
  */
 @RunWith(PowerMockRunner.class)
 @MockPolicy({Slf4jMockPolicy.class})
-@PrepareForTest({ JCoDestinationManager.class, Environment.class })
+@PrepareForTest({ JCoDestinationManager.class, Environment.class, JCoContext.class })
 public class SapTransactionalRfcProducerTest extends SapRfcTestSupport {
 	
 	@Override
@@ -51,6 +52,7 @@ public class SapTransactionalRfcProducerTest extends SapRfcTestSupport {
 		
 		PowerMockito.mockStatic(JCoDestinationManager.class);
 		when(JCoDestinationManager.getDestination(DESTINATION_NAME)).thenReturn(mockDestination);
+		PowerMockito.mockStatic(JCoContext.class);
 		
 	}
 	
@@ -75,44 +77,54 @@ public class SapTransactionalRfcProducerTest extends SapRfcTestSupport {
 		
 		// check access to jco fields
 
-		verify(mockParameterListCharField, times(1)).setValue((Object)CHAR_PARAM_IN_VAL);
-		verify(mockParameterListNumField, times(1)).setValue((Object)NUM_PARAM_IN_VAL);
-		verify(mockParameterListIntField, times(1)).setValue((Object)INT_PARAM_IN_VAL);
-		verify(mockParameterListFloatField, times(1)).setValue((Object)FLOAT_PARAM_IN_VAL);
-		verify(mockParameterListBCDField, times(1)).setValue((Object)BCD_PARAM_IN_VAL);
-		verify(mockParameterListBinaryField, times(1)).setValue((Object)BINARY_PARAM_IN_VAL);
-		verify(mockParameterListBinaryArrayField, times(1)).setValue((Object)BINARY_ARRAY_PARAM_IN_VAL);
-		verify(mockParameterListDateField, times(1)).setValue((Object)DATE_PARAM_IN_VAL);
-		verify(mockParameterListTimeField, times(1)).setValue((Object)TIME_PARAM_IN_VAL);
-		verify(mockParameterListStringField, times(1)).setValue((Object)STRING_PARAM_IN_VAL);
-		
-		verify(mockCharField, times(2)).setValue((Object)CHAR_PARAM_IN_VAL);
-		verify(mockNumField, times(2)).setValue((Object)NUM_PARAM_IN_VAL);
-		verify(mockIntField, times(2)).setValue((Object)INT_PARAM_IN_VAL);
-		verify(mockFloatField, times(2)).setValue((Object)FLOAT_PARAM_IN_VAL);
-		verify(mockBCDField, times(2)).setValue((Object)BCD_PARAM_IN_VAL);
-		verify(mockBinaryField, times(2)).setValue((Object)BINARY_PARAM_IN_VAL);
-		verify(mockBinaryArrayField, times(2)).setValue((Object)BINARY_ARRAY_PARAM_IN_VAL);
-		verify(mockDateField, times(2)).setValue((Object)DATE_PARAM_IN_VAL);
-		verify(mockTimeField, times(2)).setValue((Object)TIME_PARAM_IN_VAL);
-		verify(mockStringField, times(2)).setValue((Object)STRING_PARAM_IN_VAL);
-		
-		verify(mockChangingParameterList, times(1)).getFieldIterator();
-		
-		verify(mockStructure, times(1)).getFieldIterator();
-		
-		verify(mockTable, times(1)).appendRow();
-		verify(mockTable, times(1)).getFieldIterator();
-
+		verifyRecordFieldsSetToInputValues(mockChangingParameterList);
+		
+		verifyRecordFieldsSetToInputValues(mockStructure);
+		
+		verify(mockTable, times(1)).appendRows(1);
+		verifyRecordFieldsSetToInputValues(mockTable);
+		
 		verify(mockFunction, times(1)).execute(mockDestination, TEST_TID);
 	}
 
+	@Test
+	public void testProducerWithBatching() throws Exception{ 
+		
+		//
+		// Given
+		//
+		
+		Structure request = createAndPopulateRequest();
+		
+		getMockEndpoint("mock:batchResult").expectedMessageCount(3);
+		
+		//
+		// When
+		//
+		
+		template.asyncSendBody("direct:batch", request);
+		template.asyncSendBody("direct:batch", request);
+		template.asyncSendBody("direct:batch", request);
+		
+		//
+		// Then
+		//
+		
+		assertMockEndpointsSatisfied();
+		
+		// all function calls sent in one transaction
+		verify(mockDestination, times(1)).createTID();
+		verify(mockFunction, times(3)).execute(mockDestination, TEST_TID);
+		verify(mockDestination, times(1)).confirmTID(TEST_TID);
+	}
+
 	@Override
 	protected RouteBuilder createRouteBuilder() throws Exception {
 		return new RouteBuilder() {
 			@Override
 			public void configure() throws Exception {
 				from("direct:start").to("sap-trfc-destination:TEST_DEST:TEST_FUNCTION_MODULE").to("mock:result");
+				from("direct:batch").to("sap-trfc-destination:TEST_DEST:TEST_FUNCTION_MODULE?batchSize=3&batchTimeout=60000").to("mock:batchResult");
 			}
 		};
 	}
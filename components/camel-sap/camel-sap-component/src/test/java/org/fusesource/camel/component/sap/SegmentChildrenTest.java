@@ -0,0 +1,73 @@
+package org.fusesource.camel.component.sap;
+
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.fusesource.camel.component.sap.model.idoc.Document;
+import org.fusesource.camel.component.sap.model.idoc.Segment;
+import org.fusesource.camel.component.sap.model.idoc.SegmentList;
+import org.fusesource.camel.component.sap.model.idoc.impl.SegmentImpl;
+import org.fusesource.camel.component.sap.util.IDocUtil;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.mockpolicies.Slf4jMockPolicy;
+import org.powermock.core.classloader.annotations.MockPolicy;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.sap.conn.jco.JCoDestinationManager;
+import com.sap.conn.jco.ext.Environment;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+@RunWith(PowerMockRunner.class)
+@MockPolicy({Slf4jMockPolicy.class})
+@PrepareForTest({ JCoDestinationManager.class, Environment.class })
+public class SegmentChildrenTest extends SapIDocTestSupport {
+
+	private static final int NUM_SEGMENTS = 2000;
+
+	@Test
+	public void testSegmentListsStayConsistentWithSegmentChildren() throws Exception {
+
+		//
+		// Given
+		//
+
+		Document document = IDocUtil.createDocument(mockIDocRepository, TEST_IDOC_TYPE, TEST_IDOC_TYPE_EXTENSION, TEST_SYSTEM_RELEASE, TEST_APPLICATION_RELEASE);
+		Segment rootSegment = document.getRootSegment();
+
+		//
+		// When
+		//
+
+		SegmentList<Segment> level1Segments = rootSegment.getChildren(LEVEL1);
+		Segment[] added = new Segment[NUM_SEGMENTS];
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			added[i] = level1Segments.add();
+			added[i].put(FIELD0, Integer.toString(i));
+		}
+		Segment first = level1Segments.add(0);
+		Segment removed = level1Segments.remove(NUM_SEGMENTS);
+
+		//
+		// Then
+		//
+
+		assertThat("rootSegment.getChildren(LEVEL1) returned a different segment list", rootSegment.getChildren(LEVEL1), sameInstance((Object) level1Segments));
+		assertThat("level1Segments.size() returned unexpected value", level1Segments.size(), is(NUM_SEGMENTS));
+		assertThat("level1Segments.get(0) returned unexpected segment", level1Segments.get(0), sameInstance(first));
+		assertThat("level1Segments.remove(NUM_SEGMENTS) removed unexpected segment", removed, sameInstance(added[NUM_SEGMENTS - 1]));
+		for (int i = 1; i < NUM_SEGMENTS; i++) {
+			assertThat("level1Segments.get(" + i + ") returned unexpected segment", level1Segments.get(i), sameInstance(added[i - 1]));
+		}
+		assertThat("level1Segments.contains(removed) returned unexpected value", level1Segments.contains(removed), is(false));
+		assertThat("level1Segments.contains(first) returned unexpected value", level1Segments.contains(first), is(true));
+
+		FeatureMap segments = ((SegmentImpl) rootSegment).getSegmentChildren().getSegments();
+		assertThat("segments.size() returned unexpected value", segments.size(), is(NUM_SEGMENTS));
+		for (int i = 0; i < NUM_SEGMENTS; i++) {
+			assertThat("segments.getValue(" + i + ") returned unexpected segment", segments.getValue(i), sameInstance((Object) level1Segments.get(i)));
+		}
+	}
+
+}
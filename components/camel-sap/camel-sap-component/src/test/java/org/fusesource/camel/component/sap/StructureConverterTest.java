@@ -13,6 +13,8 @@ import org.fusesource.camel.component.sap.converter.StructureConverter;
 import org.fusesource.camel.component.sap.model.rfc.Structure;
 import org.fusesource.camel.component.sap.model.rfc.Table;
 import org.fusesource.camel.component.sap.model.rfc.impl.StructureImpl;
+import org.fusesource.camel.component.sap.util.BinaryUtil;
+import org.fusesource.camel.component.sap.util.JsonUtil;
 import org.fusesource.camel.component.sap.util.Util;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -206,6 +208,70 @@ public class StructureConverterTest extends SapRfcTestSupport {
 		verifyStructure(request);
 
 	}
+
+	@Test
+	public void testFromJson() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRfcRegistry.ecore");
+		Util.loadRegistry(file);
+		Structure request = createAndPopulateRequest();
+		
+		//
+		// When
+		//
+		
+		String json = JsonUtil.marshal(request);
+		
+		//
+		// Then
+		//
+
+		assertThat("The JSON representation is not recognized as such", JsonUtil.isJson(json), is(true));
+
+		request = StructureConverter.toStructure(json);
+		verifyStructure(request);
+		
+		request = StructureConverter.toStructure(new ByteArrayInputStream(json.getBytes("UTF-8")));
+		verifyStructure(request);
+
+	}
+
+	@Test
+	public void testToByteArray() throws Exception {
+
+		//
+		// Given
+		//
+		
+		File file = new File("data/testRfcRegistry.ecore");
+		Util.loadRegistry(file);
+		Structure request = createAndPopulateRequest();
+		
+		//
+		// When
+		//
+		
+		byte[] bytes = StructureConverter.toByteArray((StructureImpl)request);
+		
+		//
+		// Then
+		//
+
+		assertThat("The binary encoding is not recognized as such", BinaryUtil.isBinary(bytes), is(true));
+		byte[] xmlBytes = StructureConverter.toString((StructureImpl)request).getBytes("UTF-8");
+		assertThat("The binary encoding of " + bytes.length + " bytes is not smaller than the XML encoding of " + xmlBytes.length + " bytes", bytes.length < xmlBytes.length, is(true));
+
+		request = StructureConverter.toStructure(bytes);
+		verifyStructure(request);
+		
+		request = StructureConverter.toStructure(new ByteArrayInputStream(bytes));
+		verifyStructure(request);
+
+	}
 	
 	public void verifyStructure(Structure request) throws Exception {
 		
@@ -0,0 +1,118 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+
+import org.fusesource.camel.component.sap.model.rfc.TIDState;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class TIDJournalTest {
+
+	private static final String TID1 = "0A1B2C3D4E5F6A7B8C9D0E1F";
+	private static final String TID2 = "1A1B2C3D4E5F6A7B8C9D0E1F";
+
+	private File journalFile;
+
+	@Before
+	public void setUp() throws Exception {
+		journalFile = File.createTempFile("tid", ".journal");
+		journalFile.delete();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		journalFile.delete();
+	}
+
+	@Test
+	public void testRecoverStatesFromJournal() throws Exception {
+		TIDJournal journal = new TIDJournal(journalFile);
+		journal.put(TID1, TIDState.CREATED);
+		journal.put(TID1, TIDState.EXECUTED);
+		journal.put(TID2, TIDState.CREATED);
+		journal.put(TID1, TIDState.COMMITTED);
+		journal.remove(TID2);
+		journal.close();
+
+		assertThat(journalFile.length(), is(5L * TIDJournal.RECORD_SIZE));
+
+		journal = new TIDJournal(journalFile);
+		assertThat(journal.get(TID1), is(TIDState.COMMITTED));
+		assertThat(journal.get(TID2), is(nullValue()));
+		assertThat(journal.size(), is(1));
+		journal.close();
+	}
+
+	@Test
+	public void testRecoverTruncatesIncompleteRecord() throws Exception {
+		TIDJournal journal = new TIDJournal(journalFile);
+		journal.put(TID1, TIDState.CREATED);
+		journal.put(TID2, TIDState.CREATED);
+		journal.close();
+
+		// Simulate a crash while appending the second record.
+		try (RandomAccessFile raf = new RandomAccessFile(journalFile, "rw")) {
+			raf.setLength(2L * TIDJournal.RECORD_SIZE - 3);
+		}
+
+		journal = new TIDJournal(journalFile);
+		assertThat(journal.get(TID1), is(TIDState.CREATED));
+		assertThat(journal.get(TID2), is(nullValue()));
+		assertThat(journalFile.length(), is((long) TIDJournal.RECORD_SIZE));
+
+		journal.put(TID2, TIDState.ROLLED_BACK);
+		journal.close();
+
+		journal = new TIDJournal(journalFile);
+		assertThat(journal.get(TID2), is(TIDState.ROLLED_BACK));
+		journal.close();
+	}
+
+	@Test
+	public void testCompactKeepsOutstandingTransactions() throws Exception {
+		TIDJournal journal = new TIDJournal(journalFile);
+		for (int i = 0; i < 100; i++) {
+			String tid = String.format("%024d", i);
+			journal.put(tid, TIDState.CREATED);
+			journal.put(tid, TIDState.COMMITTED);
+			journal.remove(tid);
+		}
+		journal.put(TID1, TIDState.EXECUTED);
+		journal.compact();
+
+		assertThat(journal.getRecordCount(), is(1L));
+		assertThat(journalFile.length(), is((long) TIDJournal.RECORD_SIZE));
+
+		journal.put(TID2, TIDState.CREATED);
+		journal.close();
+
+		journal = new TIDJournal(journalFile);
+		assertThat(journal.size(), is(2));
+		assertThat(journal.get(TID1), is(TIDState.EXECUTED));
+		assertThat(journal.get(TID2), is(TIDState.CREATED));
+		journal.close();
+	}
+
+}
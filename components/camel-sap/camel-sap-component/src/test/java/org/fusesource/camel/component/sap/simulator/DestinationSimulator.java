@@ -0,0 +1,532 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.simulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.ComponentDestinationDataProvider;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+import org.fusesource.camel.component.sap.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sap.conn.jco.JCoDestination;
+import com.sap.conn.jco.JCoException;
+import com.sap.conn.jco.JCoFunction;
+import com.sap.conn.jco.JCoFunctionTemplate;
+import com.sap.conn.jco.JCoListMetaData;
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoRecordMetaData;
+import com.sap.conn.jco.JCoRepository;
+import com.sap.conn.jco.ext.DestinationDataProvider;
+
+/**
+ * In-process simulation of a SAP destination for load testing routes
+ * without a SAP system.
+ * <p>
+ * The simulated destination serves the function meta-data of a registry
+ * saved with {@link Util#saveRegistry(File)} and answers synchronous calls
+ * with responses saved with {@link Util#save(File, org.eclipse.emf.ecore.EObject)}
+ * (see <code>ITestSaveRfcRepository</code> and <code>ITestSaveRequest</code>),
+ * cycling through the responses added for a function module. Every call
+ * waits for a connection of the destination's pool, is delayed by a latency
+ * drawn from a {@link LatencyDistribution} and fails with the configured
+ * probability.
+ * <p>
+ * The connection pool is configured like that of a real destination through
+ * the <code>jco.destination.peak_limit</code>,
+ * <code>jco.destination.pool_capacity</code> and
+ * <code>jco.destination.max_get_client_time</code> properties served by the
+ * {@link ComponentDestinationDataProvider}, i.e. through the destination data
+ * store of the component configuration. A test hands the simulated
+ * destination to the component by stubbing
+ * <code>JCoDestinationManager.getDestination</code> and, for IDoc routes,
+ * simulates sends by answering <code>JCoIDoc.send</code> with
+ * {@link #call()}.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public class DestinationSimulator {
+
+	private static final Logger LOG = LoggerFactory.getLogger(DestinationSimulator.class);
+
+	public static final long DEFAULT_MAX_GET_TIME = 30000;
+
+	private final String destinationName;
+
+	private String repositoryName;
+
+	private volatile LatencyDistribution latency = LatencyDistribution.NONE;
+
+	private volatile double errorRate;
+
+	private volatile int errorGroup = JCoException.JCO_ERROR_COMMUNICATION;
+
+	private final Map<String, List<Structure>> responses = new ConcurrentHashMap<String, List<Structure>>();
+
+	private final Map<String, AtomicInteger> responseCursors = new ConcurrentHashMap<String, AtomicInteger>();
+
+	private final Map<String, JCoFunctionTemplate> functionTemplates = new ConcurrentHashMap<String, JCoFunctionTemplate>();
+
+	private final Map<EClass, JCoRecordMetaData> recordMetaDataCache = new HashMap<EClass, JCoRecordMetaData>();
+
+	private boolean poolConfigured;
+
+	private int peakLimit;
+
+	private int poolCapacity;
+
+	private long maxGetTime;
+
+	private Semaphore connections;
+
+	private final AtomicLong callCount = new AtomicLong();
+
+	private final AtomicLong errorCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private final AtomicInteger activeCalls = new AtomicInteger();
+
+	private final AtomicInteger peakConcurrency = new AtomicInteger();
+
+	private final JCoRepository repository;
+
+	private final JCoDestination destination;
+
+	public DestinationSimulator(String destinationName) {
+		this.destinationName = destinationName;
+		this.repositoryName = destinationName;
+		this.repository = StandIn.create(JCoRepository.class, new StandIn(destinationName) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getName":
+					return repositoryName;
+				case "getFunctionTemplate":
+					return getFunctionTemplate((String) args[0]);
+				case "getFunction":
+					JCoFunctionTemplate functionTemplate = getFunctionTemplate((String) args[0]);
+					return functionTemplate == null ? null : functionTemplate.getFunction();
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+		this.destination = StandIn.create(JCoDestination.class, new StandIn(destinationName) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getDestinationName":
+				case "getDestinationID":
+					return DestinationSimulator.this.destinationName;
+				case "getRepository":
+					return repository;
+				case "getRepositoryName":
+					return repositoryName;
+				case "getPeakLimit":
+					configurePool();
+					return peakLimit;
+				case "getPoolCapacity":
+					configurePool();
+					return poolCapacity;
+				case "getMaxGetClientTime":
+					configurePool();
+					return maxGetTime;
+				case "isValid":
+					return true;
+				case "createTID":
+					return UUID.randomUUID().toString().replace("-", "").toUpperCase();
+				case "ping":
+				case "confirmTID":
+					return null;
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	/**
+	 * Returns the simulated destination.
+	 */
+	public JCoDestination getDestination() {
+		return destination;
+	}
+
+	public String getDestinationName() {
+		return destinationName;
+	}
+
+	public String getRepositoryName() {
+		return repositoryName;
+	}
+
+	/**
+	 * Sets the name of the repository of the simulated destination; the
+	 * meta-data of function module <code>FM</code> is read from the package
+	 * <code>http://sap.fusesource.org/rfc/{repositoryName}/FM</code>.
+	 * Defaults to the destination name.
+	 */
+	public void setRepositoryName(String repositoryName) {
+		this.repositoryName = repositoryName;
+	}
+
+	public LatencyDistribution getLatency() {
+		return latency;
+	}
+
+	public void setLatency(LatencyDistribution latency) {
+		this.latency = latency == null ? LatencyDistribution.NONE : latency;
+	}
+
+	public double getErrorRate() {
+		return errorRate;
+	}
+
+	/**
+	 * Sets the probability, between 0 and 1, that a call fails with a
+	 * {@link JCoException}.
+	 */
+	public void setErrorRate(double errorRate) {
+		if (errorRate < 0 || errorRate > 1) {
+			throw new IllegalArgumentException("Error rate " + errorRate + " is not between 0 and 1");
+		}
+		this.errorRate = errorRate;
+	}
+
+	public int getErrorGroup() {
+		return errorGroup;
+	}
+
+	/**
+	 * Sets the group of the {@link JCoException}s thrown by failing calls.
+	 * Defaults to {@link JCoException#JCO_ERROR_COMMUNICATION}.
+	 */
+	public void setErrorGroup(int errorGroup) {
+		this.errorGroup = errorGroup;
+	}
+
+	/**
+	 * Loads the function meta-data of a registry saved with
+	 * {@link Util#saveRegistry(File)}.
+	 */
+	public void loadRegistry(File file) throws IOException {
+		Util.loadRegistry(file);
+		functionTemplates.clear();
+	}
+
+	/**
+	 * Adds <code>response</code> to the responses returned by calls of
+	 * <code>functionName</code>; calls cycle through the responses added.
+	 */
+	public void addResponse(String functionName, Structure response) {
+		List<Structure> functionResponses = responses.get(functionName);
+		if (functionResponses == null) {
+			functionResponses = new CopyOnWriteArrayList<Structure>();
+			responses.put(functionName, functionResponses);
+			responseCursors.put(functionName, new AtomicInteger());
+		}
+		functionResponses.add(response);
+	}
+
+	/**
+	 * Adds the response saved in <code>file</code> with
+	 * {@link Util#save(File, org.eclipse.emf.ecore.EObject)} to the responses
+	 * returned by calls of <code>functionName</code>.
+	 */
+	public void loadResponse(String functionName, File file) throws IOException {
+		addResponse(functionName, (Structure) Util.load(file));
+	}
+
+	/**
+	 * Simulates the round trip of a call: waits for a connection of the pool,
+	 * for the call's latency and fails the call with the configured error
+	 * rate.
+	 * 
+	 * @throws JCoException
+	 *             if no connection became available in time or the call
+	 *             failed.
+	 */
+	public void call() throws JCoException {
+		Semaphore pool = getConnections();
+		if (pool != null) {
+			boolean acquired;
+			try {
+				acquired = pool.tryAcquire(maxGetTime, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new JCoException(JCoException.JCO_ERROR_RESOURCE, "JCO_ERROR_RESOURCE", "Interrupted while waiting for a connection of destination '" + destinationName + "'");
+			}
+			if (!acquired) {
+				rejectedCount.incrementAndGet();
+				throw new JCoException(JCoException.JCO_ERROR_RESOURCE, "JCO_ERROR_RESOURCE", "Connection pool of destination '" + destinationName + "' exhausted: no connection available within " + maxGetTime + " ms");
+			}
+		}
+
+		int active = activeCalls.incrementAndGet();
+		try {
+			int peak;
+			while (active > (peak = peakConcurrency.get()) && !peakConcurrency.compareAndSet(peak, active)) {
+				// retry
+			}
+			callCount.incrementAndGet();
+
+			ThreadLocalRandom random = ThreadLocalRandom.current();
+			long delay = latency.nextLatency(random);
+			if (delay > 0) {
+				try {
+					Thread.sleep(delay);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+
+			if (errorRate > 0 && random.nextDouble() < errorRate) {
+				errorCount.incrementAndGet();
+				throw new JCoException(errorGroup, "SIMULATED_ERROR", "Simulated failure of call to destination '" + destinationName + "'");
+			}
+		} finally {
+			activeCalls.decrementAndGet();
+			if (pool != null) {
+				pool.release();
+			}
+		}
+	}
+
+	public long getCallCount() {
+		return callCount.get();
+	}
+
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	/**
+	 * Returns the number of calls that failed waiting for a connection.
+	 */
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Returns the highest number of calls in progress at the same time.
+	 */
+	public int getPeakConcurrency() {
+		return peakConcurrency.get();
+	}
+
+	/**
+	 * Resets the call statistics.
+	 */
+	public void resetStatistics() {
+		callCount.set(0);
+		errorCount.set(0);
+		rejectedCount.set(0);
+		peakConcurrency.set(0);
+	}
+
+	private synchronized void configurePool() {
+		if (poolConfigured) {
+			return;
+		}
+		Properties properties = ComponentDestinationDataProvider.INSTANCE.getDestinationProperties(destinationName);
+		if (properties == null) {
+			properties = new Properties();
+		}
+		peakLimit = parseInt(properties.getProperty(DestinationDataProvider.JCO_PEAK_LIMIT), 0);
+		poolCapacity = parseInt(properties.getProperty(DestinationDataProvider.JCO_POOL_CAPACITY), 1);
+		maxGetTime = parseInt(properties.getProperty(DestinationDataProvider.JCO_MAX_GET_TIME), (int) DEFAULT_MAX_GET_TIME);
+		connections = peakLimit > 0 ? new Semaphore(peakLimit, true) : null;
+		poolConfigured = true;
+		LOG.debug("Simulating destination '" + destinationName + "' with peak limit " + peakLimit + ", pool capacity " + poolCapacity
+				+ " and maximum get time " + maxGetTime + " ms");
+	}
+
+	private synchronized Semaphore getConnections() {
+		configurePool();
+		return connections;
+	}
+
+	private static int parseInt(String value, int defaultValue) {
+		if (value == null || value.trim().length() == 0) {
+			return defaultValue;
+		}
+		return Integer.parseInt(value.trim());
+	}
+
+	private JCoFunctionTemplate getFunctionTemplate(String functionName) {
+		JCoFunctionTemplate functionTemplate = functionTemplates.get(functionName);
+		if (functionTemplate == null) {
+			functionTemplate = createFunctionTemplate(functionName);
+			if (functionTemplate != null) {
+				functionTemplates.put(functionName, functionTemplate);
+			}
+		}
+		return functionTemplate;
+	}
+
+	/**
+	 * Creates the template of <code>functionName</code> from the request and
+	 * response classes of its saved package. Table parameters form the table
+	 * parameter list, changing parameters the changing parameter list and the
+	 * remaining parameters of the request and the response the import and
+	 * export parameter lists.
+	 */
+	private JCoFunctionTemplate createFunctionTemplate(final String functionName) {
+		EPackage ePackage = Util.registry.getEPackage(RfcPackage.eNS_URI + "/" + repositoryName + "/" + functionName);
+		if (ePackage == null) {
+			LOG.warn("Simulated destination '" + destinationName + "' has no meta-data for function module '" + functionName + "'");
+			return null;
+		}
+		EClassifier requestClass = ePackage.getEClassifier("Request");
+		EClassifier responseClass = ePackage.getEClassifier("Response");
+
+		Map<String, EStructuralFeature> importParameters = new LinkedHashMap<String, EStructuralFeature>();
+		Map<String, EStructuralFeature> changingParameters = new LinkedHashMap<String, EStructuralFeature>();
+		Map<String, EStructuralFeature> tableParameters = new LinkedHashMap<String, EStructuralFeature>();
+		Map<String, EStructuralFeature> exportParameters = new LinkedHashMap<String, EStructuralFeature>();
+		if (requestClass instanceof EClass) {
+			partition(((EClass) requestClass).getEStructuralFeatures(), importParameters, changingParameters, tableParameters);
+		}
+		if (responseClass instanceof EClass) {
+			partition(((EClass) responseClass).getEStructuralFeatures(), exportParameters, changingParameters, tableParameters);
+		}
+
+		final JCoListMetaData importList = createListMetaData("IMPORT", importParameters);
+		final JCoListMetaData changingList = createListMetaData("CHANGING", changingParameters);
+		final JCoListMetaData tableList = createListMetaData("TABLES", tableParameters);
+		final JCoListMetaData exportList = createListMetaData("EXPORT", exportParameters);
+
+		return StandIn.create(JCoFunctionTemplate.class, new StandIn(functionName) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) {
+				switch (methodName) {
+				case "getName":
+					return functionName;
+				case "getImportParameterList":
+					return importList;
+				case "getChangingParameterList":
+					return changingList;
+				case "getTableParameterList":
+					return tableList;
+				case "getExportParameterList":
+					return exportList;
+				case "getFunction":
+					return createFunction(functionName, importList, changingList, tableList, exportList);
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+	}
+
+	private JCoFunction createFunction(final String functionName, JCoListMetaData importList, JCoListMetaData changingList, JCoListMetaData tableList,
+			JCoListMetaData exportList) {
+		final JCoFunction[] function = new JCoFunction[1];
+		final Object importParameterList = SimulatedRecord.createParameterList(importList);
+		final Object changingParameterList = SimulatedRecord.createParameterList(changingList);
+		final Object tableParameterList = SimulatedRecord.createParameterList(tableList);
+		final Object exportParameterList = SimulatedRecord.createParameterList(exportList);
+		function[0] = StandIn.create(JCoFunction.class, new StandIn(functionName) {
+			@Override
+			protected Object invoke(String methodName, Object[] args) throws JCoException {
+				switch (methodName) {
+				case "getName":
+					return functionName;
+				case "getImportParameterList":
+					return importParameterList;
+				case "getChangingParameterList":
+					return changingParameterList;
+				case "getTableParameterList":
+					return tableParameterList;
+				case "getExportParameterList":
+					return exportParameterList;
+				case "execute":
+					call();
+					if (args.length == 1) {
+						// Synchronous call: return the next response.
+						Structure response = nextResponse(functionName);
+						if (response != null) {
+							RfcUtil.fillJCoParameterListsFromResponse(response, function[0]);
+						}
+					}
+					return null;
+				default:
+					return UNHANDLED;
+				}
+			}
+		});
+		return function[0];
+	}
+
+	private Structure nextResponse(String functionName) {
+		List<Structure> functionResponses = responses.get(functionName);
+		if (functionResponses == null || functionResponses.isEmpty()) {
+			return null;
+		}
+		int cursor = responseCursors.get(functionName).getAndIncrement();
+		return functionResponses.get((cursor & Integer.MAX_VALUE) % functionResponses.size());
+	}
+
+	private JCoListMetaData createListMetaData(String name, Map<String, EStructuralFeature> parameters) {
+		if (parameters.isEmpty()) {
+			return null;
+		}
+		return SimulatedMetaData.createListMetaData(name, new ArrayList<EStructuralFeature>(parameters.values()), recordMetaDataCache);
+	}
+
+	private static void partition(List<EStructuralFeature> features, Map<String, EStructuralFeature> ownParameters,
+			Map<String, EStructuralFeature> changingParameters, Map<String, EStructuralFeature> tableParameters) {
+		for (EStructuralFeature feature : features) {
+			String type = SimulatedMetaData.getAnnotation(feature, RfcUtil.RfcNS_TYPE_KEY);
+			if (type == null) {
+				continue;
+			}
+			if (Integer.parseInt(type) == JCoMetaData.TYPE_TABLE) {
+				tableParameters.put(feature.getName(), feature);
+			} else if (Boolean.parseBoolean(SimulatedMetaData.getAnnotation(feature, RfcUtil.RfcNS_IS_CHANGING_KEY))) {
+				changingParameters.put(feature.getName(), feature);
+			} else {
+				ownParameters.put(feature.getName(), feature);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.simulator;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.fusesource.camel.component.sap.model.rfc.DestinationData;
+import org.fusesource.camel.component.sap.model.rfc.DestinationDataStore;
+import org.fusesource.camel.component.sap.model.rfc.RfcFactory;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.util.ComponentDestinationDataProvider;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.api.mockito.mockpolicies.Slf4jMockPolicy;
+import org.powermock.core.classloader.annotations.MockPolicy;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import com.sap.conn.jco.JCoException;
+import com.sap.conn.jco.ext.DestinationDataEventListener;
+import com.sap.conn.jco.ext.Environment;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Destination simulator test cases.
+ * 
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+@RunWith(PowerMockRunner.class)
+@MockPolicy({Slf4jMockPolicy.class})
+@PrepareForTest({ Environment.class })
+public class DestinationSimulatorTest {
+
+	private static final String DESTINATION_NAME = "TEST_DEST";
+	private static final String REPOSITORY_NAME = "TEST_REPOSITORY";
+	private static final String FUNCTION_MODULE_NAME = "TEST_FUNCTION_MODULE";
+	private static final String CHAR_PARAM = "PARAM_LIST_CHAR_PARAM";
+	private static final String CHAR_PARAM_OUT_VAL = "ZYXWVUTSRQ";
+
+	private DestinationDataStore destinationDataStore;
+
+	private DestinationSimulator simulator;
+
+	@Before
+	public void setUp() throws Exception {
+		PowerMockito.mockStatic(Environment.class);
+		ComponentDestinationDataProvider.INSTANCE.setDestinationDataEventListener(mock(DestinationDataEventListener.class));
+
+		destinationDataStore = RfcFactory.eINSTANCE.createDestinationDataStore();
+		DestinationData destinationData = RfcFactory.eINSTANCE.createDestinationData();
+		destinationData.setPeakLimit("1");
+		destinationData.setPoolCapacity("1");
+		destinationData.setMaxGetTime("100");
+		destinationDataStore.getEntries().put(DESTINATION_NAME, destinationData);
+		ComponentDestinationDataProvider.INSTANCE.addDestinationDataStore(destinationDataStore);
+
+		simulator = new DestinationSimulator(DESTINATION_NAME);
+		simulator.setRepositoryName(REPOSITORY_NAME);
+		simulator.loadRegistry(new File("data/testRfcRegistry.ecore"));
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		ComponentDestinationDataProvider.INSTANCE.removeDestinationDataStore(destinationDataStore);
+	}
+
+	@Test
+	public void testCannedResponse() throws Exception {
+
+		//
+		// Given
+		//
+
+		Structure response = RfcUtil.getResponse(REPOSITORY_NAME, FUNCTION_MODULE_NAME);
+		response.put(CHAR_PARAM, CHAR_PARAM_OUT_VAL);
+		simulator.addResponse(FUNCTION_MODULE_NAME, response);
+
+		Structure request = RfcUtil.getRequest(REPOSITORY_NAME, FUNCTION_MODULE_NAME);
+
+		//
+		// When
+		//
+
+		Structure result = RfcUtil.executeFunction(simulator.getDestination(), FUNCTION_MODULE_NAME, request);
+
+		//
+		// Then
+		//
+
+		assertThat("The response returned by the simulator is an unexpected null value", result, notNullValue());
+		assertThat("result.get(PARAM_LIST_CHAR_PARAM) returned '" + result.get(CHAR_PARAM) + "' instead of expected value '" + CHAR_PARAM_OUT_VAL + "'",
+				(String) result.get(CHAR_PARAM), is(CHAR_PARAM_OUT_VAL));
+		assertThat("simulator.getCallCount() returned an unexpected value", simulator.getCallCount(), is(1L));
+		assertThat("simulator.getDestination().getPeakLimit() returned an unexpected value", simulator.getDestination().getPeakLimit(), is(1));
+	}
+
+	@Test
+	public void testErrorInjection() throws Exception {
+
+		//
+		// Given
+		//
+
+		simulator.setErrorRate(1.0);
+		Structure request = RfcUtil.getRequest(REPOSITORY_NAME, FUNCTION_MODULE_NAME);
+
+		//
+		// When
+		//
+
+		try {
+			RfcUtil.executeFunction(simulator.getDestination(), FUNCTION_MODULE_NAME, request);
+			fail("Simulated call did not fail");
+		} catch (JCoException e) {
+
+			//
+			// Then
+			//
+
+			assertThat("e.getGroup() returned an unexpected value", e.getGroup(), is(JCoException.JCO_ERROR_COMMUNICATION));
+		}
+		assertThat("simulator.getErrorCount() returned an unexpected value", simulator.getErrorCount(), is(1L));
+	}
+
+	@Test
+	public void testPoolExhausted() throws Exception {
+
+		//
+		// Given
+		//
+
+		simulator.setLatency(LatencyDistribution.constant(1000));
+		final CountDownLatch started = new CountDownLatch(1);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		executor.submit(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					simulator.call();
+				} catch (JCoException e) {
+					// ignore
+				}
+			}
+		});
+		started.await();
+		while (simulator.getCallCount() == 0) {
+			Thread.sleep(10);
+		}
+
+		//
+		// When
+		//
+
+		try {
+			simulator.call();
+			fail("Call was not rejected by exhausted connection pool");
+		} catch (JCoException e) {
+
+			//
+			// Then
+			//
+
+			assertThat("e.getGroup() returned an unexpected value", e.getGroup(), is(JCoException.JCO_ERROR_RESOURCE));
+		} finally {
+			executor.shutdown();
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		assertThat("simulator.getRejectedCount() returned an unexpected value", simulator.getRejectedCount(), is(1L));
+	}
+
+}
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.simulator;
+
+import java.util.Random;
+
+/**
+ * Distribution of the latency of calls served by a
+ * {@link DestinationSimulator}.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public abstract class LatencyDistribution {
+
+	/**
+	 * No latency.
+	 */
+	public static final LatencyDistribution NONE = constant(0);
+
+	/**
+	 * Returns the next latency in milliseconds.
+	 * 
+	 * @param random
+	 *            - the source of randomness.
+	 * @return The latency; never negative.
+	 */
+	public abstract long nextLatency(Random random);
+
+	/**
+	 * Every call takes <code>latency</code> milliseconds.
+	 */
+	public static LatencyDistribution constant(final long latency) {
+		checkNotNegative(latency);
+		return new LatencyDistribution() {
+			@Override
+			public long nextLatency(Random random) {
+				return latency;
+			}
+
+			@Override
+			public String toString() {
+				return "constant(" + latency + ")";
+			}
+		};
+	}
+
+	/**
+	 * Calls take between <code>min</code> and <code>max</code> milliseconds
+	 * with equal probability.
+	 */
+	public static LatencyDistribution uniform(final long min, final long max) {
+		checkNotNegative(min);
+		if (max < min) {
+			throw new IllegalArgumentException("Maximum latency " + max + " is less than minimum latency " + min);
+		}
+		return new LatencyDistribution() {
+			@Override
+			public long nextLatency(Random random) {
+				return min + (long) (random.nextDouble() * (max - min + 1));
+			}
+
+			@Override
+			public String toString() {
+				return "uniform(" + min + ", " + max + ")";
+			}
+		};
+	}
+
+	/**
+	 * Calls take <code>mean</code> milliseconds on average, most calls being
+	 * fast with a long tail of slow ones.
+	 */
+	public static LatencyDistribution exponential(final long mean) {
+		checkNotNegative(mean);
+		return new LatencyDistribution() {
+			@Override
+			public long nextLatency(Random random) {
+				return Math.round(-mean * Math.log(1.0 - random.nextDouble()));
+			}
+
+			@Override
+			public String toString() {
+				return "exponential(" + mean + ")";
+			}
+		};
+	}
+
+	/**
+	 * Half of the calls take less than <code>median</code> milliseconds; the
+	 * tail grows heavier with <code>sigma</code>. Remote function call
+	 * latencies usually follow this distribution closely.
+	 */
+	public static LatencyDistribution logNormal(final long median, final double sigma) {
+		checkNotNegative(median);
+		if (sigma < 0) {
+			throw new IllegalArgumentException("Sigma " + sigma + " is negative");
+		}
+		return new LatencyDistribution() {
+			@Override
+			public long nextLatency(Random random) {
+				return Math.round(median * Math.exp(sigma * random.nextGaussian()));
+			}
+
+			@Override
+			public String toString() {
+				return "logNormal(" + median + ", " + sigma + ")";
+			}
+		};
+	}
+
+	private static void checkNotNegative(long latency) {
+		if (latency < 0) {
+			throw new IllegalArgumentException("Latency " + latency + " is negative");
+		}
+	}
+
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.simulator;
+
+import static org.fusesource.camel.component.sap.model.rfc.RfcPackage.eNS_URI;
+
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EModelElement;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.fusesource.camel.component.sap.util.RfcUtil;
+import org.fusesource.camel.component.sap.util.Util;
+
+import com.sap.conn.jco.JCoListMetaData;
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoRecordMetaData;
+
+/**
+ * Stand-in for {@link JCoListMetaData} and {@link JCoRecordMetaData}
+ * reconstructed from the annotations of the structural features of a saved
+ * RFC package.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+class SimulatedMetaData extends StandIn {
+
+	private final String name;
+
+	private final EStructuralFeature[] features;
+
+	private final JCoRecordMetaData[] recordMetaData;
+
+	private final EModelElement recordElement;
+
+	private SimulatedMetaData(String name, List<EStructuralFeature> features, EModelElement recordElement, Map<EClass, JCoRecordMetaData> recordMetaDataCache) {
+		super(name);
+		this.name = name;
+		this.features = features.toArray(new EStructuralFeature[features.size()]);
+		this.recordElement = recordElement;
+		this.recordMetaData = new JCoRecordMetaData[this.features.length];
+		for (int i = 0; i < this.features.length; i++) {
+			EClass rowClass = getRowClass(this.features[i]);
+			if (rowClass != null) {
+				recordMetaData[i] = createRecordMetaData(rowClass, recordMetaDataCache);
+			}
+		}
+	}
+
+	/**
+	 * Creates the meta-data of a parameter list holding <code>features</code>.
+	 */
+	static JCoListMetaData createListMetaData(String name, List<EStructuralFeature> features, Map<EClass, JCoRecordMetaData> recordMetaDataCache) {
+		return StandIn.create(JCoListMetaData.class, new SimulatedMetaData(name, features, null, recordMetaDataCache));
+	}
+
+	/**
+	 * Creates the meta-data of the records described by
+	 * <code>structureClass</code>; meta-data is shared through
+	 * <code>recordMetaDataCache</code>.
+	 */
+	static JCoRecordMetaData createRecordMetaData(EClass structureClass, Map<EClass, JCoRecordMetaData> recordMetaDataCache) {
+		synchronized (recordMetaDataCache) {
+			JCoRecordMetaData metaData = recordMetaDataCache.get(structureClass);
+			if (metaData == null) {
+				metaData = StandIn.create(JCoRecordMetaData.class, new SimulatedMetaData(structureClass.getName(),
+						structureClass.getEStructuralFeatures(), structureClass, recordMetaDataCache));
+				recordMetaDataCache.put(structureClass, metaData);
+			}
+			return metaData;
+		}
+	}
+
+	/**
+	 * Returns the class of the structure or of the rows of the table held by
+	 * <code>feature</code> or <code>null</code> if <code>feature</code> holds
+	 * a scalar value.
+	 */
+	static EClass getRowClass(EStructuralFeature feature) {
+		if (!(feature instanceof EReference)) {
+			return null;
+		}
+		EClass referenceType = ((EReference) feature).getEReferenceType();
+		if (getInt(feature, RfcUtil.RfcNS_TYPE_KEY) == JCoMetaData.TYPE_TABLE) {
+			EStructuralFeature rowFeature = referenceType.getEStructuralFeature(RfcUtil.ROW);
+			return rowFeature instanceof EReference ? ((EReference) rowFeature).getEReferenceType() : null;
+		}
+		return referenceType;
+	}
+
+	static String getAnnotation(EModelElement element, String key) {
+		return Util.getAnnotation(element, eNS_URI, key);
+	}
+
+	@Override
+	protected Object invoke(String methodName, Object[] args) {
+		if (args.length == 0) {
+			switch (methodName) {
+			case "getName":
+				return name;
+			case "getFieldCount":
+				return features.length;
+			case "getRecordLength":
+				return getInt(recordElement, RfcUtil.RfcNS_RECORD_LENGTH_KEY);
+			case "getUnicodeRecordLength":
+				return getInt(recordElement, RfcUtil.RfcNS_UNICODE_RECORD_LENGTH_KEY);
+			case "isNestedType1Structure":
+				return getBoolean(recordElement, RfcUtil.RfcNS_IS_NESTED_TYPE1_STRUCTURE_KEY);
+			case "isLocked":
+				return true;
+			default:
+				return UNHANDLED;
+			}
+		}
+		if (args[0] instanceof String) {
+			switch (methodName) {
+			case "indexOf":
+				return indexOf((String) args[0]);
+			case "hasField":
+				return indexOf((String) args[0]) >= 0;
+			default:
+				if (args.length == 1 && indexOf((String) args[0]) >= 0) {
+					return invoke(methodName, new Object[] { indexOf((String) args[0]) });
+				}
+				return UNHANDLED;
+			}
+		}
+		if (args.length != 1 || !(args[0] instanceof Integer)) {
+			return UNHANDLED;
+		}
+
+		int index = (Integer) args[0];
+		EStructuralFeature feature = features[index];
+		switch (methodName) {
+		case "getName":
+			return feature.getName();
+		case "getRecordMetaData":
+			return recordMetaData[index];
+		case "getDescription":
+			return getAnnotation(feature, RfcUtil.RfcNS_DESCRIPTION_KEY);
+		case "getTypeAsString":
+			return getAnnotation(feature, RfcUtil.RfcNS_TYPE_AS_STRING_KEY);
+		case "getClassNameOfField":
+			return getAnnotation(feature, RfcUtil.RfcNS_CLASS_NAME_OF_FIELD_KEY);
+		case "getRecordTypeName":
+			return getAnnotation(feature, RfcUtil.RfcNS_RECORD_TYPE_NAME_KEY);
+		case "getDefault":
+			return getAnnotation(feature, RfcUtil.RfcNS_DEFAULT_KEY);
+		case "getRecordFieldName":
+			return getAnnotation(feature, RfcUtil.RfcNS_RECORD_FIELD_NAME_KEY);
+		case "getType":
+			return getInt(feature, RfcUtil.RfcNS_TYPE_KEY);
+		case "getLength":
+			return getInt(feature, RfcUtil.RfcNS_LENGTH_KEY);
+		case "getByteLength":
+			return getInt(feature, RfcUtil.RfcNS_BYTE_LENGTH_KEY);
+		case "getByteOffset":
+			return getInt(feature, RfcUtil.RfcNS_BYTE_OFFSET_KEY);
+		case "getUnicodeByteLength":
+			return getInt(feature, RfcUtil.RfcNS_UNICODE_BYTE_LENGTH_KEY);
+		case "getUnicodeByteOffset":
+			return getInt(feature, RfcUtil.RfcNS_UNICODE_BYTE_OFFSET_KEY);
+		case "getDecimals":
+			return getInt(feature, RfcUtil.RfcNS_DECIMALS_KEY);
+		case "isAbapObject":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_ABAP_OBJECT_KEY);
+		case "isNestedType1Structure":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_NESTED_TYPE1_STRUCTURE_KEY);
+		case "isStructure":
+			return getInt(feature, RfcUtil.RfcNS_TYPE_KEY) == JCoMetaData.TYPE_STRUCTURE;
+		case "isTable":
+			return getInt(feature, RfcUtil.RfcNS_TYPE_KEY) == JCoMetaData.TYPE_TABLE;
+		case "isImport":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_IMPORT_KEY);
+		case "isExport":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_EXPORT_KEY);
+		case "isChanging":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_CHANGING_KEY);
+		case "isException":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_EXCEPTION_KEY);
+		case "isOptional":
+			return getBoolean(feature, RfcUtil.RfcNS_IS_OPTIONAL_KEY);
+		default:
+			return UNHANDLED;
+		}
+	}
+
+	private int indexOf(String fieldName) {
+		for (int i = 0; i < features.length; i++) {
+			if (features[i].getName().equals(fieldName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int getInt(EModelElement element, String key) {
+		String value = element == null ? null : getAnnotation(element, key);
+		return value == null ? 0 : Integer.parseInt(value);
+	}
+
+	private static boolean getBoolean(EModelElement element, String key) {
+		return element != null && Boolean.parseBoolean(getAnnotation(element, key));
+	}
+
+}
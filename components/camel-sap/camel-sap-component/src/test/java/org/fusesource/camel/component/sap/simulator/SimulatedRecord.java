@@ -0,0 +1,182 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.simulator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sap.conn.jco.JCoListMetaData;
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoParameterList;
+import com.sap.conn.jco.JCoRecordMetaData;
+import com.sap.conn.jco.JCoStructure;
+import com.sap.conn.jco.JCoTable;
+
+/**
+ * Stand-in for {@link JCoParameterList}, {@link JCoStructure} and
+ * {@link JCoTable}. Holds the field values of each row in an array; nested
+ * structures and tables are created when first accessed.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+class SimulatedRecord extends StandIn {
+
+	private final JCoMetaData metaData;
+
+	private final int fieldCount;
+
+	private final boolean table;
+
+	private final List<Object[]> rows = new ArrayList<Object[]>();
+
+	private int row;
+
+	private SimulatedRecord(JCoMetaData metaData, boolean table) {
+		super(metaData.getName());
+		this.metaData = metaData;
+		this.fieldCount = metaData.getFieldCount();
+		this.table = table;
+		if (!table) {
+			rows.add(new Object[fieldCount]);
+		}
+	}
+
+	static JCoParameterList createParameterList(JCoListMetaData metaData) {
+		if (metaData == null || metaData.getFieldCount() == 0) {
+			return null;
+		}
+		return StandIn.create(JCoParameterList.class, new SimulatedRecord(metaData, false));
+	}
+
+	static JCoStructure createStructure(JCoRecordMetaData metaData) {
+		return StandIn.create(JCoStructure.class, new SimulatedRecord(metaData, false));
+	}
+
+	static JCoTable createTable(JCoRecordMetaData metaData) {
+		return StandIn.create(JCoTable.class, new SimulatedRecord(metaData, true));
+	}
+
+	@Override
+	protected Object invoke(String methodName, Object[] args) {
+		switch (methodName) {
+		case "getMetaData":
+		case "getRecordMetaData":
+		case "getListMetaData":
+			return metaData;
+		case "getFieldCount":
+		case "getNumColumns":
+			return fieldCount;
+		case "getNumRows":
+			return rows.size();
+		case "isEmpty":
+			return rows.isEmpty();
+		case "getRow":
+			return row;
+		case "setRow":
+			row = (Integer) args[0];
+			return null;
+		case "firstRow":
+			row = 0;
+			return null;
+		case "lastRow":
+			row = rows.size() - 1;
+			return null;
+		case "nextRow":
+			if (row + 1 < rows.size()) {
+				row++;
+				return true;
+			}
+			return false;
+		case "appendRow":
+			rows.add(new Object[fieldCount]);
+			row = rows.size() - 1;
+			return null;
+		case "appendRows":
+			for (int i = 0; i < (Integer) args[0]; i++) {
+				rows.add(new Object[fieldCount]);
+			}
+			row = rows.size() - 1;
+			return null;
+		case "clear":
+		case "deleteAllRows":
+			if (table) {
+				rows.clear();
+			} else {
+				rows.set(0, new Object[fieldCount]);
+			}
+			row = 0;
+			return null;
+		case "setValue":
+			if (args.length == 2) {
+				rows.get(row)[index(args[0])] = args[1];
+				return null;
+			}
+			return UNHANDLED;
+		case "getStructure":
+		case "getTable":
+			if (args.length == 1) {
+				return getNested(index(args[0]));
+			}
+			return UNHANDLED;
+		case "getValue":
+		case "getString":
+		case "getInt":
+		case "getLong":
+		case "getDouble":
+		case "getBigDecimal":
+		case "getDate":
+		case "getTime":
+		case "getByteArray":
+			if (args.length == 1) {
+				int index = index(args[0]);
+				if (metaData.isStructure(index) || metaData.isTable(index)) {
+					return getNested(index);
+				}
+				Object value = rows.get(row)[index];
+				return value == null ? UNHANDLED : value;
+			}
+			return UNHANDLED;
+		default:
+			return UNHANDLED;
+		}
+	}
+
+	private Object getNested(int index) {
+		Object[] values = rows.get(row);
+		if (values[index] == null) {
+			if (metaData.isTable(index)) {
+				values[index] = createTable(metaData.getRecordMetaData(index));
+			} else {
+				values[index] = createStructure(metaData.getRecordMetaData(index));
+			}
+		}
+		return values[index];
+	}
+
+	private int index(Object field) {
+		if (field instanceof Integer) {
+			return (Integer) field;
+		}
+		int index = metaData.indexOf((String) field);
+		if (index < 0) {
+			throw new IllegalArgumentException("Field '" + field + "' not a member of '" + metaData.getName() + "'");
+		}
+		return index;
+	}
+
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.simulator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * Base class for the in-memory stand-ins of JCo and IDoc library interfaces
+ * served by the destination simulator and used by the benchmarks.
+ * <p>
+ * A stand-in only implements the methods the component calls; every other
+ * method returns the default value of its return type. Stand-ins are plain
+ * dynamic proxies rather than Mockito mocks since mocks record every
+ * invocation, which would grow without bound under load and dominate the
+ * cost of the code being measured.
+ *
+ * @author William Collins <punkhornsw@gmail.com>
+ *
+ */
+public abstract class StandIn implements InvocationHandler {
+
+	/**
+	 * Value returned by {@link #invoke(String, Object[])} for methods not
+	 * implemented by a stand-in.
+	 */
+	protected static final Object UNHANDLED = new Object();
+
+	private final String name;
+
+	protected StandIn(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Creates a proxy of <code>type</code> backed by <code>standIn</code>.
+	 */
+	public static <T> T create(Class<T> type, StandIn standIn) {
+		return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, standIn));
+	}
+
+	@Override
+	public final Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String methodName = method.getName();
+		if (args == null) {
+			args = new Object[0];
+		}
+		if (method.getDeclaringClass() == Object.class) {
+			switch (methodName) {
+			case "equals":
+				return proxy == args[0];
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			default:
+				return name;
+			}
+		}
+		Object result = invoke(methodName, args);
+		if (result == UNHANDLED) {
+			return defaultValue(method.getReturnType());
+		}
+		return result;
+	}
+
+	/**
+	 * Implements the method <code>methodName</code> of the stand-in.
+	 *
+	 * @return The result of the method or {@link #UNHANDLED}.
+	 * @throws Exception
+	 *             an exception declared by the method.
+	 */
+	protected abstract Object invoke(String methodName, Object[] args) throws Exception;
+
+	private static Object defaultValue(Class<?> type) {
+		if (!type.isPrimitive() || type == void.class) {
+			return null;
+		} else if (type == boolean.class) {
+			return Boolean.FALSE;
+		} else if (type == char.class) {
+			return Character.valueOf((char) 0);
+		} else if (type == byte.class) {
+			return Byte.valueOf((byte) 0);
+		} else if (type == short.class) {
+			return Short.valueOf((short) 0);
+		} else if (type == int.class) {
+			return Integer.valueOf(0);
+		} else if (type == long.class) {
+			return Long.valueOf(0);
+		} else if (type == float.class) {
+			return Float.valueOf(0);
+		} else {
+			return Double.valueOf(0);
+		}
+	}
+
+}
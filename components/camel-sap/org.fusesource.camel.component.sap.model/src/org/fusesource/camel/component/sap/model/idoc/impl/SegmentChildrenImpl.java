@@ -16,6 +16,9 @@
  */
 package org.fusesource.camel.component.sap.model.idoc.impl;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.notify.NotificationChain;
 import org.eclipse.emf.common.util.BasicEList;
@@ -26,7 +29,6 @@ import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.impl.ENotificationImpl;
 import org.eclipse.emf.ecore.impl.EObjectImpl;
-import org.eclipse.emf.ecore.util.BasicFeatureMap;
 import org.eclipse.emf.ecore.util.FeatureMap;
 import org.eclipse.emf.ecore.util.InternalEList;
 import org.fusesource.camel.component.sap.model.idoc.IdocPackage;
@@ -69,6 +71,19 @@ public class SegmentChildrenImpl extends EObjectImpl implements SegmentChildren
 	 */
 	protected Segment parent;
 
+	/**
+	 * The segment lists of the segment types accessed so far.
+	 * @generated NOT
+	 */
+	protected Map<String, SegmentListImpl<?>> segmentLists;
+
+	/**
+	 * The names of the segment types of this segment's children, copied by
+	 * {@link #getTypes()}.
+	 * @generated NOT
+	 */
+	protected EList<String> types;
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -91,11 +106,11 @@ public class SegmentChildrenImpl extends EObjectImpl implements SegmentChildren
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
-	 * @generated
+	 * @generated NOT
 	 */
 	public FeatureMap getSegments() {
 		if (segments == null) {
-			segments = new BasicFeatureMap(this, IdocPackage.SEGMENT_CHILDREN__SEGMENTS);
+			segments = new SegmentFeatureMap(this, IdocPackage.SEGMENT_CHILDREN__SEGMENTS);
 		}
 		return segments;
 	}
@@ -145,18 +160,26 @@ public class SegmentChildrenImpl extends EObjectImpl implements SegmentChildren
 	 */
 	@SuppressWarnings("unchecked")
 	public <S extends Segment> SegmentList<S> get(String segmentType) {
-		EStructuralFeature feature = eClass().getEStructuralFeature(segmentType);
-		if (feature != null || (feature instanceof EReference)) {
+		SegmentListImpl<S> segmentList = segmentLists == null ? null : (SegmentListImpl<S>) segmentLists.get(segmentType);
+		if (segmentList == null) {
+			EStructuralFeature feature = eClass().getEStructuralFeature(segmentType);
+			if (!(feature instanceof EReference)) {
+				return null;
+			}
 			EClass segmentClass = ((EReference)feature).getEReferenceType();
-			if (IdocPackage.eINSTANCE.getSegment().isSuperTypeOf(segmentClass)) {
-				SegmentListImpl<S> segmentList = new SegmentListImpl<S>();
-				segmentList.setDelegate((EList<S>) getSegments().list(feature));
-				segmentList.setSegmentClass(segmentClass);
-				segmentList.setSegmentParent(getParent());
-				return segmentList;
+			if (!IdocPackage.eINSTANCE.getSegment().isSuperTypeOf(segmentClass)) {
+				return null;
+			}
+			segmentList = new SegmentListImpl<S>();
+			segmentList.setDelegate((EList<S>) getSegments().list(feature));
+			segmentList.setSegmentClass(segmentClass);
+			if (segmentLists == null) {
+				segmentLists = new HashMap<String, SegmentListImpl<?>>();
 			}
+			segmentLists.put(segmentType, segmentList);
 		}
-		return null;
+		segmentList.setSegmentParent(getParent());
+		return segmentList;
 	}
 	
 	/**
@@ -165,12 +188,15 @@ public class SegmentChildrenImpl extends EObjectImpl implements SegmentChildren
 	 * @generated NOT
 	 */
 	public EList<String> getTypes() {
-		EList<String> types = new BasicEList<String>();
-		for (EStructuralFeature feature: eClass().getEStructuralFeatures()) {
-			types.add(feature.getName());
+		if (types == null) {
+			EList<String> types = new BasicEList<String>();
+			for (EStructuralFeature feature: eClass().getEStructuralFeatures()) {
+				types.add(feature.getName());
+			}
+			this.types = types;
 		}
-		
-		return types;
+		// A new list per call, which callers may modify.
+		return new BasicEList<String>(types);
 	}
 
 	/**
@@ -0,0 +1,506 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.model.idoc.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EModelElement;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.fusesource.camel.component.sap.model.idoc.IdocPackage;
+
+/**
+ * Immutable descriptor of the SAP meta-data annotated on a segment class and
+ * on its fields.
+ * <p>
+ * A descriptor is built once per segment class from the class's
+ * <code>http://sap.fusesource.org/idoc</code> annotations and is attached to
+ * the class as an adapter, so that the meta-data of segments can be read
+ * without parsing annotation details. Descriptors are published through a
+ * concurrent map, so that they can be looked up from any thread. The
+ * descriptor becomes stale and detaches itself when the features or
+ * annotations of its class are changed, and is rebuilt on the next lookup.
+ *
+ * @author punkhorn
+ *
+ */
+public final class SegmentDescriptor extends AdapterImpl {
+
+	private static final Field[] NO_FIELDS = new Field[0];
+
+	/**
+	 * The current descriptors by described class.
+	 */
+	private static final ConcurrentMap<EClass, SegmentDescriptor> descriptors = new ConcurrentHashMap<EClass, SegmentDescriptor>();
+
+	/**
+	 * Whether this descriptor has been discarded, because the described class
+	 * has changed or its package was removed.
+	 */
+	private volatile boolean stale;
+
+	private final String name;
+
+	private final String type;
+
+	private final String key;
+
+	private final String definition;
+
+	private final String description;
+
+	private final String idocType;
+
+	private final String idocTypeExtension;
+
+	private final String systemRelease;
+
+	private final String applicationRelease;
+
+	private final String compoundType;
+
+	private final int hierarchyLevel;
+
+	private final int numFields;
+
+	private final int recordLength;
+
+	private final long maxOccurrence;
+
+	private final long minOccurrence;
+
+	private final boolean mandatory;
+
+	private final boolean qualified;
+
+	private final boolean locked;
+
+	/**
+	 * The field descriptors of the segment class indexed by feature ID.
+	 */
+	private final Field[] fields;
+
+	/**
+	 * The field descriptors of the segment's record fields ordered by
+	 * position.
+	 */
+	private final List<Field> segmentFields;
+
+	/**
+	 * Returns the descriptor of <code>eClass</code>, building and attaching
+	 * it to <code>eClass</code> if necessary.
+	 *
+	 * @param eClass
+	 *            - the segment class.
+	 * @return The descriptor of <code>eClass</code>.
+	 */
+	public static SegmentDescriptor get(EClass eClass) {
+		SegmentDescriptor descriptor = descriptors.get(eClass);
+		if (descriptor == null) {
+			synchronized (eClass) {
+				descriptor = descriptors.get(eClass);
+				if (descriptor == null) {
+					descriptor = new SegmentDescriptor(eClass);
+					// Attached to be notified of changes to the class.
+					eClass.eAdapters().add(descriptor);
+					descriptors.put(eClass, descriptor);
+				}
+			}
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Removes the descriptors of the classes of <code>ePackage</code>, e.g.
+	 * when the package is evicted from the meta-data cache.
+	 *
+	 * @param ePackage
+	 *            - the package whose descriptors are removed.
+	 */
+	public static void remove(EPackage ePackage) {
+		for (EClass eClass : descriptors.keySet()) {
+			if (eClass.getEPackage() == ePackage) {
+				SegmentDescriptor descriptor = descriptors.remove(eClass);
+				if (descriptor != null) {
+					descriptor.detach(eClass);
+				}
+			}
+		}
+	}
+
+	private SegmentDescriptor(EClass eClass) {
+		Map<String, String> details = getDetails(eClass);
+		name = details.get("name");
+		type = details.get("type");
+		key = details.get("key");
+		definition = details.get("definition");
+		description = details.get("description");
+		idocType = details.get("idocType");
+		idocTypeExtension = details.get("idocTypeExtension");
+		systemRelease = details.get("systemRelease");
+		applicationRelease = details.get("applicationRelease");
+		compoundType = details.get("compoundType");
+		hierarchyLevel = parseInt(details.get("hierarchyLevel"));
+		numFields = parseInt(details.get("numFields"));
+		recordLength = parseInt(details.get("recordLength"));
+		maxOccurrence = parseLong(details.get("maxOccurrence"));
+		minOccurrence = parseLong(details.get("minOccurrence"));
+		mandatory = Boolean.parseBoolean(details.get("isMandatory"));
+		qualified = Boolean.parseBoolean(details.get("isQualified"));
+		locked = Boolean.parseBoolean(details.get("isLocked"));
+
+		int featureCount = eClass.getFeatureCount();
+		fields = featureCount == 0 ? NO_FIELDS : new Field[featureCount];
+		for (int i = 0; i < featureCount; i++) {
+			fields[i] = new Field(eClass.getEStructuralFeature(i));
+		}
+
+		List<Field> segmentFields = new ArrayList<Field>();
+		for (Field field : fields) {
+			if (field.getPosition() >= 0) {
+				segmentFields.add(field);
+			}
+		}
+		Collections.sort(segmentFields, new Comparator<Field>() {
+			@Override
+			public int compare(Field field1, Field field2) {
+				return field1.getPosition() - field2.getPosition();
+			}
+		});
+		this.segmentFields = Collections.unmodifiableList(segmentFields);
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == SegmentDescriptor.class;
+	}
+
+	@Override
+	public void notifyChanged(Notification msg) {
+		Object feature = msg.getFeature();
+		if (feature == EcorePackage.Literals.EMODEL_ELEMENT__EANNOTATIONS || feature == EcorePackage.Literals.ECLASS__ESTRUCTURAL_FEATURES
+				|| feature == EcorePackage.Literals.ECLASS__ESUPER_TYPES) {
+			// Stale: rebuilt on next lookup.
+			EClass eClass = (EClass) msg.getNotifier();
+			descriptors.remove(eClass, this);
+			detach(eClass);
+		}
+	}
+
+	private void detach(EClass eClass) {
+		stale = true;
+		synchronized (eClass) {
+			eClass.eAdapters().remove(this);
+		}
+	}
+
+	/**
+	 * Returns whether this descriptor has been discarded, in which case
+	 * instances should look up the descriptor of their class again.
+	 *
+	 * @return <code>true</code> if this descriptor is stale;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isStale() {
+		return stale;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getType() {
+		return type;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public String getDefinition() {
+		return definition;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public String getIdocType() {
+		return idocType;
+	}
+
+	public String getIdocTypeExtension() {
+		return idocTypeExtension;
+	}
+
+	public String getSystemRelease() {
+		return systemRelease;
+	}
+
+	public String getApplicationRelease() {
+		return applicationRelease;
+	}
+
+	/**
+	 * Returns the compound type of the IDoc type of a root segment class.
+	 *
+	 * @return The IDoc compound type or <code>null</code> if not a root
+	 *         segment class.
+	 */
+	public String getCompoundType() {
+		return compoundType;
+	}
+
+	public int getHierarchyLevel() {
+		return hierarchyLevel;
+	}
+
+	public int getNumFields() {
+		return numFields;
+	}
+
+	public int getRecordLength() {
+		return recordLength;
+	}
+
+	public long getMaxOccurrence() {
+		return maxOccurrence;
+	}
+
+	public long getMinOccurrence() {
+		return minOccurrence;
+	}
+
+	public boolean isMandatory() {
+		return mandatory;
+	}
+
+	public boolean isQualified() {
+		return qualified;
+	}
+
+	public boolean isLocked() {
+		return locked;
+	}
+
+	/**
+	 * Returns the descriptor of the field with given feature ID.
+	 *
+	 * @param featureID
+	 *            - the feature ID of the field in the described class.
+	 * @return The field descriptor.
+	 */
+	public Field getField(int featureID) {
+		return fields[featureID];
+	}
+
+	public int getFeatureCount() {
+		return fields.length;
+	}
+
+	/**
+	 * Returns the descriptors of the fields of the described class which hold
+	 * the fields of the segment's record, ordered by their position in the
+	 * record.
+	 * 
+	 * @return The unmodifiable list of segment field descriptors.
+	 */
+	public List<Field> getSegmentFields() {
+		return segmentFields;
+	}
+
+	/**
+	 * Immutable descriptor of the SAP meta-data annotated on a field of a
+	 * segment.
+	 */
+	public static final class Field {
+
+		private final EStructuralFeature feature;
+
+		private final String description;
+
+		private final String classNameOfField;
+
+		private final String checkTableName;
+
+		private final String dataElementName;
+
+		private final String dataTypeName;
+
+		private final String domainName;
+
+		private final String typeAsString;
+
+		private final int position;
+
+		private final int dataType;
+
+		private final int recordType;
+
+		private final int internalLength;
+
+		private final int length;
+
+		private final int offset;
+
+		private final int outputLength;
+
+		private final boolean isoCode;
+
+		Field(EStructuralFeature feature) {
+			this.feature = feature;
+			Map<String, String> details = getDetails(feature);
+			description = details.get("description");
+			classNameOfField = details.get("classNameOfField");
+			checkTableName = details.get("checkTableName");
+			dataElementName = details.get("dataElementName");
+			dataTypeName = details.get("dataTypeName");
+			domainName = details.get("domainName");
+			typeAsString = details.get("typeAsString");
+			position = parseInt(details.get("position"));
+			dataType = parseInt(details.get("dataType"));
+			recordType = parseInt(details.get("recordType"));
+			internalLength = parseInt(details.get("internalLength"));
+			length = parseInt(details.get("length"));
+			offset = parseInt(details.get("offset"));
+			outputLength = parseInt(details.get("outputLength"));
+			isoCode = Boolean.parseBoolean(details.get("isoCode"));
+		}
+
+		public EStructuralFeature getFeature() {
+			return feature;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public String getClassNameOfField() {
+			return classNameOfField;
+		}
+
+		public String getCheckTableName() {
+			return checkTableName;
+		}
+
+		public String getDataElementName() {
+			return dataElementName;
+		}
+
+		public String getDataTypeName() {
+			return dataTypeName;
+		}
+
+		public String getDomainName() {
+			return domainName;
+		}
+
+		public String getTypeAsString() {
+			return typeAsString;
+		}
+
+		/**
+		 * Returns the position of the field in its segment's record or
+		 * <code>-1</code> if the feature is not a segment field.
+		 *
+		 * @return The position of the field.
+		 */
+		public int getPosition() {
+			return position;
+		}
+
+		/**
+		 * Returns the ordinal of the IDoc data type of the field.
+		 *
+		 * @return The ordinal of the IDoc data type.
+		 */
+		public int getDataType() {
+			return dataType;
+		}
+
+		/**
+		 * Returns the JCo type of the field.
+		 *
+		 * @return The JCo type of the field.
+		 */
+		public int getRecordType() {
+			return recordType;
+		}
+
+		public int getInternalLength() {
+			return internalLength;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		public int getOffset() {
+			return offset;
+		}
+
+		public int getOutputLength() {
+			return outputLength;
+		}
+
+		public boolean isISOCode() {
+			return isoCode;
+		}
+	}
+
+	private static Map<String, String> getDetails(EModelElement modelElement) {
+		EAnnotation annotation = modelElement.getEAnnotation(IdocPackage.eNS_URI);
+		if (annotation == null) {
+			return Collections.emptyMap();
+		}
+		return annotation.getDetails().map();
+	}
+
+	private static int parseInt(String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	private static long parseLong(String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+/**
+ * Copyright 2014 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.model.idoc.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.BasicFeatureMap;
+
+/**
+ * Feature map holding the child segments of a segment, indexed by segment
+ * type.
+ * <p>
+ * The child segments of every type are stored in the single feature map of
+ * the segment children so that they serialize in document order. A plain
+ * {@link BasicFeatureMap} answers the per type queries of the
+ * {@link SegmentListImpl}s, i.e. size, indexed access and the uniqueness check
+ * of an append, by scanning all its entries. This map keeps a list of the
+ * values of each segment type alongside its entries, so those queries take
+ * constant time and appending a child segment no longer degrades with the
+ * number of children.
+ * <p>
+ * Appending entries and removing the last entry of a type update the index in
+ * place; any other change drops the index, which is rebuilt on the next query.
+ *
+ * @author punkhorn
+ *
+ */
+final class SegmentFeatureMap extends BasicFeatureMap {
+
+	private static final long serialVersionUID = 4006396342385226286L;
+
+	private transient Map<EStructuralFeature, List<Object>> index;
+
+	SegmentFeatureMap(InternalEObject owner, int featureID) {
+		super(owner, featureID);
+	}
+
+	@Override
+	public int size(EStructuralFeature feature) {
+		return values(feature).size();
+	}
+
+	@Override
+	public boolean isEmpty(EStructuralFeature feature) {
+		return values(feature).isEmpty();
+	}
+
+	@Override
+	public Object get(EStructuralFeature feature, int index, boolean resolve) {
+		List<Object> values = values(feature);
+		if (index < 0 || index >= values.size()) {
+			throw new IndexOutOfBoundsException("index=" + index + ", size=" + values.size());
+		}
+		Object value = values.get(index);
+		if (resolve && value instanceof EObject && ((EObject) value).eIsProxy()) {
+			return super.get(feature, index, resolve);
+		}
+		return value;
+	}
+
+	@Override
+	public int indexOf(EStructuralFeature feature, Object object) {
+		return values(feature).indexOf(object);
+	}
+
+	@Override
+	public boolean contains(EStructuralFeature feature, Object object) {
+		if (isContainment(feature) && object instanceof InternalEObject) {
+			// A segment is a child of this map's owner if and only if it is
+			// contained by it.
+			InternalEObject eObject = (InternalEObject) object;
+			return eObject.eInternalContainer() == owner && eObject.eContainmentFeature() == feature;
+		}
+		return values(feature).contains(object);
+	}
+
+	@Override
+	protected void didAdd(int index, Entry newObject) {
+		super.didAdd(index, newObject);
+		if (this.index != null) {
+			if (index == size - 1) {
+				valuesOf(this.index, newObject.getEStructuralFeature()).add(newObject.getValue());
+			} else {
+				this.index = null;
+			}
+		}
+	}
+
+	@Override
+	protected void didRemove(int index, Entry oldObject) {
+		super.didRemove(index, oldObject);
+		if (this.index != null) {
+			List<Object> values = this.index.get(oldObject.getEStructuralFeature());
+			if (isContainment(oldObject.getEStructuralFeature()) && values != null && !values.isEmpty()
+					&& values.get(values.size() - 1) == oldObject.getValue()) {
+				values.remove(values.size() - 1);
+			} else {
+				this.index = null;
+			}
+		}
+	}
+
+	@Override
+	protected void didSet(int index, Entry newObject, Entry oldObject) {
+		super.didSet(index, newObject, oldObject);
+		this.index = null;
+	}
+
+	@Override
+	protected void didMove(int index, Entry movedObject, int oldIndex) {
+		super.didMove(index, movedObject, oldIndex);
+		this.index = null;
+	}
+
+	@Override
+	protected void didClear(int size, Object[] oldObjects) {
+		super.didClear(size, oldObjects);
+		this.index = null;
+	}
+
+	private List<Object> values(EStructuralFeature feature) {
+		if (index == null) {
+			Map<EStructuralFeature, List<Object>> newIndex = new HashMap<EStructuralFeature, List<Object>>();
+			for (int i = 0; i < size; i++) {
+				Entry entry = (Entry) data[i];
+				valuesOf(newIndex, entry.getEStructuralFeature()).add(entry.getValue());
+			}
+			index = newIndex;
+		}
+		List<Object> values = index.get(feature);
+		return values == null ? Collections.emptyList() : values;
+	}
+
+	private static List<Object> valuesOf(Map<EStructuralFeature, List<Object>> index, EStructuralFeature feature) {
+		List<Object> values = index.get(feature);
+		if (values == null) {
+			values = new ArrayList<Object>();
+			index.put(feature, values);
+		}
+		return values;
+	}
+
+	private static boolean isContainment(EStructuralFeature feature) {
+		return feature instanceof EReference && ((EReference) feature).isContainment();
+	}
+
+}
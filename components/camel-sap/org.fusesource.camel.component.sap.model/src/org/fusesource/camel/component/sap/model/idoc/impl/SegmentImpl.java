@@ -28,7 +28,6 @@ import org.eclipse.emf.common.notify.Notification;
 import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.ECollections;
 import org.eclipse.emf.common.util.EList;
-import org.eclipse.emf.ecore.EAnnotation;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
@@ -250,6 +249,28 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 		return IdocPackage.Literals.SEGMENT;
 	}
 
+	/**
+	 * The meta-data descriptor of this segment's class.
+	 * 
+	 * @generated NOT
+	 */
+	private SegmentDescriptor descriptor;
+
+	/**
+	 * Returns the meta-data descriptor of this segment's class.
+	 * 
+	 * @return The descriptor of this segment's class.
+	 * @generated NOT
+	 */
+	public SegmentDescriptor getDescriptor() {
+		SegmentDescriptor descriptor = this.descriptor;
+		if (descriptor == null || descriptor.isStale()) {
+			descriptor = SegmentDescriptor.get(eClass());
+			this.descriptor = descriptor;
+		}
+		return descriptor;
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
@@ -389,12 +410,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated  NOT
 	 */
 	public String getDescription() {
-		String description = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			description = idocAnnotation.getDetails().get("description");
-		}
-		return description;
+		return getDescriptor().getDescription();
 	}
 
 	/**
@@ -412,12 +428,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated  NOT
 	 */
 	public String getType() {
-		String type = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			type = idocAnnotation.getDetails().get("type");
-		}
-		return type;
+		return getDescriptor().getType();
 	}
 
 	/**
@@ -435,12 +446,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public String getDefinition() {
-		String definition = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			definition = idocAnnotation.getDetails().get("definition");
-		}
-		return definition;
+		return getDescriptor().getDefinition();
 	}
 
 	/**
@@ -458,17 +464,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public int getHierarchyLevel() {
-		int hierarchyLevel = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String hierarchyLevelString = idocAnnotation.getDetails().get("hierarchyLevel");
-			try {
-				hierarchyLevel = Integer.parseInt(hierarchyLevelString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return hierarchyLevel;
+		return getDescriptor().getHierarchyLevel();
 	}
 
 	/**
@@ -486,12 +482,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public String getIdocType() {
-		String idocType = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			idocType = idocAnnotation.getDetails().get("idocType");
-		}
-		return idocType;
+		return getDescriptor().getIdocType();
 	}
 
 	/**
@@ -509,12 +500,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public String getIdocTypeExtension() {
-		String idocTypeExtension = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			idocTypeExtension = idocAnnotation.getDetails().get("idocTypeExtension");
-		}
-		return idocTypeExtension;
+		return getDescriptor().getIdocTypeExtension();
 	}
 
 	/**
@@ -532,12 +518,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public String getSystemRelease() {
-		String systemRelease = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			systemRelease = idocAnnotation.getDetails().get("systemRelease");
-		}
-		return systemRelease;
+		return getDescriptor().getSystemRelease();
 	}
 
 	/**
@@ -555,12 +536,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public String getApplicationRelease() {
-		String applicationRelease = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			applicationRelease = idocAnnotation.getDetails().get("applicationRelease");
-		}
-		return applicationRelease;
+		return getDescriptor().getApplicationRelease();
 	}
 
 	/**
@@ -578,17 +554,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public int getNumFields() {
-		int numFields = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String numFieldsString = idocAnnotation.getDetails().get("numFields");
-			try {
-				numFields = Integer.parseInt(numFieldsString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return numFields;
+		return getDescriptor().getNumFields();
 	}
 
 	/**
@@ -606,17 +572,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public long getMaxOccurrence() {
-		long maxOccurrence = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String maxOccurrenceString = idocAnnotation.getDetails().get("maxOccurrence");
-			try {
-				maxOccurrence = Long.parseLong(maxOccurrenceString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return maxOccurrence;
+		return getDescriptor().getMaxOccurrence();
 	}
 
 	/**
@@ -634,17 +590,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public long getMinOccurrence() {
-		long minOccurrence = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String minOccurrenceString = idocAnnotation.getDetails().get("minOccurrence");
-			try {
-				minOccurrence = Long.parseLong(minOccurrenceString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return minOccurrence;
+		return getDescriptor().getMinOccurrence();
 	}
 
 	/**
@@ -662,17 +608,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public boolean isMandatory() {
-		boolean isMandatory = false;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String isManadatoryString = idocAnnotation.getDetails().get("isMandatory");
-			try {
-				isMandatory = Boolean.parseBoolean(isManadatoryString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return isMandatory;
+		return getDescriptor().isMandatory();
 	}
 
 	/**
@@ -690,17 +626,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public boolean isQualified() {
-		boolean isQualified = false;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String isQualifiedString = idocAnnotation.getDetails().get("isQualified");
-			try {
-				isQualified = Boolean.parseBoolean(isQualifiedString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return isQualified;
+		return getDescriptor().isQualified();
 	}
 
 	/**
@@ -718,17 +644,7 @@ public class SegmentImpl extends EObjectImpl implements Segment {
 	 * @generated NOT
 	 */
 	public int getRecordLength() {
-		int recordLength = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(IdocPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String recordLengthString = idocAnnotation.getDetails().get("recordLength");
-			try {
-				recordLength = Integer.parseInt(recordLengthString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return recordLength;
+		return getDescriptor().getRecordLength();
 	}
 
 	/**
@@ -0,0 +1,429 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.model.rfc.impl;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EModelElement;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+
+/**
+ * Immutable descriptor of the SAP meta-data annotated on a structure or table
+ * class and on its features.
+ * <p>
+ * A descriptor is built once per class from the class's
+ * <code>http://sap.fusesource.org/rfc</code> annotations and is attached to
+ * the class as an adapter, so that the meta-data of instances can be read
+ * without parsing annotation details. Descriptors are published through a
+ * concurrent map, so that they can be looked up from any thread. The
+ * descriptor becomes stale and detaches itself when the features or
+ * annotations of its class are changed, and is rebuilt on the next lookup.
+ *
+ * @author punkhorn
+ *
+ */
+public final class StructureDescriptor extends AdapterImpl {
+
+	private static final Field[] NO_FIELDS = new Field[0];
+
+	/**
+	 * The current descriptors by described class.
+	 */
+	private static final ConcurrentMap<EClass, StructureDescriptor> descriptors = new ConcurrentHashMap<EClass, StructureDescriptor>();
+
+	/**
+	 * Whether this descriptor has been discarded, because the described class
+	 * has changed or its package was removed.
+	 */
+	private volatile boolean stale;
+
+	private final String name;
+
+	private final String lineType;
+
+	private final int fieldCount;
+
+	private final int recordLength;
+
+	private final int unicodeRecordLength;
+
+	private final boolean nestedType1Structure;
+
+	/**
+	 * The field descriptors of the class indexed by feature ID.
+	 */
+	private final Field[] fields;
+
+	/**
+	 * Returns the descriptor of <code>eClass</code>, building and attaching
+	 * it to <code>eClass</code> if necessary.
+	 *
+	 * @param eClass
+	 *            - the structure or table class.
+	 * @return The descriptor of <code>eClass</code>.
+	 */
+	public static StructureDescriptor get(EClass eClass) {
+		StructureDescriptor descriptor = descriptors.get(eClass);
+		if (descriptor == null) {
+			synchronized (eClass) {
+				descriptor = descriptors.get(eClass);
+				if (descriptor == null) {
+					descriptor = new StructureDescriptor(eClass);
+					// Attached to be notified of changes to the class.
+					eClass.eAdapters().add(descriptor);
+					descriptors.put(eClass, descriptor);
+				}
+			}
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Removes the descriptors of the classes of <code>ePackage</code>, e.g.
+	 * when the package is evicted from the meta-data cache.
+	 *
+	 * @param ePackage
+	 *            - the package whose descriptors are removed.
+	 */
+	public static void remove(EPackage ePackage) {
+		for (EClass eClass : descriptors.keySet()) {
+			if (eClass.getEPackage() == ePackage) {
+				StructureDescriptor descriptor = descriptors.remove(eClass);
+				if (descriptor != null) {
+					descriptor.detach(eClass);
+				}
+			}
+		}
+	}
+
+	private StructureDescriptor(EClass eClass) {
+		Map<String, String> details = getDetails(eClass);
+		name = details.get("name");
+		lineType = details.get("lineType");
+		fieldCount = parseInt(details.get("fieldCount"));
+		recordLength = parseInt(details.get("recordLength"));
+		unicodeRecordLength = parseInt(details.get("unicodeRecordLength"));
+		nestedType1Structure = Boolean.parseBoolean(details.get("isNestedType1Structure"));
+
+		int featureCount = eClass.getFeatureCount();
+		fields = featureCount == 0 ? NO_FIELDS : new Field[featureCount];
+		for (int i = 0; i < featureCount; i++) {
+			fields[i] = new Field(eClass.getEStructuralFeature(i));
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == StructureDescriptor.class;
+	}
+
+	@Override
+	public void notifyChanged(Notification msg) {
+		Object feature = msg.getFeature();
+		if (feature == EcorePackage.Literals.EMODEL_ELEMENT__EANNOTATIONS || feature == EcorePackage.Literals.ECLASS__ESTRUCTURAL_FEATURES
+				|| feature == EcorePackage.Literals.ECLASS__ESUPER_TYPES) {
+			// Stale: rebuilt on next lookup.
+			EClass eClass = (EClass) msg.getNotifier();
+			descriptors.remove(eClass, this);
+			detach(eClass);
+		}
+	}
+
+	private void detach(EClass eClass) {
+		stale = true;
+		synchronized (eClass) {
+			eClass.eAdapters().remove(this);
+		}
+	}
+
+	/**
+	 * Returns whether this descriptor has been discarded, in which case
+	 * instances should look up the descriptor of their class again.
+	 *
+	 * @return <code>true</code> if this descriptor is stale;
+	 *         <code>false</code> otherwise.
+	 */
+	public boolean isStale() {
+		return stale;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getLineType() {
+		return lineType;
+	}
+
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	public int getRecordLength() {
+		return recordLength;
+	}
+
+	public int getUnicodeRecordLength() {
+		return unicodeRecordLength;
+	}
+
+	public boolean isNestedType1Structure() {
+		return nestedType1Structure;
+	}
+
+	/**
+	 * Returns the descriptor of the field with given feature ID.
+	 *
+	 * @param featureID
+	 *            - the feature ID of the field in the described class.
+	 * @return The field descriptor.
+	 */
+	public Field getField(int featureID) {
+		return fields[featureID];
+	}
+
+	public int getFeatureCount() {
+		return fields.length;
+	}
+
+	/**
+	 * Immutable descriptor of the SAP meta-data annotated on a field of a
+	 * structure.
+	 */
+	public static final class Field {
+
+		private final EStructuralFeature feature;
+
+		private final String name;
+
+		private final String description;
+
+		private final String classNameOfField;
+
+		private final String recordTypeName;
+
+		private final String typeAsString;
+
+		private final String defaultValue;
+
+		private final String recordFieldName;
+
+		private final int type;
+
+		private final int length;
+
+		private final int byteLength;
+
+		private final int byteOffset;
+
+		private final int unicodeByteLength;
+
+		private final int unicodeByteOffset;
+
+		private final int decimals;
+
+		private final boolean abapObject;
+
+		private final boolean nestedType1Structure;
+
+		private final boolean structure;
+
+		private final boolean table;
+
+		private final boolean importParameter;
+
+		private final boolean exportParameter;
+
+		private final boolean changingParameter;
+
+		private final boolean exception;
+
+		private final boolean optional;
+
+		Field(EStructuralFeature feature) {
+			this.feature = feature;
+			Map<String, String> details = getDetails(feature);
+			name = details.get("name");
+			description = details.get("description");
+			classNameOfField = details.get("classNameOfField");
+			recordTypeName = details.get("recordTypeName");
+			typeAsString = details.get("typeAsString");
+			defaultValue = details.get("default");
+			recordFieldName = details.get("recordFieldName");
+			type = parseInt(details.get("type"));
+			length = parseInt(details.get("length"));
+			byteLength = parseInt(details.get("byteLength"));
+			byteOffset = parseInt(details.get("byteOffset"));
+			unicodeByteLength = parseInt(details.get("unicodeByteLength"));
+			unicodeByteOffset = parseInt(details.get("unicodeByteOffset"));
+			decimals = parseInt(details.get("decimals"));
+			abapObject = Boolean.parseBoolean(details.get("isAbapObject"));
+			nestedType1Structure = Boolean.parseBoolean(details.get("isNestedType1Structure"));
+			structure = Boolean.parseBoolean(details.get("isStructure"));
+			table = Boolean.parseBoolean(details.get("isTable"));
+			importParameter = Boolean.parseBoolean(details.get("isImport"));
+			exportParameter = Boolean.parseBoolean(details.get("isExport"));
+			changingParameter = Boolean.parseBoolean(details.get("isChanging"));
+			exception = Boolean.parseBoolean(details.get("isException"));
+			optional = Boolean.parseBoolean(details.get("isOptional"));
+		}
+
+		public EStructuralFeature getFeature() {
+			return feature;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public String getDescription() {
+			return description;
+		}
+
+		public String getClassNameOfField() {
+			return classNameOfField;
+		}
+
+		public String getRecordTypeName() {
+			return recordTypeName;
+		}
+
+		public String getTypeAsString() {
+			return typeAsString;
+		}
+
+		public String getDefault() {
+			return defaultValue;
+		}
+
+		public String getRecordFieldName() {
+			return recordFieldName;
+		}
+
+		/**
+		 * Returns the JCo type of the field or <code>-1</code> if not
+		 * annotated.
+		 *
+		 * @return The JCo type of the field.
+		 */
+		public int getType() {
+			return type;
+		}
+
+		public int getLength() {
+			return length;
+		}
+
+		public int getByteLength() {
+			return byteLength;
+		}
+
+		/**
+		 * Returns the byte offset of the field in its structure or
+		 * <code>-1</code> for parameter list fields.
+		 *
+		 * @return The byte offset of the field.
+		 */
+		public int getByteOffset() {
+			return byteOffset;
+		}
+
+		public int getUnicodeByteLength() {
+			return unicodeByteLength;
+		}
+
+		/**
+		 * Returns the unicode byte offset of the field in its structure or
+		 * <code>-1</code> for parameter list fields.
+		 *
+		 * @return The unicode byte offset of the field.
+		 */
+		public int getUnicodeByteOffset() {
+			return unicodeByteOffset;
+		}
+
+		public int getDecimals() {
+			return decimals;
+		}
+
+		public boolean isAbapObject() {
+			return abapObject;
+		}
+
+		public boolean isNestedType1Structure() {
+			return nestedType1Structure;
+		}
+
+		public boolean isStructure() {
+			return structure;
+		}
+
+		public boolean isTable() {
+			return table;
+		}
+
+		public boolean isImport() {
+			return importParameter;
+		}
+
+		public boolean isExport() {
+			return exportParameter;
+		}
+
+		public boolean isChanging() {
+			return changingParameter;
+		}
+
+		public boolean isException() {
+			return exception;
+		}
+
+		public boolean isOptional() {
+			return optional;
+		}
+	}
+
+	private static Map<String, String> getDetails(EModelElement modelElement) {
+		EAnnotation annotation = modelElement.getEAnnotation(RfcPackage.eNS_URI);
+		if (annotation == null) {
+			return Collections.emptyMap();
+		}
+		return annotation.getDetails().map();
+	}
+
+	private static int parseInt(String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return -1;
+		}
+	}
+
+}
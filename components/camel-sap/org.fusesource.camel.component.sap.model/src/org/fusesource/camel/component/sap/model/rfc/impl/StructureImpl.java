@@ -22,7 +22,6 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import org.eclipse.emf.ecore.EAnnotation;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
@@ -117,18 +116,35 @@ public class StructureImpl extends EObjectImpl implements Structure {
 		return RfcPackage.Literals.STRUCTURE;
 	}
 
+	/**
+	 * The meta-data descriptor of this structure's class.
+	 * 
+	 * @generated NOT
+	 */
+	private StructureDescriptor descriptor;
+
+	/**
+	 * Returns the meta-data descriptor of this structure's class.
+	 * 
+	 * @return The descriptor of this structure's class.
+	 * @generated NOT
+	 */
+	public StructureDescriptor getDescriptor() {
+		StructureDescriptor descriptor = this.descriptor;
+		if (descriptor == null || descriptor.isStale()) {
+			descriptor = StructureDescriptor.get(eClass());
+			this.descriptor = descriptor;
+		}
+		return descriptor;
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
 	 * @generated NOT
 	 */
 	public String getName() {
-		String name = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			name = idocAnnotation.getDetails().get("name");
-		}
-		return name;
+		return getDescriptor().getName();
 	}
 
 	/**
@@ -146,17 +162,7 @@ public class StructureImpl extends EObjectImpl implements Structure {
 	 * @generated NOT
 	 */
 	public int getFieldCount() {
-		int fieldCount = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String fieldCountString = idocAnnotation.getDetails().get("fieldCount");
-			try {
-				fieldCount = Integer.parseInt(fieldCountString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return fieldCount;
+		return getDescriptor().getFieldCount();
 	}
 
 	/**
@@ -174,17 +180,7 @@ public class StructureImpl extends EObjectImpl implements Structure {
 	 * @generated NOT
 	 */
 	public int getRecordLength() {
-		int recordLength = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String recordLengthString = idocAnnotation.getDetails().get("recordLength");
-			try {
-				recordLength = Integer.parseInt(recordLengthString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return recordLength;
+		return getDescriptor().getRecordLength();
 	}
 
 	/**
@@ -202,17 +198,7 @@ public class StructureImpl extends EObjectImpl implements Structure {
 	 * @generated NOT
 	 */
 	public int getUnicodeRecordLength() {
-		int unicodeRecordLength = -1;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String unicodeRecordLengthString = idocAnnotation.getDetails().get("unicodeRecordLength");
-			try {
-				unicodeRecordLength = Integer.parseInt(unicodeRecordLengthString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return unicodeRecordLength;
+		return getDescriptor().getUnicodeRecordLength();
 	}
 
 	/**
@@ -230,17 +216,7 @@ public class StructureImpl extends EObjectImpl implements Structure {
 	 * @generated NOT
 	 */
 	public boolean isNestedType1Structure() {
-		boolean isNestedType1Structure = false;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			String isNestedType1StructureString = idocAnnotation.getDetails().get("isNestedType1Structure");
-			try {
-				isNestedType1Structure = Boolean.parseBoolean(isNestedType1StructureString);
-			} catch (NumberFormatException e) {
-				// TODO log warning.
-			}
-		}
-		return isNestedType1Structure;
+		return getDescriptor().isNestedType1Structure();
 	}
 
 	/**
@@ -22,7 +22,6 @@ import java.util.List;
 import java.util.ListIterator;
 
 import org.eclipse.emf.common.util.EList;
-import org.eclipse.emf.ecore.EAnnotation;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
@@ -82,18 +81,35 @@ public class TableImpl<S extends Structure> extends EObjectImpl implements
 		return RfcPackage.Literals.TABLE;
 	}
 
+	/**
+	 * The meta-data descriptor of this table's class.
+	 * 
+	 * @generated NOT
+	 */
+	private StructureDescriptor descriptor;
+
+	/**
+	 * Returns the meta-data descriptor of this table's class.
+	 * 
+	 * @return The descriptor of this table's class.
+	 * @generated NOT
+	 */
+	public StructureDescriptor getDescriptor() {
+		StructureDescriptor descriptor = this.descriptor;
+		if (descriptor == null || descriptor.isStale()) {
+			descriptor = StructureDescriptor.get(eClass());
+			this.descriptor = descriptor;
+		}
+		return descriptor;
+	}
+
 	/**
 	 * <!-- begin-user-doc -->
 	 * <!-- end-user-doc -->
 	 * @generated NOT
 	 */
 	public String getName() {
-		String name = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			name = idocAnnotation.getDetails().get("name");
-		}
-		return name;
+		return getDescriptor().getName();
 	}
 
 	/**
@@ -111,12 +127,7 @@ public class TableImpl<S extends Structure> extends EObjectImpl implements
 	 * @generated NOT
 	 */
 	public String getLineType() {
-		String lineType = null;
-		EAnnotation idocAnnotation = eClass().getEAnnotation(RfcPackage.eNS_URI);
-		if (idocAnnotation != null) {
-			lineType = idocAnnotation.getDetails().get("lineType");
-		}
-		return lineType;
+		return getDescriptor().getLineType();
 	}
 
 	/**
@@ -0,0 +1,91 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ConversionDiagnosticsTest {
+
+	private static final Exception CAUSE = new IllegalStateException("Value too long");
+
+	@After
+	public void resetWarningRate() {
+		ConversionDiagnostics.setMaxWarningsPerMinute(ConversionDiagnostics.DEFAULT_MAX_WARNINGS_PER_MINUTE);
+	}
+
+	@Test
+	public void testCollectPolicyCountsAndKeepsFirstFailures() {
+		ConversionDiagnostics diagnostics = new ConversionDiagnostics(ConversionDiagnostics.Policy.COLLECT, 2);
+		assertFalse(diagnostics.hasFailures());
+
+		diagnostics.controlRecordFailure("Client", "9999", CAUSE);
+		diagnostics.fieldFailure("E1HEAD", "FIELD0", "VALUE0", CAUSE);
+		diagnostics.fieldFailure("E1HEAD", "FIELD1", "VALUE1", CAUSE);
+		diagnostics.segmentFailure("E1ITEM", CAUSE);
+
+		assertTrue(diagnostics.hasFailures());
+		assertEquals(4, diagnostics.getFailureCount());
+		assertEquals(1, diagnostics.getControlRecordFailureCount());
+		assertEquals(2, diagnostics.getFieldFailureCount());
+		assertEquals(1, diagnostics.getSegmentFailureCount());
+		assertEquals(2, diagnostics.getFailures().size());
+
+		ConversionDiagnostics.Failure controlRecordFailure = diagnostics.getFailures().get(0);
+		assertNull(controlRecordFailure.getSegmentType());
+		assertEquals("Client", controlRecordFailure.getFieldName());
+		assertEquals("9999", controlRecordFailure.getValue());
+		assertEquals("Value too long", controlRecordFailure.getMessage());
+
+		ConversionDiagnostics.Failure fieldFailure = diagnostics.getFailures().get(1);
+		assertEquals("E1HEAD", fieldFailure.getSegmentType());
+		assertEquals("FIELD0", fieldFailure.getFieldName());
+		assertEquals("E1HEAD.FIELD0='VALUE0' (Value too long)", fieldFailure.toString());
+	}
+
+	@Test
+	public void testCountPolicyOnlyCountsFailures() {
+		ConversionDiagnostics diagnostics = new ConversionDiagnostics(ConversionDiagnostics.Policy.COUNT);
+
+		diagnostics.fieldFailure("E1HEAD", "FIELD0", "VALUE0", CAUSE);
+
+		assertEquals(1, diagnostics.getFieldFailureCount());
+		assertTrue(diagnostics.getFailures().isEmpty());
+	}
+
+	@Test
+	public void testFailPolicyThrowsAtFirstFailure() {
+		ConversionDiagnostics diagnostics = new ConversionDiagnostics(ConversionDiagnostics.Policy.FAIL);
+
+		try {
+			diagnostics.fieldFailure("E1HEAD", "FIELD0", "VALUE0", CAUSE);
+			fail("Failure not thrown");
+		} catch (IllegalArgumentException e) {
+			assertEquals(CAUSE, e.getCause());
+		}
+		assertEquals(1, diagnostics.getFieldFailureCount());
+	}
+
+	@Test
+	public void testWarningsAreRateLimited() {
+		ConversionDiagnostics.setMaxWarningsPerMinute(2);
+		long now = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+
+		assertTrue(ConversionDiagnostics.acquireWarning(now) >= 0);
+		assertEquals(0, ConversionDiagnostics.acquireWarning(now + 1));
+		assertEquals(-1, ConversionDiagnostics.acquireWarning(now + 2));
+		assertEquals(-1, ConversionDiagnostics.acquireWarning(now + 3));
+
+		// The next interval reports the suppressed warnings once.
+		now += TimeUnit.MINUTES.toNanos(1);
+		assertEquals(2, ConversionDiagnostics.acquireWarning(now));
+		assertEquals(0, ConversionDiagnostics.acquireWarning(now + 1));
+	}
+
+}
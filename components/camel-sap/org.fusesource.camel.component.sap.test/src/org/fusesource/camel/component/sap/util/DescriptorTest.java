@@ -0,0 +1,184 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EModelElement;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.fusesource.camel.component.sap.model.idoc.IdocPackage;
+import org.fusesource.camel.component.sap.model.idoc.impl.SegmentDescriptor;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+import org.fusesource.camel.component.sap.model.rfc.impl.StructureDescriptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DescriptorTest {
+
+	private static final int NUM_THREADS = 8;
+
+	private EPackage ePackage;
+
+	private EClass structureClass;
+
+	private EClass segmentClass;
+
+	@Before
+	public void setUp() {
+		ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("TEST");
+		ePackage.setNsURI("http://sap.fusesource.org/rfc/TEST/DESCRIPTOR");
+
+		structureClass = EcoreFactory.eINSTANCE.createEClass();
+		structureClass.setName("STRUCTURE");
+		annotate(structureClass, RfcPackage.eNS_URI, "name", "STRUCTURE");
+		annotate(structureClass, RfcPackage.eNS_URI, "recordLength", "20");
+		addAttribute(structureClass, "FIELD1", RfcPackage.eNS_URI, "byteOffset", "0");
+		ePackage.getEClassifiers().add(structureClass);
+
+		segmentClass = EcoreFactory.eINSTANCE.createEClass();
+		segmentClass.setName("SEGMENT");
+		annotate(segmentClass, IdocPackage.eNS_URI, "type", "E1SEGMENT");
+		annotate(segmentClass, IdocPackage.eNS_URI, "hierarchyLevel", "2");
+		addAttribute(segmentClass, "FIELD2", IdocPackage.eNS_URI, "position", "1");
+		addAttribute(segmentClass, "FIELD1", IdocPackage.eNS_URI, "position", "0");
+		ePackage.getEClassifiers().add(segmentClass);
+	}
+
+	@Test
+	public void testStructureDescriptorReadsAnnotations() {
+		StructureDescriptor descriptor = StructureDescriptor.get(structureClass);
+
+		assertEquals("STRUCTURE", descriptor.getName());
+		assertEquals(20, descriptor.getRecordLength());
+		assertEquals(-1, descriptor.getFieldCount());
+		assertEquals(1, descriptor.getFeatureCount());
+		assertEquals(0, descriptor.getField(0).getByteOffset());
+		assertSame(descriptor, StructureDescriptor.get(structureClass));
+	}
+
+	@Test
+	public void testSegmentDescriptorOrdersSegmentFieldsByPosition() {
+		SegmentDescriptor descriptor = SegmentDescriptor.get(segmentClass);
+
+		assertEquals("E1SEGMENT", descriptor.getType());
+		assertEquals(2, descriptor.getHierarchyLevel());
+		assertEquals(2, descriptor.getSegmentFields().size());
+		assertEquals("FIELD1", descriptor.getSegmentFields().get(0).getFeature().getName());
+		assertEquals("FIELD2", descriptor.getSegmentFields().get(1).getFeature().getName());
+		assertSame(descriptor, SegmentDescriptor.get(segmentClass));
+	}
+
+	@Test
+	public void testConcurrentLookupsShareOneDescriptor() throws Exception {
+		final CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+		try {
+			List<Future<Object[]>> lookups = new ArrayList<Future<Object[]>>();
+			for (int i = 0; i < NUM_THREADS; i++) {
+				lookups.add(executor.submit(new Callable<Object[]>() {
+					@Override
+					public Object[] call() throws Exception {
+						start.await();
+						return new Object[] { StructureDescriptor.get(structureClass), SegmentDescriptor.get(segmentClass) };
+					}
+				}));
+			}
+			start.countDown();
+
+			StructureDescriptor structureDescriptor = StructureDescriptor.get(structureClass);
+			SegmentDescriptor segmentDescriptor = SegmentDescriptor.get(segmentClass);
+			for (Future<Object[]> lookup : lookups) {
+				Object[] descriptors = lookup.get();
+				assertSame(structureDescriptor, descriptors[0]);
+				assertSame(segmentDescriptor, descriptors[1]);
+			}
+			assertEquals(1, countAdapters(structureClass, StructureDescriptor.class));
+			assertEquals(1, countAdapters(segmentClass, SegmentDescriptor.class));
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testDescriptorIsRebuiltWhenClassChanges() {
+		StructureDescriptor structureDescriptor = StructureDescriptor.get(structureClass);
+		SegmentDescriptor segmentDescriptor = SegmentDescriptor.get(segmentClass);
+
+		addAttribute(structureClass, "FIELD2", RfcPackage.eNS_URI, "byteOffset", "10");
+		addAttribute(segmentClass, "FIELD3", IdocPackage.eNS_URI, "position", "2");
+
+		assertTrue(structureDescriptor.isStale());
+		assertTrue(segmentDescriptor.isStale());
+		assertFalse(structureClass.eAdapters().contains(structureDescriptor));
+		assertFalse(segmentClass.eAdapters().contains(segmentDescriptor));
+
+		StructureDescriptor rebuiltStructureDescriptor = StructureDescriptor.get(structureClass);
+		SegmentDescriptor rebuiltSegmentDescriptor = SegmentDescriptor.get(segmentClass);
+		assertNotSame(structureDescriptor, rebuiltStructureDescriptor);
+		assertNotSame(segmentDescriptor, rebuiltSegmentDescriptor);
+		assertFalse(rebuiltStructureDescriptor.isStale());
+		assertEquals(2, rebuiltStructureDescriptor.getFeatureCount());
+		assertEquals(3, rebuiltSegmentDescriptor.getSegmentFields().size());
+	}
+
+	@Test
+	public void testDescriptorsOfRemovedPackageAreDiscarded() {
+		StructureDescriptor structureDescriptor = StructureDescriptor.get(structureClass);
+		SegmentDescriptor segmentDescriptor = SegmentDescriptor.get(segmentClass);
+
+		StructureDescriptor.remove(ePackage);
+		SegmentDescriptor.remove(ePackage);
+
+		assertTrue(structureDescriptor.isStale());
+		assertTrue(segmentDescriptor.isStale());
+		assertEquals(0, countAdapters(structureClass, StructureDescriptor.class));
+		assertEquals(0, countAdapters(segmentClass, SegmentDescriptor.class));
+		assertNotSame(structureDescriptor, StructureDescriptor.get(structureClass));
+		assertNotSame(segmentDescriptor, SegmentDescriptor.get(segmentClass));
+	}
+
+	private static int countAdapters(EClass eClass, Class<?> type) {
+		int count = 0;
+		for (Object adapter : eClass.eAdapters()) {
+			if (type.isInstance(adapter)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void addAttribute(EClass eClass, String name, String source, String key, String value) {
+		EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+		attribute.setName(name);
+		attribute.setEType(EcorePackage.Literals.ESTRING);
+		annotate(attribute, source, key, value);
+		eClass.getEStructuralFeatures().add(attribute);
+	}
+
+	private static void annotate(EModelElement modelElement, String source, String key, String value) {
+		EAnnotation annotation = modelElement.getEAnnotation(source);
+		if (annotation == null) {
+			annotation = EcoreFactory.eINSTANCE.createEAnnotation();
+			annotation.setSource(source);
+			modelElement.getEAnnotations().add(annotation);
+		}
+		annotation.getDetails().put(key, value);
+	}
+
+}
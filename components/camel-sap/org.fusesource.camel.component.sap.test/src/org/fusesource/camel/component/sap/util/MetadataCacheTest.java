@@ -0,0 +1,133 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataCacheTest {
+
+	private static final String TEST_NS_URI = "http://sap.fusesource.org/rfc/TEST/";
+
+	private static class CountingBuilder implements MetadataCache.Builder {
+		final AtomicInteger builds = new AtomicInteger();
+
+		@Override
+		public EPackage build(String nsURI) {
+			builds.incrementAndGet();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+			ePackage.setNsURI(nsURI);
+			return ePackage;
+		}
+	}
+
+	@Test
+	public void testConcurrentLookupsBuildPackageOnce() throws Exception {
+		final MetadataCache cache = new MetadataCache();
+		final CountingBuilder builder = new CountingBuilder();
+		final String nsURI = TEST_NS_URI + "SINGLE_FLIGHT";
+		final CountDownLatch start = new CountDownLatch(1);
+		final EPackage[] results = new EPackage[8];
+
+		ExecutorService executor = Executors.newFixedThreadPool(results.length);
+		for (int i = 0; i < results.length; i++) {
+			final int index = i;
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						results[index] = cache.get(nsURI, builder);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+			});
+		}
+		start.countDown();
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+		assertEquals(1, builder.builds.get());
+		for (EPackage result : results) {
+			assertSame(results[0], result);
+		}
+		assertSame(results[0], Util.registry.get(nsURI));
+		assertEquals(results.length, cache.getHitCount() + cache.getMissCount());
+		assertEquals(1, cache.getBuildCount());
+
+		cache.clear();
+		assertNull(Util.registry.get(nsURI));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedPackageIsEvicted() throws Exception {
+		MetadataCache cache = new MetadataCache(2);
+		CountingBuilder builder = new CountingBuilder();
+
+		EPackage first = cache.get(TEST_NS_URI + "FIRST", builder);
+		cache.get(TEST_NS_URI + "SECOND", builder);
+		assertSame(first, cache.get(TEST_NS_URI + "FIRST", builder));
+		cache.get(TEST_NS_URI + "THIRD", builder);
+
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictionCount());
+		assertNull(Util.registry.get(TEST_NS_URI + "SECOND"));
+		assertSame(first, Util.registry.get(TEST_NS_URI + "FIRST"));
+
+		cache.clear();
+	}
+
+	@Test
+	public void testEvictionDropsNameToFeatureMappings() throws Exception {
+		MetadataCache cache = new MetadataCache(1);
+		MetadataCache.Builder builder = new MetadataCache.Builder() {
+			@Override
+			public EPackage build(String nsURI) {
+				EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+				ePackage.setName("TEST");
+				ePackage.setNsPrefix("TEST");
+				ePackage.setNsURI(nsURI);
+				EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+				eClass.setName("RECORD");
+				EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+				attribute.setName("NAME");
+				attribute.setEType(EcorePackage.Literals.ESTRING);
+				eClass.getEStructuralFeatures().add(attribute);
+				ePackage.getEClassifiers().add(eClass);
+				return ePackage;
+			}
+		};
+
+		// Loading an object of a cached package maps its features.
+		cache.get(TEST_NS_URI + "MAPPED", builder);
+		Util.unmarshal("<?xml version=\"1.0\" encoding=\"UTF-8\"?><TEST:RECORD xmlns:TEST=\"" + TEST_NS_URI + "MAPPED\" NAME=\"VALUE\"/>");
+		assertTrue(Util.getNameToFeatureMapSize() > 0);
+
+		cache.get(TEST_NS_URI + "UNMAPPED", builder);
+
+		assertEquals(1, cache.getEvictionCount());
+		assertEquals(0, Util.getNameToFeatureMapSize());
+
+		cache.clear();
+	}
+
+}
@@ -0,0 +1,123 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.io.File;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class MetadataStoreTest {
+
+	private static final String TEST_NS_URI = "http://sap.fusesource.org/rfc/TEST/";
+
+	private static final Executor SAME_THREAD = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static class FieldBuilder implements MetadataCache.Builder {
+		final AtomicInteger builds = new AtomicInteger();
+		final String[] fieldNames;
+
+		FieldBuilder(String... fieldNames) {
+			this.fieldNames = fieldNames;
+		}
+
+		@Override
+		public EPackage build(String nsURI) {
+			builds.incrementAndGet();
+			EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+			ePackage.setName("FUNCTION");
+			ePackage.setNsPrefix("FUNCTION");
+			ePackage.setNsURI(nsURI);
+			EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+			eClass.setName("Request");
+			ePackage.getEClassifiers().add(eClass);
+			for (String fieldName : fieldNames) {
+				EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+				attribute.setName(fieldName);
+				attribute.setEType(EcorePackage.Literals.ESTRING);
+				eClass.getEStructuralFeatures().add(attribute);
+			}
+			return ePackage;
+		}
+	}
+
+	@Test
+	public void testStoredPackageIsLoadedWithoutBuild() throws Exception {
+		File directory = folder.newFolder("store");
+		String nsURI = TEST_NS_URI + "/NAMESPACE/STORED";
+
+		MetadataCache first = new MetadataCache();
+		first.setStore(new MetadataStore(directory, SAME_THREAD));
+		FieldBuilder builder = new FieldBuilder("A", "B");
+		EPackage built = first.get(nsURI, builder);
+		first.clear();
+		assertTrue(new MetadataStore(directory, SAME_THREAD).getFile(nsURI).isFile());
+
+		MetadataStore store = new MetadataStore(directory, SAME_THREAD);
+		MetadataCache second = new MetadataCache();
+		second.setStore(store);
+		EPackage loaded = second.get(nsURI, builder);
+
+		assertNotNull(loaded);
+		assertNotSame(built, loaded);
+		assertEquals(0, second.getBuildCount());
+		assertEquals(1, store.getLoadCount());
+		assertEquals(MetadataStore.getSignature(built), MetadataStore.getStoredSignature(loaded));
+		assertEquals(2, ((EClass) loaded.getEClassifier("Request")).getEStructuralFeatures().size());
+
+		// The background refresh found the stored package current.
+		assertEquals(1, store.getRefreshCount());
+		assertEquals(0, store.getStaleCount());
+		assertSame(loaded, second.get(nsURI, builder));
+
+		second.clear();
+	}
+
+	@Test
+	public void testStalePackageIsReplaced() throws Exception {
+		File directory = folder.newFolder("store");
+		String nsURI = TEST_NS_URI + "STALE";
+
+		MetadataCache first = new MetadataCache();
+		first.setStore(new MetadataStore(directory, SAME_THREAD));
+		first.get(nsURI, new FieldBuilder("A"));
+		first.clear();
+
+		// The function's interface changed since the package was stored.
+		MetadataStore store = new MetadataStore(directory, SAME_THREAD);
+		MetadataCache second = new MetadataCache();
+		second.setStore(store);
+		EPackage stale = second.get(nsURI, new FieldBuilder("A", "B"));
+		assertEquals(1, ((EClass) stale.getEClassifier("Request")).getEStructuralFeatures().size());
+
+		EPackage current = second.get(nsURI, new FieldBuilder("A", "B"));
+		assertEquals(1, store.getStaleCount());
+		assertNotSame(stale, current);
+		assertEquals(2, ((EClass) current.getEClassifier("Request")).getEStructuralFeatures().size());
+		assertSame(current, Util.registry.get(nsURI));
+		assertEquals(MetadataStore.getSignature(current), MetadataStore.getStoredSignature(store.load(nsURI)));
+
+		second.clear();
+	}
+
+}
@@ -0,0 +1,319 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoRecordMetaData;
+import com.sap.conn.jco.JCoTable;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+public class RecordMappingTest {
+
+	private static final String[] FIELD_NAMES = { "DATE", "TIME", "AMOUNT", "DATA", "ITEMS" };
+
+	private static final int[] FIELD_TYPES = { JCoMetaData.TYPE_DATE, JCoMetaData.TYPE_TIME, JCoMetaData.TYPE_BCD, JCoMetaData.TYPE_BYTE, JCoMetaData.TYPE_TABLE };
+
+	private static final Date DATE_VALUE = new Date(1388534400000L);
+
+	private static final Date TIME_VALUE = new Date(45296000L);
+
+	private static final BigDecimal AMOUNT_VALUE = new BigDecimal("1234.56");
+
+	private static final byte[] DATA_VALUE = { 0x01, 0x02, (byte) 0xFF };
+
+	private EClass rowClass;
+
+	private EClass tableClass;
+
+	private EClass recordClass;
+
+	@Before
+	public void setUp() {
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("TEST");
+		ePackage.setNsURI("http://sap.fusesource.org/rfc/TEST/RECORD_MAPPING");
+
+		rowClass = createClass(ePackage, "ITEM", RfcPackage.eINSTANCE.getStructure());
+		addAttribute(rowClass, "NAME", EcorePackage.Literals.ESTRING);
+
+		tableClass = createClass(ePackage, "ITEM_TABLE", RfcPackage.eINSTANCE.getTable());
+		addReference(tableClass, RfcUtil.ROW, rowClass, -1);
+
+		recordClass = createClass(ePackage, "RECORD", RfcPackage.eINSTANCE.getStructure());
+		addAttribute(recordClass, "DATE", EcorePackage.Literals.EDATE);
+		addAttribute(recordClass, "TIME", EcorePackage.Literals.EDATE);
+		addAttribute(recordClass, "AMOUNT", EcorePackage.Literals.EBIG_DECIMAL);
+		addAttribute(recordClass, "DATA", EcorePackage.Literals.EBYTE_ARRAY);
+		addReference(recordClass, "ITEMS", tableClass, 1);
+	}
+
+	@Test
+	public void testExtractCopiesFieldsWithTypedGetters() {
+		Record record = new Record(createRecordMetaData(), DATE_VALUE, TIME_VALUE, AMOUNT_VALUE, DATA_VALUE, null);
+		record.tables.put(4, new Record(createRowMetaData()));
+		Structure structure = create(recordClass);
+
+		RecordMapping.get(record.metaData, recordClass).extract(record.asTable(), structure, false);
+
+		assertEquals(DATE_VALUE, structure.eGet(recordClass.getEStructuralFeature("DATE")));
+		assertEquals(TIME_VALUE, structure.eGet(recordClass.getEStructuralFeature("TIME")));
+		assertEquals(AMOUNT_VALUE, structure.eGet(recordClass.getEStructuralFeature("AMOUNT")));
+		assertArrayEquals(DATA_VALUE, (byte[]) structure.eGet(recordClass.getEStructuralFeature("DATA")));
+		assertEquals(Arrays.asList("getDate", "getDate", "getBigDecimal", "getByteArray"), record.accessors);
+	}
+
+	@Test
+	public void testExtractAppendsRowsOfNestedTable() {
+		Record record = new Record(createRecordMetaData(), null, null, null, null, null);
+		Record table = new Record(createRowMetaData(), "A", "B");
+		record.tables.put(4, table);
+		Structure structure = create(recordClass);
+
+		RecordMapping.get(record.metaData, recordClass).extract(record.asTable(), structure, false);
+
+		EList<Structure> rows = getRows(structure);
+		assertEquals(2, rows.size());
+		assertEquals("A", rows.get(0).eGet(rowClass.getEStructuralFeature("NAME")));
+		assertEquals("B", rows.get(1).eGet(rowClass.getEStructuralFeature("NAME")));
+		assertEquals(Arrays.asList("getString", "getString"), table.accessors);
+	}
+
+	@Test
+	public void testFillSetsFieldsWithTypedSetters() {
+		Record record = new Record(createRecordMetaData(), null, null, null, null, null);
+		Record table = new Record(createRowMetaData());
+		record.tables.put(4, table);
+		Structure structure = create(recordClass);
+		structure.eSet(recordClass.getEStructuralFeature("DATE"), DATE_VALUE);
+		structure.eSet(recordClass.getEStructuralFeature("TIME"), TIME_VALUE);
+		structure.eSet(recordClass.getEStructuralFeature("AMOUNT"), AMOUNT_VALUE);
+		structure.eSet(recordClass.getEStructuralFeature("DATA"), DATA_VALUE);
+		Structure row = create(rowClass);
+		row.eSet(rowClass.getEStructuralFeature("NAME"), "A");
+		getRows(structure).add(row);
+
+		RecordMapping.get(record.metaData, recordClass).fill(structure, record.asTable());
+
+		Object[] values = record.rows.get(0);
+		assertEquals(DATE_VALUE, values[0]);
+		assertEquals(TIME_VALUE, values[1]);
+		assertEquals(AMOUNT_VALUE, values[2]);
+		assertArrayEquals(DATA_VALUE, (byte[]) values[3]);
+		assertEquals(Arrays.asList("setValue(Date)", "setValue(Date)", "setValue(BigDecimal)", "setValue(byte[])"), record.accessors);
+		assertEquals(1, table.rows.size());
+		assertEquals("A", table.rows.get(0)[0]);
+		assertEquals(Arrays.asList("setValue(String)"), table.accessors);
+	}
+
+	@Test
+	public void testPlanIsReusedForSameMetaData() {
+		JCoRecordMetaData metaData = createRowMetaData();
+
+		RecordMapping mapping = RecordMapping.get(metaData, rowClass);
+
+		assertSame(mapping, RecordMapping.get(metaData, rowClass));
+		assertEquals(1, RecordMapping.size(rowClass));
+	}
+
+	@Test
+	public void testPlanOfCollectedMetaDataIsDropped() throws Exception {
+		JCoRecordMetaData metaData = createRowMetaData();
+		RecordMapping.get(metaData, rowClass);
+		WeakReference<JCoRecordMetaData> reference = new WeakReference<JCoRecordMetaData>(metaData);
+		metaData = null;
+		for (int i = 0; i < 50 && reference.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		Assume.assumeTrue(reference.get() == null);
+
+		JCoRecordMetaData newMetaData = createRowMetaData();
+		RecordMapping mapping = RecordMapping.get(newMetaData, rowClass);
+
+		assertEquals(1, RecordMapping.size(rowClass));
+		assertSame(mapping, RecordMapping.get(newMetaData, rowClass));
+	}
+
+	@Test
+	public void testPlansOfLiveMetaDataAreKept() {
+		JCoRecordMetaData metaData1 = createRowMetaData();
+		JCoRecordMetaData metaData2 = createRowMetaData();
+
+		RecordMapping mapping1 = RecordMapping.get(metaData1, rowClass);
+		RecordMapping mapping2 = RecordMapping.get(metaData2, rowClass);
+
+		assertFalse(mapping1 == mapping2);
+		assertEquals(2, RecordMapping.size(rowClass));
+		assertSame(mapping1, RecordMapping.get(metaData1, rowClass));
+		assertSame(mapping2, RecordMapping.get(metaData2, rowClass));
+	}
+
+	@SuppressWarnings("unchecked")
+	private EList<Structure> getRows(Structure structure) {
+		EObject table = (EObject) structure.eGet(recordClass.getEStructuralFeature("ITEMS"));
+		if (table == null) {
+			table = create(tableClass);
+			structure.eSet(recordClass.getEStructuralFeature("ITEMS"), table);
+		}
+		return (EList<Structure>) table.eGet(tableClass.getEStructuralFeature(RfcUtil.ROW));
+	}
+
+	private JCoRecordMetaData createRecordMetaData() {
+		return createMetaData(FIELD_NAMES, FIELD_TYPES, createRowMetaData());
+	}
+
+	private JCoRecordMetaData createRowMetaData() {
+		return createMetaData(new String[] { "NAME" }, new int[] { JCoMetaData.TYPE_CHAR }, null);
+	}
+
+	private static JCoRecordMetaData createMetaData(final String[] names, final int[] types, final JCoRecordMetaData tableMetaData) {
+		return (JCoRecordMetaData) Proxy.newProxyInstance(RecordMappingTest.class.getClassLoader(), new Class<?>[] { JCoRecordMetaData.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				String name = method.getName();
+				if (name.equals("getFieldCount")) {
+					return names.length;
+				} else if (name.equals("getName") && args != null) {
+					return names[(Integer) args[0]];
+				} else if (name.equals("getType")) {
+					return types[(Integer) args[0]];
+				} else if (name.equals("isStructure")) {
+					return false;
+				} else if (name.equals("isTable")) {
+					return types[(Integer) args[0]] == JCoMetaData.TYPE_TABLE;
+				} else if (name.equals("getRecordMetaData")) {
+					return tableMetaData;
+				} else if (name.equals("hashCode")) {
+					return System.identityHashCode(proxy);
+				} else if (name.equals("equals")) {
+					return proxy == args[0];
+				}
+				throw new UnsupportedOperationException(name);
+			}
+		});
+	}
+
+	private static <T extends EObject> T create(EClass eClass) {
+		@SuppressWarnings("unchecked")
+		T eObject = (T) eClass.getEPackage().getEFactoryInstance().create(eClass);
+		return eObject;
+	}
+
+	private static EClass createClass(EPackage ePackage, String name, EClass superType) {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		eClass.getESuperTypes().add(superType);
+		ePackage.getEClassifiers().add(eClass);
+		return eClass;
+	}
+
+	private static void addAttribute(EClass eClass, String name, EDataType type) {
+		EAttribute attribute = EcoreFactory.eINSTANCE.createEAttribute();
+		attribute.setName(name);
+		attribute.setEType(type);
+		eClass.getEStructuralFeatures().add(attribute);
+	}
+
+	private static void addReference(EClass eClass, String name, EClass type, int upperBound) {
+		EReference reference = EcoreFactory.eINSTANCE.createEReference();
+		reference.setName(name);
+		reference.setEType(type);
+		reference.setContainment(true);
+		reference.setUpperBound(upperBound);
+		eClass.getEStructuralFeatures().add(reference);
+	}
+
+	/**
+	 * A JCo record or table holding its field values in rows and recording the
+	 * names of the field accessors called.
+	 */
+	private static class Record implements InvocationHandler {
+
+		final JCoMetaData metaData;
+
+		final List<Object[]> rows = new ArrayList<Object[]>();
+
+		final Map<Integer, Record> tables = new HashMap<Integer, Record>();
+
+		final List<String> accessors = new ArrayList<String>();
+
+		int row;
+
+		/**
+		 * Creates a record with a single row, or a table with a row per value
+		 * of its single field.
+		 */
+		Record(JCoMetaData metaData, Object... values) {
+			this.metaData = metaData;
+			if (metaData.getFieldCount() == 1) {
+				for (Object value : values) {
+					rows.add(new Object[] { value });
+				}
+			} else {
+				rows.add(values);
+			}
+		}
+
+		JCoTable asTable() {
+			return (JCoTable) Proxy.newProxyInstance(RecordMappingTest.class.getClassLoader(), new Class<?>[] { JCoTable.class }, this);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) {
+			String name = method.getName();
+			if (name.equals("getMetaData")) {
+				return metaData;
+			} else if (name.equals("getNumRows")) {
+				return rows.size();
+			} else if (name.equals("setRow")) {
+				row = (Integer) args[0];
+				return null;
+			} else if (name.equals("appendRows")) {
+				for (int i = 0; i < (Integer) args[0]; i++) {
+					rows.add(new Object[metaData.getFieldCount()]);
+				}
+				return null;
+			} else if (name.equals("getTable")) {
+				return tables.get(args[0]).asTable();
+			} else if (name.equals("setValue")) {
+				accessors.add("setValue(" + method.getParameterTypes()[1].getSimpleName() + ")");
+				rows.get(row)[(Integer) args[0]] = args[1];
+				return null;
+			} else if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+				accessors.add(name);
+				return rows.get(row)[(Integer) args[0]];
+			}
+			throw new UnsupportedOperationException(name);
+		}
+	}
+
+}
@@ -0,0 +1,157 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class UtilTest {
+
+	private static final String TEST_NS_URI = "http://sap.fusesource.org/test/UtilTest";
+
+	private final EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+
+	private final EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+
+	private final EAttribute nameAttribute = EcoreFactory.eINSTANCE.createEAttribute();
+
+	private final EAttribute valueAttribute = EcoreFactory.eINSTANCE.createEAttribute();
+
+	public UtilTest() {
+		ePackage.setName("test");
+		ePackage.setNsPrefix("test");
+		ePackage.setNsURI(TEST_NS_URI);
+
+		EDataType valueType = EcoreFactory.eINSTANCE.createEDataType();
+		valueType.setName("Value");
+		valueType.setInstanceClass(Object.class);
+		ePackage.getEClassifiers().add(valueType);
+
+		eClass.setName("Record");
+		nameAttribute.setName("NAME");
+		nameAttribute.setEType(EcorePackage.Literals.ESTRING);
+		eClass.getEStructuralFeatures().add(nameAttribute);
+		valueAttribute.setName("VALUE");
+		valueAttribute.setEType(valueType);
+		eClass.getEStructuralFeatures().add(valueAttribute);
+		ePackage.getEClassifiers().add(eClass);
+	}
+
+	@Test
+	public void testInputStreamContainsMarshaledObject() throws Exception {
+		EObject record = EcoreUtil.create(eClass);
+		record.eSet(nameAttribute, "NAME0");
+
+		InputStream in = Util.toInputStream(record);
+		ByteArrayOutputStream content = new ByteArrayOutputStream();
+		byte[] buffer = new byte[7];
+		for (int n = in.read(buffer); n != -1; n = in.read(buffer)) {
+			content.write(buffer, 0, n);
+		}
+		in.close();
+
+		assertEquals(Util.marshal(record), content.toString("UTF-8"));
+	}
+
+	@Test
+	public void testInputStreamThrowsMarshalingFailureAtEveryRead() throws Exception {
+		EObject record = EcoreUtil.create(eClass);
+		record.eSet(valueAttribute, new Object() {
+			@Override
+			public String toString() {
+				throw new IllegalStateException("Value can not be converted");
+			}
+		});
+
+		InputStream in = Util.toInputStream(record);
+		for (int i = 0; i < 2; i++) {
+			try {
+				in.read();
+				fail("Marshaling failure not thrown");
+			} catch (IOException e) {
+				assertEquals("Value can not be converted", rootCause(e).getMessage());
+			}
+		}
+		in.close();
+	}
+
+	@Test
+	public void testAbandonedInputStreamLeavesNoMarshalingThread() throws Exception {
+		// Content larger than any buffer of the stream.
+		char[] name = new char[1024 * 1024];
+		Arrays.fill(name, 'N');
+		EObject record = EcoreUtil.create(eClass);
+		record.eSet(nameAttribute, new String(name));
+
+		// Read only the beginning of the content and abandon the stream.
+		InputStream in = Util.toInputStream(record);
+		in.read(new byte[8]);
+		in = null;
+
+		for (Map.Entry<Thread, StackTraceElement[]> thread : Thread.getAllStackTraces().entrySet()) {
+			if (thread.getKey() != Thread.currentThread()) {
+				for (StackTraceElement element : thread.getValue()) {
+					assertFalse("Thread '" + thread.getKey().getName() + "' still marshaling", element.getClassName().startsWith(Util.class.getName()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testClosedInputStreamCanNotBeRead() throws Exception {
+		InputStream in = Util.toInputStream(EcoreUtil.create(eClass));
+		in.close();
+
+		try {
+			in.read();
+			fail("Read of closed stream not rejected");
+		} catch (IOException e) {
+			assertEquals("Stream closed", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInputStreamLoadsShareNameToFeatureMap() throws Exception {
+		EObject record = EcoreUtil.create(eClass);
+		record.eSet(nameAttribute, "NAME0");
+		EPackage.Registry.INSTANCE.put(TEST_NS_URI, ePackage);
+		try {
+			Util.clearNameToFeatureMap();
+
+			EObject loaded = Util.fromInputStream(Util.toInputStream(record));
+			int size = Util.getNameToFeatureMapSize();
+			assertTrue("Name to feature map not filled by load", size > 0);
+			assertEquals("NAME0", loaded.eGet(nameAttribute));
+
+			loaded = Util.fromInputStream(Util.toInputStream(record));
+			assertEquals("Name to feature map not reused by load", size, Util.getNameToFeatureMapSize());
+			assertEquals("NAME0", loaded.eGet(nameAttribute));
+		} finally {
+			EPackage.Registry.INSTANCE.remove(TEST_NS_URI);
+		}
+	}
+
+	private static Throwable rootCause(Throwable throwable) {
+		while (throwable.getCause() != null) {
+			throwable = throwable.getCause();
+		}
+		return throwable;
+	}
+
+}
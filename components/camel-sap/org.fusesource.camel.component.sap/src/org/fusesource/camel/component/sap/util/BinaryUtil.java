@@ -0,0 +1,707 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.Enumerator;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EEnum;
+import org.eclipse.emf.ecore.EEnumLiteral;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+
+/**
+ * Compact binary encoding of SAP data objects: structures, documents and
+ * document lists.
+ * <p>
+ * An encoded object begins with the {@link #MAGIC} bytes and a format
+ * version. Each object is written as a reference to its class followed by the
+ * values of the persistent features of its class in feature order, without
+ * feature names. A class is described once per encoding by its package
+ * namespace URI, its name and a fingerprint of its persistent features;
+ * subsequent objects of the class refer to it by index. Decoding fails if the
+ * fingerprint of a class differs from that of the class registered in the
+ * global package registry, i.e. if the object was encoded with different
+ * meta-data.
+ * <p>
+ * Transient features and non-containment references are not encoded; the
+ * latter are derived from containment in the SAP data models.
+ *
+ * @author punkhorn
+ *
+ */
+public class BinaryUtil {
+
+	/**
+	 * The bytes beginning every binary encoded object.
+	 */
+	public static final byte[] MAGIC = { 'S', 'A', 'P', 'B' };
+
+	public static final int VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final int NULL_VALUE = 0;
+	private static final int VALUE = 1;
+	private static final int UNSET_VALUE = 2;
+
+	private static final int STRING_TYPE = 0;
+	private static final int INT_TYPE = 1;
+	private static final int LONG_TYPE = 2;
+	private static final int SHORT_TYPE = 3;
+	private static final int BYTE_TYPE = 4;
+	private static final int DOUBLE_TYPE = 5;
+	private static final int FLOAT_TYPE = 6;
+	private static final int BOOLEAN_TYPE = 7;
+	private static final int CHAR_TYPE = 8;
+	private static final int BIG_DECIMAL_TYPE = 9;
+	private static final int BIG_INTEGER_TYPE = 10;
+	private static final int DATE_TYPE = 11;
+	private static final int BYTE_ARRAY_TYPE = 12;
+	private static final int ENUM_TYPE = 13;
+	private static final int OTHER_TYPE = 14;
+
+	/**
+	 * Encodes <code>eObject</code> into returned byte array.
+	 *
+	 * @param eObject
+	 *            - the object to encode.
+	 * @return The encoded object.
+	 * @throws IOException
+	 */
+	public static byte[] marshal(EObject eObject) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		marshal(eObject, out);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Encodes <code>eObject</code> into <code>out</code>.
+	 *
+	 * @param eObject
+	 *            - the object to encode.
+	 * @param out
+	 *            - the stream to write encoded object to.
+	 * @throws IOException
+	 */
+	public static void marshal(EObject eObject, OutputStream out) throws IOException {
+		if (eObject == null) {
+			throw new IllegalArgumentException("eObject argument can not be null");
+		}
+		Writer writer = new Writer(out);
+		writer.out.write(MAGIC);
+		writer.out.writeByte(VERSION);
+		writer.writeObject(eObject);
+		writer.out.flush();
+	}
+
+	/**
+	 * Decodes object from <code>bytes</code>.
+	 *
+	 * @param bytes
+	 *            - the encoded object.
+	 * @return The decoded object.
+	 * @throws IOException
+	 */
+	public static EObject unmarshal(byte[] bytes) throws IOException {
+		return unmarshal(new ByteArrayInputStream(bytes));
+	}
+
+	/**
+	 * Decodes object from <code>in</code>.
+	 *
+	 * @param in
+	 *            - the stream containing the encoded object.
+	 * @return The decoded object.
+	 * @throws IOException
+	 *             Thrown if <code>in</code> does not contain an encoded
+	 *             object or if the object was encoded with different
+	 *             meta-data.
+	 */
+	public static EObject unmarshal(InputStream in) throws IOException {
+		Reader reader = new Reader(in);
+		byte[] magic = new byte[MAGIC.length];
+		reader.in.readFully(magic);
+		if (!isMagic(magic)) {
+			throw new IOException("Input is not a binary encoded object");
+		}
+		int version = reader.in.readUnsignedByte();
+		if (version != VERSION) {
+			throw new IOException("Unsupported binary encoding version '" + version + "'");
+		}
+		return reader.readObject();
+	}
+
+	/**
+	 * Returns whether <code>bytes</code> contain a binary encoded object.
+	 *
+	 * @param bytes
+	 *            - the bytes to test.
+	 * @return <code>true</code> if <code>bytes</code> begin with
+	 *         {@link #MAGIC}; <code>false</code> otherwise.
+	 */
+	public static boolean isBinary(byte[] bytes) {
+		return bytes != null && bytes.length >= MAGIC.length && isMagic(bytes);
+	}
+
+	/**
+	 * Returns whether <code>in</code> contains a binary encoded object without
+	 * consuming any of its bytes.
+	 *
+	 * @param in
+	 *            - the stream to test; must support mark.
+	 * @return <code>true</code> if <code>in</code> begins with
+	 *         {@link #MAGIC}; <code>false</code> otherwise.
+	 * @throws IOException
+	 */
+	public static boolean isBinary(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			throw new IllegalArgumentException("in argument must support mark");
+		}
+		byte[] magic = new byte[MAGIC.length];
+		in.mark(MAGIC.length);
+		try {
+			int count = 0;
+			while (count < magic.length) {
+				int n = in.read(magic, count, magic.length - count);
+				if (n < 0) {
+					return false;
+				}
+				count += n;
+			}
+			return isMagic(magic);
+		} finally {
+			in.reset();
+		}
+	}
+
+	private static boolean isMagic(byte[] bytes) {
+		for (int i = 0; i < MAGIC.length; i++) {
+			if (bytes[i] != MAGIC[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the fingerprint of the persistent features of
+	 * <code>eClass</code>.
+	 *
+	 * @param eClass
+	 *            - the class.
+	 * @return The fingerprint of <code>eClass</code>.
+	 */
+	public static long getFingerprint(EClass eClass) {
+		return getClassInfo(eClass).fingerprint;
+	}
+
+	private static ClassInfo getClassInfo(EClass eClass) {
+		ClassInfo classInfo = findClassInfo(eClass);
+		if (classInfo == null) {
+			synchronized (eClass) {
+				classInfo = findClassInfo(eClass);
+				if (classInfo == null) {
+					classInfo = new ClassInfo(eClass);
+					eClass.eAdapters().add(classInfo);
+				}
+			}
+		}
+		return classInfo;
+	}
+
+	private static ClassInfo findClassInfo(EClass eClass) {
+		EList<Adapter> adapters = eClass.eAdapters();
+		for (int i = 0; i < adapters.size(); i++) {
+			Adapter adapter = adapters.get(i);
+			if (adapter instanceof ClassInfo) {
+				return (ClassInfo) adapter;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The persistent features of a class and their encoded types, attached to
+	 * the class as an adapter. Detaches itself when the features of its class
+	 * are changed.
+	 */
+	private static class ClassInfo extends AdapterImpl {
+
+		final EClass eClass;
+
+		final EStructuralFeature[] features;
+
+		final int[] types;
+
+		final long fingerprint;
+
+		ClassInfo(EClass eClass) {
+			this.eClass = eClass;
+			List<EStructuralFeature> persistentFeatures = new ArrayList<EStructuralFeature>();
+			for (EStructuralFeature feature : eClass.getEAllStructuralFeatures()) {
+				if (feature.isTransient()) {
+					continue;
+				}
+				if (feature instanceof EReference && !((EReference) feature).isContainment()) {
+					continue;
+				}
+				persistentFeatures.add(feature);
+			}
+			features = persistentFeatures.toArray(new EStructuralFeature[persistentFeatures.size()]);
+			types = new int[features.length];
+
+			// 64-bit FNV-1a hash of class and feature signatures.
+			long hash = 0xcbf29ce484222325L;
+			hash = hash(hash, eClass.getEPackage().getNsURI());
+			hash = hash(hash, eClass.getName());
+			for (int i = 0; i < features.length; i++) {
+				EStructuralFeature feature = features[i];
+				types[i] = feature instanceof EAttribute ? getType(((EAttribute) feature).getEAttributeType()) : -1;
+				hash = hash(hash, feature.getName());
+				hash = hash(hash, feature.getEType() == null ? "" : feature.getEType().getName());
+				hash = hash(hash, feature.isMany() ? "*" : "1");
+			}
+			fingerprint = hash;
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == ClassInfo.class;
+		}
+
+		@Override
+		public void notifyChanged(Notification msg) {
+			Object feature = msg.getFeature();
+			if (feature == EcorePackage.Literals.ECLASS__ESTRUCTURAL_FEATURES || feature == EcorePackage.Literals.ECLASS__ESUPER_TYPES) {
+				// Stale: rebuilt on next lookup.
+				((EClass) msg.getNotifier()).eAdapters().remove(this);
+			}
+		}
+
+		private static long hash(long hash, String string) {
+			for (int i = 0; i < string.length(); i++) {
+				hash ^= string.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+			hash ^= 0xff;
+			hash *= 0x100000001b3L;
+			return hash;
+		}
+
+		private static int getType(EDataType dataType) {
+			if (dataType instanceof EEnum) {
+				return ENUM_TYPE;
+			}
+			Class<?> instanceClass = dataType.getInstanceClass();
+			if (instanceClass == String.class) {
+				return STRING_TYPE;
+			} else if (instanceClass == Integer.class || instanceClass == int.class) {
+				return INT_TYPE;
+			} else if (instanceClass == Long.class || instanceClass == long.class) {
+				return LONG_TYPE;
+			} else if (instanceClass == Short.class || instanceClass == short.class) {
+				return SHORT_TYPE;
+			} else if (instanceClass == Byte.class || instanceClass == byte.class) {
+				return BYTE_TYPE;
+			} else if (instanceClass == Double.class || instanceClass == double.class) {
+				return DOUBLE_TYPE;
+			} else if (instanceClass == Float.class || instanceClass == float.class) {
+				return FLOAT_TYPE;
+			} else if (instanceClass == Boolean.class || instanceClass == boolean.class) {
+				return BOOLEAN_TYPE;
+			} else if (instanceClass == Character.class || instanceClass == char.class) {
+				return CHAR_TYPE;
+			} else if (instanceClass == BigDecimal.class) {
+				return BIG_DECIMAL_TYPE;
+			} else if (instanceClass == BigInteger.class) {
+				return BIG_INTEGER_TYPE;
+			} else if (instanceClass == Date.class) {
+				return DATE_TYPE;
+			} else if (instanceClass == byte[].class) {
+				return BYTE_ARRAY_TYPE;
+			}
+			return OTHER_TYPE;
+		}
+	}
+
+	private static class Writer {
+
+		final DataOutputStream out;
+
+		final Map<EClass, Integer> classIndexes = new HashMap<EClass, Integer>();
+
+		Writer(OutputStream out) {
+			this.out = new DataOutputStream(out);
+		}
+
+		void writeObject(EObject eObject) throws IOException {
+			ClassInfo classInfo = getClassInfo(eObject.eClass());
+			writeClass(classInfo);
+			for (int i = 0; i < classInfo.features.length; i++) {
+				EStructuralFeature feature = classInfo.features[i];
+				if (FeatureMapUtil.isFeatureMap(feature)) {
+					writeFeatureMap(classInfo, (FeatureMap) eObject.eGet(feature));
+				} else if (feature instanceof EReference) {
+					writeReference(eObject, (EReference) feature);
+				} else {
+					writeAttribute(eObject, (EAttribute) feature, classInfo.types[i]);
+				}
+			}
+		}
+
+		void writeClass(ClassInfo classInfo) throws IOException {
+			Integer index = classIndexes.get(classInfo.eClass);
+			if (index != null) {
+				writeVarInt(index);
+				return;
+			}
+			index = classIndexes.size();
+			classIndexes.put(classInfo.eClass, index);
+			writeVarInt(index);
+			writeString(classInfo.eClass.getEPackage().getNsURI());
+			writeString(classInfo.eClass.getName());
+			out.writeLong(classInfo.fingerprint);
+		}
+
+		void writeReference(EObject eObject, EReference reference) throws IOException {
+			if (reference.isMany()) {
+				@SuppressWarnings("unchecked")
+				List<EObject> values = (List<EObject>) eObject.eGet(reference);
+				writeVarInt(values.size());
+				for (EObject value : values) {
+					writeObject(value);
+				}
+			} else {
+				EObject value = (EObject) eObject.eGet(reference);
+				if (value == null) {
+					out.writeByte(NULL_VALUE);
+				} else {
+					out.writeByte(VALUE);
+					writeObject(value);
+				}
+			}
+		}
+
+		void writeAttribute(EObject eObject, EAttribute attribute, int type) throws IOException {
+			if (attribute.isMany()) {
+				List<?> values = (List<?>) eObject.eGet(attribute);
+				writeVarInt(values.size());
+				for (Object value : values) {
+					writeNullableValue(attribute, type, value);
+				}
+			} else if (!eObject.eIsSet(attribute)) {
+				out.writeByte(UNSET_VALUE);
+			} else {
+				writeNullableValue(attribute, type, eObject.eGet(attribute));
+			}
+		}
+
+		void writeFeatureMap(ClassInfo classInfo, FeatureMap featureMap) throws IOException {
+			writeVarInt(featureMap.size());
+			for (int i = 0; i < featureMap.size(); i++) {
+				EStructuralFeature feature = featureMap.getEStructuralFeature(i);
+				Object value = featureMap.getValue(i);
+				writeVarInt(classInfo.eClass.getFeatureID(feature));
+				if (feature instanceof EReference) {
+					writeObject((EObject) value);
+				} else {
+					writeNullableValue((EAttribute) feature, ClassInfo.getType(((EAttribute) feature).getEAttributeType()), value);
+				}
+			}
+		}
+
+		void writeNullableValue(EAttribute attribute, int type, Object value) throws IOException {
+			if (value == null) {
+				out.writeByte(NULL_VALUE);
+			} else {
+				out.writeByte(VALUE);
+				writeValue(attribute, type, value);
+			}
+		}
+
+		void writeValue(EAttribute attribute, int type, Object value) throws IOException {
+			switch (type) {
+			case STRING_TYPE:
+				writeString((String) value);
+				break;
+			case INT_TYPE:
+				writeVarLong(((Integer) value).intValue());
+				break;
+			case LONG_TYPE:
+				writeVarLong(((Long) value).longValue());
+				break;
+			case SHORT_TYPE:
+				writeVarLong(((Short) value).shortValue());
+				break;
+			case BYTE_TYPE:
+				out.writeByte(((Byte) value).byteValue());
+				break;
+			case DOUBLE_TYPE:
+				out.writeDouble(((Double) value).doubleValue());
+				break;
+			case FLOAT_TYPE:
+				out.writeFloat(((Float) value).floatValue());
+				break;
+			case BOOLEAN_TYPE:
+				out.writeBoolean(((Boolean) value).booleanValue());
+				break;
+			case CHAR_TYPE:
+				out.writeChar(((Character) value).charValue());
+				break;
+			case BIG_DECIMAL_TYPE:
+				BigDecimal decimal = (BigDecimal) value;
+				writeVarLong(decimal.scale());
+				writeBytes(decimal.unscaledValue().toByteArray());
+				break;
+			case BIG_INTEGER_TYPE:
+				writeBytes(((BigInteger) value).toByteArray());
+				break;
+			case DATE_TYPE:
+				writeVarLong(((Date) value).getTime());
+				break;
+			case BYTE_ARRAY_TYPE:
+				writeBytes((byte[]) value);
+				break;
+			case ENUM_TYPE:
+				writeVarLong(((Enumerator) value).getValue());
+				break;
+			default:
+				writeString(EcoreUtil.convertToString(attribute.getEAttributeType(), value));
+			}
+		}
+
+		void writeString(String string) throws IOException {
+			writeBytes(string.getBytes(UTF8));
+		}
+
+		void writeBytes(byte[] bytes) throws IOException {
+			writeVarInt(bytes.length);
+			out.write(bytes);
+		}
+
+		void writeVarInt(int value) throws IOException {
+			while ((value & ~0x7F) != 0) {
+				out.writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			out.writeByte(value);
+		}
+
+		void writeVarLong(long value) throws IOException {
+			// Zig-zag encode so that small negative values are short.
+			value = (value << 1) ^ (value >> 63);
+			while ((value & ~0x7FL) != 0) {
+				out.writeByte((int) ((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			out.writeByte((int) value);
+		}
+	}
+
+	private static class Reader {
+
+		final DataInputStream in;
+
+		final List<ClassInfo> classes = new ArrayList<ClassInfo>();
+
+		Reader(InputStream in) {
+			this.in = new DataInputStream(in);
+		}
+
+		EObject readObject() throws IOException {
+			ClassInfo classInfo = readClass();
+			EObject eObject = classInfo.eClass.getEPackage().getEFactoryInstance().create(classInfo.eClass);
+			for (int i = 0; i < classInfo.features.length; i++) {
+				EStructuralFeature feature = classInfo.features[i];
+				if (FeatureMapUtil.isFeatureMap(feature)) {
+					readFeatureMap(classInfo, (FeatureMap) eObject.eGet(feature));
+				} else if (feature instanceof EReference) {
+					readReference(eObject, (EReference) feature);
+				} else {
+					readAttribute(eObject, (EAttribute) feature, classInfo.types[i]);
+				}
+			}
+			return eObject;
+		}
+
+		ClassInfo readClass() throws IOException {
+			int index = readVarInt();
+			if (index < classes.size()) {
+				return classes.get(index);
+			}
+			if (index != classes.size()) {
+				throw new IOException("Invalid class reference '" + index + "'");
+			}
+			String nsURI = readString();
+			String name = readString();
+			long fingerprint = in.readLong();
+
+			EPackage ePackage = Util.registry.getEPackage(nsURI);
+			if (ePackage == null) {
+				throw new IOException("Can not decode object: meta-data for package '" + nsURI + "' does not exist");
+			}
+			EClassifier classifier = ePackage.getEClassifier(name);
+			if (!(classifier instanceof EClass)) {
+				throw new IOException("Can not decode object: meta-data for class '" + name + "' in package '" + nsURI + "' does not exist");
+			}
+			ClassInfo classInfo = getClassInfo((EClass) classifier);
+			if (classInfo.fingerprint != fingerprint) {
+				throw new IOException("Can not decode object: meta-data for class '" + name + "' in package '" + nsURI + "' differs from encoded meta-data");
+			}
+			classes.add(classInfo);
+			return classInfo;
+		}
+
+		void readReference(EObject eObject, EReference reference) throws IOException {
+			if (reference.isMany()) {
+				@SuppressWarnings("unchecked")
+				EList<EObject> values = (EList<EObject>) eObject.eGet(reference);
+				int size = readVarInt();
+				for (int i = 0; i < size; i++) {
+					values.add(readObject());
+				}
+			} else if (in.readUnsignedByte() == VALUE) {
+				eObject.eSet(reference, readObject());
+			}
+		}
+
+		void readAttribute(EObject eObject, EAttribute attribute, int type) throws IOException {
+			if (attribute.isMany()) {
+				@SuppressWarnings("unchecked")
+				EList<Object> values = (EList<Object>) eObject.eGet(attribute);
+				int size = readVarInt();
+				for (int i = 0; i < size; i++) {
+					values.add(readNullableValue(attribute, type));
+				}
+				return;
+			}
+			int tag = in.readUnsignedByte();
+			if (tag == VALUE) {
+				eObject.eSet(attribute, readValue(attribute, type));
+			} else if (tag == NULL_VALUE) {
+				eObject.eSet(attribute, null);
+			}
+		}
+
+		void readFeatureMap(ClassInfo classInfo, FeatureMap featureMap) throws IOException {
+			int size = readVarInt();
+			for (int i = 0; i < size; i++) {
+				EStructuralFeature feature = classInfo.eClass.getEStructuralFeature(readVarInt());
+				if (feature == null) {
+					throw new IOException("Invalid feature reference in '" + classInfo.eClass.getName() + "'");
+				}
+				if (feature instanceof EReference) {
+					featureMap.add(feature, readObject());
+				} else {
+					featureMap.add(feature, readNullableValue((EAttribute) feature, ClassInfo.getType(((EAttribute) feature).getEAttributeType())));
+				}
+			}
+		}
+
+		Object readNullableValue(EAttribute attribute, int type) throws IOException {
+			if (in.readUnsignedByte() == NULL_VALUE) {
+				return null;
+			}
+			return readValue(attribute, type);
+		}
+
+		Object readValue(EAttribute attribute, int type) throws IOException {
+			switch (type) {
+			case STRING_TYPE:
+				return readString();
+			case INT_TYPE:
+				return Integer.valueOf((int) readVarLong());
+			case LONG_TYPE:
+				return Long.valueOf(readVarLong());
+			case SHORT_TYPE:
+				return Short.valueOf((short) readVarLong());
+			case BYTE_TYPE:
+				return Byte.valueOf(in.readByte());
+			case DOUBLE_TYPE:
+				return Double.valueOf(in.readDouble());
+			case FLOAT_TYPE:
+				return Float.valueOf(in.readFloat());
+			case BOOLEAN_TYPE:
+				return Boolean.valueOf(in.readBoolean());
+			case CHAR_TYPE:
+				return Character.valueOf(in.readChar());
+			case BIG_DECIMAL_TYPE:
+				int scale = (int) readVarLong();
+				return new BigDecimal(new BigInteger(readBytes()), scale);
+			case BIG_INTEGER_TYPE:
+				return new BigInteger(readBytes());
+			case DATE_TYPE:
+				return new Date(readVarLong());
+			case BYTE_ARRAY_TYPE:
+				return readBytes();
+			case ENUM_TYPE:
+				EEnumLiteral literal = ((EEnum) attribute.getEAttributeType()).getEEnumLiteral((int) readVarLong());
+				return literal == null ? null : literal.getInstance();
+			default:
+				return EcoreUtil.createFromString(attribute.getEAttributeType(), readString());
+			}
+		}
+
+		String readString() throws IOException {
+			return new String(readBytes(), UTF8);
+		}
+
+		byte[] readBytes() throws IOException {
+			byte[] bytes = new byte[readVarInt()];
+			in.readFully(bytes);
+			return bytes;
+		}
+
+		int readVarInt() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new IOException("Malformed variable length integer");
+		}
+
+		long readVarLong() throws IOException {
+			long value = 0;
+			for (int shift = 0; shift < 64; shift += 7) {
+				int b = in.readUnsignedByte();
+				value |= (long) (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return (value >>> 1) ^ -(value & 1);
+				}
+			}
+			throw new IOException("Malformed variable length integer");
+		}
+	}
+
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.util;
+
+/**
+ * Records how the time of a single call to or from SAP is spent: converting
+ * between the component's data model and JCo records or IDocs, executing in
+ * SAP (including the network round trip) and processing in the route. Also
+ * records the number of table rows and IDoc segments the call transfers.
+ * <p>
+ * Times are in nanoseconds. A timings instance is filled by the thread
+ * making the call and is not thread safe.
+ *
+ * @author punkhorn
+ *
+ */
+public class CallTimings {
+
+	private long conversionTime;
+
+	private long executionTime;
+
+	private long routeTime;
+
+	private long rows;
+
+	private long segments;
+
+	public long getConversionTime() {
+		return conversionTime;
+	}
+
+	public void addConversionTime(long nanos) {
+		conversionTime += nanos;
+	}
+
+	public long getExecutionTime() {
+		return executionTime;
+	}
+
+	public void addExecutionTime(long nanos) {
+		executionTime += nanos;
+	}
+
+	public long getRouteTime() {
+		return routeTime;
+	}
+
+	public void addRouteTime(long nanos) {
+		routeTime += nanos;
+	}
+
+	public long getRows() {
+		return rows;
+	}
+
+	public void addRows(long count) {
+		rows += count;
+	}
+
+	public long getSegments() {
+		return segments;
+	}
+
+	public void addSegments(long count) {
+		segments += count;
+	}
+
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+
+/**
+ * Report of the values which could not be converted while filling an IDoc
+ * document or IDoc document list from the component's data model.
+ * <p>
+ * The report counts the failed control record attributes, segment fields and
+ * child segments of a conversion and, depending on its {@link Policy}, keeps
+ * the first failures so they can be inspected by the route. Instead of
+ * logging every failure the report is logged as a single summary, and
+ * summaries are rate limited across all conversions so that a batch of bad
+ * partner data can not flood the log.
+ * <p>
+ * A report is thread safe.
+ *
+ * @author punkhorn
+ *
+ */
+public class ConversionDiagnostics {
+
+	/**
+	 * How a conversion handles a value which can not be converted.
+	 */
+	public enum Policy {
+
+		/**
+		 * Fail the conversion at the first value which can not be converted.
+		 */
+		FAIL,
+
+		/**
+		 * Skip values which can not be converted, only counting them. The
+		 * rest of the segment or document is still converted.
+		 */
+		COUNT,
+
+		/**
+		 * Skip values which can not be converted like {@link #COUNT}, and also
+		 * keep the first {@link ConversionDiagnostics#getMaxFailures()}
+		 * failures in the report.
+		 */
+		COLLECT
+	}
+
+	/**
+	 * The default maximum number of failures kept by a report.
+	 */
+	public static final int DEFAULT_MAX_FAILURES = 100;
+
+	/**
+	 * The default maximum number of report summaries logged per minute.
+	 */
+	public static final int DEFAULT_MAX_WARNINGS_PER_MINUTE = 10;
+
+	private static final long WARNING_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+
+	private static final int MAX_VALUE_LENGTH = 64;
+
+	private static final int MAX_LOGGED_FAILURES = 5;
+
+	private static volatile int maxWarningsPerMinute = DEFAULT_MAX_WARNINGS_PER_MINUTE;
+
+	private static long warningIntervalStart = System.nanoTime();
+
+	private static int warningsInInterval;
+
+	private static int suppressedWarnings;
+
+	private final Policy policy;
+
+	private final int maxFailures;
+
+	private final List<Failure> failures = new ArrayList<Failure>();
+
+	private int controlRecordFailureCount;
+
+	private int fieldFailureCount;
+
+	private int segmentFailureCount;
+
+	/**
+	 * Creates a report which collects up to {@link #DEFAULT_MAX_FAILURES}
+	 * failures.
+	 */
+	public ConversionDiagnostics() {
+		this(Policy.COLLECT);
+	}
+
+	public ConversionDiagnostics(Policy policy) {
+		this(policy, DEFAULT_MAX_FAILURES);
+	}
+
+	public ConversionDiagnostics(Policy policy, int maxFailures) {
+		if (policy == null) {
+			throw new IllegalArgumentException("Policy must not be null");
+		}
+		if (maxFailures < 0) {
+			throw new IllegalArgumentException("Maximum number of failures must not be negative: " + maxFailures);
+		}
+		this.policy = policy;
+		this.maxFailures = maxFailures;
+	}
+
+	/**
+	 * A value which could not be converted.
+	 */
+	public static final class Failure {
+
+		private final String segmentType;
+
+		private final String fieldName;
+
+		private final Object value;
+
+		private final String message;
+
+		Failure(String segmentType, String fieldName, Object value, String message) {
+			this.segmentType = segmentType;
+			this.fieldName = fieldName;
+			this.value = value;
+			this.message = message;
+		}
+
+		/**
+		 * Returns the type of the segment of the failed field or child
+		 * segment.
+		 *
+		 * @return The segment type or <code>null</code> if a control record
+		 *         attribute failed.
+		 */
+		public String getSegmentType() {
+			return segmentType;
+		}
+
+		/**
+		 * Returns the name of the failed field or control record attribute.
+		 *
+		 * @return The field name or <code>null</code> if a child segment
+		 *         failed.
+		 */
+		public String getFieldName() {
+			return fieldName;
+		}
+
+		public Object getValue() {
+			return value;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append(segmentType == null ? "CONTROL" : segmentType);
+			if (fieldName != null) {
+				sb.append('.').append(fieldName).append("='");
+				String valueString = String.valueOf(value);
+				if (valueString.length() > MAX_VALUE_LENGTH) {
+					sb.append(valueString, 0, MAX_VALUE_LENGTH).append("...");
+				} else {
+					sb.append(valueString);
+				}
+				sb.append('\'');
+			}
+			if (message != null) {
+				sb.append(" (").append(message).append(')');
+			}
+			return sb.toString();
+		}
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	public int getMaxFailures() {
+		return maxFailures;
+	}
+
+	public synchronized boolean hasFailures() {
+		return getFailureCount() > 0;
+	}
+
+	public synchronized int getFailureCount() {
+		return controlRecordFailureCount + fieldFailureCount + segmentFailureCount;
+	}
+
+	public synchronized int getControlRecordFailureCount() {
+		return controlRecordFailureCount;
+	}
+
+	public synchronized int getFieldFailureCount() {
+		return fieldFailureCount;
+	}
+
+	public synchronized int getSegmentFailureCount() {
+		return segmentFailureCount;
+	}
+
+	/**
+	 * Returns the failures kept by this report. With the
+	 * {@link Policy#COLLECT} policy these are the first
+	 * {@link #getMaxFailures()} failures; otherwise the list is empty.
+	 *
+	 * @return An unmodifiable copy of the kept failures.
+	 */
+	public synchronized List<Failure> getFailures() {
+		return Collections.unmodifiableList(new ArrayList<Failure>(failures));
+	}
+
+	/**
+	 * Sets the maximum number of report summaries logged per minute by all
+	 * conversions. Summaries beyond the maximum are counted and the count is
+	 * logged with the next summary.
+	 *
+	 * @param maxWarningsPerMinute
+	 *            - the maximum number of logged summaries per minute;
+	 *            <code>0</code> disables logging of summaries.
+	 */
+	public static void setMaxWarningsPerMinute(int maxWarningsPerMinute) {
+		if (maxWarningsPerMinute < 0) {
+			throw new IllegalArgumentException("Maximum number of warnings must not be negative: " + maxWarningsPerMinute);
+		}
+		ConversionDiagnostics.maxWarningsPerMinute = maxWarningsPerMinute;
+	}
+
+	public static int getMaxWarningsPerMinute() {
+		return maxWarningsPerMinute;
+	}
+
+	/**
+	 * Logs a summary of this report as one warning to <code>log</code>, if
+	 * the report has failures and the rate of summaries permits.
+	 *
+	 * @param log
+	 *            - the log to write to.
+	 * @param subject
+	 *            - describes what was converted, e.g. the IDoc type.
+	 */
+	public void warn(Logger log, String subject) {
+		if (!hasFailures() || !log.isWarnEnabled()) {
+			return;
+		}
+		int suppressed = acquireWarning(System.nanoTime());
+		if (suppressed < 0) {
+			return;
+		}
+		StringBuilder sb = new StringBuilder();
+		sb.append("Failed to convert values of ").append(subject).append(": ").append(this);
+		if (suppressed > 0) {
+			sb.append(" [").append(suppressed).append(" similar warnings suppressed]");
+		}
+		log.warn(sb.toString());
+	}
+
+	/**
+	 * Acquires the permit to log a summary at time <code>now</code>.
+	 *
+	 * @return The number of summaries suppressed since the last logged
+	 *         summary or <code>-1</code> if the summary must be suppressed.
+	 */
+	static synchronized int acquireWarning(long now) {
+		if (now - warningIntervalStart >= WARNING_INTERVAL) {
+			warningIntervalStart = now;
+			warningsInInterval = 0;
+		}
+		if (warningsInInterval >= maxWarningsPerMinute) {
+			suppressedWarnings++;
+			return -1;
+		}
+		warningsInInterval++;
+		int suppressed = suppressedWarnings;
+		suppressedWarnings = 0;
+		return suppressed;
+	}
+
+	/**
+	 * Records that the control record attribute <code>attributeName</code>
+	 * could not be set to <code>value</code>.
+	 */
+	void controlRecordFailure(String attributeName, Object value, Exception cause) {
+		synchronized (this) {
+			controlRecordFailureCount++;
+		}
+		record(new Failure(null, attributeName, value, cause.getMessage()), cause);
+	}
+
+	/**
+	 * Records that the field <code>fieldName</code> of a segment of type
+	 * <code>segmentType</code> could not be set to <code>value</code>.
+	 */
+	void fieldFailure(String segmentType, String fieldName, Object value, Exception cause) {
+		synchronized (this) {
+			fieldFailureCount++;
+		}
+		record(new Failure(segmentType, fieldName, value, cause.getMessage()), cause);
+	}
+
+	/**
+	 * Records that a child segment of type <code>segmentType</code> could not
+	 * be created.
+	 */
+	void segmentFailure(String segmentType, Exception cause) {
+		synchronized (this) {
+			segmentFailureCount++;
+		}
+		record(new Failure(segmentType, null, null, cause.getMessage()), cause);
+	}
+
+	private void record(Failure failure, Exception cause) {
+		switch (policy) {
+		case FAIL:
+			throw new IllegalArgumentException("Failed to convert " + failure, cause);
+		case COLLECT:
+			synchronized (this) {
+				if (failures.size() < maxFailures) {
+					failures.add(failure);
+				}
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public synchronized String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(getFailureCount()).append(" failures (control record: ").append(controlRecordFailureCount).append(", fields: ").append(fieldFailureCount)
+				.append(", segments: ").append(segmentFailureCount).append(')');
+		int logged = Math.min(failures.size(), MAX_LOGGED_FAILURES);
+		for (int i = 0; i < logged; i++) {
+			sb.append(i == 0 ? ": " : "; ").append(failures.get(i));
+		}
+		if (failures.size() > logged) {
+			sb.append("; ...");
+		}
+		return sb.toString();
+	}
+
+}
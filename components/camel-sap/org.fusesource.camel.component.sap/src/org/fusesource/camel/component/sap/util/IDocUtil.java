@@ -1,11 +1,18 @@
 package org.fusesource.camel.component.sap.util;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.eclipse.emf.ecore.EAttribute;
 import org.eclipse.emf.ecore.EClass;
@@ -13,10 +20,12 @@ import org.eclipse.emf.ecore.EClassifier;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.ETypedElement;
 import org.eclipse.emf.ecore.EcoreFactory;
 import org.eclipse.emf.ecore.EcorePackage;
 import org.eclipse.emf.ecore.util.ExtendedMetaData;
+import org.eclipse.emf.edit.domain.AdapterFactoryEditingDomain;
 import org.fusesource.camel.component.sap.model.idoc.Document;
 import org.fusesource.camel.component.sap.model.idoc.DocumentList;
 import org.fusesource.camel.component.sap.model.idoc.IdocFactory;
@@ -25,6 +34,8 @@ import org.fusesource.camel.component.sap.model.idoc.Segment;
 import org.fusesource.camel.component.sap.model.idoc.SegmentChildren;
 import org.fusesource.camel.component.sap.model.idoc.impl.DocumentImpl;
 import org.fusesource.camel.component.sap.model.idoc.impl.DocumentListImpl;
+import org.fusesource.camel.component.sap.model.idoc.impl.SegmentDescriptor;
+import org.fusesource.camel.component.sap.model.idoc.impl.SegmentDescriptor.Field;
 import org.fusesource.camel.component.sap.model.idoc.impl.SegmentImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +68,19 @@ public class IDocUtil extends Util {
 
 	private static final Logger LOG = LoggerFactory.getLogger(IDocUtil.class);
 
+	private static final MetadataCache metadataCache = new MetadataCache();
+
+	/**
+	 * The minimum number of documents in a document list converted in
+	 * parallel.
+	 */
+	public static final int MIN_PARALLEL_CONVERSION_SIZE = 16;
+
+	/**
+	 * The number of documents of a document list filled by a conversion task.
+	 */
+	private static final int CONVERSION_RANGE_SIZE = 4;
+
 	public static final String GenNS_URI = "http://www.eclipse.org/emf/2002/GenModel";
 
 	public static final String GenNS_DOCUMENTATION_KEY = "documentation";
@@ -268,6 +292,89 @@ public class IDocUtil extends Util {
 	 */
 	public static final String IDocNS_POSITION_KEY = "position";
 
+	/**
+	 * The length in bytes of the control record (EDI_DC40) of an IDoc.
+	 */
+	public static final int CONTROL_RECORD_LENGTH = 524;
+
+	/**
+	 * The length in bytes of the administrative fields of a data record
+	 * (EDI_DD40) preceding the segment data.
+	 */
+	public static final int DATA_RECORD_HEADER_LENGTH = 63;
+
+	/**
+	 * Returns an estimate of the number of bytes <code>document</code>
+	 * occupies when sent: the length of its control record plus the length of
+	 * a data record for each of its segments.
+	 * 
+	 * @param document
+	 *            - the document.
+	 * @return The estimated size of <code>document</code> in bytes.
+	 */
+	public static long estimateDocumentSize(Document document) {
+		long size = CONTROL_RECORD_LENGTH;
+		Segment rootSegment = document.getRootSegment();
+		if (rootSegment != null) {
+			// Root segment is not sent as a data record.
+			for (Segment segment : rootSegment.getChildren()) {
+				size += estimateSegmentSize(segment);
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Returns the number of segments <code>document</code> sends as data
+	 * records, i.e. all its segments except its root segment.
+	 * 
+	 * @param document
+	 *            - the document.
+	 * @return The number of segments in <code>document</code>.
+	 */
+	public static int getNumSegments(Document document) {
+		int numSegments = 0;
+		Segment rootSegment = document.getRootSegment();
+		if (rootSegment != null) {
+			for (Segment segment : rootSegment.getChildren()) {
+				numSegments += countSegments(segment);
+			}
+		}
+		return numSegments;
+	}
+
+	/**
+	 * Returns the number of segments the documents of
+	 * <code>documentList</code> send as data records.
+	 * 
+	 * @param documentList
+	 *            - the document list.
+	 * @return The number of segments in <code>documentList</code>.
+	 */
+	public static int getNumSegments(DocumentList documentList) {
+		int numSegments = 0;
+		for (Document document : documentList) {
+			numSegments += getNumSegments(document);
+		}
+		return numSegments;
+	}
+
+	private static int countSegments(Segment segment) {
+		int numSegments = 1;
+		for (Segment child : segment.getChildren()) {
+			numSegments += countSegments(child);
+		}
+		return numSegments;
+	}
+
+	private static long estimateSegmentSize(Segment segment) {
+		long size = DATA_RECORD_HEADER_LENGTH + Math.max(segment.getRecordLength(), 0);
+		for (Segment child : segment.getChildren()) {
+			size += estimateSegmentSize(child);
+		}
+		return size;
+	}
+
 	/**
 	 * Send <code>document</code> to <code>destination</code>.
 	 * 
@@ -281,19 +388,26 @@ public class IDocUtil extends Util {
 	 * @throws IDocMetaDataUnavailableException
 	 */
 	public static void sendDocument(JCoDestination destination, Document document, String tid) throws JCoException, IDocMetaDataUnavailableException {
-		IDocRepository iDocRepository = JCoIDoc.getIDocRepository(destination);
-		IDocFactory iDocFactory = JCoIDoc.getIDocFactory();
-
-		// Create IDoc
-		Segment rootSegment = document.getRootSegment();
-		IDocDocument iDocDocument = iDocFactory.createIDocDocument(iDocRepository, rootSegment.getIdocType(), rootSegment.getIdocTypeExtension(),
-				rootSegment.getSystemRelease(), rootSegment.getApplicationRelease());
-
-		// Fill IDoc Document
-		fillIDocDocumentFromDocument(document, iDocDocument);
+		sendDocument(destination, document, tid, (CallTimings) null);
+	}
 
-		// Send IDoc
-		JCoIDoc.send(iDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid);
+	/**
+	 * Send <code>document</code> to <code>destination</code>, recording the
+	 * time spent converting and sending the document in <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param document
+	 *            - the document to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @throws JCoException
+	 * @throws IDocMetaDataUnavailableException
+	 */
+	public static void sendDocument(JCoDestination destination, Document document, String tid, CallTimings timings) throws JCoException, IDocMetaDataUnavailableException {
+		sendDocument(destination, JCoIDoc.getIDocRepository(destination), document, tid, null, timings, null);
 	}
 
 	/**
@@ -311,19 +425,85 @@ public class IDocUtil extends Util {
 	 * @throws IDocMetaDataUnavailableException
 	 */
 	public static void sendDocument(JCoDestination destination, Document document, String tid, String queueName) throws JCoException, IDocMetaDataUnavailableException {
-		IDocRepository iDocRepository = JCoIDoc.getIDocRepository(destination);
+		sendDocument(destination, document, tid, queueName, null);
+	}
+
+	/**
+	 * Send <code>document</code> to <code>destination</code>, recording the
+	 * time spent converting and sending the document in <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param document
+	 *            - the document to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param queueName
+	 *            - the namw of the queue document sent to.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @throws JCoException
+	 * @throws IDocMetaDataUnavailableException
+	 */
+	public static void sendDocument(JCoDestination destination, Document document, String tid, String queueName, CallTimings timings) throws JCoException, IDocMetaDataUnavailableException {
+		sendDocument(destination, JCoIDoc.getIDocRepository(destination), document, tid, queueName, timings, null);
+	}
+
+	/**
+	 * Send <code>document</code> to <code>destination</code> using the IDoc
+	 * meta-data of <code>iDocRepository</code>, recording the time spent
+	 * converting and sending the document in <code>timings</code>.
+	 * <p>
+	 * Callers sending many documents to the same destination should look up
+	 * the IDoc repository of the destination once and pass it to each send.
+	 * 
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param iDocRepository
+	 *            - the IDoc repository of <code>destination</code>.
+	 * @param document
+	 *            - the document to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param queueName
+	 *            - the name of the queue document sent to; <code>null</code>
+	 *            if the document is not sent to a queue.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @param diagnostics
+	 *            - the report of the values of the document which can not be
+	 *            converted; may be <code>null</code>. The report is logged as
+	 *            one rate-limited summary.
+	 * @throws JCoException
+	 * @throws IDocMetaDataUnavailableException
+	 */
+	public static void sendDocument(JCoDestination destination, IDocRepository iDocRepository, Document document, String tid, String queueName, CallTimings timings, ConversionDiagnostics diagnostics) throws JCoException, IDocMetaDataUnavailableException {
 		IDocFactory iDocFactory = JCoIDoc.getIDocFactory();
 
 		// Create IDoc
+		long start = System.nanoTime();
 		Segment rootSegment = document.getRootSegment();
 		IDocDocument iDocDocument = iDocFactory.createIDocDocument(iDocRepository, rootSegment.getIdocType(), rootSegment.getIdocTypeExtension(),
 				rootSegment.getSystemRelease(), rootSegment.getApplicationRelease());
 
 		// Fill IDoc Document
-		fillIDocDocumentFromDocument(document, iDocDocument);
+		if (diagnostics == null) {
+			diagnostics = new ConversionDiagnostics();
+		}
+		fillIDocDocumentFromDocument(document, iDocDocument, diagnostics);
+		diagnostics.warn(LOG, "IDoc document of type '" + rootSegment.getIdocType() + "'");
 
 		// Send IDoc
-		JCoIDoc.send(iDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid, queueName);
+		long sendStart = System.nanoTime();
+		try {
+			if (queueName == null) {
+				JCoIDoc.send(iDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid);
+			} else {
+				JCoIDoc.send(iDocDocument, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid, queueName);
+			}
+		} finally {
+			recordTimings(timings, getNumSegments(document), start, sendStart);
+		}
 	}
 
 	/**
@@ -338,18 +518,26 @@ public class IDocUtil extends Util {
 	 * @throws Exception 
 	 */
 	public static void sendDocumentList(JCoDestination destination, DocumentList documentList, String tid) throws Exception {
-		IDocRepository iDocRepository = JCoIDoc.getIDocRepository(destination);
-		IDocFactory iDocFactory = JCoIDoc.getIDocFactory();
-
-		// Create IDoc
-		IDocDocumentList iDocDocumentList = iDocFactory.createIDocDocumentList(iDocRepository, documentList.getIdocType(), documentList.getIdocTypeExtension(),
-				documentList.getSystemRelease(), documentList.getApplicationRelease());
-
-		// Fill IDoc Document
-		fillIDocDocumentListFromDocumentList(documentList, iDocDocumentList);
+		sendDocumentList(destination, documentList, tid, (CallTimings) null);
+	}
 
-		// Send IDoc
-		JCoIDoc.send(iDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid);
+	/**
+	 * Send <code>documentList</code> to <code>destination</code>, recording
+	 * the time spent converting and sending the document list in
+	 * <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param documentList
+	 *            - the document list to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @throws Exception 
+	 */
+	public static void sendDocumentList(JCoDestination destination, DocumentList documentList, String tid, CallTimings timings) throws Exception {
+		sendDocumentList(destination, JCoIDoc.getIDocRepository(destination), documentList, tid, null, timings, null);
 	}
 
 	/**
@@ -366,22 +554,212 @@ public class IDocUtil extends Util {
 	 * @throws Exception 
 	 */
 	public static void sendDocumentList(JCoDestination destination, DocumentList documentList, String tid, String queueName) throws Exception {
-		IDocRepository iDocRepository = JCoIDoc.getIDocRepository(destination);
+		sendDocumentList(destination, documentList, tid, queueName, null);
+	}
+
+	/**
+	 * Send <code>documentList</code> to <code>destination</code>, recording
+	 * the time spent converting and sending the document list in
+	 * <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param documentList
+	 *            - the document list to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param queueName
+	 *            - the namw of the queue document list sent to.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @throws Exception 
+	 */
+	public static void sendDocumentList(JCoDestination destination, DocumentList documentList, String tid, String queueName, CallTimings timings) throws Exception {
+		sendDocumentList(destination, JCoIDoc.getIDocRepository(destination), documentList, tid, queueName, timings, null);
+	}
+
+	/**
+	 * Send <code>documentList</code> to <code>destination</code> using the
+	 * IDoc meta-data of <code>iDocRepository</code>, recording the time spent
+	 * converting and sending the document list in <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param iDocRepository
+	 *            - the IDoc repository of <code>destination</code>.
+	 * @param documentList
+	 *            - the document list to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param queueName
+	 *            - the name of the queue document list sent to;
+	 *            <code>null</code> if the document list is not sent to a
+	 *            queue.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @param diagnostics
+	 *            - the report of the values of the document list which can
+	 *            not be converted; may be <code>null</code>. The report is
+	 *            logged as one rate-limited summary.
+	 * @throws Exception 
+	 */
+	public static void sendDocumentList(JCoDestination destination, IDocRepository iDocRepository, DocumentList documentList, String tid, String queueName, CallTimings timings, ConversionDiagnostics diagnostics) throws Exception {
 		IDocFactory iDocFactory = JCoIDoc.getIDocFactory();
 
 		// Create IDoc
+		long start = System.nanoTime();
 		IDocDocumentList iDocDocumentList = iDocFactory.createIDocDocumentList(iDocRepository, documentList.getIdocType(), documentList.getIdocTypeExtension(),
 				documentList.getSystemRelease(), documentList.getApplicationRelease());
 
 		// Fill IDoc Document
-		fillIDocDocumentListFromDocumentList(documentList, iDocDocumentList);
+		if (diagnostics == null) {
+			diagnostics = new ConversionDiagnostics();
+		}
+		fillIDocDocumentListFromDocumentList(documentList, iDocDocumentList, diagnostics);
+		diagnostics.warn(LOG, "IDoc document list of type '" + documentList.getIdocType() + "'");
 
 		// Send IDoc
-		JCoIDoc.send(iDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid, queueName);
+		long sendStart = System.nanoTime();
+		try {
+			if (queueName == null) {
+				JCoIDoc.send(iDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid);
+			} else {
+				JCoIDoc.send(iDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid, queueName);
+			}
+		} finally {
+			recordTimings(timings, getNumSegments(documentList), start, sendStart);
+		}
+	}
+
+	/**
+	 * Send <code>documents</code> to <code>destination</code> in one IDoc
+	 * document list using the IDoc meta-data of <code>iDocRepository</code>,
+	 * recording the time spent converting and sending the documents in
+	 * <code>timings</code>.
+	 * <p>
+	 * Unlike adding the documents to a {@link DocumentList}, sending them
+	 * leaves them in their containers. The documents must all be of the IDoc
+	 * type of the first document; nothing is sent if there are no documents.
+	 *
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param iDocRepository
+	 *            - the IDoc repository of <code>destination</code>.
+	 * @param documents
+	 *            - the documents to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param queueName
+	 *            - the name of the queue the documents are sent to;
+	 *            <code>null</code> if the documents are not sent to a queue.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @param diagnostics
+	 *            - the report of the values of the documents which can not
+	 *            be converted; may be <code>null</code>. The report is logged
+	 *            as one rate-limited summary.
+	 * @throws Exception
+	 */
+	public static void sendDocuments(JCoDestination destination, IDocRepository iDocRepository, Iterable<Document> documents, String tid, String queueName, CallTimings timings, ConversionDiagnostics diagnostics) throws Exception {
+		if (diagnostics == null) {
+			diagnostics = new ConversionDiagnostics();
+		}
+		sendDocuments(destination, iDocRepository, documents, tid, queueName, timings, diagnostics, null);
+	}
+
+	/**
+	 * Send <code>documents</code> to <code>destination</code> in one IDoc
+	 * document list like
+	 * {@link #sendDocuments(JCoDestination, IDocRepository, Iterable, String, String, CallTimings, ConversionDiagnostics)},
+	 * recording the values of each document which can not be converted in
+	 * its own report.
+	 * <p>
+	 * When a value can not be converted and the policy of the reports is
+	 * {@link ConversionDiagnostics.Policy#FAIL}, the report of the document
+	 * containing the value records the failure and nothing is sent.
+	 *
+	 * @param destination
+	 *            - the destination to send to.
+	 * @param iDocRepository
+	 *            - the IDoc repository of <code>destination</code>.
+	 * @param documents
+	 *            - the documents to send.
+	 * @param tid
+	 *            - the transaction ID to use.
+	 * @param queueName
+	 *            - the name of the queue the documents are sent to;
+	 *            <code>null</code> if the documents are not sent to a queue.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @param documentDiagnostics
+	 *            - the reports of the documents, one per document in the
+	 *            order of <code>documents</code>. Each report is logged as
+	 *            one rate-limited summary.
+	 * @throws Exception
+	 */
+	public static void sendDocuments(JCoDestination destination, IDocRepository iDocRepository, List<Document> documents, String tid, String queueName, CallTimings timings, List<ConversionDiagnostics> documentDiagnostics) throws Exception {
+		if (documentDiagnostics.size() != documents.size()) {
+			throw new IllegalArgumentException("Number of reports " + documentDiagnostics.size() + " does not match number of documents " + documents.size());
+		}
+		sendDocuments(destination, iDocRepository, documents, tid, queueName, timings, null, documentDiagnostics);
+	}
+
+	private static void sendDocuments(JCoDestination destination, IDocRepository iDocRepository, Iterable<Document> documents, String tid, String queueName, CallTimings timings, ConversionDiagnostics diagnostics, List<ConversionDiagnostics> documentDiagnostics) throws Exception {
+		Iterator<Document> iter = documents.iterator();
+		if (!iter.hasNext()) {
+			return;
+		}
+		IDocFactory iDocFactory = JCoIDoc.getIDocFactory();
+
+		// Create IDoc
+		long start = System.nanoTime();
+		Segment rootSegment = iter.next().getRootSegment();
+		IDocDocumentList iDocDocumentList = iDocFactory.createIDocDocumentList(iDocRepository, rootSegment.getIdocType(), rootSegment.getIdocTypeExtension(),
+				rootSegment.getSystemRelease(), rootSegment.getApplicationRelease());
+
+		// Fill IDoc Documents
+		int numSegments = 0;
+		int index = 0;
+		for (Document document : documents) {
+			if (documentDiagnostics == null) {
+				fillIDocDocumentFromDocument(document, iDocDocumentList.addNew(), diagnostics);
+			} else {
+				ConversionDiagnostics documentReport = documentDiagnostics.get(index++);
+				fillIDocDocumentFromDocument(document, iDocDocumentList.addNew(), documentReport);
+				documentReport.warn(LOG, "IDoc document of type '" + rootSegment.getIdocType() + "'");
+			}
+			numSegments += getNumSegments(document);
+		}
+		if (documentDiagnostics == null) {
+			diagnostics.warn(LOG, "IDoc document list of type '" + rootSegment.getIdocType() + "'");
+		}
+
+		// Send IDoc
+		long sendStart = System.nanoTime();
+		try {
+			if (queueName == null) {
+				JCoIDoc.send(iDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid);
+			} else {
+				JCoIDoc.send(iDocDocumentList, IDocFactory.IDOC_VERSION_DEFAULT, destination, tid, queueName);
+			}
+		} finally {
+			recordTimings(timings, numSegments, start, sendStart);
+		}
+	}
+
+	private static void recordTimings(CallTimings timings, int numSegments, long start, long sendStart) {
+		if (timings != null) {
+			timings.addConversionTime(sendStart - start);
+			timings.addExecutionTime(System.nanoTime() - sendStart);
+			timings.addSegments(numSegments);
+		}
 	}
 
 	/**
 	 * Fill <code>idocDocument</code> with values from <code>document</code>.
+	 * <p>
+	 * Values which can not be converted are skipped and logged as one
+	 * rate-limited summary.
 	 * 
 	 * @param documentList
 	 *            - the document containing the values.
@@ -389,21 +767,47 @@ public class IDocUtil extends Util {
 	 *            - the IDoc document to fill.
 	 */
 	public static void fillIDocDocumentListFromDocumentList(DocumentList documentList, IDocDocumentList idocDocumentList) throws Exception {
+		ConversionDiagnostics diagnostics = new ConversionDiagnostics();
+		fillIDocDocumentListFromDocumentList(documentList, idocDocumentList, diagnostics);
+		diagnostics.warn(LOG, "IDoc document list");
+	}
+
+	/**
+	 * Fill <code>idocDocumentList</code> with values from
+	 * <code>documentList</code>, recording values which can not be converted
+	 * in <code>diagnostics</code>.
+	 * 
+	 * @param documentList
+	 *            - the document list containing the values.
+	 * @param idocDocumentList
+	 *            - the IDoc document list to fill.
+	 * @param diagnostics
+	 *            - the report of the conversion.
+	 * @throws IllegalArgumentException
+	 *             if a value can not be converted and the policy of
+	 *             <code>diagnostics</code> is {@link ConversionDiagnostics.Policy#FAIL}.
+	 */
+	public static void fillIDocDocumentListFromDocumentList(DocumentList documentList, IDocDocumentList idocDocumentList, ConversionDiagnostics diagnostics) throws Exception {
 		if (idocDocumentList == null || documentList == null) {
 			LOG.warn("IDoc document list '" + idocDocumentList + "' not filled from document list '" + documentList + "'");
 			return;
 		}
 
+		// The IDoc documents of a list are filled one after another: JCo does
+		// not document its IDoc document lists as thread safe.
 		Iterator<Document> iter = documentList.iterator();
 		while(iter.hasNext()) {
 			Document document = iter.next();
 			IDocDocument idocDocument = idocDocumentList.addNew();
-			fillIDocDocumentFromDocument(document, idocDocument);
+			fillIDocDocumentFromDocument(document, idocDocument, diagnostics);
 		}
 	}	
 	
 	/**
 	 * Fill <code>idocDocument</code> with values from <code>document</code>.
+	 * <p>
+	 * Values which can not be converted are skipped and logged as one
+	 * rate-limited summary.
 	 * 
 	 * @param document
 	 *            - the document containing the values.
@@ -411,6 +815,27 @@ public class IDocUtil extends Util {
 	 *            - the IDoc document to fill.
 	 */
 	public static void fillIDocDocumentFromDocument(Document document, IDocDocument idocDocument) {
+		ConversionDiagnostics diagnostics = new ConversionDiagnostics();
+		fillIDocDocumentFromDocument(document, idocDocument, diagnostics);
+		diagnostics.warn(LOG, "IDoc document");
+	}
+
+	/**
+	 * Fill <code>idocDocument</code> with values from <code>document</code>,
+	 * recording values which can not be converted in
+	 * <code>diagnostics</code>.
+	 * 
+	 * @param document
+	 *            - the document containing the values.
+	 * @param idocDocument
+	 *            - the IDoc document to fill.
+	 * @param diagnostics
+	 *            - the report of the conversion.
+	 * @throws IllegalArgumentException
+	 *             if a value can not be converted and the policy of
+	 *             <code>diagnostics</code> is {@link ConversionDiagnostics.Policy#FAIL}.
+	 */
+	public static void fillIDocDocumentFromDocument(Document document, IDocDocument idocDocument, ConversionDiagnostics diagnostics) {
 		if (idocDocument == null || document == null) {
 			LOG.warn("IDoc Document '" + idocDocument + "' not filled from document '" + document + "'");
 			return;
@@ -419,185 +844,188 @@ public class IDocUtil extends Util {
 		try {
 			idocDocument.setArchiveKey(document.getArchiveKey());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill ArchiveKey attribute with value '" + document.getArchiveKey() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("ArchiveKey", document.getArchiveKey(), e);
 		}
 		try {
 			idocDocument.setClient(document.getClient());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill Client attribute with value '" + document.getClient() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("Client", document.getClient(), e);
 		}
 		try {
 			idocDocument.setCreationDate(document.getCreationDate());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill CreationDate attribute with value '" + document.getCreationDate() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("CreationDate", document.getCreationDate(), e);
 		}
 		try {
 			idocDocument.setCreationTime(document.getCreationTime());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill CreationTime attribute with value '" + document.getCreationTime() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("CreationTime", document.getCreationTime(), e);
 		}
 		try {
 			idocDocument.setDirection(document.getDirection());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill Direction attribute with value '" + document.getDirection() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("Direction", document.getDirection(), e);
 		}
 		try {
 			idocDocument.setEDIMessage(document.getEDIMessage());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill EDIMessage attribute with value '" + document.getEDIMessage() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("EDIMessage", document.getEDIMessage(), e);
 		}
 		try {
 			idocDocument.setEDIMessageGroup(document.getEDIMessageGroup());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill EDIMessageGroup attribute with value '" + document.getEDIMessageGroup() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("EDIMessageGroup", document.getEDIMessageGroup(), e);
 		}
 		try {
 			idocDocument.setEDIMessageType(document.getEDIMessageType());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill EDIMessageType attribute with value '" + document.getEDIMessageType() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("EDIMessageType", document.getEDIMessageType(), e);
 		}
 		try {
 			idocDocument.setEDIStandardFlag(document.getEDIStandardFlag());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill EDIStandardFlag attribute with value '" + document.getEDIStandardFlag() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("EDIStandardFlag", document.getEDIStandardFlag(), e);
 		}
 		try {
 			idocDocument.setEDIStandardVersion(document.getEDIStandardVersion());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill EDIStandardVersion attribute with value '" + document.getEDIStandardVersion() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("EDIStandardVersion", document.getEDIStandardVersion(), e);
 		}
 		try {
 			idocDocument.setEDITransmissionFile(document.getEDITransmissionFile());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill EDITransmissionFile attribute with value '" + document.getEDITransmissionFile() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("EDITransmissionFile", document.getEDITransmissionFile(), e);
 		}
 		try {
 			idocDocument.setIDocCompoundType(document.getIDocCompoundType());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill IDocCompoundType attribute with value '" + document.getIDocCompoundType() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("IDocCompoundType", document.getIDocCompoundType(), e);
 		}
 		try {
 			idocDocument.setIDocNumber(document.getIDocNumber());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill IDocNumber attribute with value '" + document.getIDocNumber() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("IDocNumber", document.getIDocNumber(), e);
 		}
 		try {
 			idocDocument.setIDocSAPRelease(document.getIDocSAPRelease());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill IDocSAPRelease attribute with value '" + document.getIDocSAPRelease() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("IDocSAPRelease", document.getIDocSAPRelease(), e);
 		}
 		try {
 			idocDocument.setIDocType(document.getIDocType());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill IDocType attribute with value '" + document.getIDocType() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("IDocType", document.getIDocType(), e);
 		}
 		try {
 			idocDocument.setIDocTypeExtension(document.getIDocTypeExtension());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill IDocTypeExtension attribute with value '" + document.getIDocTypeExtension() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("IDocTypeExtension", document.getIDocTypeExtension(), e);
 		}
 		try {
 			idocDocument.setMessageCode(document.getMessageCode());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill MessageCode attribute with value '" + document.getMessageCode() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("MessageCode", document.getMessageCode(), e);
 		}
 		try {
 			idocDocument.setMessageFunction(document.getMessageFunction());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill MessageFunction attribute with value '" + document.getMessageFunction() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("MessageFunction", document.getMessageFunction(), e);
 		}
 		try {
 			idocDocument.setMessageType(document.getMessageType());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill MessageType attribute with value '" + document.getMessageType() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("MessageType", document.getMessageType(), e);
 		}
 		try {
 			idocDocument.setOutputMode(document.getOutputMode());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill OutputMode attribute with value '" + document.getOutputMode() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("OutputMode", document.getOutputMode(), e);
 		}
 		try {
 			idocDocument.setRecipientAddress(document.getRecipientAddress());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill RecipientAddress attribute with value '" + document.getRecipientAddress() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("RecipientAddress", document.getRecipientAddress(), e);
 		}
 		try {
 			idocDocument.setRecipientLogicalAddress(document.getRecipientLogicalAddress());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill RecipientLogicalAddress attribute with value '" + document.getRecipientLogicalAddress() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("RecipientLogicalAddress", document.getRecipientLogicalAddress(), e);
 		}
 		try {
 			idocDocument.setRecipientPartnerFunction(document.getRecipientPartnerFunction());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill RecipientPartnerFunction attribute with value '" + document.getRecipientPartnerFunction() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("RecipientPartnerFunction", document.getRecipientPartnerFunction(), e);
 		}
 		try {
 			idocDocument.setRecipientPartnerType(document.getRecipientPartnerType());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill RecipientPartnerType attribute with value '" + document.getRecipientPartnerType() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("RecipientPartnerType", document.getRecipientPartnerType(), e);
 		}
 		try {
 			idocDocument.setRecipientPartnerNumber(document.getRecipientPartnerNumber());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill RecipientPartnerNumber attribute with value '" + document.getRecipientPartnerNumber() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("RecipientPartnerNumber", document.getRecipientPartnerNumber(), e);
 		}
 		try {
 			idocDocument.setRecipientPort(document.getRecipientPort());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill RecipientPort attribute with value '" + document.getRecipientPort() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("RecipientPort", document.getRecipientPort(), e);
 		}
 		try {
 			idocDocument.setSenderAddress(document.getSenderAddress());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill SenderAddress attribute with value '" + document.getSenderAddress() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("SenderAddress", document.getSenderAddress(), e);
 		}
 		try {
 			idocDocument.setSenderLogicalAddress(document.getSenderLogicalAddress());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill SenderLogicalAddress attribute with value '" + document.getSenderLogicalAddress() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("SenderLogicalAddress", document.getSenderLogicalAddress(), e);
 		}
 		try {
 			idocDocument.setSenderPartnerFunction(document.getSenderPartnerFunction());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill SenderPartnerFunction attribute with value '" + document.getSenderPartnerFunction() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("SenderPartnerFunction", document.getSenderPartnerFunction(), e);
 		}
 		try {
 			idocDocument.setSenderPartnerNumber(document.getSenderPartnerNumber());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill SenderPartnerNumber attribute with value '" + document.getSenderPartnerNumber() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("SenderPartnerNumber", document.getSenderPartnerNumber(), e);
 		}
 		try {
 			idocDocument.setSenderPartnerType(document.getSenderPartnerType());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill SenderPartnerType attribute with value '" + document.getSenderPartnerType() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("SenderPartnerType", document.getSenderPartnerType(), e);
 		}
 		try {
 			idocDocument.setSenderPort(document.getSenderPort());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill SenderPort attribute with value '" + document.getSenderPort() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("SenderPort", document.getSenderPort(), e);
 		}
 		try {
 			idocDocument.setSerialization(document.getSerialization());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill Serialization attribute with value '" + document.getSerialization() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("Serialization", document.getSerialization(), e);
 		}
 		try {
 			idocDocument.setStatus(document.getStatus());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill Status attribute with value '" + document.getStatus() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("Status", document.getStatus(), e);
 		}
 		try {
 			idocDocument.setTestFlag(document.getTestFlag());
 		} catch (IDocConversionException | IDocSyntaxException e) {
-			LOG.warn("Failed to fill TestFlag attribute with value '" + document.getTestFlag() + "' of IDoc Document");
+			diagnostics.controlRecordFailure("TestFlag", document.getTestFlag(), e);
 		}
 
-		fillIDocSegmentFromSegment(document.getRootSegment(), idocDocument.getRootSegment());
+		fillIDocSegmentFromSegment(document.getRootSegment(), idocDocument.getRootSegment(), diagnostics);
 
 	}
 
 	/**
 	 * Fill <code>idocSegment</code> with values from <code>segmentt</code>.
+	 * <p>
+	 * Values which can not be converted are skipped and logged as one
+	 * rate-limited summary.
 	 * 
 	 * @param segment
 	 *            - the segment containing the values.
@@ -605,20 +1033,45 @@ public class IDocUtil extends Util {
 	 *            - the IDoc segment to fill.
 	 */
 	public static void fillIDocSegmentFromSegment(Segment segment, IDocSegment idocSegment) {
+		ConversionDiagnostics diagnostics = new ConversionDiagnostics();
+		fillIDocSegmentFromSegment(segment, idocSegment, diagnostics);
+		diagnostics.warn(LOG, "IDoc segment");
+	}
+
+	/**
+	 * Fill <code>idocSegment</code> with values from <code>segment</code>,
+	 * recording values which can not be converted in
+	 * <code>diagnostics</code>.
+	 * 
+	 * @param segment
+	 *            - the segment containing the values.
+	 * @param idocSegment
+	 *            - the IDoc segment to fill.
+	 * @param diagnostics
+	 *            - the report of the conversion.
+	 * @throws IllegalArgumentException
+	 *             if a value can not be converted and the policy of
+	 *             <code>diagnostics</code> is {@link ConversionDiagnostics.Policy#FAIL}.
+	 */
+	public static void fillIDocSegmentFromSegment(Segment segment, IDocSegment idocSegment, ConversionDiagnostics diagnostics) {
 		if (segment == null || idocSegment == null) {
 			LOG.warn("IDoc Segment '" + idocSegment + "' not filled from segment '" + segment + "'");
 			return;
 		}
 
-		// Fill segment fields
-		Iterator<String> it = segment.keySet().iterator();
-		while (it.hasNext()) {
-			String fieldName = it.next();
-			Object value = segment.get(fieldName);
+		// Fill segment fields which are set by position
+		List<Field> fields = ((SegmentImpl) segment).getDescriptor().getSegmentFields();
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			EStructuralFeature feature = field.getFeature();
+			if (!segment.eIsSet(feature)) {
+				continue;
+			}
+			Object value = segment.eGet(feature);
 			try {
-				idocSegment.setValue(fieldName, value);
+				idocSegment.setValue(field.getPosition(), value);
 			} catch (Exception e) {
-				LOG.warn("Failed to fill '" + fieldName + "' attribute with value '" + value + "' of IDoc Document");
+				diagnostics.fieldFailure(idocSegment.getType(), feature.getName(), value, e);
 			}
 		}
 
@@ -626,12 +1079,14 @@ public class IDocUtil extends Util {
 		SegmentChildren segmentChildren = ((SegmentImpl) segment).getSegmentChildren();
 		for (String segmentType : segmentChildren.getTypes()) {
 			for (Segment childSegment : segmentChildren.get(segmentType)) {
+				IDocSegment childIDocSegment;
 				try {
-					IDocSegment childIDocSegment = idocSegment.addChild(segmentType);
-					fillIDocSegmentFromSegment(childSegment, childIDocSegment);
+					childIDocSegment = idocSegment.addChild(segmentType);
 				} catch (Exception e) {
-					LOG.warn("Failed to create and fill child IDoc segment '" + segmentType + "' with child segment '" + childSegment + "'");
+					diagnostics.segmentFailure(segmentType, e);
+					continue;
 				}
+				fillIDocSegmentFromSegment(childSegment, childIDocSegment, diagnostics);
 			}
 
 		}
@@ -646,11 +1101,61 @@ public class IDocUtil extends Util {
 	 *            - the document list containing newly filled documents.
 	 */
 	public static void extractIDocDocumentListIntoDocumentList(IDocDocumentList idocDocumentList, DocumentList documentList) {
+		extractIDocDocumentListIntoDocumentList(idocDocumentList, documentList, null);
+	}
+
+	/**
+	 * Extracts the values from IDoc documents in <code>idocDocumentList</code>
+	 * to documents added to <code>documentList</code>, filling the segments of
+	 * lists of at least {@link #MIN_PARALLEL_CONVERSION_SIZE} documents on the
+	 * threads of <code>executor</code>.
+	 * <p>
+	 * JCo does not document its IDoc documents as thread safe, so the IDoc
+	 * documents are only read on the calling thread: it creates the documents
+	 * in list order, extracts their control records and copies the field
+	 * values of their segments. The threads of <code>executor</code> then
+	 * fill the segments of ranges of documents from the copied values, each
+	 * thread writing only to the documents of its range. The extracted list
+	 * has the order of the IDoc list.
+	 * 
+	 * @param idocDocumentList
+	 *            - the IDoc document list containing the IDoc documents
+	 * @param documentList
+	 *            - the document list containing newly filled documents.
+	 * @param executor
+	 *            - the executor filling the segments of the documents;
+	 *            <code>null</code> to extract the documents one after another
+	 *            on the calling thread.
+	 */
+	public static void extractIDocDocumentListIntoDocumentList(IDocDocumentList idocDocumentList, DocumentList documentList, ExecutorService executor) {
 		if (documentList == null || idocDocumentList == null) {
 			LOG.warn("IDoc document list '" + idocDocumentList + "' not extracted to document list '" + documentList + "'");
 			return;
 		}
 		
+		if (executor != null) {
+			// Read the IDoc documents in order, then fill the segments in parallel.
+			List<Segment> rootSegments = new ArrayList<Segment>();
+			List<SegmentValues> rootSegmentValues = new ArrayList<SegmentValues>();
+			IDocDocumentIterator iter = idocDocumentList.iterator();
+			while(iter.hasNext()) {
+				IDocDocument idocDocument = iter.next();
+				Document document = documentList.add();
+				extractIDocControlRecordIntoDocument(idocDocument, document);
+				Segment rootSegment = document.getRootSegment();
+				rootSegments.add(rootSegment);
+				rootSegmentValues.add(copyIDocSegmentValues(idocDocument.getRootSegment(), rootSegment.eClass()));
+			}
+			if (rootSegments.size() >= MIN_PARALLEL_CONVERSION_SIZE) {
+				fillSegmentsInParallel(executor, rootSegments, rootSegmentValues);
+			} else {
+				for (int i = 0; i < rootSegments.size(); i++) {
+					fillSegmentFromValues(rootSegmentValues.get(i), rootSegments.get(i));
+				}
+			}
+			return;
+		}
+
 		IDocDocumentIterator iter = idocDocumentList.iterator();
 		while(iter.hasNext()) {
 			IDocDocument idocDocument = iter.next();
@@ -659,6 +1164,176 @@ public class IDocUtil extends Util {
 		}
 	}	
 
+	private static void fillSegmentsInParallel(ExecutorService executor, final List<Segment> segments, final List<SegmentValues> segmentValues) {
+		// Split into small ranges so that threads filling small documents can
+		// take over the ranges of threads filling large ones.
+		List<Callable<Void>> ranges = new ArrayList<Callable<Void>>();
+		for (int from = 0; from < segments.size(); from += CONVERSION_RANGE_SIZE) {
+			final int start = from;
+			final int end = Math.min(from + CONVERSION_RANGE_SIZE, segments.size());
+			ranges.add(new Callable<Void>() {
+				@Override
+				public Void call() {
+					for (int i = start; i < end; i++) {
+						fillSegmentFromValues(segmentValues.get(i), segments.get(i));
+					}
+					return null;
+				}
+			});
+		}
+		try {
+			for (Future<Void> range : executor.invokeAll(ranges)) {
+				range.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while extracting IDoc document list", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException("Failed to extract IDoc document list", cause);
+		}
+	}
+
+	/**
+	 * Copies the values of the segment fields of <code>idocSegment</code> and
+	 * of its descendants, which are extracted to a segment of class
+	 * <code>segmentClass</code>.
+	 */
+	private static SegmentValues copyIDocSegmentValues(IDocSegment idocSegment, EClass segmentClass) {
+		List<Field> fields = SegmentDescriptor.get(segmentClass).getSegmentFields();
+		Object[] values = new Object[fields.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getIDocSegmentValue(idocSegment, fields.get(i));
+		}
+
+		Map<String, List<SegmentValues>> children = new HashMap<String, List<SegmentValues>>();
+		EStructuralFeature childrenFeature = segmentClass.getEStructuralFeature("segmentChildren");
+		if (childrenFeature instanceof EReference) {
+			for (EStructuralFeature childFeature : ((EReference) childrenFeature).getEReferenceType().getEStructuralFeatures()) {
+				if (!(childFeature instanceof EReference)) {
+					continue;
+				}
+				EClass childClass = ((EReference) childFeature).getEReferenceType();
+				List<SegmentValues> childValues = new ArrayList<SegmentValues>();
+				for (IDocSegment childIDocSegment : idocSegment.getChildren(childFeature.getName())) {
+					childValues.add(copyIDocSegmentValues(childIDocSegment, childClass));
+				}
+				children.put(childFeature.getName(), childValues);
+			}
+		}
+		return new SegmentValues(values, children);
+	}
+
+	/**
+	 * Fills <code>segment</code> and its children with values copied from an
+	 * IDoc segment.
+	 */
+	private static void fillSegmentFromValues(SegmentValues segmentValues, Segment segment) {
+		List<Field> fields = ((SegmentImpl) segment).getDescriptor().getSegmentFields();
+		boolean editable = AdapterFactoryEditingDomain.getEditingDomainFor(segment) != null;
+		for (int i = 0; i < fields.size(); i++) {
+			Object value = segmentValues.values[i];
+			if (value != null) {
+				setSegmentValue(segment, fields.get(i).getFeature(), value, editable);
+			}
+		}
+
+		SegmentChildren segmentChildren = ((SegmentImpl) segment).getSegmentChildren();
+		for (String segmentType : segmentChildren.getTypes()) {
+			List<SegmentValues> childValues = segmentValues.children.get(segmentType);
+			if (childValues == null) {
+				continue;
+			}
+			for (SegmentValues childSegmentValues : childValues) {
+				Segment childSegment = segmentChildren.get(segmentType).add();
+				fillSegmentFromValues(childSegmentValues, childSegment);
+			}
+		}
+	}
+
+	/**
+	 * The values of the segment fields of an IDoc segment and of its
+	 * descendants.
+	 */
+	private static class SegmentValues {
+
+		/**
+		 * The values of the segment fields ordered by position;
+		 * <code>null</code> for fields without a value.
+		 */
+		final Object[] values;
+
+		/**
+		 * The values of the child segments by segment type.
+		 */
+		final Map<String, List<SegmentValues>> children;
+
+		SegmentValues(Object[] values, Map<String, List<SegmentValues>> children) {
+			this.values = values;
+			this.children = children;
+		}
+	}
+
+	/**
+	 * Returns an iterator over the documents of <code>idocDocumentList</code>
+	 * which extracts each IDoc document into a new document only when it is
+	 * requested. Unlike
+	 * {@link #extractIDocDocumentListIntoDocumentList(IDocDocumentList, DocumentList)}
+	 * the documents are not collected in a document list, so documents already
+	 * processed by the caller can be garbage collected.
+	 * <p>
+	 * The iterator reads <code>idocDocumentList</code> and must therefore be
+	 * consumed while the IDoc document list is valid, e.g. before the handler
+	 * of an inbound IDoc list returns.
+	 * 
+	 * @param repository
+	 *            - the repository containing the meta-data of the documents.
+	 * @param idocDocumentList
+	 *            - the IDoc document list containing the IDoc documents.
+	 * @param timings
+	 *            - accumulates the conversion time and number of segments of
+	 *            the extracted documents; may be <code>null</code>.
+	 * @return The iterator over the documents.
+	 */
+	public static Iterator<Document> getDocuments(final IDocRepository repository, final IDocDocumentList idocDocumentList, final CallTimings timings) {
+		final IDocDocumentIterator iter = idocDocumentList.iterator();
+		final String iDocType = idocDocumentList.getIDocType();
+		final String iDocTypeExtension = idocDocumentList.getIDocTypeExtension();
+		final String systemRelease = idocDocumentList.getSystemRelease();
+		final String applicationRelease = idocDocumentList.getApplicationRelease();
+		return new Iterator<Document>() {
+
+			@Override
+			public boolean hasNext() {
+				return iter.hasNext();
+			}
+
+			@Override
+			public Document next() {
+				IDocDocument idocDocument = iter.next();
+				long start = System.nanoTime();
+				Document document = createDocument(repository, iDocType, iDocTypeExtension, systemRelease, applicationRelease);
+				extractIDocDocumentIntoDocument(idocDocument, document);
+				if (timings != null) {
+					timings.addConversionTime(System.nanoTime() - start);
+					timings.addSegments(getNumSegments(document));
+				}
+				return document;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
 	/**
 	 * Extract values from <code>idocDocument</code> to <code>document</code>.
 	 * 
@@ -673,6 +1348,12 @@ public class IDocUtil extends Util {
 			return;
 		}
 
+		extractIDocControlRecordIntoDocument(idocDocument, document);
+		extractIDocSegmentIntoSegment(idocDocument.getRootSegment(), document.getRootSegment());
+
+	}
+
+	private static void extractIDocControlRecordIntoDocument(IDocDocument idocDocument, Document document) {
 		document.setArchiveKey(idocDocument.getArchiveKey());
 		document.setClient(idocDocument.getClient());
 		document.setCreationDate(idocDocument.getCreationDate());
@@ -708,9 +1389,6 @@ public class IDocUtil extends Util {
 		document.setSerialization(idocDocument.getSerialization());
 		document.setStatus(idocDocument.getStatus());
 		document.setTestFlag(idocDocument.getTestFlag());
-
-		extractIDocSegmentIntoSegment(idocDocument.getRootSegment(), document.getRootSegment());
-
 	}
 
 	/**
@@ -727,15 +1405,14 @@ public class IDocUtil extends Util {
 			return;
 		}
 
-		// Fill segment fields
-		Iterator<String> it = segment.keySet().iterator();
-		while (it.hasNext()) {
-			String fieldName = it.next();
-			try {
-				Object value = idocSegment.getValue(fieldName);
-				setValue(segment, fieldName, value);
-			} catch (Exception e) {
-				LOG.warn("Failed to extract value from field '" + fieldName + "' from IDoc segment to segment");
+		// Fill segment fields by position, skipping fields without a value
+		List<Field> fields = ((SegmentImpl) segment).getDescriptor().getSegmentFields();
+		boolean editable = AdapterFactoryEditingDomain.getEditingDomainFor(segment) != null;
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			Object value = getIDocSegmentValue(idocSegment, field);
+			if (value != null) {
+				setSegmentValue(segment, field.getFeature(), value, editable);
 			}
 		}
 
@@ -750,6 +1427,34 @@ public class IDocUtil extends Util {
 		}
 	}
 	
+	private static Object getIDocSegmentValue(IDocSegment idocSegment, Field field) {
+		try {
+			return idocSegment.getValue(field.getPosition());
+		} catch (Exception e) {
+			LOG.warn("Failed to extract value from field '" + field.getFeature().getName() + "' from IDoc segment to segment");
+			return null;
+		}
+	}
+
+	/**
+	 * Sets <code>feature</code> of <code>segment</code> to <code>value</code>,
+	 * leaving the field unset if it does not accept the value. Whether or not
+	 * <code>segment</code> is <code>editable</code>, i.e. has an editing
+	 * domain, a rejected value is skipped silently like
+	 * {@link #setValue(EObject, EStructuralFeature, Object)} does.
+	 */
+	private static void setSegmentValue(Segment segment, EStructuralFeature feature, Object value, boolean editable) {
+		if (editable) {
+			setValue(segment, feature, value);
+			return;
+		}
+		try {
+			segment.eSet(feature, value);
+		} catch (Exception e) {
+			// Leave the field unset.
+		}
+	}
+
 	/**
 	 * Creates Document List to contain Documents of given IDoc type.
 	 * 
@@ -1018,13 +1723,26 @@ public class IDocUtil extends Util {
 	 *            required.
 	 * @return The {@link EPackage} instance.
 	 */
-	public static EPackage getEPackage(IDocRepository repository, String nsURI) {
+	public static EPackage getEPackage(final IDocRepository repository, String nsURI) {
+		return metadataCache.get(nsURI, new MetadataCache.Builder() {
+			@Override
+			public EPackage build(String nsURI) {
+				return buildEPackage(repository, nsURI);
+			}
+		});
+	}
 
-		// Check whether the requested package has already been built.
-		EPackage ePackage = (EPackage) registry.get(nsURI);
-		if (ePackage != null) {
-			return ePackage;
-		}
+	/**
+	 * Returns the cache of {@link EPackage}s built by
+	 * {@link #getEPackage(IDocRepository, String)}.
+	 * 
+	 * @return The IDoc meta-data cache.
+	 */
+	public static MetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	private static EPackage buildEPackage(IDocRepository repository, String nsURI) {
 
 		// Retrieve the iDoc's meta data
 		IDocID iDocID;
@@ -1055,7 +1773,7 @@ public class IDocUtil extends Util {
 
 		// Create and initialize package
 		EcoreFactory ecoreFactory = EcoreFactory.eINSTANCE;
-		ePackage = ecoreFactory.createEPackage();
+		EPackage ePackage = ecoreFactory.createEPackage();
 		ePackage.setName(iDocID.getPackageName());
 		ePackage.setNsPrefix(iDocID.getPackageNamespacePrefix());
 		ePackage.setNsURI(iDocID.getPackageNamespaceURI());
@@ -1069,9 +1787,6 @@ public class IDocUtil extends Util {
 		addAnnotation(rootClass, GenNS_URI, GenNS_DOCUMENTATION_KEY, "Segment type for " + iDocID.getPackageName());
 		addAnnotation(rootClass, eNS_URI, IDocNS_COMPOUND_TYPE_KEY, repository.getIDocCompoundType(iDocID.getiDocType(), iDocID.getiDocTypeExtension()));
 
-		// Register Package
-		registry.put(nsURI, ePackage);
-
 		return ePackage;
 	}
 
@@ -0,0 +1,281 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.InternalEList;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.model.rfc.Table;
+import org.fusesource.camel.component.sap.model.rfc.impl.TableImpl;
+
+import com.sap.conn.jco.JCoTable;
+
+/**
+ * A {@link Table} backed by a {@link JCoTable}.
+ * <p>
+ * Row structures are only created when a row is accessed, by index or by
+ * {@link #iterator()}, and are retained by the table: the iterator returns the
+ * same row structures as {@link #get(int)}.
+ * <p>
+ * Any other access to the table's rows, including modification, reflective
+ * access to the row feature and serialization, first copies all rows of the
+ * JCo table into the table, after which the JCo table is released and the
+ * table behaves like any other.
+ *
+ * @author punkhorn
+ *
+ */
+class JCoTableView<S extends Structure> extends TableImpl<S> {
+
+	private final RecordMapping rowMapping;
+
+	private final int rowFeatureID;
+
+	/**
+	 * The JCo table backing this table; <code>null</code> once the rows have
+	 * been copied into this table.
+	 */
+	private JCoTable jcoTable;
+
+	/**
+	 * The rows created by index, if any.
+	 */
+	private Structure[] rows;
+
+	JCoTableView(EClass tableClass, JCoTable jcoTable, RecordMapping rowMapping) {
+		eSetClass(tableClass);
+		this.jcoTable = jcoTable;
+		this.rowMapping = rowMapping;
+		EStructuralFeature rowFeature = tableClass.getEStructuralFeature(RfcUtil.ROW);
+		this.rowFeatureID = tableClass.getFeatureID(rowFeature);
+	}
+
+	@Override
+	public int size() {
+		synchronized (this) {
+			if (jcoTable != null) {
+				return jcoTable.getNumRows();
+			}
+		}
+		return super.size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public S get(int index) {
+		synchronized (this) {
+			if (jcoTable != null) {
+				int numRows = jcoTable.getNumRows();
+				if (index < 0 || index >= numRows) {
+					throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numRows);
+				}
+				if (rows == null) {
+					rows = new Structure[numRows];
+				}
+				if (rows[index] == null) {
+					jcoTable.setRow(index);
+					rows[index] = rowMapping.createStructure(jcoTable);
+				}
+				return (S) rows[index];
+			}
+		}
+		return super.get(index);
+	}
+
+	@Override
+	public Iterator<S> iterator() {
+		synchronized (this) {
+			if (jcoTable != null) {
+				return new RowCursor(jcoTable.getNumRows());
+			}
+		}
+		return super.iterator();
+	}
+
+	/**
+	 * Returns an iterator over batches of the rows of the JCo table. Each row
+	 * is created when its batch is returned and is not retained by this table.
+	 *
+	 * @param batchSize
+	 *            - the maximum number of rows in a batch.
+	 * @return The batch iterator or <code>null</code> if the rows have already
+	 *         been copied into this table.
+	 */
+	Iterator<List<S>> batchIterator(int batchSize) {
+		synchronized (this) {
+			if (jcoTable != null) {
+				return new RowBatchCursor(jcoTable, batchSize);
+			}
+		}
+		return null;
+	}
+
+	@Override
+	public Object eGet(int featureID, boolean resolve, boolean coreType) {
+		if (featureID == rowFeatureID) {
+			copyRows();
+		}
+		return super.eGet(featureID, resolve, coreType);
+	}
+
+	@Override
+	public void eSet(int featureID, Object newValue) {
+		if (featureID == rowFeatureID) {
+			copyRows();
+		}
+		super.eSet(featureID, newValue);
+	}
+
+	@Override
+	public void eUnset(int featureID) {
+		if (featureID == rowFeatureID) {
+			copyRows();
+		}
+		super.eUnset(featureID);
+	}
+
+	@Override
+	public boolean eIsSet(int featureID) {
+		if (featureID == rowFeatureID) {
+			copyRows();
+		}
+		return super.eIsSet(featureID);
+	}
+
+	/**
+	 * Copies all rows of the JCo table into this table and releases the JCo
+	 * table.
+	 */
+	@SuppressWarnings("unchecked")
+	private void copyRows() {
+		JCoTable table;
+		Structure[] createdRows;
+		synchronized (this) {
+			if (jcoTable == null) {
+				return;
+			}
+			table = jcoTable;
+			createdRows = rows;
+			jcoTable = null;
+			rows = null;
+
+			EList<Structure> rowList = (EList<Structure>) getRows();
+			int numRows = table.getNumRows();
+			for (int i = 0; i < numRows; i++) {
+				Structure row = createdRows == null ? null : createdRows[i];
+				if (row == null) {
+					table.setRow(i);
+					row = rowMapping.createStructure(table);
+				}
+				((InternalEList<Structure>) rowList).addUnique(row);
+			}
+		}
+	}
+
+	/**
+	 * Iterates over the rows of this table, creating each row when it is
+	 * reached.
+	 */
+	private class RowCursor implements Iterator<S> {
+
+		private final int numRows;
+
+		private int index;
+
+		RowCursor(int numRows) {
+			this.numRows = numRows;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < numRows;
+		}
+
+		@Override
+		public S next() {
+			if (index >= numRows) {
+				throw new NoSuchElementException();
+			}
+			return get(index++);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+	/**
+	 * Iterates over batches of the rows of a JCo table.
+	 */
+	private class RowBatchCursor implements Iterator<List<S>> {
+
+		private final JCoTable table;
+
+		private final int numRows;
+
+		private final int batchSize;
+
+		private int index;
+
+		RowBatchCursor(JCoTable table, int batchSize) {
+			this.table = table;
+			this.numRows = table.getNumRows();
+			this.batchSize = batchSize;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < numRows;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public List<S> next() {
+			if (index >= numRows) {
+				throw new NoSuchElementException();
+			}
+			int end = Math.min(index + batchSize, numRows);
+			List<S> batch = new ArrayList<S>(end - index);
+			synchronized (JCoTableView.this) {
+				for (; index < end; index++) {
+					table.setRow(index);
+					batch.add((S) rowMapping.createStructure(table));
+				}
+			}
+			return batch;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+}
@@ -0,0 +1,907 @@
+package org.fusesource.camel.component.sap.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EDataType;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.FeatureMap;
+import org.eclipse.emf.ecore.util.FeatureMapUtil;
+import org.fusesource.camel.component.sap.model.idoc.IdocPackage;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+
+import com.sap.conn.jco.JCoMetaData;
+
+/**
+ * JSON representation of SAP data objects: structures, documents and
+ * document lists.
+ * <p>
+ * An object is written as a JSON object whose members are the set persistent
+ * features of its class: attributes as JSON values, containment references as
+ * nested objects or arrays of objects and feature maps as arrays of
+ * single-member objects naming the feature of each entry. The first member of
+ * the outermost object, and of any nested object whose class is not the type
+ * of its reference, is <code>"eClass"</code> holding the package namespace
+ * URI and name of the object's class as <code>nsURI#//name</code>.
+ * <p>
+ * The JSON type of an attribute is derived from the
+ * <code>classNameOfField</code> annotation recorded with SAP meta-data, or
+ * from the attribute's type if not annotated: numbers as JSON numbers,
+ * booleans as JSON booleans and all other values as JSON strings. Byte arrays
+ * are written in hexadecimal. Date fields are written as
+ * <code>yyyy-MM-dd</code> and time fields as <code>HH:mm:ss</code> as
+ * designated by the RFC <code>type</code> annotation; other dates are written
+ * with date, time and time zone.
+ * <p>
+ * Objects are read and written in a single streaming pass; no intermediate
+ * tree is built.
+ *
+ * @author punkhorn
+ *
+ */
+public class JsonUtil {
+
+	/**
+	 * The name of the member holding the class of an object.
+	 */
+	public static final String ECLASS_KEY = "eClass";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final String DATE_PATTERN = "yyyy-MM-dd";
+	private static final String TIME_PATTERN = "HH:mm:ss";
+	private static final String DATE_TIME_PATTERN = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+	private static final int STRING_KIND = 0;
+	private static final int INT_KIND = 1;
+	private static final int LONG_KIND = 2;
+	private static final int SHORT_KIND = 3;
+	private static final int BYTE_KIND = 4;
+	private static final int DOUBLE_KIND = 5;
+	private static final int FLOAT_KIND = 6;
+	private static final int BOOLEAN_KIND = 7;
+	private static final int CHAR_KIND = 8;
+	private static final int BIG_DECIMAL_KIND = 9;
+	private static final int BIG_INTEGER_KIND = 10;
+	private static final int DATE_KIND = 11;
+	private static final int TIME_KIND = 12;
+	private static final int DATE_TIME_KIND = 13;
+	private static final int BYTE_ARRAY_KIND = 14;
+	private static final int OTHER_KIND = 15;
+
+	private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+	/**
+	 * The number of bytes examined by {@link #isJson(InputStream)}.
+	 */
+	private static final int SNIFF_LIMIT = 256;
+
+	/**
+	 * Writes <code>eObject</code> as JSON into returned string.
+	 *
+	 * @param eObject
+	 *            - the object to write.
+	 * @return The JSON representation of the object.
+	 * @throws IOException
+	 */
+	public static String marshal(EObject eObject) throws IOException {
+		StringWriter out = new StringWriter();
+		marshal(eObject, out);
+		return out.toString();
+	}
+
+	/**
+	 * Writes <code>eObject</code> as UTF-8 encoded JSON to <code>out</code>.
+	 * <code>out</code> is not closed.
+	 *
+	 * @param eObject
+	 *            - the object to write.
+	 * @param out
+	 *            - the stream to write the object to.
+	 * @throws IOException
+	 */
+	public static void marshal(EObject eObject, OutputStream out) throws IOException {
+		Writer writer = new OutputStreamWriter(out, UTF8);
+		marshal(eObject, writer);
+		writer.flush();
+	}
+
+	/**
+	 * Writes <code>eObject</code> as JSON to <code>out</code>.
+	 * <code>out</code> is not closed.
+	 *
+	 * @param eObject
+	 *            - the object to write.
+	 * @param out
+	 *            - the writer to write the object to.
+	 * @throws IOException
+	 */
+	public static void marshal(EObject eObject, Writer out) throws IOException {
+		if (eObject == null) {
+			throw new IllegalArgumentException("eObject argument can not be null");
+		}
+		new JsonWriter(out).writeObject(eObject, null);
+	}
+
+	/**
+	 * Reads object from JSON <code>string</code>.
+	 *
+	 * @param string
+	 *            - the JSON representation of the object.
+	 * @return The object read.
+	 * @throws IOException
+	 */
+	public static EObject unmarshal(String string) throws IOException {
+		return unmarshal(new StringReader(string));
+	}
+
+	/**
+	 * Reads object from UTF-8 encoded JSON in <code>in</code>.
+	 *
+	 * @param in
+	 *            - the stream containing the JSON representation of the
+	 *            object.
+	 * @return The object read.
+	 * @throws IOException
+	 */
+	public static EObject unmarshal(InputStream in) throws IOException {
+		return unmarshal(new InputStreamReader(in, UTF8));
+	}
+
+	/**
+	 * Reads object from JSON in <code>in</code>.
+	 *
+	 * @param in
+	 *            - the reader containing the JSON representation of the
+	 *            object.
+	 * @return The object read.
+	 * @throws IOException
+	 *             Thrown if <code>in</code> does not contain the JSON
+	 *             representation of an object or if it does not conform to
+	 *             the registered meta-data of the object's class.
+	 */
+	public static EObject unmarshal(Reader in) throws IOException {
+		return new JsonReader(in).readObject(null);
+	}
+
+	/**
+	 * Returns whether <code>string</code> contains a JSON object.
+	 *
+	 * @param string
+	 *            - the string to test.
+	 * @return <code>true</code> if the first non-whitespace character of
+	 *         <code>string</code> begins a JSON object; <code>false</code>
+	 *         otherwise.
+	 */
+	public static boolean isJson(String string) {
+		if (string == null) {
+			return false;
+		}
+		for (int i = 0; i < string.length(); i++) {
+			char c = string.charAt(i);
+			if (!isWhitespace(c)) {
+				return c == '{';
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether <code>bytes</code> contain a JSON object.
+	 *
+	 * @param bytes
+	 *            - the bytes to test.
+	 * @return <code>true</code> if the first non-whitespace byte of
+	 *         <code>bytes</code> begins a JSON object; <code>false</code>
+	 *         otherwise.
+	 */
+	public static boolean isJson(byte[] bytes) {
+		if (bytes == null) {
+			return false;
+		}
+		for (int i = 0; i < bytes.length && i < SNIFF_LIMIT; i++) {
+			if (!isWhitespace(bytes[i])) {
+				return bytes[i] == '{';
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns whether <code>in</code> contains a JSON object without
+	 * consuming any of its bytes.
+	 *
+	 * @param in
+	 *            - the stream to test; must support mark.
+	 * @return <code>true</code> if the first non-whitespace byte of
+	 *         <code>in</code> begins a JSON object; <code>false</code>
+	 *         otherwise.
+	 * @throws IOException
+	 */
+	public static boolean isJson(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			throw new IllegalArgumentException("in argument must support mark");
+		}
+		in.mark(SNIFF_LIMIT);
+		try {
+			for (int i = 0; i < SNIFF_LIMIT; i++) {
+				int b = in.read();
+				if (b < 0) {
+					return false;
+				}
+				if (!isWhitespace(b)) {
+					return b == '{';
+				}
+			}
+			return false;
+		} finally {
+			in.reset();
+		}
+	}
+
+	private static boolean isWhitespace(int c) {
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private static ClassInfo getClassInfo(EClass eClass) {
+		ClassInfo classInfo = findClassInfo(eClass);
+		if (classInfo == null) {
+			synchronized (eClass) {
+				classInfo = findClassInfo(eClass);
+				if (classInfo == null) {
+					classInfo = new ClassInfo(eClass);
+					eClass.eAdapters().add(classInfo);
+				}
+			}
+		}
+		return classInfo;
+	}
+
+	private static ClassInfo findClassInfo(EClass eClass) {
+		EList<Adapter> adapters = eClass.eAdapters();
+		for (int i = 0; i < adapters.size(); i++) {
+			Adapter adapter = adapters.get(i);
+			if (adapter instanceof ClassInfo) {
+				return (ClassInfo) adapter;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the kind of JSON value of <code>attribute</code>, preferring
+	 * the field meta-data recorded in its annotations over its type.
+	 */
+	private static int getKind(EAttribute attribute) {
+		String className = Util.getAnnotation(attribute, RfcPackage.eNS_URI, RfcUtil.RfcNS_CLASS_NAME_OF_FIELD_KEY);
+		if (className == null) {
+			className = Util.getAnnotation(attribute, IdocPackage.eNS_URI, IDocUtil.IDocNS_CLASS_NAME_OF_FIELD_KEY);
+		}
+		if (className == null) {
+			Class<?> instanceClass = attribute.getEAttributeType().getInstanceClass();
+			className = instanceClass == null ? null : instanceClass.getName();
+		}
+		if (className == null) {
+			return OTHER_KIND;
+		}
+		if (className.equals(String.class.getName())) {
+			return STRING_KIND;
+		} else if (className.equals(Integer.class.getName()) || className.equals(int.class.getName())) {
+			return INT_KIND;
+		} else if (className.equals(Long.class.getName()) || className.equals(long.class.getName())) {
+			return LONG_KIND;
+		} else if (className.equals(Short.class.getName()) || className.equals(short.class.getName())) {
+			return SHORT_KIND;
+		} else if (className.equals(Byte.class.getName()) || className.equals(byte.class.getName())) {
+			return BYTE_KIND;
+		} else if (className.equals(Double.class.getName()) || className.equals(double.class.getName())) {
+			return DOUBLE_KIND;
+		} else if (className.equals(Float.class.getName()) || className.equals(float.class.getName())) {
+			return FLOAT_KIND;
+		} else if (className.equals(Boolean.class.getName()) || className.equals(boolean.class.getName())) {
+			return BOOLEAN_KIND;
+		} else if (className.equals(Character.class.getName()) || className.equals(char.class.getName())) {
+			return CHAR_KIND;
+		} else if (className.equals(BigDecimal.class.getName())) {
+			return BIG_DECIMAL_KIND;
+		} else if (className.equals(BigInteger.class.getName())) {
+			return BIG_INTEGER_KIND;
+		} else if (className.equals(byte[].class.getName())) {
+			return BYTE_ARRAY_KIND;
+		} else if (className.equals(Date.class.getName())) {
+			String type = Util.getAnnotation(attribute, RfcPackage.eNS_URI, RfcUtil.RfcNS_TYPE_KEY);
+			if (Integer.toString(JCoMetaData.TYPE_DATE).equals(type)) {
+				return DATE_KIND;
+			} else if (Integer.toString(JCoMetaData.TYPE_TIME).equals(type)) {
+				return TIME_KIND;
+			}
+			return DATE_TIME_KIND;
+		}
+		return OTHER_KIND;
+	}
+
+	/**
+	 * The persistent features of a class and the JSON kinds of its
+	 * attributes, attached to the class as an adapter. Detaches itself when
+	 * the features of its class are changed.
+	 */
+	private static class ClassInfo extends AdapterImpl {
+
+		final EClass eClass;
+
+		final EStructuralFeature[] features;
+
+		final int[] kinds;
+
+		final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+		ClassInfo(EClass eClass) {
+			this.eClass = eClass;
+			List<EStructuralFeature> persistentFeatures = new ArrayList<EStructuralFeature>();
+			for (EStructuralFeature feature : eClass.getEAllStructuralFeatures()) {
+				if (feature.isTransient()) {
+					continue;
+				}
+				if (feature instanceof EReference && !((EReference) feature).isContainment()) {
+					continue;
+				}
+				persistentFeatures.add(feature);
+			}
+			features = persistentFeatures.toArray(new EStructuralFeature[persistentFeatures.size()]);
+			kinds = new int[features.length];
+			for (int i = 0; i < features.length; i++) {
+				kinds[i] = features[i] instanceof EAttribute ? getKind((EAttribute) features[i]) : -1;
+				indexes.put(features[i].getName(), i);
+			}
+		}
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == ClassInfo.class;
+		}
+
+		@Override
+		public void notifyChanged(Notification msg) {
+			Object feature = msg.getFeature();
+			if (feature == EcorePackage.Literals.ECLASS__ESTRUCTURAL_FEATURES || feature == EcorePackage.Literals.ECLASS__ESUPER_TYPES) {
+				// Stale: rebuilt on next lookup.
+				((EClass) msg.getNotifier()).eAdapters().remove(this);
+			}
+		}
+	}
+
+	private static class JsonWriter {
+
+		final Writer out;
+
+		final DateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+
+		final DateFormat timeFormat = new SimpleDateFormat(TIME_PATTERN);
+
+		final DateFormat dateTimeFormat = new SimpleDateFormat(DATE_TIME_PATTERN);
+
+		JsonWriter(Writer out) {
+			this.out = out;
+		}
+
+		void writeObject(EObject eObject, EClass type) throws IOException {
+			ClassInfo classInfo = getClassInfo(eObject.eClass());
+			out.write('{');
+			boolean first = true;
+			if (classInfo.eClass != type) {
+				writeName(ECLASS_KEY, first);
+				first = false;
+				writeString(classInfo.eClass.getEPackage().getNsURI() + "#//" + classInfo.eClass.getName());
+			}
+			for (int i = 0; i < classInfo.features.length; i++) {
+				EStructuralFeature feature = classInfo.features[i];
+				if (FeatureMapUtil.isFeatureMap(feature)) {
+					FeatureMap featureMap = (FeatureMap) eObject.eGet(feature);
+					if (featureMap.isEmpty()) {
+						continue;
+					}
+					writeName(feature.getName(), first);
+					writeFeatureMap(featureMap);
+				} else if (feature.isMany()) {
+					List<?> values = (List<?>) eObject.eGet(feature);
+					if (values.isEmpty()) {
+						continue;
+					}
+					writeName(feature.getName(), first);
+					out.write('[');
+					for (int j = 0; j < values.size(); j++) {
+						if (j > 0) {
+							out.write(',');
+						}
+						writeValue(feature, classInfo.kinds[i], values.get(j));
+					}
+					out.write(']');
+				} else {
+					if (!eObject.eIsSet(feature)) {
+						continue;
+					}
+					writeName(feature.getName(), first);
+					writeValue(feature, classInfo.kinds[i], eObject.eGet(feature));
+				}
+				first = false;
+			}
+			out.write('}');
+		}
+
+		void writeFeatureMap(FeatureMap featureMap) throws IOException {
+			out.write('[');
+			for (int i = 0; i < featureMap.size(); i++) {
+				if (i > 0) {
+					out.write(',');
+				}
+				EStructuralFeature feature = featureMap.getEStructuralFeature(i);
+				out.write('{');
+				writeName(feature.getName(), true);
+				int kind = feature instanceof EAttribute ? getKind((EAttribute) feature) : -1;
+				writeValue(feature, kind, featureMap.getValue(i));
+				out.write('}');
+			}
+			out.write(']');
+		}
+
+		void writeValue(EStructuralFeature feature, int kind, Object value) throws IOException {
+			if (value == null) {
+				out.write("null");
+			} else if (feature instanceof EReference) {
+				writeObject((EObject) value, ((EReference) feature).getEReferenceType());
+			} else if (value instanceof String) {
+				writeString((String) value);
+			} else if (value instanceof Date) {
+				writeString(getDateFormat(kind).format((Date) value));
+			} else if (value instanceof byte[]) {
+				writeString(toHex((byte[]) value));
+			} else if (value instanceof Double || value instanceof Float) {
+				double d = ((Number) value).doubleValue();
+				if (Double.isNaN(d) || Double.isInfinite(d)) {
+					writeString(value.toString());
+				} else {
+					out.write(value.toString());
+				}
+			} else if (value instanceof Number || value instanceof Boolean) {
+				out.write(value.toString());
+			} else {
+				writeString(EcoreUtil.convertToString((EDataType) feature.getEType(), value));
+			}
+		}
+
+		void writeName(String name, boolean first) throws IOException {
+			if (!first) {
+				out.write(',');
+			}
+			writeString(name);
+			out.write(':');
+		}
+
+		void writeString(String string) throws IOException {
+			out.write('"');
+			int start = 0;
+			for (int i = 0; i < string.length(); i++) {
+				char c = string.charAt(i);
+				if (c >= 0x20 && c != '"' && c != '\\') {
+					continue;
+				}
+				out.write(string, start, i - start);
+				start = i + 1;
+				switch (c) {
+				case '"':
+					out.write("\\\"");
+					break;
+				case '\\':
+					out.write("\\\\");
+					break;
+				case '\n':
+					out.write("\\n");
+					break;
+				case '\r':
+					out.write("\\r");
+					break;
+				case '\t':
+					out.write("\\t");
+					break;
+				default:
+					out.write("\\u00");
+					out.write(HEX_DIGITS[c >> 4]);
+					out.write(HEX_DIGITS[c & 0xF]);
+				}
+			}
+			out.write(string, start, string.length() - start);
+			out.write('"');
+		}
+
+		DateFormat getDateFormat(int kind) {
+			switch (kind) {
+			case DATE_KIND:
+				return dateFormat;
+			case TIME_KIND:
+				return timeFormat;
+			default:
+				return dateTimeFormat;
+			}
+		}
+	}
+
+	private static class JsonReader {
+
+		final Reader in;
+
+		final char[] buffer = new char[8192];
+
+		int position;
+
+		int limit;
+
+		final StringBuilder text = new StringBuilder();
+
+		final DateFormat dateFormat = new SimpleDateFormat(DATE_PATTERN);
+
+		final DateFormat timeFormat = new SimpleDateFormat(TIME_PATTERN);
+
+		final DateFormat dateTimeFormat = new SimpleDateFormat(DATE_TIME_PATTERN);
+
+		JsonReader(Reader in) {
+			this.in = in;
+		}
+
+		EObject readObject(EClass type) throws IOException {
+			expect('{');
+			EClass eClass = type;
+			String name = null;
+			if (peek() != '}') {
+				name = readString();
+				expect(':');
+				if (ECLASS_KEY.equals(name)) {
+					eClass = resolveClass(readString());
+					name = null;
+					if (peek() == ',') {
+						read();
+						name = readString();
+						expect(':');
+					}
+				}
+			}
+			if (eClass == null) {
+				throw new IOException("Can not read object: first member is not '" + ECLASS_KEY + "'");
+			}
+			if (eClass.isAbstract()) {
+				throw new IOException("Can not read object: class '" + eClass.getName() + "' is abstract");
+			}
+			EObject eObject = EcoreUtil.create(eClass);
+			ClassInfo classInfo = getClassInfo(eClass);
+			while (name != null) {
+				Integer index = classInfo.indexes.get(name);
+				if (index == null) {
+					throw new IOException("Can not read object: class '" + eClass.getName() + "' has no feature '" + name + "'");
+				}
+				readFeature(eObject, classInfo.features[index], classInfo.kinds[index]);
+				name = null;
+				if (peek() == ',') {
+					read();
+					name = readString();
+					expect(':');
+				}
+			}
+			expect('}');
+			return eObject;
+		}
+
+		@SuppressWarnings("unchecked")
+		void readFeature(EObject eObject, EStructuralFeature feature, int kind) throws IOException {
+			if (FeatureMapUtil.isFeatureMap(feature)) {
+				readFeatureMap(eObject);
+			} else if (feature.isMany()) {
+				List<Object> values = (List<Object>) eObject.eGet(feature);
+				if (readNull()) {
+					return;
+				}
+				expect('[');
+				if (peek() != ']') {
+					do {
+						values.add(readValue(feature, kind));
+					} while (readSeparator(']'));
+				}
+				expect(']');
+			} else {
+				eObject.eSet(feature, readValue(feature, kind));
+			}
+		}
+
+		/**
+		 * Adds each entry to the list of its feature, which delegates to the
+		 * feature map, as is done when reading XML.
+		 */
+		@SuppressWarnings("unchecked")
+		void readFeatureMap(EObject eObject) throws IOException {
+			if (readNull()) {
+				return;
+			}
+			EClass eClass = eObject.eClass();
+			expect('[');
+			if (peek() != ']') {
+				do {
+					expect('{');
+					String name = readString();
+					expect(':');
+					EStructuralFeature feature = eClass.getEStructuralFeature(name);
+					if (feature == null) {
+						throw new IOException("Can not read object: class '" + eClass.getName() + "' has no feature '" + name + "'");
+					}
+					int kind = feature instanceof EAttribute ? getKind((EAttribute) feature) : -1;
+					Object value = readValue(feature, kind);
+					if (feature.isMany()) {
+						((List<Object>) eObject.eGet(feature)).add(value);
+					} else {
+						eObject.eSet(feature, value);
+					}
+					expect('}');
+				} while (readSeparator(']'));
+			}
+			expect(']');
+		}
+
+		Object readValue(EStructuralFeature feature, int kind) throws IOException {
+			if (readNull()) {
+				return null;
+			}
+			if (feature instanceof EReference) {
+				return readObject(((EReference) feature).getEReferenceType());
+			}
+			String value = peek() == '"' ? readString() : readLiteral();
+			try {
+				switch (kind) {
+				case STRING_KIND:
+					return value;
+				case INT_KIND:
+					return Integer.valueOf(value);
+				case LONG_KIND:
+					return Long.valueOf(value);
+				case SHORT_KIND:
+					return Short.valueOf(value);
+				case BYTE_KIND:
+					return Byte.valueOf(value);
+				case DOUBLE_KIND:
+					return Double.valueOf(value);
+				case FLOAT_KIND:
+					return Float.valueOf(value);
+				case BOOLEAN_KIND:
+					return Boolean.valueOf(value);
+				case CHAR_KIND:
+					return value.length() == 0 ? null : Character.valueOf(value.charAt(0));
+				case BIG_DECIMAL_KIND:
+					return new BigDecimal(value);
+				case BIG_INTEGER_KIND:
+					return new BigInteger(value);
+				case DATE_KIND:
+					return dateFormat.parse(value);
+				case TIME_KIND:
+					return timeFormat.parse(value);
+				case DATE_TIME_KIND:
+					return dateTimeFormat.parse(value);
+				case BYTE_ARRAY_KIND:
+					return fromHex(value);
+				default:
+					return EcoreUtil.createFromString((EDataType) feature.getEType(), value);
+				}
+			} catch (NumberFormatException e) {
+				throw new IOException("Invalid value '" + value + "' of feature '" + feature.getName() + "'", e);
+			} catch (ParseException e) {
+				throw new IOException("Invalid value '" + value + "' of feature '" + feature.getName() + "'", e);
+			}
+		}
+
+		EClass resolveClass(String uri) throws IOException {
+			int index = uri.lastIndexOf("#//");
+			if (index < 0) {
+				throw new IOException("Invalid class reference '" + uri + "'");
+			}
+			String nsURI = uri.substring(0, index);
+			String name = uri.substring(index + 3);
+			EPackage ePackage = Util.registry.getEPackage(nsURI);
+			EClassifier eClassifier = ePackage == null ? null : ePackage.getEClassifier(name);
+			if (!(eClassifier instanceof EClass)) {
+				throw new IOException("Can not read object: meta-data for class '" + name + "' in package '" + nsURI + "' does not exist");
+			}
+			return (EClass) eClassifier;
+		}
+
+		boolean readSeparator(char end) throws IOException {
+			int c = peek();
+			if (c == ',') {
+				read();
+				return true;
+			}
+			if (c != end) {
+				throw unexpected(c);
+			}
+			return false;
+		}
+
+		boolean readNull() throws IOException {
+			if (peek() != 'n') {
+				return false;
+			}
+			String literal = readLiteral();
+			if (!"null".equals(literal)) {
+				throw new IOException("Invalid literal '" + literal + "'");
+			}
+			return true;
+		}
+
+		String readLiteral() throws IOException {
+			peek();
+			text.setLength(0);
+			while (true) {
+				if (position == limit && !fill()) {
+					break;
+				}
+				char c = buffer[position];
+				if (c == ',' || c == '}' || c == ']' || isWhitespace(c)) {
+					break;
+				}
+				text.append(c);
+				position++;
+			}
+			if (text.length() == 0) {
+				throw unexpected(peek());
+			}
+			return text.toString();
+		}
+
+		String readString() throws IOException {
+			expect('"');
+			text.setLength(0);
+			while (true) {
+				int c = read();
+				if (c < 0) {
+					throw new IOException("Unterminated string");
+				} else if (c == '"') {
+					return text.toString();
+				} else if (c == '\\') {
+					c = read();
+					switch (c) {
+					case '"':
+					case '\\':
+					case '/':
+						text.append((char) c);
+						break;
+					case 'b':
+						text.append('\b');
+						break;
+					case 'f':
+						text.append('\f');
+						break;
+					case 'n':
+						text.append('\n');
+						break;
+					case 'r':
+						text.append('\r');
+						break;
+					case 't':
+						text.append('\t');
+						break;
+					case 'u':
+						int code = 0;
+						for (int i = 0; i < 4; i++) {
+							int digit = Character.digit(read(), 16);
+							if (digit < 0) {
+								throw new IOException("Invalid unicode escape");
+							}
+							code = (code << 4) | digit;
+						}
+						text.append((char) code);
+						break;
+					default:
+						throw new IOException("Invalid escape character '" + (char) c + "'");
+					}
+				} else {
+					text.append((char) c);
+				}
+			}
+		}
+
+		void expect(char expected) throws IOException {
+			int c = peek();
+			if (c != expected) {
+				throw unexpected(c);
+			}
+			position++;
+		}
+
+		/**
+		 * Returns the next non-whitespace character without consuming it.
+		 */
+		int peek() throws IOException {
+			while (true) {
+				if (position == limit && !fill()) {
+					return -1;
+				}
+				char c = buffer[position];
+				if (!isWhitespace(c)) {
+					return c;
+				}
+				position++;
+			}
+		}
+
+		int read() throws IOException {
+			if (position == limit && !fill()) {
+				return -1;
+			}
+			return buffer[position++];
+		}
+
+		boolean fill() throws IOException {
+			int n = in.read(buffer, 0, buffer.length);
+			if (n <= 0) {
+				return false;
+			}
+			position = 0;
+			limit = n;
+			return true;
+		}
+
+		IOException unexpected(int c) {
+			return new IOException(c < 0 ? "Unexpected end of JSON input" : "Unexpected character '" + (char) c + "' in JSON input");
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			chars[2 * i] = HEX_DIGITS[(bytes[i] >> 4) & 0xF];
+			chars[2 * i + 1] = HEX_DIGITS[bytes[i] & 0xF];
+		}
+		return new String(chars);
+	}
+
+	private static byte[] fromHex(String hex) {
+		if (hex.length() % 2 != 0) {
+			throw new NumberFormatException("Odd number of hexadecimal digits");
+		}
+		byte[] bytes = new byte[hex.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			int high = Character.digit(hex.charAt(2 * i), 16);
+			int low = Character.digit(hex.charAt(2 * i + 1), 16);
+			if (high < 0 || low < 0) {
+				throw new NumberFormatException("Invalid hexadecimal digit");
+			}
+			bytes[i] = (byte) ((high << 4) | low);
+		}
+		return bytes;
+	}
+
+}
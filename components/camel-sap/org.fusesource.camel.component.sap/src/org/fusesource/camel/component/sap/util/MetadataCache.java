@@ -0,0 +1,388 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.util;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.fusesource.camel.component.sap.model.idoc.impl.SegmentDescriptor;
+import org.fusesource.camel.component.sap.model.rfc.impl.StructureDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded cache of the dynamic {@link EPackage}s built from SAP meta-data.
+ * <p>
+ * Lookups of packages already built are lock free. The first lookup of a
+ * package builds it exactly once: concurrent lookups of the same namespace
+ * URI wait for the single build in progress rather than building the package
+ * again. Built packages are also registered in the global
+ * {@link EPackage.Registry} so they can be resolved when unmarshalling; when
+ * the cache exceeds its maximum size the least recently used packages are
+ * evicted from both the cache and the global registry.
+ * <p>
+ * A cache may be backed by a {@link MetadataStore}: packages are then loaded
+ * from the store rather than built on a cache miss, checked against the live
+ * repository in the background, and saved to the store once built.
+ *
+ * @author punkhorn
+ *
+ */
+public class MetadataCache {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetadataCache.class);
+
+	/**
+	 * The default maximum number of packages held by a cache.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 1024;
+
+	/**
+	 * Builds the {@link EPackage} designated by a namespace URI on a cache
+	 * miss.
+	 */
+	public interface Builder {
+
+		/**
+		 * Builds the package designated by <code>nsURI</code>.
+		 *
+		 * @param nsURI
+		 *            - the namespace URI of the package to build.
+		 * @return The package or <code>null</code> if the package could not
+		 *         be built.
+		 */
+		EPackage build(String nsURI);
+	}
+
+	private static class Entry {
+		final EPackage ePackage;
+		final boolean registered;
+		volatile long lastAccess;
+
+		Entry(EPackage ePackage, boolean registered, long lastAccess) {
+			this.ePackage = ePackage;
+			this.registered = registered;
+			this.lastAccess = lastAccess;
+		}
+	}
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private final ConcurrentMap<String, FutureTask<Entry>> builds = new ConcurrentHashMap<String, FutureTask<Entry>>();
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private final AtomicLong buildCount = new AtomicLong();
+
+	private final AtomicLong buildTime = new AtomicLong();
+
+	private final AtomicLong evictions = new AtomicLong();
+
+	private volatile int maximumSize;
+
+	private volatile MetadataStore store;
+
+	public MetadataCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	public MetadataCache(int maximumSize) {
+		setMaximumSize(maximumSize);
+	}
+
+	/**
+	 * Returns the package designated by <code>nsURI</code>, building it with
+	 * <code>builder</code> if it is not already cached.
+	 *
+	 * @param nsURI
+	 *            - the namespace URI of the package.
+	 * @param builder
+	 *            - builds the package on a cache miss.
+	 * @return The package or <code>null</code> if the package could not be
+	 *         built.
+	 */
+	public EPackage get(final String nsURI, final Builder builder) {
+		Entry entry = entries.get(nsURI);
+		if (entry != null) {
+			hits.incrementAndGet();
+			entry.lastAccess = clock.incrementAndGet();
+			return entry.ePackage;
+		}
+
+		FutureTask<Entry> build = builds.get(nsURI);
+		if (build == null) {
+			FutureTask<Entry> newBuild = new FutureTask<Entry>(new Callable<Entry>() {
+				@Override
+				public Entry call() throws Exception {
+					return load(nsURI, builder);
+				}
+			});
+			build = builds.putIfAbsent(nsURI, newBuild);
+			if (build == null) {
+				build = newBuild;
+				misses.incrementAndGet();
+				try {
+					build.run();
+				} finally {
+					builds.remove(nsURI, build);
+				}
+			} else {
+				hits.incrementAndGet();
+			}
+		} else {
+			hits.incrementAndGet();
+		}
+
+		try {
+			entry = build.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		return entry == null ? null : entry.ePackage;
+	}
+
+	/**
+	 * Removes the package designated by <code>nsURI</code> from the cache
+	 * and, if it was built by this cache, from the global registry.
+	 *
+	 * @param nsURI
+	 *            - the namespace URI of the package.
+	 */
+	public void remove(String nsURI) {
+		Entry entry = entries.remove(nsURI);
+		if (entry != null) {
+			unregister(nsURI, entry);
+		}
+	}
+
+	/**
+	 * Removes all packages from the cache and the packages built by this cache
+	 * from the global registry.
+	 */
+	public void clear() {
+		for (String nsURI : entries.keySet()) {
+			remove(nsURI);
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	public int getMaximumSize() {
+		return maximumSize;
+	}
+
+	public void setMaximumSize(int maximumSize) {
+		if (maximumSize < 1) {
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+		}
+		this.maximumSize = maximumSize;
+		evict();
+	}
+
+	public MetadataStore getStore() {
+		return store;
+	}
+
+	/**
+	 * Sets the store backing this cache.
+	 *
+	 * @param store
+	 *            - the store or <code>null</code> to build every package from
+	 *            SAP meta-data.
+	 */
+	public void setStore(MetadataStore store) {
+		this.store = store;
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getBuildCount() {
+		return buildCount.get();
+	}
+
+	/**
+	 * Returns the accumulated time in milliseconds spent building packages.
+	 *
+	 * @return The accumulated build time in milliseconds.
+	 */
+	public long getTotalBuildTime() {
+		return buildTime.get() / 1000000L;
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	@Override
+	public String toString() {
+		return "MetadataCache [size=" + size() + ", maximumSize=" + maximumSize + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", builds="
+				+ getBuildCount() + ", totalBuildTime=" + getTotalBuildTime() + "ms, evictions=" + getEvictionCount() + "]";
+	}
+
+	private Entry load(String nsURI, Builder builder) {
+		// A build for this package may have completed between the caller's
+		// lookup and the registration of this build.
+		Entry entry = entries.get(nsURI);
+		if (entry != null) {
+			return entry;
+		}
+
+		// Packages already in the global registry (e.g. loaded from a saved
+		// registry) are adopted rather than rebuilt.
+		Object registered;
+		synchronized (Util.registry) {
+			registered = Util.registry.get(nsURI);
+		}
+		MetadataStore store = this.store;
+		EPackage stored = null;
+		if (registered instanceof EPackage) {
+			entry = new Entry((EPackage) registered, false, clock.incrementAndGet());
+		} else if (store != null && (stored = store.load(nsURI)) != null) {
+			synchronized (Util.registry) {
+				Util.registry.put(nsURI, stored);
+			}
+			entry = new Entry(stored, true, clock.incrementAndGet());
+		} else {
+			long start = System.nanoTime();
+			EPackage ePackage = builder.build(nsURI);
+			buildTime.addAndGet(System.nanoTime() - start);
+			buildCount.incrementAndGet();
+			if (ePackage == null) {
+				return null;
+			}
+			synchronized (Util.registry) {
+				Util.registry.put(nsURI, ePackage);
+			}
+			entry = new Entry(ePackage, true, clock.incrementAndGet());
+			if (store != null) {
+				try {
+					store.save(ePackage);
+				} catch (IOException e) {
+					LOG.warn("Failed to save package '" + nsURI + "' to meta-data store", e);
+				}
+			}
+		}
+
+		entries.put(nsURI, entry);
+		evict();
+
+		if (stored != null) {
+			// Check the stored package is still current once it is in use.
+			store.refresh(stored, builder, new MetadataStore.RefreshListener() {
+				@Override
+				public void stale(EPackage stale, EPackage current) {
+					replace(stale.getNsURI(), stale, current);
+				}
+			});
+		}
+		return entry;
+	}
+
+	private void replace(String nsURI, EPackage stale, EPackage current) {
+		Entry entry = entries.get(nsURI);
+		if (entry == null || entry.ePackage != stale) {
+			// Evicted or already replaced.
+			return;
+		}
+		if (!entries.replace(nsURI, entry, new Entry(current, true, entry.lastAccess))) {
+			return;
+		}
+		synchronized (Util.registry) {
+			if (Util.registry.get(nsURI) == stale) {
+				Util.registry.put(nsURI, current);
+			}
+		}
+		RecordMapping.remove(stale);
+		StructureDescriptor.remove(stale);
+		SegmentDescriptor.remove(stale);
+		Util.clearNameToFeatureMap();
+		if (LOG.isDebugEnabled()) {
+			LOG.debug("Replaced stale package '" + nsURI + "' in meta-data cache");
+		}
+	}
+
+	private void evict() {
+		while (entries.size() > maximumSize) {
+			String eldestURI = null;
+			long eldestAccess = Long.MAX_VALUE;
+			for (Map.Entry<String, Entry> e : entries.entrySet()) {
+				long lastAccess = e.getValue().lastAccess;
+				if (lastAccess < eldestAccess) {
+					eldestAccess = lastAccess;
+					eldestURI = e.getKey();
+				}
+			}
+			if (eldestURI == null) {
+				return;
+			}
+			Entry eldest = entries.remove(eldestURI);
+			if (eldest != null) {
+				evictions.incrementAndGet();
+				unregister(eldestURI, eldest);
+				if (LOG.isDebugEnabled()) {
+					LOG.debug("Evicted package '" + eldestURI + "' from meta-data cache");
+				}
+			}
+		}
+	}
+
+	private void unregister(String nsURI, Entry entry) {
+		RecordMapping.remove(entry.ePackage);
+		StructureDescriptor.remove(entry.ePackage);
+		SegmentDescriptor.remove(entry.ePackage);
+		Util.clearNameToFeatureMap();
+		if (!entry.registered) {
+			return;
+		}
+		// The global registry is not thread safe: serialize our updates.
+		synchronized (Util.registry) {
+			if (Util.registry.get(nsURI) == entry.ePackage) {
+				Util.registry.remove(nsURI);
+			}
+		}
+	}
+
+}
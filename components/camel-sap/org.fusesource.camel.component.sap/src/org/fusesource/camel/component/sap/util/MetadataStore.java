@@ -0,0 +1,474 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAnnotation;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EClassifier;
+import org.eclipse.emf.ecore.EModelElement;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.ResourceSet;
+import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.xmi.XMIResource;
+import org.eclipse.emf.ecore.xmi.impl.EcoreResourceFactoryImpl;
+import org.fusesource.camel.component.sap.model.idoc.IdocPackage;
+import org.fusesource.camel.component.sap.model.rfc.RfcPackage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent store of the dynamic {@link EPackage}s built from SAP meta-data.
+ * <p>
+ * Unlike {@link Util#saveRegistry(File)}, which writes every package into a
+ * single resource, the store saves each package in its own <code>.ecore</code>
+ * file under a directory per package kind and repository, e.g.
+ * <code>rfc/{repository-name}/{function-module-name}.ecore</code> or
+ * <code>idoc/{repository-name}/{idoc-type}/{idoc-type-extension}/{system-release}/{application-release}.ecore</code>.
+ * Each file records the store format version and a signature hash of the
+ * package's structure; files of another format version are ignored.
+ * <p>
+ * When plugged into a {@link MetadataCache}, a package is loaded from its file
+ * the first time its namespace URI is requested and then checked in the
+ * background against the live repository: if the signature of the package
+ * built from the repository differs from the stored one, e.g. after a
+ * transport changed a function module's interface, the file is rewritten and
+ * the cache switches to the new package.
+ * 
+ * @author punkhorn
+ *
+ */
+public class MetadataStore {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MetadataStore.class);
+
+	/**
+	 * The version of the store's file format.
+	 */
+	public static final String FORMAT_VERSION = "1";
+
+	/**
+	 * The source of the annotation recording the format version and signature
+	 * of a stored package.
+	 */
+	public static final String MetadataStoreNS_URI = "http://sap.fusesource.org/metadata-store";
+
+	public static final String MetadataStoreNS_VERSION_KEY = "version";
+
+	public static final String MetadataStoreNS_SIGNATURE_KEY = "signature";
+
+	private static final String FILE_EXTENSION = ".ecore";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final File directory;
+
+	private final Executor refreshExecutor;
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private final AtomicLong saves = new AtomicLong();
+
+	private final AtomicLong refreshes = new AtomicLong();
+
+	private final AtomicLong staleCount = new AtomicLong();
+
+	/**
+	 * Creates a store in <code>directory</code> which refreshes packages on a
+	 * single background thread.
+	 * 
+	 * @param directory
+	 *            - the root directory of the store.
+	 */
+	public MetadataStore(File directory) {
+		this(directory, Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "SAP Metadata Store Refresh");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}));
+	}
+
+	/**
+	 * Creates a store in <code>directory</code> which refreshes packages with
+	 * <code>refreshExecutor</code>.
+	 * 
+	 * @param directory
+	 *            - the root directory of the store.
+	 * @param refreshExecutor
+	 *            - runs the background refreshes of loaded packages.
+	 */
+	public MetadataStore(File directory, Executor refreshExecutor) {
+		if (directory == null) {
+			throw new IllegalArgumentException("Directory must not be null");
+		}
+		this.directory = directory;
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Loads the package designated by <code>nsURI</code> from the store.
+	 * 
+	 * @param nsURI
+	 *            - the namespace URI of the package.
+	 * @return The package or <code>null</code> if the store holds no usable
+	 *         file for the package.
+	 */
+	public EPackage load(String nsURI) {
+		File file = getFile(nsURI);
+		if (!file.isFile()) {
+			return null;
+		}
+
+		ResourceSet resourceSet = createResourceSet();
+		Resource resource = resourceSet.createResource(URI.createFileURI(file.getAbsolutePath()));
+		try {
+			resource.load(null);
+		} catch (IOException | RuntimeException e) {
+			LOG.warn("Failed to load package '" + nsURI + "' from meta-data store file '" + file + "': ignoring file", e);
+			return null;
+		}
+
+		for (EObject eObject : resource.getContents()) {
+			if (eObject instanceof EPackage && nsURI.equals(((EPackage) eObject).getNsURI())) {
+				EPackage ePackage = (EPackage) eObject;
+				if (!FORMAT_VERSION.equals(Util.getAnnotation(ePackage, MetadataStoreNS_URI, MetadataStoreNS_VERSION_KEY))) {
+					if (LOG.isDebugEnabled()) {
+						LOG.debug("Ignoring meta-data store file '" + file + "' of another format version");
+					}
+					return null;
+				}
+				Util.reattachStaticPackageSuperTypes(ePackage);
+				loads.incrementAndGet();
+				return ePackage;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Saves <code>ePackage</code> in the store, replacing any previously
+	 * stored version of the package. The package itself is left untouched: a
+	 * copy of it is annotated and saved.
+	 * 
+	 * @param ePackage
+	 *            - the package to save.
+	 * @throws IOException
+	 *             If the package could not be written.
+	 */
+	public void save(EPackage ePackage) throws IOException {
+		String nsURI = ePackage.getNsURI();
+		File file = getFile(nsURI);
+		File parent = file.getParentFile();
+		if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+			throw new IOException("Failed to create meta-data store directory '" + parent + "'");
+		}
+
+		EPackage copy = EcoreUtil.copy(ePackage);
+		Util.addAnnotation(copy, MetadataStoreNS_URI, MetadataStoreNS_VERSION_KEY, FORMAT_VERSION);
+		Util.addAnnotation(copy, MetadataStoreNS_URI, MetadataStoreNS_SIGNATURE_KEY, getSignature(ePackage));
+
+		// Write to a temporary file first so that concurrent loads never see
+		// a partially written package.
+		File tempFile = File.createTempFile(file.getName(), ".tmp", parent);
+		try {
+			ResourceSet resourceSet = createResourceSet();
+			Resource resource = resourceSet.createResource(URI.createFileURI(tempFile.getAbsolutePath()));
+			resource.getContents().add(copy);
+			Map<String, Object> options = new HashMap<String, Object>();
+			options.put(XMIResource.OPTION_USE_ENCODED_ATTRIBUTE_STYLE, Boolean.FALSE);
+			resource.save(options);
+			Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			if (tempFile.exists() && !tempFile.delete()) {
+				tempFile.deleteOnExit();
+			}
+		}
+		saves.incrementAndGet();
+	}
+
+	/**
+	 * Deletes the stored version of the package designated by
+	 * <code>nsURI</code>.
+	 * 
+	 * @param nsURI
+	 *            - the namespace URI of the package.
+	 * @return <code>true</code> if a stored version was deleted.
+	 */
+	public boolean delete(String nsURI) {
+		return getFile(nsURI).delete();
+	}
+
+	/**
+	 * Returns the signature hash of <code>ePackage</code>.
+	 * <p>
+	 * The signature covers the names, super types, structural features and
+	 * SAP annotations of the package's classifiers, so two packages built
+	 * from the same SAP meta-data have the same signature.
+	 * 
+	 * @param ePackage
+	 *            - the package.
+	 * @return The hex encoded signature hash.
+	 */
+	public static String getSignature(EPackage ePackage) {
+		StringBuilder description = new StringBuilder();
+		for (EClassifier eClassifier : ePackage.getEClassifiers()) {
+			description.append(eClassifier.getName()).append('{');
+			appendAnnotations(description, eClassifier);
+			if (eClassifier instanceof EClass) {
+				EClass eClass = (EClass) eClassifier;
+				for (EClass superType : eClass.getESuperTypes()) {
+					description.append('^').append(superType.getName());
+				}
+				for (EStructuralFeature feature : eClass.getEStructuralFeatures()) {
+					description.append(feature.getName()).append(':');
+					if (feature.getEType() != null) {
+						description.append(feature.getEType().getName());
+					}
+					description.append('[').append(feature.getLowerBound()).append(',').append(feature.getUpperBound()).append(']');
+					if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+						description.append('+');
+					}
+					appendAnnotations(description, feature);
+					description.append(';');
+				}
+			}
+			description.append('}');
+		}
+
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(description.toString().getBytes(UTF8));
+			StringBuilder signature = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				signature.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return signature.toString();
+		} catch (NoSuchAlgorithmException e) {
+			// Every Java platform is required to support SHA-1.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the signature recorded in a package loaded from the store.
+	 * 
+	 * @param ePackage
+	 *            - the package.
+	 * @return The recorded signature or <code>null</code> if the package was
+	 *         not loaded from a store.
+	 */
+	public static String getStoredSignature(EPackage ePackage) {
+		return Util.getAnnotation(ePackage, MetadataStoreNS_URI, MetadataStoreNS_SIGNATURE_KEY);
+	}
+
+	/**
+	 * Checks <code>stored</code>, a package loaded from the store, against the
+	 * package built by <code>builder</code> from the live repository in the
+	 * background. If their signatures differ the built package is saved and
+	 * passed to <code>listener</code>.
+	 * 
+	 * @param stored
+	 *            - the package loaded from the store.
+	 * @param builder
+	 *            - builds the package from the live repository.
+	 * @param listener
+	 *            - notified when the stored package is stale.
+	 */
+	public void refresh(final EPackage stored, final MetadataCache.Builder builder, final RefreshListener listener) {
+		final String nsURI = stored.getNsURI();
+		try {
+			refreshExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						EPackage current = builder.build(nsURI);
+						refreshes.incrementAndGet();
+						if (current == null) {
+							return;
+						}
+						String signature = getSignature(current);
+						if (signature.equals(getStoredSignature(stored))) {
+							return;
+						}
+						staleCount.incrementAndGet();
+						if (LOG.isDebugEnabled()) {
+							LOG.debug("Stored package '" + nsURI + "' is stale: replacing it");
+						}
+						save(current);
+						listener.stale(stored, current);
+					} catch (Exception e) {
+						LOG.warn("Failed to refresh stored package '" + nsURI + "'", e);
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LOG.debug("Meta-data store closed: not refreshing package '" + nsURI + "'");
+		}
+	}
+
+	/**
+	 * Stops the background refresh of stored packages if the store owns its
+	 * refresh thread.
+	 */
+	public void close() {
+		if (refreshExecutor instanceof ExecutorService) {
+			((ExecutorService) refreshExecutor).shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the file holding the package designated by <code>nsURI</code>.
+	 * 
+	 * @param nsURI
+	 *            - the namespace URI of the package.
+	 * @return The file.
+	 */
+	public File getFile(String nsURI) {
+		List<String> segments = new ArrayList<String>();
+		String path;
+		if (nsURI.startsWith(RfcPackage.eNS_URI + "/")) {
+			segments.add("rfc");
+			path = nsURI.substring(RfcPackage.eNS_URI.length() + 1);
+		} else if (nsURI.startsWith(IdocPackage.eNS_URI + "/")) {
+			segments.add("idoc");
+			path = nsURI.substring(IdocPackage.eNS_URI.length() + 1);
+		} else {
+			segments.add("other");
+			path = nsURI;
+		}
+
+		// Keep the repository name as a directory of its own; the rest of the
+		// URI, e.g. a namespaced function module name, is encoded as is.
+		int index = path.indexOf('/');
+		if (index > 0 && segments.get(0).equals("rfc")) {
+			segments.add(path.substring(0, index));
+			segments.add(path.substring(index + 1));
+		} else {
+			for (String segment : path.split("/", -1)) {
+				segments.add(segment);
+			}
+		}
+
+		File file = directory;
+		for (int i = 0; i < segments.size() - 1; i++) {
+			file = new File(file, encode(segments.get(i)));
+		}
+		return new File(file, encode(segments.get(segments.size() - 1)) + FILE_EXTENSION);
+	}
+
+	public long getLoadCount() {
+		return loads.get();
+	}
+
+	public long getSaveCount() {
+		return saves.get();
+	}
+
+	public long getRefreshCount() {
+		return refreshes.get();
+	}
+
+	public long getStaleCount() {
+		return staleCount.get();
+	}
+
+	@Override
+	public String toString() {
+		return "MetadataStore [directory=" + directory + ", loads=" + getLoadCount() + ", saves=" + getSaveCount() + ", refreshes=" + getRefreshCount()
+				+ ", stale=" + getStaleCount() + "]";
+	}
+
+	/**
+	 * Notified when a package loaded from the store turns out to be stale.
+	 */
+	public interface RefreshListener {
+
+		/**
+		 * Called when <code>stored</code> differs from <code>current</code>,
+		 * the package built from the live repository.
+		 * 
+		 * @param stored
+		 *            - the stale package loaded from the store.
+		 * @param current
+		 *            - the package built from the live repository.
+		 */
+		void stale(EPackage stored, EPackage current);
+	}
+
+	private static void appendAnnotations(StringBuilder description, EModelElement element) {
+		for (EAnnotation annotation : element.getEAnnotations()) {
+			if (RfcUtil.GenNS_URI.equals(annotation.getSource())) {
+				// Documentation does not affect conversion.
+				continue;
+			}
+			description.append('@').append(annotation.getSource()).append(new TreeMap<String, String>(annotation.getDetails().map()));
+		}
+	}
+
+	private static String encode(String segment) {
+		if (segment.isEmpty()) {
+			// Never produced by encoding a non empty segment.
+			return "%";
+		}
+		try {
+			return URLEncoder.encode(segment, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static ResourceSet createResourceSet() {
+		ResourceSet resourceSet = new ResourceSetImpl();
+		resourceSet.getResourceFactoryRegistry().getExtensionToFactoryMap().put(Resource.Factory.Registry.DEFAULT_EXTENSION, new EcoreResourceFactoryImpl());
+		resourceSet.getPackageRegistry().put(IdocPackage.eNS_URI, IdocPackage.eINSTANCE);
+		resourceSet.getPackageRegistry().put(RfcPackage.eNS_URI, RfcPackage.eINSTANCE);
+		return resourceSet;
+	}
+
+}
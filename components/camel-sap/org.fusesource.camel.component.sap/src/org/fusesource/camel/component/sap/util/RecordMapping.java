@@ -0,0 +1,533 @@
+/**
+ * Copyright 2013 Red Hat, Inc.
+ *
+ * Red Hat licenses this file to you under the Apache License, version
+ * 2.0 (the "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied.  See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+package org.fusesource.camel.component.sap.util;
+
+import java.lang.ref.WeakReference;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EFactory;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.InternalEList;
+import org.eclipse.emf.edit.domain.AdapterFactoryEditingDomain;
+import org.fusesource.camel.component.sap.model.rfc.Structure;
+import org.fusesource.camel.component.sap.model.rfc.Table;
+
+import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoRecord;
+import com.sap.conn.jco.JCoTable;
+
+/**
+ * Compiled plan transferring field values between a {@link JCoRecord} and a
+ * {@link Structure}.
+ * <p>
+ * A plan is built once for each pair of JCo meta-data and structure
+ * {@link EClass}: it maps each field index of the record to the feature ID of
+ * the structure and to a copier specific to the field's JCo type, so that
+ * transferring a record touches neither field names nor feature maps.
+ *
+ * @author punkhorn
+ *
+ */
+final class RecordMapping {
+
+	/**
+	 * Copies a single field value between a JCo record and a structure using
+	 * the typed accessors of the record.
+	 */
+	enum FieldCopier {
+		INT {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getInt(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				if (value instanceof Integer) {
+					record.setValue(index, ((Integer) value).intValue());
+				} else {
+					record.setValue(index, value);
+				}
+			}
+		},
+		STRING {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getString(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				if (value instanceof String) {
+					record.setValue(index, (String) value);
+				} else {
+					record.setValue(index, value);
+				}
+			}
+		},
+		BIG_DECIMAL {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getBigDecimal(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				if (value instanceof BigDecimal) {
+					record.setValue(index, (BigDecimal) value);
+				} else {
+					record.setValue(index, value);
+				}
+			}
+		},
+		DATE {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getDate(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				if (value instanceof Date) {
+					record.setValue(index, (Date) value);
+				} else {
+					record.setValue(index, value);
+				}
+			}
+		},
+		DOUBLE {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getDouble(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				if (value instanceof Double) {
+					record.setValue(index, ((Double) value).doubleValue());
+				} else {
+					record.setValue(index, value);
+				}
+			}
+		},
+		BYTE_ARRAY {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getByteArray(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				if (value instanceof byte[]) {
+					record.setValue(index, (byte[]) value);
+				} else {
+					record.setValue(index, value);
+				}
+			}
+		},
+		OBJECT {
+			@Override
+			Object get(JCoRecord record, int index) {
+				return record.getValue(index);
+			}
+
+			@Override
+			void set(JCoRecord record, int index, Object value) {
+				record.setValue(index, value);
+			}
+		};
+
+		abstract Object get(JCoRecord record, int index);
+
+		abstract void set(JCoRecord record, int index, Object value);
+
+		/**
+		 * Returns the copier for fields of the given JCo type. Copiers return
+		 * the same Java types as {@link JCoRecord#getValue(int)} and the
+		 * {@link RfcUtil#getEDataType(int)} mapping.
+		 */
+		static FieldCopier forType(int jcoType) {
+			switch (jcoType) {
+			case JCoMetaData.TYPE_INT:
+			case JCoMetaData.TYPE_INT1:
+			case JCoMetaData.TYPE_INT2:
+				return INT;
+			case JCoMetaData.TYPE_CHAR:
+			case JCoMetaData.TYPE_NUM:
+			case JCoMetaData.TYPE_STRING:
+				return STRING;
+			case JCoMetaData.TYPE_BCD:
+			case JCoMetaData.TYPE_DECF16:
+			case JCoMetaData.TYPE_DECF34:
+				return BIG_DECIMAL;
+			case JCoMetaData.TYPE_DATE:
+			case JCoMetaData.TYPE_TIME:
+				return DATE;
+			case JCoMetaData.TYPE_FLOAT:
+				return DOUBLE;
+			case JCoMetaData.TYPE_BYTE:
+			case JCoMetaData.TYPE_XSTRING:
+				return BYTE_ARRAY;
+			default:
+				return OBJECT;
+			}
+		}
+	}
+
+	private static final int VALUE = 0;
+
+	private static final int STRUCTURE = 1;
+
+	private static final int TABLE = 2;
+
+	/**
+	 * Plans by structure class; each class usually maps only a handful of
+	 * meta-data instances (e.g. the import, changing and table parameter lists
+	 * of a request) so these are kept in a small copy-on-write array. Plans
+	 * only weakly reference their meta-data and the plans of meta-data which
+	 * has been garbage collected, e.g. after the meta-data of a function was
+	 * fetched again, are dropped when a plan is added to the array.
+	 */
+	private static final ConcurrentMap<EClass, RecordMapping[]> mappings = new ConcurrentHashMap<EClass, RecordMapping[]>();
+
+	private final WeakReference<JCoMetaData> metaData;
+
+	private final EClass eClass;
+
+	private final int[] featureIDs;
+
+	private final int[] kinds;
+
+	private final FieldCopier[] copiers;
+
+	/**
+	 * The plans of nested structures and table rows, by field index.
+	 */
+	private final RecordMapping[] nestedMappings;
+
+	/**
+	 * The feature ID of the row reference of nested tables, by field index.
+	 */
+	private final int[] rowFeatureIDs;
+
+	/**
+	 * The class of nested tables, by field index.
+	 */
+	private final EClass[] tableClasses;
+
+	private RecordMapping(JCoMetaData metaData, EClass eClass) {
+		this.metaData = new WeakReference<JCoMetaData>(metaData);
+		this.eClass = eClass;
+
+		int fieldCount = metaData.getFieldCount();
+		featureIDs = new int[fieldCount];
+		kinds = new int[fieldCount];
+		copiers = new FieldCopier[fieldCount];
+		nestedMappings = new RecordMapping[fieldCount];
+		rowFeatureIDs = new int[fieldCount];
+		tableClasses = new EClass[fieldCount];
+
+		for (int i = 0; i < fieldCount; i++) {
+			EStructuralFeature feature = eClass.getEStructuralFeature(metaData.getName(i));
+			featureIDs[i] = feature == null ? -1 : eClass.getFeatureID(feature);
+			rowFeatureIDs[i] = -1;
+			if (metaData.isStructure(i)) {
+				kinds[i] = STRUCTURE;
+				if (feature instanceof EReference) {
+					nestedMappings[i] = get(metaData.getRecordMetaData(i), ((EReference) feature).getEReferenceType());
+				}
+			} else if (metaData.isTable(i)) {
+				kinds[i] = TABLE;
+				if (feature instanceof EReference) {
+					EClass tableClass = ((EReference) feature).getEReferenceType();
+					tableClasses[i] = tableClass;
+					EStructuralFeature rowFeature = tableClass.getEStructuralFeature(RfcUtil.ROW);
+					if (rowFeature instanceof EReference) {
+						rowFeatureIDs[i] = tableClass.getFeatureID(rowFeature);
+						nestedMappings[i] = get(metaData.getRecordMetaData(i), ((EReference) rowFeature).getEReferenceType());
+					}
+				}
+			} else {
+				kinds[i] = VALUE;
+				copiers[i] = FieldCopier.forType(metaData.getType(i));
+			}
+		}
+	}
+
+	/**
+	 * Returns (and builds if necessary) the plan for records described by
+	 * <code>metaData</code> and structures of class <code>eClass</code>.
+	 */
+	static RecordMapping get(JCoMetaData metaData, EClass eClass) {
+		RecordMapping[] classMappings = mappings.get(eClass);
+		if (classMappings != null) {
+			for (RecordMapping mapping : classMappings) {
+				if (mapping.metaData.get() == metaData) {
+					return mapping;
+				}
+			}
+		}
+
+		RecordMapping mapping = new RecordMapping(metaData, eClass);
+		while (true) {
+			classMappings = mappings.get(eClass);
+			if (classMappings == null) {
+				if (mappings.putIfAbsent(eClass, new RecordMapping[] { mapping }) == null) {
+					return mapping;
+				}
+				continue;
+			}
+			RecordMapping[] newClassMappings = new RecordMapping[classMappings.length + 1];
+			int size = 0;
+			for (RecordMapping existing : classMappings) {
+				JCoMetaData existingMetaData = existing.metaData.get();
+				if (existingMetaData == metaData) {
+					return existing;
+				}
+				if (existingMetaData != null) {
+					newClassMappings[size++] = existing;
+				}
+			}
+			newClassMappings[size++] = mapping;
+			if (size < newClassMappings.length) {
+				newClassMappings = Arrays.copyOf(newClassMappings, size);
+			}
+			if (mappings.replace(eClass, classMappings, newClassMappings)) {
+				return mapping;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of plans of structures of class <code>eClass</code>.
+	 */
+	static int size(EClass eClass) {
+		RecordMapping[] classMappings = mappings.get(eClass);
+		return classMappings == null ? 0 : classMappings.length;
+	}
+
+	/**
+	 * Discards the plans of all classes in <code>ePackage</code>.
+	 */
+	static void remove(EPackage ePackage) {
+		for (EClass eClass : mappings.keySet()) {
+			if (eClass.getEPackage() == ePackage) {
+				mappings.remove(eClass);
+			}
+		}
+	}
+
+	/**
+	 * Extracts the field values of <code>record</code> into
+	 * <code>structure</code>.
+	 * 
+	 * @param lazyTables
+	 *            - when <code>true</code> table fields are set to views of
+	 *            the JCo tables of <code>record</code> rather than copied.
+	 */
+	void extract(JCoRecord record, Structure structure, boolean lazyTables) {
+		if (AdapterFactoryEditingDomain.getEditingDomainFor(structure) != null) {
+			// Route changes through the editing domain's command stack.
+			extractByName(record, structure);
+			return;
+		}
+		extractDirect(record, (InternalEObject) structure, lazyTables);
+	}
+
+	/**
+	 * Creates a new structure holding the field values of
+	 * <code>record</code>.
+	 */
+	Structure createStructure(JCoRecord record) {
+		Structure structure = (Structure) eClass.getEPackage().getEFactoryInstance().create(eClass);
+		extractDirect(record, (InternalEObject) structure, false);
+		return structure;
+	}
+
+	/**
+	 * Fills the fields of <code>record</code> with the values of
+	 * <code>structure</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	void fill(Structure structure, JCoRecord record) {
+		InternalEObject eObject = (InternalEObject) structure;
+		for (int i = 0; i < featureIDs.length; i++) {
+			int featureID = featureIDs[i];
+			if (featureID < 0) {
+				continue;
+			}
+			switch (kinds[i]) {
+			case STRUCTURE: {
+				Object value = getReference(eObject, featureID);
+				if (value instanceof Structure && nestedMappings[i] != null) {
+					nestedMappings[i].fill((Structure) value, record.getStructure(i));
+				}
+				break;
+			}
+			case TABLE: {
+				Object value = getReference(eObject, featureID);
+				if (value instanceof Table && nestedMappings[i] != null) {
+					EList<Structure> rows = (EList<Structure>) getReference((InternalEObject) value, rowFeatureIDs[i]);
+					nestedMappings[i].fillTable(rows, record.getTable(i));
+				}
+				break;
+			}
+			default:
+				copiers[i].set(record, i, eObject.eGet(featureID, true, true));
+			}
+		}
+	}
+
+	/**
+	 * Appends a row to <code>jcoTable</code> for each of <code>rows</code>.
+	 */
+	void fillTable(EList<Structure> rows, JCoTable jcoTable) {
+		if (rows == null || rows.isEmpty()) {
+			return;
+		}
+		int firstRow = jcoTable.getNumRows();
+		jcoTable.appendRows(rows.size());
+		int row = firstRow;
+		for (Structure structure : rows) {
+			jcoTable.setRow(row++);
+			fill(structure, jcoTable);
+		}
+	}
+
+	/**
+	 * Appends a new row to <code>rows</code> for each row of
+	 * <code>jcoTable</code>.
+	 */
+	@SuppressWarnings("unchecked")
+	void extractTable(JCoTable jcoTable, EList<Structure> rows) {
+		int numRows = jcoTable.getNumRows();
+		if (numRows == 0) {
+			return;
+		}
+		EFactory factory = eClass.getEPackage().getEFactoryInstance();
+		if (rows instanceof InternalEList) {
+			InternalEList<Structure> internalRows = (InternalEList<Structure>) rows;
+			for (int row = 0; row < numRows; row++) {
+				jcoTable.setRow(row);
+				Structure newRow = (Structure) factory.create(eClass);
+				extractDirect(jcoTable, (InternalEObject) newRow, false);
+				internalRows.addUnique(newRow);
+			}
+		} else {
+			for (int row = 0; row < numRows; row++) {
+				jcoTable.setRow(row);
+				Structure newRow = (Structure) factory.create(eClass);
+				extractDirect(jcoTable, (InternalEObject) newRow, false);
+				rows.add(newRow);
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void extractDirect(JCoRecord record, InternalEObject eObject, boolean lazyTables) {
+		for (int i = 0; i < featureIDs.length; i++) {
+			int featureID = featureIDs[i];
+			if (featureID < 0) {
+				continue;
+			}
+			switch (kinds[i]) {
+			case STRUCTURE: {
+				Object value = getReference(eObject, featureID);
+				if (value instanceof Structure && nestedMappings[i] != null) {
+					nestedMappings[i].extractDirect(record.getStructure(i), (InternalEObject) value, lazyTables);
+				}
+				break;
+			}
+			case TABLE: {
+				if (lazyTables && nestedMappings[i] != null) {
+					eObject.eSet(featureID, new JCoTableView<Structure>(tableClasses[i], record.getTable(i), nestedMappings[i]));
+					break;
+				}
+				Object value = getReference(eObject, featureID);
+				if (value instanceof Table && nestedMappings[i] != null) {
+					EList<Structure> rows = (EList<Structure>) getReference((InternalEObject) value, rowFeatureIDs[i]);
+					nestedMappings[i].extractTable(record.getTable(i), rows);
+				}
+				break;
+			}
+			default: {
+				Object value = copiers[i].get(record, i);
+				try {
+					eObject.eSet(featureID, value);
+				} catch (Throwable exception) {
+					// Skip values the field does not accept, as Util.setValue does.
+				}
+			}
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void extractByName(JCoRecord record, Structure structure) {
+		for (int i = 0; i < featureIDs.length; i++) {
+			if (featureIDs[i] < 0) {
+				continue;
+			}
+			EStructuralFeature feature = eClass.getEStructuralFeature(featureIDs[i]);
+			Object value = Util.getValue(structure, feature);
+			switch (kinds[i]) {
+			case STRUCTURE:
+				if (value instanceof Structure) {
+					RfcUtil.extractJCoRecordIntoStructure(record.getStructure(i), (Structure) value);
+				}
+				break;
+			case TABLE:
+				if (value instanceof Table) {
+					RfcUtil.extractJCoTableIntoTable(record.getTable(i), (Table<? extends Structure>) value);
+				}
+				break;
+			default:
+				Util.setValue(structure, feature, copiers[i].get(record, i));
+			}
+		}
+	}
+
+	/**
+	 * Returns the value of the reference <code>featureID</code> of
+	 * <code>eObject</code>, creating the referenced object if not yet set.
+	 */
+	private static Object getReference(InternalEObject eObject, int featureID) {
+		if (featureID < 0) {
+			return null;
+		}
+		Object value = eObject.eGet(featureID, true, true);
+		if (value == null) {
+			EStructuralFeature feature = eObject.eClass().getEStructuralFeature(featureID);
+			if (feature instanceof EReference) {
+				EClass referenceType = ((EReference) feature).getEReferenceType();
+				value = referenceType.getEPackage().getEFactoryInstance().create(referenceType);
+				eObject.eSet(featureID, value);
+			}
+		}
+		return value;
+	}
+
+}
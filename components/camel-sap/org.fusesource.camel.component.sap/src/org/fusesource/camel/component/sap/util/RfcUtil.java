@@ -17,7 +17,9 @@
 package org.fusesource.camel.component.sap.util;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EAttribute;
@@ -51,12 +53,11 @@ import com.sap.conn.jco.JCoCustomRepository;
 import com.sap.conn.jco.JCoDestination;
 import com.sap.conn.jco.JCoDestinationManager;
 import com.sap.conn.jco.JCoException;
-import com.sap.conn.jco.JCoField;
-import com.sap.conn.jco.JCoFieldIterator;
 import com.sap.conn.jco.JCoFunction;
 import com.sap.conn.jco.JCoFunctionTemplate;
 import com.sap.conn.jco.JCoListMetaData;
 import com.sap.conn.jco.JCoMetaData;
+import com.sap.conn.jco.JCoParameterList;
 import com.sap.conn.jco.JCoRecord;
 import com.sap.conn.jco.JCoRecordMetaData;
 import com.sap.conn.jco.JCoRepository;
@@ -73,6 +74,8 @@ import static org.fusesource.camel.component.sap.model.rfc.RfcPackage.eNS_URI;
  */
 public class RfcUtil extends Util {
 
+	private static final MetadataCache metadataCache = new MetadataCache();
+
 	public static final String ROW = "row";
 
 	public static final String GenNS_URI = "http://www.eclipse.org/emf/2002/GenModel";
@@ -404,13 +407,72 @@ public class RfcUtil extends Util {
 	 * @throws JCoException
 	 */
 	public static Structure executeFunction(JCoDestination destination, String functionName, Structure request) throws JCoException {
+		return executeFunction(destination, functionName, request, false);
+	}
+
+	/**
+	 * Performs SRFC call of named remote function module with
+	 * <code>request</code> at <code>destination</code>.
+	 * 
+	 * @param destination
+	 *            - the destination containing remote function module.
+	 * @param functionName
+	 *            - name of remote function module.
+	 * @param request
+	 *            - the request passed.
+	 * @param lazyTables
+	 *            - when <code>true</code> the tables of the response are
+	 *            backed by the JCo tables returned by the call and their rows
+	 *            are only created when accessed.
+	 * @return The response.
+	 * @throws JCoException
+	 */
+	public static Structure executeFunction(JCoDestination destination, String functionName, Structure request, boolean lazyTables) throws JCoException {
+		return executeFunction(destination, functionName, request, lazyTables, null);
+	}
+
+	/**
+	 * Performs SRFC call of named remote function module with
+	 * <code>request</code> at <code>destination</code>, recording the time
+	 * spent converting and executing the call in <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination containing remote function module.
+	 * @param functionName
+	 *            - name of remote function module.
+	 * @param request
+	 *            - the request passed.
+	 * @param lazyTables
+	 *            - when <code>true</code> the tables of the response are
+	 *            backed by the JCo tables returned by the call and their rows
+	 *            are only created when accessed.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @return The response.
+	 * @throws JCoException
+	 */
+	public static Structure executeFunction(JCoDestination destination, String functionName, Structure request, boolean lazyTables, CallTimings timings) throws JCoException {
 		JCoFunction jcoFunction = destination.getRepository().getFunction(functionName);
+		long start = System.nanoTime();
 		fillJCoParameterListsFromRequest(request, jcoFunction);
 
-		jcoFunction.execute(destination);
+		long executionStart = System.nanoTime();
+		try {
+			jcoFunction.execute(destination);
+		} finally {
+			if (timings != null) {
+				timings.addConversionTime(executionStart - start);
+				timings.addExecutionTime(System.nanoTime() - executionStart);
+			}
+		}
 
+		long executionEnd = System.nanoTime();
 		Structure response = getResponse(destination.getRepository(), functionName);
-		extractJCoParameterListsIntoResponse(jcoFunction, response);
+		extractJCoParameterListsIntoResponse(jcoFunction, response, lazyTables);
+		if (timings != null) {
+			timings.addConversionTime(System.nanoTime() - executionEnd);
+			timings.addRows(getNumTableRows(jcoFunction));
+		}
 
 		return response;
 	}
@@ -430,11 +492,37 @@ public class RfcUtil extends Util {
 	 * @throws JCoException
 	 */
 	public static void executeFunction(JCoDestination destination, String functionName, Structure request, String tid) throws JCoException {
+		executeFunction(destination, functionName, request, tid, (CallTimings) null);
+	}
 
+	/**
+	 * Performs TRFC call of named remote function module with
+	 * <code>request</code> at <code>destination</code>, recording the time
+	 * spent converting and executing the call in <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination containing remote function module.
+	 * @param functionName
+	 *            - name of remote function module.
+	 * @param request
+	 *            - the request passed.
+	 * @param tid
+	 *            - the transaction ID.
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @throws JCoException
+	 */
+	public static void executeFunction(JCoDestination destination, String functionName, Structure request, String tid, CallTimings timings) throws JCoException {
 		JCoFunction jcoFunction = destination.getRepository().getFunction(functionName);
+		long start = System.nanoTime();
 		fillJCoParameterListsFromRequest(request, jcoFunction);
 
-		jcoFunction.execute(destination, tid);
+		long executionStart = System.nanoTime();
+		try {
+			jcoFunction.execute(destination, tid);
+		} finally {
+			recordTimings(timings, jcoFunction, start, executionStart);
+		}
 	}
 
 	/**
@@ -454,10 +542,70 @@ public class RfcUtil extends Util {
 	 * @throws JCoException
 	 */
 	public static void executeFunction(JCoDestination destination, String functionName, Structure request, String tid, String queueName) throws JCoException {
+		executeFunction(destination, functionName, request, tid, queueName, null);
+	}
+
+	/**
+	 * Performs QRFC call of named remote function module with
+	 * <code>request</code> at <code>destination</code>, recording the time
+	 * spent converting and executing the call in <code>timings</code>.
+	 * 
+	 * @param destination
+	 *            - the destination containing remote function module.
+	 * @param functionName
+	 *            - name of remote function module.
+	 * @param request
+	 *            - the request passed.
+	 * @param tid
+	 *            - the transaction ID.
+	 * @param queueName
+	 *            - the name of queue
+	 * @param timings
+	 *            - the timings of the call; may be <code>null</code>.
+	 * @throws JCoException
+	 */
+	public static void executeFunction(JCoDestination destination, String functionName, Structure request, String tid, String queueName, CallTimings timings) throws JCoException {
 		JCoFunction jcoFunction = destination.getRepository().getFunction(functionName);
+		long start = System.nanoTime();
 		fillJCoParameterListsFromRequest(request, jcoFunction);
 
-		jcoFunction.execute(destination, tid, queueName);
+		long executionStart = System.nanoTime();
+		try {
+			jcoFunction.execute(destination, tid, queueName);
+		} finally {
+			recordTimings(timings, jcoFunction, start, executionStart);
+		}
+	}
+
+	private static void recordTimings(CallTimings timings, JCoFunction jcoFunction, long start, long executionStart) {
+		if (timings != null) {
+			timings.addConversionTime(executionStart - start);
+			timings.addExecutionTime(System.nanoTime() - executionStart);
+			timings.addRows(getNumTableRows(jcoFunction));
+		}
+	}
+
+	/**
+	 * Returns the total number of rows in the tables of the table parameter
+	 * list of <code>jcoFunction</code>.
+	 * 
+	 * @param jcoFunction
+	 *            - the function.
+	 * @return The number of rows.
+	 */
+	public static int getNumTableRows(JCoFunction jcoFunction) {
+		JCoParameterList tableParameterList = jcoFunction.getTableParameterList();
+		if (tableParameterList == null) {
+			return 0;
+		}
+		int numRows = 0;
+		for (int i = 0; i < tableParameterList.getFieldCount(); i++) {
+			JCoTable table = tableParameterList.getTable(i);
+			if (table != null) {
+				numRows += table.getNumRows();
+			}
+		}
+		return numRows;
 	}
 
 	/**
@@ -515,9 +663,26 @@ public class RfcUtil extends Util {
 	 *            - the response to be filled with values.
 	 */
 	public static void extractJCoParameterListsIntoResponse(JCoFunction jcoFunction, Structure response) {
-		extractJCoRecordIntoStructure(jcoFunction.getChangingParameterList(), response);
-		extractJCoRecordIntoStructure(jcoFunction.getTableParameterList(), response);
-		extractJCoRecordIntoStructure(jcoFunction.getExportParameterList(), response);
+		extractJCoParameterListsIntoResponse(jcoFunction, response, false);
+	}
+
+	/**
+	 * Extract parameters from <code>jcoFunction</code> parameter lists to
+	 * <code>response</code>.
+	 * 
+	 * @param jcoFunction
+	 *            - the function containing the values.
+	 * @param response
+	 *            - the response to be filled with values.
+	 * @param lazyTables
+	 *            - when <code>true</code> the tables of the response are
+	 *            backed by the JCo tables of <code>jcoFunction</code> and
+	 *            their rows are only created when accessed.
+	 */
+	public static void extractJCoParameterListsIntoResponse(JCoFunction jcoFunction, Structure response, boolean lazyTables) {
+		extractJCoRecordIntoStructure(jcoFunction.getChangingParameterList(), response, lazyTables);
+		extractJCoRecordIntoStructure(jcoFunction.getTableParameterList(), response, lazyTables);
+		extractJCoRecordIntoStructure(jcoFunction.getExportParameterList(), response, lazyTables);
 	}
 
 	/**
@@ -572,29 +737,27 @@ public class RfcUtil extends Util {
 	 * @param structure
 	 *            - the structure to be filled with values.
 	 */
-	@SuppressWarnings("unchecked")
 	public static void extractJCoRecordIntoStructure(JCoRecord jrecord, Structure structure) {
+		extractJCoRecordIntoStructure(jrecord, structure, false);
+	}
+
+	/**
+	 * Extract parameters from <code>jrecord</code> to <code>structure</code>.
+	 * 
+	 * @param jrecord
+	 *            - the JCo record containing the values.
+	 * @param structure
+	 *            - the structure to be filled with values.
+	 * @param lazyTables
+	 *            - when <code>true</code> the tables of <code>structure</code>
+	 *            are backed by the JCo tables of <code>jrecord</code> and
+	 *            their rows are only created when accessed.
+	 */
+	public static void extractJCoRecordIntoStructure(JCoRecord jrecord, Structure structure, boolean lazyTables) {
 		if (jrecord == null || structure == null)
 			return;
 
-		EClass eClass = structure.eClass();
-		JCoFieldIterator iterator = jrecord.getFieldIterator();
-		while (iterator.hasNextField()) {
-			JCoField field = iterator.nextField();
-			EStructuralFeature feature = eClass.getEStructuralFeature(field.getName());
-			Object value = getValue(structure, feature);
-			if (field.isStructure()) {
-				if (value == null || !(value instanceof EObject))
-					continue;
-				extractJCoRecordIntoStructure(field.getStructure(), (Structure) value);
-			} else if (field.isTable()) {
-				if (value == null || !(value instanceof EObject))
-					continue;
-				extractJCoTableIntoTable((JCoTable) field.getTable(), (Table<? extends Structure>) value);
-			} else {
-				setValue(structure, feature, field.getValue());
-			}
-		}
+		RecordMapping.get(jrecord.getMetaData(), structure.eClass()).extract(jrecord, structure, lazyTables);
 	}
 
 	/**
@@ -605,30 +768,11 @@ public class RfcUtil extends Util {
 	 * @param jcoRecord
 	 *            - the JCo record to be filled with values.
 	 */
-	@SuppressWarnings("unchecked")
 	public static void fillJCoRecordFromStructure(Structure structure, JCoRecord jcoRecord) {
 		if (jcoRecord == null || structure == null)
 			return;
 
-		EClass eClass = structure.eClass();
-		JCoFieldIterator iterator = jcoRecord.getFieldIterator();
-		while (iterator.hasNextField()) {
-			JCoField field = iterator.nextField();
-			EStructuralFeature feature = eClass.getEStructuralFeature(field.getName());
-			Object value = getValue(structure, feature);
-			if (field.isStructure()) {
-				if (value == null || !(value instanceof Structure))
-					continue;
-				fillJCoRecordFromStructure((Structure) value, field.getStructure());
-			} else if (field.isTable()) {
-				if (value == null || !(value instanceof Table))
-					continue;
-				fillJCoTableFromTable((Table<? extends Structure>) value, field.getTable());
-			} else {
-				field.setValue(value);
-			}
-		}
-
+		RecordMapping.get(jcoRecord.getMetaData(), structure.eClass()).fill(structure, jcoRecord);
 	}
 
 	/**
@@ -651,12 +795,7 @@ public class RfcUtil extends Util {
 		@SuppressWarnings("unchecked")
 		EList<Structure> records = (EList<Structure>) getValue(table, feature);
 
-		jcoTable.firstRow();
-		for (int i = 0; i < jcoTable.getNumRows(); i++, jcoTable.nextRow()) {
-			Structure newRow = (Structure) rowType.getEPackage().getEFactoryInstance().create(rowType);
-			records.add(newRow);
-			extractJCoRecordIntoStructure(jcoTable, newRow);
-		}
+		RecordMapping.get(jcoTable.getMetaData(), rowType).extractTable(jcoTable, records);
 	}
 
 	/**
@@ -672,12 +811,66 @@ public class RfcUtil extends Util {
 			return;
 
 		EStructuralFeature feature = table.eClass().getEStructuralFeature(ROW);
+		if (feature == null || !(feature instanceof EReference)) {
+			return;
+		}
+		EClass rowType = ((EReference) feature).getEReferenceType();
 		@SuppressWarnings("unchecked")
 		EList<Structure> records = (EList<Structure>) getValue(table, feature);
-		for (Structure row : records) {
-			jcoTable.appendRow();
-			fillJCoRecordFromStructure(row, (JCoRecord) jcoTable);
+
+		RecordMapping.get(jcoTable.getMetaData(), rowType).fillTable(records, jcoTable);
+	}
+
+	/**
+	 * Returns an iterator over batches of the rows of <code>table</code>.
+	 * <p>
+	 * If <code>table</code> is backed by a JCo table (see
+	 * {@link #executeFunction(JCoDestination, String, Structure, boolean)})
+	 * the rows of each batch are read from the JCo table when the batch is
+	 * returned and are not retained by <code>table</code>.
+	 * 
+	 * @param table
+	 *            - the table whose rows are iterated.
+	 * @param batchSize
+	 *            - the maximum number of rows in a batch.
+	 * @return The batch iterator.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <S extends Structure> Iterator<List<S>> getTableRowBatches(Table<S> table, final int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
 		}
+		if (table instanceof JCoTableView) {
+			Iterator<List<S>> batches = ((JCoTableView<S>) table).batchIterator(batchSize);
+			if (batches != null) {
+				return batches;
+			}
+		}
+		final List<S> rows = table.getRows();
+		return new Iterator<List<S>>() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < rows.size();
+			}
+
+			@Override
+			public List<S> next() {
+				if (index >= rows.size()) {
+					throw new NoSuchElementException();
+				}
+				int end = Math.min(index + batchSize, rows.size());
+				List<S> batch = new ArrayList<S>(rows.subList(index, end));
+				index = end;
+				return batch;
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
 	}
 
 	/**
@@ -813,13 +1006,27 @@ public class RfcUtil extends Util {
 	 *            -function-name}.
 	 * @return The {@link EPackage} instance.
 	 */
-	public static EPackage getEPackage(JCoRepository repository, String nsURI) {
+	public static EPackage getEPackage(final JCoRepository repository, String nsURI) {
+		return metadataCache.get(nsURI, new MetadataCache.Builder() {
+			@Override
+			public EPackage build(String nsURI) {
+				return buildEPackage(repository, nsURI);
+			}
+		});
+	}
 
-		// Check whether the requested package has already been built.
-		EPackage ePackage = (EPackage) EPackage.Registry.INSTANCE.get(nsURI);
-		if (ePackage != null) {
-			return ePackage;
-		}
+	/**
+	 * Returns the cache of {@link EPackage}s built by
+	 * {@link #getEPackage(JCoRepository, String)}.
+	 * 
+	 * @return The RFC meta-data cache.
+	 */
+	public static MetadataCache getMetadataCache() {
+		return metadataCache;
+	}
+
+	private static EPackage buildEPackage(JCoRepository repository, String nsURI) {
+		EPackage ePackage = null;
 
 		// Check whether the requested package is defined by the destination's
 		// repository.
@@ -875,9 +1082,6 @@ public class RfcUtil extends Util {
 			addListMetaData(responseClass, tableParameterListMetaData);
 			addAnnotation(responseClass, GenNS_URI, GenNS_DOCUMENTATION_KEY, "Response for " + functionModuleName);
 			addListMetaDataToResponse(responseClass, changingParameterListMetaData, tableParameterListMetaData, exportParameterListMetaData);
-
-			// Register Package
-			EPackage.Registry.INSTANCE.put(nsURI, ePackage);
 		}
 		return ePackage;
 	}
@@ -1,6 +1,6 @@
 package org.fusesource.camel.component.sap.util;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
@@ -8,15 +8,23 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.eclipse.emf.common.command.Command;
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.common.util.BasicEList;
 import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EAnnotation;
@@ -28,11 +36,11 @@ import org.eclipse.emf.ecore.EPackage;
 import org.eclipse.emf.ecore.EPackage.Registry;
 import org.eclipse.emf.ecore.EReference;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.EcoreFactory;
 import org.eclipse.emf.ecore.resource.Resource;
 import org.eclipse.emf.ecore.resource.ResourceSet;
 import org.eclipse.emf.ecore.resource.impl.ResourceSetImpl;
-import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.eclipse.emf.ecore.xmi.XMIResource;
 import org.eclipse.emf.ecore.xmi.XMLParserPool;
 import org.eclipse.emf.ecore.xmi.XMLResource;
@@ -61,6 +69,28 @@ public class Util {
 
 	public static final Registry registry = EPackage.Registry.INSTANCE;
 
+	/**
+	 * Size of buffers used when streaming marshaled content.
+	 */
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * The XML parsers shared by all loads; the pool is thread-safe.
+	 */
+	private static final XMLParserPool parserPool = new XMLParserPoolImpl();
+
+	/**
+	 * The XML name to feature mappings shared by all loads. Its keys include
+	 * the class of the object being loaded so the mappings of different
+	 * packages do not collide. Since the keys strongly reference the classes,
+	 * it is cleared when the registry is reloaded, when a package is evicted
+	 * from or replaced in a {@link MetadataCache} or when it exceeds
+	 * {@link #MAX_NAME_TO_FEATURE_MAP_SIZE} entries.
+	 */
+	private static final Map<Object, Object> nameToFeatureMap = Collections.synchronizedMap(new HashMap<Object, Object>());
+
+	private static final int MAX_NAME_TO_FEATURE_MAP_SIZE = 100000;
+
 	/**
 	 * Marshals the given {@link EObject} into a string.
 	 * 
@@ -71,20 +101,54 @@ public class Util {
 	 */
 	public static String marshal(EObject eObject) throws IOException {
 		URI uri = URI.createFileURI("/"); // ensure relative reference URIs
-		XMLResource resource = new XMLResourceImpl(uri);
-		eObject = EcoreUtil.copy(eObject);
-		resource.getContents().add(eObject);
+		XMLResource resource = new InPlaceXMLResource(uri, eObject);
 		StringWriter out = new StringWriter();
+		Map<String, Object> options = createSaveOptions(eObject);
+		try {
+			resource.save(out, options);
+		} finally {
+			releaseSaveOptions(eObject, options);
+		}
+		return out.toString();
+	}
 
-		Map<String, Object> options = new HashMap<String, Object>();
-		List<Object> lookupTable = new ArrayList<Object>();
-		options.put(XMIResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
-		options.put(XMIResource.OPTION_USE_CACHED_LOOKUP_TABLE, lookupTable);
-		options.put(XMIResource.OPTION_USE_ENCODED_ATTRIBUTE_STYLE, Boolean.FALSE);
-		options.put(XMIResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
+	/**
+	 * Marshals the given {@link EObject} to <code>out</code>. The object is
+	 * written in place: it is neither copied nor detached from its container.
+	 * <code>out</code> is not closed.
+	 * 
+	 * @param eObject
+	 *            - the {@link EObject} to be marshaled.
+	 * @param out
+	 *            - the stream to write the marshaled content to.
+	 * @throws IOException
+	 */
+	public static void marshal(EObject eObject, OutputStream out) throws IOException {
+		URI uri = URI.createFileURI("/"); // ensure relative reference URIs
+		XMLResource resource = new InPlaceXMLResource(uri, eObject);
+		Map<String, Object> options = createSaveOptions(eObject);
+		try {
+			resource.save(out, options);
+		} finally {
+			releaseSaveOptions(eObject, options);
+		}
+	}
 
-		resource.save(out, options);
-		return out.toString();
+	/**
+	 * Marshals the given {@link EObject} to <code>channel</code>. The object
+	 * is written in place: it is neither copied nor detached from its
+	 * container. <code>channel</code> is not closed.
+	 * 
+	 * @param eObject
+	 *            - the {@link EObject} to be marshaled.
+	 * @param channel
+	 *            - the channel to write the marshaled content to.
+	 * @throws IOException
+	 */
+	public static void marshal(EObject eObject, WritableByteChannel channel) throws IOException {
+		OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+		marshal(eObject, out);
+		out.flush();
 	}
 
 	/**
@@ -101,17 +165,7 @@ public class Util {
 		XMLResource resource = new XMLResourceImpl(uri);
 		StringReader in = new StringReader(string);
 
-		Map<String, Object> options = new HashMap<String, Object>();
-		XMLParserPool parserPool = new XMLParserPoolImpl();
-		Map<Object, Object> nameToFeatureMap = new HashMap<Object, Object>();
-		options.put(XMIResource.OPTION_DEFER_ATTACHMENT, Boolean.TRUE);
-		options.put(XMIResource.OPTION_DEFER_IDREF_RESOLUTION, Boolean.TRUE);
-		options.put(XMIResource.OPTION_USE_DEPRECATED_METHODS, Boolean.TRUE);
-		options.put(XMIResource.OPTION_USE_PARSER_POOL, parserPool);
-		options.put(XMIResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, nameToFeatureMap);
-		options.put(XMIResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
-
-		resource.load(new InputSource(in), options);
+		resource.load(new InputSource(in), createLoadOptions());
 		return resource.getContents().get(0);
 	}
 
@@ -126,16 +180,13 @@ public class Util {
 	 */
 	public static void save(File file, EObject eObject) throws IOException {
 		URI uri = URI.createFileURI(file.getAbsolutePath());
-		Resource res = new XMLResourceImpl(uri);
-		eObject = EcoreUtil.copy(eObject);
-		res.getContents().add(eObject);
-		Map<String, Object> options = new HashMap<String, Object>();
-		List<Object> lookupTable = new ArrayList<Object>();
-		options.put(XMIResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
-		options.put(XMIResource.OPTION_USE_CACHED_LOOKUP_TABLE, lookupTable);
-		options.put(XMIResource.OPTION_USE_ENCODED_ATTRIBUTE_STYLE, Boolean.FALSE);
-		options.put(XMIResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
-		res.save(options);
+		Resource res = new InPlaceXMLResource(uri, eObject);
+		Map<String, Object> options = createSaveOptions(eObject);
+		try {
+			res.save(options);
+		} finally {
+			releaseSaveOptions(eObject, options);
+		}
 	}
 
 	/**
@@ -150,17 +201,7 @@ public class Util {
 		URI uri = URI.createFileURI(file.getAbsolutePath());
 		Resource res = new XMLResourceImpl(uri);
 
-		Map<String, Object> options = new HashMap<String, Object>();
-		XMLParserPool parserPool = new XMLParserPoolImpl();
-		Map<Object, Object> nameToFeatureMap = new HashMap<Object, Object>();
-		options.put(XMIResource.OPTION_DEFER_ATTACHMENT, Boolean.TRUE);
-		options.put(XMIResource.OPTION_DEFER_IDREF_RESOLUTION, Boolean.TRUE);
-		options.put(XMIResource.OPTION_USE_DEPRECATED_METHODS, Boolean.TRUE);
-		options.put(XMIResource.OPTION_USE_PARSER_POOL, parserPool);
-		options.put(XMIResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, nameToFeatureMap);
-		options.put(XMIResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
-
-		res.load(options);
+		res.load(createLoadOptions());
 		return res.getContents().get(0);
 	}
 
@@ -262,9 +303,7 @@ public class Util {
 	 * @throws IOException
 	 */
 	public static OutputStream toOutputStream(EObject eObject) throws IOException {
-		XMLResource resource = new XMLResourceImpl();
-		eObject = EcoreUtil.copy(eObject);
-		resource.getContents().add(eObject);
+		XMLResource resource = new InPlaceXMLResource(null, eObject);
 		OutputStream out = new ByteArrayOutputStream();
 		resource.save(out, null);
 		return out;
@@ -278,13 +317,20 @@ public class Util {
 	 * @throws IOException
 	 */
 	public static void print(EObject eObject) throws IOException {
-		XMLResource resource = new XMLResourceImpl();
-		resource.getContents().add(eObject);
+		XMLResource resource = new InPlaceXMLResource(null, eObject);
 		resource.save(System.out, null);
 	}
 
 	/**
 	 * Serializes <code>eObject</code> to returned input stream.
+	 * <p>
+	 * The serialized content is marshaled lazily on first read into a single
+	 * buffer: the first read marshals the whole of <code>eObject</code> on the
+	 * reading thread, without copying <code>eObject</code> or building the
+	 * content as a string, and later reads return the buffered content. The
+	 * content is not streamed while it is marshaled. <code>eObject</code> must
+	 * therefore not be modified until the stream has first been read or has
+	 * been closed.
 	 * 
 	 * @param eObject
 	 *            - the object to serialize.
@@ -292,9 +338,7 @@ public class Util {
 	 * @throws IOException
 	 */
 	public static InputStream toInputStream(EObject eObject) throws IOException {
-		String string = marshal(eObject);
-		ByteArrayInputStream in = new ByteArrayInputStream(string.getBytes());
-		return in;
+		return new MarshalingInputStream(eObject);
 	}
 
 	/**
@@ -307,7 +351,7 @@ public class Util {
 	 */
 	public static EObject fromInputStream(InputStream in) throws IOException {
 		XMLResource resource = new XMLResourceImpl();
-		resource.load(in, null);
+		resource.load(in, createLoadOptions());
 		return resource.getContents().get(0);
 	}
 
@@ -467,6 +511,9 @@ public class Util {
 			}
 		}
 
+		// Drop mappings to features of replaced packages.
+		Util.nameToFeatureMap.clear();
+
 	}
 
 	/**
@@ -588,4 +635,257 @@ public class Util {
 		}
 	}
 
+
+	/**
+	 * Drops the XML name to feature mappings shared by all loads, e.g. when a
+	 * package they may reference is no longer used.
+	 */
+	static void clearNameToFeatureMap() {
+		nameToFeatureMap.clear();
+	}
+
+	static int getNameToFeatureMapSize() {
+		return nameToFeatureMap.size();
+	}
+
+	private static Map<String, Object> createLoadOptions() {
+		if (nameToFeatureMap.size() > MAX_NAME_TO_FEATURE_MAP_SIZE) {
+			nameToFeatureMap.clear();
+		}
+		Map<String, Object> options = new HashMap<String, Object>();
+		options.put(XMIResource.OPTION_DEFER_ATTACHMENT, Boolean.TRUE);
+		options.put(XMIResource.OPTION_DEFER_IDREF_RESOLUTION, Boolean.TRUE);
+		options.put(XMIResource.OPTION_USE_DEPRECATED_METHODS, Boolean.TRUE);
+		options.put(XMIResource.OPTION_USE_PARSER_POOL, parserPool);
+		options.put(XMIResource.OPTION_USE_XML_NAME_TO_FEATURE_MAP, nameToFeatureMap);
+		options.put(XMIResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
+		return options;
+	}
+
+	/**
+	 * Creates the options for saving <code>eObject</code>, taking a cached
+	 * lookup table from the pool of its package. The options must be released
+	 * with {@link #releaseSaveOptions(EObject, Map)} once saved.
+	 */
+	private static Map<String, Object> createSaveOptions(EObject eObject) {
+		List<Object> lookupTable = getLookupTablePool(eObject.eClass().getEPackage()).lookupTables.poll();
+		if (lookupTable == null) {
+			lookupTable = new ArrayList<Object>();
+		}
+		Map<String, Object> options = new HashMap<String, Object>();
+		options.put(XMIResource.OPTION_CONFIGURATION_CACHE, Boolean.TRUE);
+		options.put(XMIResource.OPTION_USE_CACHED_LOOKUP_TABLE, lookupTable);
+		options.put(XMIResource.OPTION_USE_ENCODED_ATTRIBUTE_STYLE, Boolean.FALSE);
+		options.put(XMIResource.OPTION_EXTENDED_META_DATA, Boolean.TRUE);
+		return options;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static void releaseSaveOptions(EObject eObject, Map<String, Object> options) {
+		List<Object> lookupTable = (List<Object>) options.get(XMIResource.OPTION_USE_CACHED_LOOKUP_TABLE);
+		getLookupTablePool(eObject.eClass().getEPackage()).lookupTables.offer(lookupTable);
+	}
+
+	private static LookupTablePool getLookupTablePool(EPackage ePackage) {
+		LookupTablePool pool = findLookupTablePool(ePackage);
+		if (pool == null) {
+			synchronized (ePackage) {
+				pool = findLookupTablePool(ePackage);
+				if (pool == null) {
+					pool = new LookupTablePool();
+					ePackage.eAdapters().add(pool);
+				}
+			}
+		}
+		return pool;
+	}
+
+	private static LookupTablePool findLookupTablePool(EPackage ePackage) {
+		EList<Adapter> adapters = ePackage.eAdapters();
+		for (int i = 0; i < adapters.size(); i++) {
+			Adapter adapter = adapters.get(i);
+			if (adapter instanceof LookupTablePool) {
+				return (LookupTablePool) adapter;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * The lookup tables cached by saves of objects of a package, attached to
+	 * the package as an adapter. A lookup table is not thread-safe, so each
+	 * save takes one from the pool and returns it when done; the pool holds
+	 * at most as many tables as there have been concurrent saves.
+	 */
+	private static class LookupTablePool extends AdapterImpl {
+
+		final Queue<List<Object>> lookupTables = new ConcurrentLinkedQueue<List<Object>>();
+
+		@Override
+		public boolean isAdapterForType(Object type) {
+			return type == LookupTablePool.class;
+		}
+	}
+
+	/**
+	 * An XML resource which saves an object in place. The object is not added
+	 * to the contents of the resource in the EMF sense, so it is neither copied
+	 * nor detached from its container or resource; references within its
+	 * containment tree are saved as fragments relative to the object.
+	 */
+	private static class InPlaceXMLResource extends XMLResourceImpl {
+
+		private final EObject root;
+
+		private final EList<EObject> contents;
+
+		InPlaceXMLResource(URI uri, EObject root) {
+			super(uri);
+			this.root = root;
+			contents = new BasicEList<EObject>(1);
+			contents.add(root);
+		}
+
+		@Override
+		public EList<EObject> getContents() {
+			return contents;
+		}
+
+		@Override
+		public String getURIFragment(EObject eObject) {
+			if (eObject == root) {
+				return "/";
+			}
+			List<String> segments = new ArrayList<String>();
+			InternalEObject internalEObject = (InternalEObject) eObject;
+			for (InternalEObject container = internalEObject.eInternalContainer(); container != null; container = internalEObject.eInternalContainer()) {
+				segments.add(container.eURIFragmentSegment(internalEObject.eContainingFeature(), internalEObject));
+				internalEObject = container;
+				if (container == root) {
+					StringBuilder fragment = new StringBuilder("/");
+					for (int i = segments.size() - 1; i >= 0; i--) {
+						fragment.append('/').append(segments.get(i));
+					}
+					return fragment.toString();
+				}
+			}
+			return super.getURIFragment(eObject);
+		}
+	}
+
+	/**
+	 * An input stream whose content is marshaled lazily on first read into a
+	 * single buffer. No thread is started: the first read marshals the whole
+	 * object on the reading thread and subsequent reads return the buffer in
+	 * place. A failure to marshal the object is thrown by the first read and
+	 * every read after it. Closing the stream releases the object and the
+	 * buffer.
+	 */
+	private static class MarshalingInputStream extends InputStream {
+
+		private EObject eObject;
+
+		private MarshalingBuffer buffer;
+
+		private int position;
+
+		private IOException failure;
+
+		private boolean closed;
+
+		MarshalingInputStream(EObject eObject) {
+			this.eObject = eObject;
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			fill();
+			if (position >= buffer.size()) {
+				return -1;
+			}
+			return buffer.bytes()[position++] & 0xff;
+		}
+
+		@Override
+		public synchronized int read(byte[] b, int off, int len) throws IOException {
+			if (off < 0 || len < 0 || len > b.length - off) {
+				throw new IndexOutOfBoundsException();
+			}
+			fill();
+			if (len == 0) {
+				return 0;
+			}
+			int n = Math.min(len, buffer.size() - position);
+			if (n <= 0) {
+				return -1;
+			}
+			System.arraycopy(buffer.bytes(), position, b, off, n);
+			position += n;
+			return n;
+		}
+
+		@Override
+		public synchronized long skip(long n) throws IOException {
+			fill();
+			long skipped = Math.max(0, Math.min(n, buffer.size() - position));
+			position += (int) skipped;
+			return skipped;
+		}
+
+		@Override
+		public synchronized int available() throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+			// Do not marshal just to answer how much can be read.
+			return buffer == null ? 0 : buffer.size() - position;
+		}
+
+		@Override
+		public synchronized void close() {
+			closed = true;
+			eObject = null;
+			buffer = null;
+		}
+
+		private void fill() throws IOException {
+			if (closed) {
+				throw new IOException("Stream closed");
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			if (buffer != null) {
+				return;
+			}
+			MarshalingBuffer content = new MarshalingBuffer();
+			try {
+				marshal(eObject, content);
+			} catch (IOException e) {
+				failure = e;
+			} catch (RuntimeException e) {
+				failure = new IOException(e);
+			}
+			eObject = null;
+			if (failure != null) {
+				throw failure;
+			}
+			buffer = content;
+		}
+	}
+
+	/**
+	 * A byte array output stream whose content can be read in place.
+	 */
+	private static class MarshalingBuffer extends ByteArrayOutputStream {
+
+		MarshalingBuffer() {
+			super(BUFFER_SIZE);
+		}
+
+		byte[] bytes() {
+			return buf;
+		}
+	}
+
 }